@@ -0,0 +1,207 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.citygml4j.builder.jaxb.JAXBBuilder;
+import org.citygml4j.factory.DimensionMismatchException;
+import org.citygml4j.factory.GMLGeometryFactory;
+import org.citygml4j.model.citygml.CityGML;
+import org.citygml4j.model.citygml.building.AbstractBoundarySurface;
+import org.citygml4j.model.citygml.building.BoundarySurfaceProperty;
+import org.citygml4j.model.citygml.building.Building;
+import org.citygml4j.model.citygml.building.GroundSurface;
+import org.citygml4j.model.citygml.building.RoofSurface;
+import org.citygml4j.model.citygml.building.WallSurface;
+import org.citygml4j.model.citygml.core.AbstractCityObject;
+import org.citygml4j.model.gml.geometry.aggregates.MultiSurface;
+import org.citygml4j.model.gml.geometry.aggregates.MultiSurfaceProperty;
+import org.citygml4j.model.gml.geometry.complexes.CompositeSurface;
+import org.citygml4j.model.gml.geometry.primitives.Polygon;
+import org.citygml4j.model.gml.geometry.primitives.Solid;
+import org.citygml4j.model.gml.geometry.primitives.SolidProperty;
+import org.citygml4j.model.gml.geometry.primitives.SurfaceProperty;
+import org.citygml4j.xml.io.CityGMLInputFactory;
+import org.citygml4j.xml.io.reader.CityGMLReadException;
+import org.citygml4j.xml.io.reader.CityGMLReader;
+import org.citygml4j.xml.io.reader.FeatureReadMode;
+
+public final class BenchmarkFixtures {
+	public static final String SAMPLE_FILE_PROPERTY = "citydb.benchmark.sample";
+	public static final String DEFAULT_SAMPLE_FILE = "samples/Potsdam/CityGML/Potsdam_LoD1/Potsdam_LoD1.gml";
+
+	private static final GMLGeometryFactory geometryFactory = new GMLGeometryFactory();
+
+	private BenchmarkFixtures() {
+		// just to thwart instantiation
+	}
+
+	public static File getSampleFile() {
+		return new File(System.getProperty(SAMPLE_FILE_PROPERTY, DEFAULT_SAMPLE_FILE));
+	}
+
+	public static List<AbstractCityObject> readSampleCityObjects(JAXBBuilder jaxbBuilder, int limit) throws CityGMLReadException {
+		File file = getSampleFile();
+		if (!file.exists())
+			throw new IllegalStateException("Sample file '" + file.getAbsolutePath() + "' does not exist.");
+
+		CityGMLInputFactory in = jaxbBuilder.createCityGMLInputFactory();
+		in.setProperty(CityGMLInputFactory.FEATURE_READ_MODE, FeatureReadMode.SPLIT_PER_COLLECTION_MEMBER);
+		in.setProperty(CityGMLInputFactory.FAIL_ON_MISSING_ADE_SCHEMA, false);
+
+		List<AbstractCityObject> cityObjects = new ArrayList<AbstractCityObject>();
+		CityGMLReader reader = in.createCityGMLReader(file);
+		try {
+			while (reader.hasNext() && cityObjects.size() < limit) {
+				CityGML cityGML = reader.nextFeature();
+				if (cityGML instanceof AbstractCityObject)
+					cityObjects.add((AbstractCityObject)cityGML);
+			}
+		} finally {
+			reader.close();
+		}
+
+		return cityObjects;
+	}
+
+	public static List<Building> createLoD2Buildings(int count, int walls) {
+		List<Building> buildings = new ArrayList<Building>(count);
+		int columns = (int)Math.ceil(Math.sqrt(count));
+
+		for (int i = 0; i < count; i++)
+			buildings.add(createLoD2Building(i, walls, (i % columns) * 50, (i / columns) * 50));
+
+		return buildings;
+	}
+
+	// creates a prismatic LoD2 building with a flat roof. the boundary surfaces carry
+	// the polygons, and the lod2Solid references them by xlink as real-world datasets do
+	public static Building createLoD2Building(int index, int walls, double x, double y) {
+		if (walls < 3)
+			throw new IllegalArgumentException("A building requires at least three walls.");
+
+		String gmlId = "BLDG_" + index;
+		double height = 8 + (index % 5) * 3;
+		double radius = 10;
+
+		double[][] footprint = new double[walls][];
+		for (int i = 0; i < walls; i++) {
+			double angle = 2 * Math.PI * i / walls;
+			footprint[i] = new double[]{ x + radius * Math.cos(angle), y + radius * Math.sin(angle) };
+		}
+
+		Building building = new Building();
+		building.setId(gmlId);
+
+		CompositeSurface shell = new CompositeSurface();
+
+		// ground surface is oriented downwards
+		double[] ground = new double[(walls + 1) * 3];
+		for (int i = 0, j = 0; i <= walls; i++) {
+			double[] point = footprint[(walls - i) % walls];
+			ground[j++] = point[0];
+			ground[j++] = point[1];
+			ground[j++] = 0;
+		}
+
+		addBoundarySurface(building, shell, new GroundSurface(), gmlId + "_GROUND", ground);
+
+		double[] roof = new double[(walls + 1) * 3];
+		for (int i = 0, j = 0; i <= walls; i++) {
+			double[] point = footprint[i % walls];
+			roof[j++] = point[0];
+			roof[j++] = point[1];
+			roof[j++] = height;
+		}
+
+		addBoundarySurface(building, shell, new RoofSurface(), gmlId + "_ROOF", roof);
+
+		for (int i = 0; i < walls; i++) {
+			double[] from = footprint[i];
+			double[] to = footprint[(i + 1) % walls];
+
+			double[] wall = new double[]{
+					from[0], from[1], 0,
+					to[0], to[1], 0,
+					to[0], to[1], height,
+					from[0], from[1], height,
+					from[0], from[1], 0
+			};
+
+			addBoundarySurface(building, shell, new WallSurface(), gmlId + "_WALL_" + i, wall);
+		}
+
+		Solid solid = new Solid();
+		solid.setId(gmlId + "_SOLID");
+		solid.setExterior(new SurfaceProperty(shell));
+		building.setLod2Solid(new SolidProperty(solid));
+
+		return building;
+	}
+
+	public static double[] createRing(int points, double x, double y, double z) {
+		if (points < 4)
+			throw new IllegalArgumentException("A linear ring requires at least four points.");
+
+		double[] coordinates = new double[points * 3];
+		int vertices = points - 1;
+
+		for (int i = 0, j = 0; i < vertices; i++) {
+			double angle = 2 * Math.PI * i / vertices;
+			coordinates[j++] = x + 10 * Math.cos(angle);
+			coordinates[j++] = y + 10 * Math.sin(angle);
+			coordinates[j++] = z + (i % 2) * 0.5;
+		}
+
+		// close the ring
+		coordinates[coordinates.length - 3] = coordinates[0];
+		coordinates[coordinates.length - 2] = coordinates[1];
+		coordinates[coordinates.length - 1] = coordinates[2];
+
+		return coordinates;
+	}
+
+	private static void addBoundarySurface(Building building, CompositeSurface shell, AbstractBoundarySurface boundarySurface, String polygonId, double[] coordinates) {
+		Polygon polygon = null;
+		try {
+			polygon = geometryFactory.createLinearPolygon(coordinates, 3);
+		} catch (DimensionMismatchException e) {
+			throw new IllegalArgumentException(e);
+		}
+
+		polygon.setId(polygonId);
+		boundarySurface.setId(polygonId + "_SURFACE");
+		boundarySurface.setLod2MultiSurface(new MultiSurfaceProperty(new MultiSurface(polygon)));
+		building.addBoundedBySurface(new BoundarySurfaceProperty(boundarySurface));
+		shell.addSurfaceMember(new SurfaceProperty("#" + polygonId));
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.citydb.api.concurrent.DefaultWorkerImpl;
+import org.citydb.api.concurrent.PoolSizeAdaptationStrategy;
+import org.citydb.api.concurrent.Worker;
+import org.citydb.api.concurrent.WorkerFactory;
+import org.citydb.api.concurrent.WorkerPool;
+import org.citydb.config.Config;
+import org.citydb.modules.citygml.exporter.util.FeatureProcessException;
+import org.citydb.modules.citygml.exporter.util.FeatureWriter;
+import org.citygml4j.builder.jaxb.JAXBBuilder;
+import org.citygml4j.model.citygml.core.AbstractCityObject;
+import org.citygml4j.util.xml.SAXEventBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// measures the JAXB marshalling of features into SAX event buffers. the
+// buffers are handed to a worker pool that simply discards them
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeatureWriterBenchmark {
+
+	// "lod2" uses synthetic LoD2 buildings, "sample" the LoD1 buildings of the
+	// sample dataset given by the system property citydb.benchmark.sample
+	@Param({"lod2", "sample"})
+	String fixture;
+
+	JAXBBuilder jaxbBuilder;
+	WorkerPool<SAXEventBuffer> ioWriterPool;
+	FeatureWriter featureWriter;
+	List<AbstractCityObject> cityObjects;
+	int index;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		jaxbBuilder = new JAXBBuilder();
+
+		if ("sample".equals(fixture))
+			cityObjects = BenchmarkFixtures.readSampleCityObjects(jaxbBuilder, 1000);
+		else
+			cityObjects = new ArrayList<AbstractCityObject>(BenchmarkFixtures.createLoD2Buildings(1000, 8));
+
+		ioWriterPool = new WorkerPool<SAXEventBuffer>(
+				"benchmark_writer_pool",
+				1,
+				1,
+				PoolSizeAdaptationStrategy.NONE,
+				new WorkerFactory<SAXEventBuffer>() {
+					@Override
+					public Worker<SAXEventBuffer> createWorker() {
+						return new DefaultWorkerImpl<SAXEventBuffer>() {
+							@Override
+							public void doWork(SAXEventBuffer work) {
+								// discard buffer
+							}
+
+							@Override
+							public void shutdown() {
+								// nothing to do
+							}
+						};
+					}
+				},
+				100,
+				false);
+
+		ioWriterPool.prestartCoreWorkers();
+		featureWriter = new FeatureWriter(ioWriterPool, jaxbBuilder, new Config());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		ioWriterPool.shutdownAndWait();
+	}
+
+	@Benchmark
+	public void process() throws FeatureProcessException {
+		featureWriter.process(cityObjects.get(index++ % cityObjects.size()));
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.benchmark;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.citydb.api.database.DatabaseGeometryConverter;
+import org.citydb.api.geometry.GeometryObject;
+import org.citydb.database.adapter.postgis.PostGISAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// measures the EWKT encoding of the PostGIS geometry converter. solids are
+// returned as plain EWKT, whereas polygons are additionally parsed into a PGgeometry
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeometryConverterBenchmark {
+
+	@Param({"5", "50", "500"})
+	int points;
+
+	DatabaseGeometryConverter converter;
+	GeometryObject polygon;
+	GeometryObject solid;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		converter = new PostGISAdapter().getGeometryConverter();
+
+		polygon = GeometryObject.createPolygon(BenchmarkFixtures.createRing(points, 0, 0, 0), 3, 25833);
+
+		// a solid made of six polygons with one exterior ring each
+		double[][] surfaces = new double[6][];
+		int[] exteriorRings = new int[6];
+		for (int i = 0; i < surfaces.length; i++) {
+			surfaces[i] = BenchmarkFixtures.createRing(points, i * 20, 0, 0);
+			exteriorRings[i] = i;
+		}
+
+		solid = GeometryObject.createSolid(surfaces, exteriorRings, 25833);
+	}
+
+	@Benchmark
+	public Object polygon() throws SQLException {
+		return converter.getDatabaseObject(polygon, null);
+	}
+
+	@Benchmark
+	public Object solid() throws SQLException {
+		return converter.getDatabaseObject(solid, null);
+	}
+
+}
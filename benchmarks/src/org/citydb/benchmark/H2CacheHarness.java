@@ -0,0 +1,79 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+
+import org.citydb.config.Config;
+import org.citydb.config.project.global.Cache;
+import org.citydb.config.project.global.CacheMode;
+import org.citydb.modules.citygml.common.database.cache.CacheTableManager;
+
+// sets up the import cache on a local H2 database so that the batching
+// paths of the importer can be measured without an external 3DCityDB
+public class H2CacheHarness {
+	private final Config config;
+	private final File cacheDir;
+	private CacheTableManager cacheTableManager;
+
+	public H2CacheHarness(int concurrencyLevel) throws SQLException, IOException {
+		cacheDir = File.createTempFile("citydb-benchmark", "");
+		if (!cacheDir.delete() || !cacheDir.mkdir())
+			throw new IOException("Failed to create cache directory '" + cacheDir.getAbsolutePath() + "'.");
+
+		config = new Config();
+		Cache cache = config.getProject().getGlobal().getCache();
+		cache.setCacheMode(CacheMode.LOCAL);
+		cache.setLocalCachePath(cacheDir.getAbsolutePath());
+
+		// the database connection pool is only used if the cache is kept in the database
+		cacheTableManager = new CacheTableManager(null, concurrencyLevel, config);
+	}
+
+	public Config getConfig() {
+		return config;
+	}
+
+	public CacheTableManager getCacheTableManager() {
+		return cacheTableManager;
+	}
+
+	public void close() throws SQLException {
+		if (cacheTableManager != null) {
+			try {
+				cacheTableManager.dropAll();
+			} finally {
+				cacheTableManager = null;
+				cacheDir.delete();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.citydb.modules.citygml.importer.util.LocalGeometryXlinkResolver;
+import org.citygml4j.model.citygml.building.Building;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// measures the resolving of local geometry xlinks of LoD2 buildings whose
+// lod2Solid references the polygons of the boundary surfaces
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LocalGeometryXlinkResolverBenchmark {
+	private static final int BUILDINGS = 100;
+
+	@Param({"4", "16", "64"})
+	int walls;
+
+	LocalGeometryXlinkResolver resolver;
+	List<Building> buildings;
+
+	@Setup(Level.Trial)
+	public void setupResolver() {
+		resolver = new LocalGeometryXlinkResolver();
+	}
+
+	// resolving replaces the xlinks, so every invocation needs fresh buildings
+	@Setup(Level.Invocation)
+	public void setupBuildings() {
+		buildings = BenchmarkFixtures.createLoD2Buildings(BUILDINGS, walls);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BUILDINGS)
+	public boolean resolveGeometryXlinks() {
+		boolean success = true;
+		for (Building building : buildings)
+			success &= resolver.resolveGeometryXlinks(building);
+
+		return success;
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.benchmark;
+
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.citydb.modules.citygml.common.database.uid.UIDCache;
+import org.citydb.modules.citygml.common.database.uid.UIDCacheEntry;
+import org.citydb.modules.citygml.common.database.uid.UIDCachingModel;
+import org.citydb.modules.citygml.importer.database.uid.FeatureGmlIdCache;
+import org.citygml4j.model.citygml.CityGMLClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class UIDCacheBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class CacheState {
+		// "memory" keeps all entries on the heap, "h2" uses a capacity small
+		// enough to force draining to and lookups from the H2 backup tables
+		@Param({"memory", "h2"})
+		String backend;
+
+		@Param({"100000"})
+		int keys;
+
+		String[] gmlIds;
+		UIDCache cache;
+		H2CacheHarness harness;
+		final AtomicInteger nextId = new AtomicInteger();
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			gmlIds = new String[keys];
+			for (int i = 0; i < keys; i++)
+				gmlIds[i] = "UUID_" + Integer.toHexString(i * 0x9E3779B1) + "_" + i;
+
+			if ("h2".equals(backend)) {
+				harness = new H2CacheHarness(4);
+				cache = new UIDCache(new FeatureGmlIdCache(harness.getCacheTableManager(), 10, 1000), keys / 10, .4f, 4);
+			} else
+				cache = new UIDCache(new InMemoryCachingModel(), keys * 2, .4f, 4);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws SQLException {
+			cache.shutdown();
+			if (harness != null)
+				harness.close();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class KeyState {
+		int index;
+	}
+
+	@Benchmark
+	public boolean lookupAndPut(CacheState cacheState, KeyState keyState) {
+		int index = keyState.index++ % cacheState.keys;
+		return cacheState.cache.lookupAndPut(cacheState.gmlIds[index], cacheState.nextId.incrementAndGet(), CityGMLClass.BUILDING);
+	}
+
+	private static final class InMemoryCachingModel implements UIDCachingModel {
+
+		@Override
+		public void drainToDB(ConcurrentHashMap<String, UIDCacheEntry> map, int drain) throws SQLException {
+			// nothing to do
+		}
+
+		@Override
+		public UIDCacheEntry lookupDB(String key) throws SQLException {
+			return null;
+		}
+
+		@Override
+		public String lookupDB(long id, CityGMLClass type) throws SQLException {
+			return null;
+		}
+
+		@Override
+		public void close() throws SQLException {
+			// nothing to do
+		}
+
+		@Override
+		public String getType() {
+			return "benchmark";
+		}
+	}
+
+}
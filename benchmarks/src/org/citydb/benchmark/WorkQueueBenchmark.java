@@ -0,0 +1,170 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.citydb.api.concurrent.DefaultWorkerImpl;
+import org.citydb.api.concurrent.PoolSizeAdaptationStrategy;
+import org.citydb.api.concurrent.WorkBatcher;
+import org.citydb.api.concurrent.WorkQueueType;
+import org.citydb.api.concurrent.Worker;
+import org.citydb.api.concurrent.WorkerFactory;
+import org.citydb.api.concurrent.WorkerPool;
+import org.citydb.api.concurrent.WorkerPool.RingBufferWorkQueue;
+import org.citydb.api.concurrent.WorkerPool.WorkQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkQueueBenchmark {
+	private static final Object WORK = new Object();
+
+	@State(Scope.Group)
+	public static class QueueState {
+		@Param({"16", "1024"})
+		int capacity;
+
+		@Param({"BLOCKING", "RING_BUFFER"})
+		WorkQueueType type;
+
+		WorkQueue<Object> workQueue;
+
+		@Setup(Level.Iteration)
+		public void setup() {
+			workQueue = type == WorkQueueType.RING_BUFFER ?
+					new RingBufferWorkQueue<Object>(capacity) :
+					new WorkQueue<Object>(capacity);
+		}
+	}
+
+	// producers and consumers use timed operations so that no thread
+	// is left blocked on the queue at the end of an iteration
+	@Benchmark
+	@Group("handoff")
+	@GroupThreads(4)
+	public boolean offer(QueueState state) throws InterruptedException {
+		return state.workQueue.offer(WORK, 1, TimeUnit.MILLISECONDS);
+	}
+
+	@Benchmark
+	@Group("handoff")
+	@GroupThreads(4)
+	public Object poll(QueueState state) throws InterruptedException {
+		return state.workQueue.poll(1, TimeUnit.MILLISECONDS);
+	}
+
+	@State(Scope.Benchmark)
+	public static class PoolState {
+		@Param({"4", "32"})
+		int threads;
+
+		@Param({"10000"})
+		int items;
+
+		@Param({"1", "32"})
+		int batchSize;
+
+		@Param({"BLOCKING", "RING_BUFFER"})
+		WorkQueueType type;
+
+		WorkerPool<Object> workerPool;
+		final AtomicLong processed = new AtomicLong();
+
+		@Setup(Level.Trial)
+		public void setup() {
+			workerPool = new WorkerPool<Object>(
+					"benchmark_pool",
+					threads,
+					threads,
+					PoolSizeAdaptationStrategy.NONE,
+					new WorkerFactory<Object>() {
+						@Override
+						public Worker<Object> createWorker() {
+							return new DefaultWorkerImpl<Object>() {
+								@Override
+								public void doWork(Object work) {
+									processed.incrementAndGet();
+								}
+
+								@Override
+								public void shutdown() {
+									// nothing to do
+								}
+							};
+						}
+					},
+					Math.max(threads, batchSize) * 2,
+					type);
+
+			workerPool.prestartCoreWorkers();
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws InterruptedException {
+			workerPool.shutdownAndWait();
+		}
+	}
+
+	// end-to-end hand-off of one batch of work items through a worker pool
+	// configured the same way as the import and export pools
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public long addWork(PoolState state) {
+		long target = state.processed.get() + state.items;
+		WorkBatcher<Object> batcher = new WorkBatcher<Object>(state.workerPool, state.batchSize);
+		for (int i = 0; i < state.items; i++)
+			batcher.addWork(WORK);
+
+		batcher.flush();
+
+		while (state.processed.get() < target)
+			Thread.yield();
+
+		return target;
+	}
+
+}
@@ -0,0 +1,202 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.citydb.config.Config;
+import org.citydb.modules.citygml.importer.util.XMLChunkFilter;
+import org.citydb.modules.common.filter.FilterMode;
+import org.citydb.modules.common.filter.ImportFilter;
+import org.citydb.modules.common.filter.feature.BoundingBoxFilter;
+import org.citygml4j.builder.jaxb.JAXBBuilder;
+import org.citygml4j.model.citygml.CityGMLClass;
+import org.citygml4j.model.gml.geometry.primitives.Envelope;
+import org.citygml4j.xml.io.CityGMLInputFactory;
+import org.citygml4j.xml.io.reader.CityGMLReader;
+import org.citygml4j.xml.io.reader.FeatureReadMode;
+import org.citygml4j.xml.io.reader.XMLChunk;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// measures the bounding box filter on raw XML chunks. the fixture alternates 
+// generic city objects with explicit geometry and city furniture with implicit 
+// geometry, whose local coordinates must not be mistaken for the feature extent
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class XMLChunkFilterBenchmark {
+	private static final String CITYGML = "http://www.opengis.net/citygml/2.0";
+
+	@Param({"1000"})
+	int features;
+
+	XMLChunkFilter chunkFilter;
+	CityGMLReader reader;
+	List<XMLChunk> chunks;
+	int index;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		// the bounding box filter is set up without a database connection
+		final Config config = new Config();
+		final BoundingBoxFilter boundingBoxFilter = new ContainFilter(config, 900, 900, 1100, 1100);
+
+		chunkFilter = new XMLChunkFilter(new ImportFilter(config) {
+			@Override
+			public BoundingBoxFilter getBoundingBoxFilter() {
+				return boundingBoxFilter;
+			}
+		});
+
+		// chunks refer to their reader, so it is kept open during the trial
+		reader = createReader(new JAXBBuilder(), createCityModel(features));
+		chunks = new ArrayList<XMLChunk>();
+		while (reader.hasNext()) {
+			XMLChunk chunk = reader.nextChunk();
+			if (chunk.getCityGMLClass() != CityGMLClass.CITY_MODEL)
+				chunks.add(chunk);
+		}
+
+		// generic city objects lie outside the bounding box and must be dropped, 
+		// whereas city furniture is placed at a reference point inside of it
+		for (int i = 0; i < chunks.size(); i++) {
+			if (chunkFilter.filter(chunks.get(i)) != (i % 2 == 0))
+				throw new IllegalStateException("Wrong filter result for the " + (i % 2 == 0 ? "generic city object" : "city furniture") + " at index " + i + ".");
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		reader.close();
+	}
+
+	@Benchmark
+	public boolean filter() {
+		if (index == chunks.size())
+			index = 0;
+
+		return chunkFilter.filter(chunks.get(index++));
+	}
+
+	// contain mode of the bounding box filter for a fixed bounding box
+	private static final class ContainFilter extends BoundingBoxFilter {
+		private final double minX, minY, maxX, maxY;
+
+		private ContainFilter(Config config, double minX, double minY, double maxX, double maxY) {
+			super(config, FilterMode.IMPORT);
+			this.minX = minX;
+			this.minY = minY;
+			this.maxX = maxX;
+			this.maxY = maxY;
+		}
+
+		@Override
+		public boolean isActive() {
+			return true;
+		}
+
+		@Override
+		public boolean filter(Envelope envelope) {
+			List<Double> lowerCorner = envelope.getLowerCorner().getValue();
+			List<Double> upperCorner = envelope.getUpperCorner().getValue();
+
+			return lowerCorner.get(0) < minX || lowerCorner.get(1) < minY 
+					|| upperCorner.get(0) > maxX || upperCorner.get(1) > maxY;
+		}
+	}
+
+	private CityGMLReader createReader(JAXBBuilder jaxbBuilder, String cityModel) throws Exception {
+		CityGMLInputFactory in = jaxbBuilder.createCityGMLInputFactory();
+		in.setProperty(CityGMLInputFactory.FEATURE_READ_MODE, FeatureReadMode.SPLIT_PER_COLLECTION_MEMBER);
+		in.setProperty(CityGMLInputFactory.FAIL_ON_MISSING_ADE_SCHEMA, false);
+		in.setProperty(CityGMLInputFactory.PARSE_SCHEMA, false);
+
+		return in.createCityGMLReader("fixture", new ByteArrayInputStream(cityModel.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private String createCityModel(int features) {
+		StringBuilder xml = new StringBuilder()
+		.append("<core:CityModel xmlns:core=\"").append(CITYGML).append("\"")
+		.append(" xmlns:gml=\"http://www.opengis.net/gml\"")
+		.append(" xmlns:gen=\"http://www.opengis.net/citygml/generics/2.0\"")
+		.append(" xmlns:frn=\"http://www.opengis.net/citygml/cityfurniture/2.0\">");
+
+		for (int i = 0; i < features; i++) {
+			xml.append("<core:cityObjectMember>");
+
+			if (i % 2 == 0) {
+				xml.append("<gen:GenericCityObject gml:id=\"GEN_").append(i).append("\">")
+				.append("<gen:lod1Geometry>").append(createSurface(i * 10, 0)).append("</gen:lod1Geometry>")
+				.append("</gen:GenericCityObject>");
+			} else {
+				xml.append("<frn:CityFurniture gml:id=\"FRN_").append(i).append("\">")
+				.append("<frn:lod2ImplicitRepresentation><core:ImplicitGeometry>")
+				.append("<core:transformationMatrix>1 0 0 0 0 1 0 0 0 0 1 0 0 0 0 1</core:transformationMatrix>")
+				.append("<core:relativeGMLGeometry>").append(createSurface(0, 0)).append("</core:relativeGMLGeometry>")
+				.append("<core:referencePoint><gml:Point><gml:pos srsDimension=\"3\">1000 1000 0</gml:pos></gml:Point></core:referencePoint>")
+				.append("</core:ImplicitGeometry></frn:lod2ImplicitRepresentation>")
+				.append("</frn:CityFurniture>");
+			}
+
+			xml.append("</core:cityObjectMember>");
+		}
+
+		return xml.append("</core:CityModel>").toString();
+	}
+
+	private String createSurface(double x, double y) {
+		StringBuilder posList = new StringBuilder();
+		double[] ring = BenchmarkFixtures.createRing(16, x, y, 0);
+		for (int i = 0; i < ring.length; i++)
+			posList.append(i > 0 ? " " : "").append(ring[i]);
+
+		return "<gml:MultiSurface><gml:surfaceMember><gml:Polygon><gml:exterior><gml:LinearRing>"
+				+ "<gml:posList srsDimension=\"3\">" + posList + "</gml:posList>"
+				+ "</gml:LinearRing></gml:exterior></gml:Polygon></gml:surfaceMember></gml:MultiSurface>";
+	}
+
+}
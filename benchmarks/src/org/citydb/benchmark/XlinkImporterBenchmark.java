@@ -0,0 +1,109 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.benchmark;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.citydb.api.event.EventDispatcher;
+import org.citydb.database.TableEnum;
+import org.citydb.modules.citygml.common.database.xlink.DBXlinkBasic;
+import org.citydb.modules.citygml.common.database.xlink.DBXlinkSurfaceGeometry;
+import org.citydb.modules.citygml.importer.database.xlink.importer.DBXlinkImporterBasic;
+import org.citydb.modules.citygml.importer.database.xlink.importer.DBXlinkImporterEnum;
+import org.citydb.modules.citygml.importer.database.xlink.importer.DBXlinkImporterManager;
+import org.citydb.modules.citygml.importer.database.xlink.importer.DBXlinkImporterSurfaceGeometry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// measures the batched inserts of the xlink importers into H2 cache tables
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XlinkImporterBenchmark {
+	private static final int XLINKS = 10000;
+
+	@Param({"BASIC", "SURFACE_GEOMETRY"})
+	String xlinkType;
+
+	H2CacheHarness harness;
+	EventDispatcher eventDispatcher;
+	DBXlinkImporterManager xlinkImporterManager;
+	DBXlinkImporterBasic basicImporter;
+	DBXlinkImporterSurfaceGeometry surfaceGeometryImporter;
+	long id;
+
+	@Setup(Level.Iteration)
+	public void setup() throws Exception {
+		harness = new H2CacheHarness(1);
+		eventDispatcher = new EventDispatcher();
+		xlinkImporterManager = new DBXlinkImporterManager(harness.getCacheTableManager(), eventDispatcher);
+
+		if ("BASIC".equals(xlinkType))
+			basicImporter = (DBXlinkImporterBasic)xlinkImporterManager.getDBImporterXlink(DBXlinkImporterEnum.XLINK_BASIC);
+		else
+			surfaceGeometryImporter = (DBXlinkImporterSurfaceGeometry)xlinkImporterManager.getDBImporterXlink(DBXlinkImporterEnum.SURFACE_GEOMETRY);
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() throws Exception {
+		xlinkImporterManager.close();
+		harness.close();
+		eventDispatcher.shutdownNow();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(XLINKS)
+	public void insertAndExecuteBatch() throws SQLException {
+		if (basicImporter != null) {
+			for (int i = 0; i < XLINKS; i++, id++)
+				basicImporter.insert(new DBXlinkBasic(id, TableEnum.ADDRESS_TO_BUILDING, "ADDRESS_" + id, TableEnum.ADDRESS));
+		} else {
+			for (int i = 0; i < XLINKS; i++, id++)
+				surfaceGeometryImporter.insert(new DBXlinkSurfaceGeometry(id, id - 1, id - i, false, "POLY_" + id, id / 10));
+		}
+
+		xlinkImporterManager.executeBatch();
+	}
+
+}
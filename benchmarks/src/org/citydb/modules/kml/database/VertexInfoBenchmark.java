@@ -0,0 +1,140 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.database;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.citydb.benchmark.BenchmarkFixtures;
+import org.citydb.config.Config;
+import org.citydb.config.project.kmlExporter.Balloon;
+import org.citydb.config.project.kmlExporter.ColladaOptions;
+import org.citydb.config.project.kmlExporter.DisplayForm;
+import org.citydb.database.DatabaseMetaDataImpl;
+import org.citydb.database.adapter.postgis.PostGISAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// measures the vertex welding of KmlGenericObject. this benchmark lives in the
+// package of KmlGenericObject because setVertexInfoForXYZ is not public
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VertexInfoBenchmark {
+	private static final int SURFACES = 200;
+
+	@Param({"5", "50"})
+	int points;
+
+	PostGISAdapter databaseAdapter;
+	Config config;
+	double[][] surfaces;
+	KmlGenericObject kmlGenericObject;
+
+	@Setup(Level.Trial)
+	public void setupFixtures() {
+		databaseAdapter = new PostGISAdapter();
+		databaseAdapter.setConnectionMetaData(new DatabaseMetaDataImpl());
+		config = new Config();
+
+		// neighbouring surfaces share vertices just like the walls of a building
+		surfaces = new double[SURFACES][];
+		for (int i = 0; i < SURFACES; i++)
+			surfaces[i] = BenchmarkFixtures.createRing(points, (i / 2) * 20, 0, 0);
+	}
+
+	@Setup(Level.Invocation)
+	public void setupObject() {
+		kmlGenericObject = new BenchmarkObject(databaseAdapter, config);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SURFACES)
+	public VertexInfo setVertexInfoForXYZ() {
+		VertexInfo vertexInfo = null;
+		for (int i = 0; i < surfaces.length; i++) {
+			double[] coordinates = surfaces[i];
+			for (int j = 0; j < coordinates.length - 3; j += 3)
+				vertexInfo = kmlGenericObject.setVertexInfoForXYZ(i, coordinates[j], coordinates[j + 1], coordinates[j + 2]);
+		}
+
+		return vertexInfo;
+	}
+
+	private static final class BenchmarkObject extends KmlGenericObject {
+
+		BenchmarkObject(PostGISAdapter databaseAdapter, Config config) {
+			super(null, null, null, databaseAdapter, null, null, null, null, config);
+		}
+
+		@Override
+		public void read(KmlSplittingResult work) {
+			// nothing to do
+		}
+
+		@Override
+		public String getStyleBasisName() {
+			return "Benchmark";
+		}
+
+		@Override
+		public ColladaOptions getColladaOptions() {
+			return null;
+		}
+
+		@Override
+		public Balloon getBalloonSettings() {
+			return null;
+		}
+
+		@Override
+		protected List<DisplayForm> getDisplayForms() {
+			return null;
+		}
+
+		@Override
+		protected String getHighlightingQuery() {
+			return null;
+		}
+	}
+
+}
@@ -61,6 +61,7 @@ import org.citydb.config.internal.Internal;
 import org.citydb.config.language.Language;
 import org.citydb.config.project.Project;
 import org.citydb.config.project.global.LanguageType;
+import org.citydb.config.project.global.LogOverflowPolicy;
 import org.citydb.config.project.global.Logging;
 import org.citydb.database.DatabaseControllerImpl;
 import org.citydb.gui.ImpExpGui;
@@ -110,6 +111,9 @@ public class ImpExp {
 	@Option(name="-kmlExport", usage="export KML/COLLADA/glTF data to this file\n(shell version only)", metaVar="fileName")
 	private String kmlExportFile;
 
+	@Option(name="-delete", usage="delete the city objects matching the export filter\nsettings of the config file\n(shell version only)")
+	private boolean delete;
+
 	@Option(name="-testConnection", usage="test whether a database connection can be established")
 	private boolean testConnection;
 
@@ -177,17 +181,19 @@ public class ImpExp {
 				++commands;
 			if (kmlExportFile != null)
 				++commands;
+			if (delete)
+				++commands;
 			if (testConnection)
 				++commands;
 
 			if (commands == 0) {
-				System.out.println("Choose either command \"-import\", \"-export\", \"-kmlExport\", \"-validate\" or \"testConnection\" for shell version");
+				System.out.println("Choose either command \"-import\", \"-export\", \"-kmlExport\", \"-delete\", \"-validate\" or \"testConnection\" for shell version");
 				printUsage(parser, System.out);
 				System.exit(1);
 			}
 
 			if (commands > 1) {
-				System.out.println("Commands \"-import\", \"-export\", \"-kmlExport\", \"-validate\" and \"testConnection\" may not be mixed");
+				System.out.println("Commands \"-import\", \"-export\", \"-kmlExport\", \"-delete\", \"-validate\" and \"testConnection\" may not be mixed");
 				printUsage(parser, System.out);
 				System.exit(1);
 			}
@@ -410,6 +416,12 @@ public class ImpExp {
 		// init logging environment
 		Logging logging = config.getProject().getGlobal().getLogging();
 		LOG.setDefaultConsoleLogLevel(logging.getConsole().getLogLevel());
+		if (logging.getQueue().isSet()) {
+			LOG.enableAsynchronousLogging(logging.getQueue().getSize(), 
+					logging.getQueue().getOverflowPolicy() == LogOverflowPolicy.DROP, 
+					logging.getQueue().getFlushInterval());
+		}
+
 		if (logging.getFile().isSet()) {
 			LOG.setDefaultFileLogLevel(logging.getFile().getLogLevel());
 
@@ -539,6 +551,8 @@ public class ImpExp {
 			} else if (kmlExportFile != null) {
 				config.getInternal().setExportFileName(kmlExportFile);
 				cmd.doKmlExport();
+			} else if (delete) {
+				cmd.doDelete();
 			} else if (testConnection) {
 				boolean success = cmd.doTestConnection();
 				if (!success)
@@ -0,0 +1,84 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.api.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// collects work items of a single producer thread and hands them over
+// to the worker pool in batches. Instances must not be shared between threads.
+public class WorkBatcher<T> {
+	private final WorkerPool<T> workerPool;
+	private final int batchSize;
+	private final List<T> batch;
+
+	public WorkBatcher(WorkerPool<T> workerPool, int batchSize) {
+		if (workerPool == null)
+			throw new IllegalArgumentException("WorkerPool may not be null.");
+
+		if (batchSize <= 0)
+			throw new IllegalArgumentException("Batch size must be greater than zero.");
+
+		this.workerPool = workerPool;
+		this.batchSize = batchSize;
+		batch = new ArrayList<T>(batchSize);
+	}
+
+	public void addWork(T work) {
+		if (work == null)
+			throw new NullPointerException();
+
+		if (batchSize == 1) {
+			workerPool.addWork(work);
+			return;
+		}
+
+		batch.add(work);
+		if (batch.size() == batchSize)
+			flush();
+	}
+
+	public void flush() {
+		if (batch.isEmpty())
+			return;
+
+		try {
+			workerPool.addWorkBatch(batch);
+		} finally {
+			batch.clear();
+		}
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public WorkerPool<T> getWorkerPool() {
+		return workerPool;
+	}
+}
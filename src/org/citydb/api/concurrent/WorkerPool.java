@@ -34,6 +34,10 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -71,35 +75,74 @@ public class WorkerPool<T> {
 	private Object eventSource;
 
 	// WorkQueue
-	public static final class WorkQueue<E> {
-		private final ReentrantLock lock;
-		private final Condition notEmpty;
-		private final Condition notFull;
-		private final Condition empty;
-		private final Condition flushed;
+	public static class WorkQueue<E> {
+		final ReentrantLock lock;
+		final Condition notEmpty;
+		final Condition notFull;
+		final Condition empty;
+		final Condition flushed;
 
 		private final E[] workItems;
 		private int putIndex;
 		private int takeIndex;
 		private int count;
-		private volatile boolean blockAndFlush;
+		volatile boolean blockAndFlush;
+		volatile int emptyWaiters;
 
 		public WorkQueue(int capacity) {
 			this(capacity, false);
 		}
 
-		@SuppressWarnings("unchecked")
 		public WorkQueue(int capacity, boolean fair) {
+			this(WorkQueue.<E>createWorkItems(capacity), fair);
+		}
+
+		// subclasses keeping their own storage pass null work items
+		WorkQueue(E[] workItems, boolean fair) {
 			lock = new ReentrantLock(fair);
 			notEmpty = lock.newCondition();
 			notFull = lock.newCondition();
 			empty = lock.newCondition();
 			flushed = lock.newCondition();
+			this.workItems = workItems;
+		}
 
+		@SuppressWarnings("unchecked")
+		private static <E> E[] createWorkItems(int capacity) {
 			if (capacity <= 0)
 				throw new IllegalArgumentException();
 
-			workItems = (E[]) new Object[capacity];
+			return (E[]) new Object[capacity];
+		}
+
+		// the caller must hold the queue lock
+		void awaitEmpty() throws InterruptedException {
+			++emptyWaiters;
+			try {
+				while (!isEmpty())
+					empty.await();
+			} finally {
+				--emptyWaiters;
+			}
+		}
+
+		// called by join() while holding the queue lock after blockAndFlush
+		// has been set. Producers of this queue check blockAndFlush under the
+		// queue lock, so nothing can be added afterwards.
+		void awaitProducers() throws InterruptedException {
+		}
+
+		static void checkRange(List<?> workList, int fromIndex, int toIndex) {
+			if (workList == null)
+				throw new NullPointerException();
+
+			if (fromIndex < 0 || toIndex > workList.size() || fromIndex > toIndex)
+				throw new IndexOutOfBoundsException();
+
+			for (int i = fromIndex; i < toIndex; i++) {
+				if (workList.get(i) == null)
+					throw new NullPointerException();
+			}
 		}
 
 		final int inc(int i) {
@@ -223,6 +266,47 @@ public class WorkerPool<T> {
 			}
 		}
 
+		public int offerAll(List<? extends E> workList, int fromIndex, int toIndex) {
+			checkRange(workList, fromIndex, toIndex);
+
+			final E[] workItems = this.workItems;
+			final ReentrantLock lock = this.lock;
+			lock.lock();
+			try {
+				if (blockAndFlush)
+					flushed.awaitUninterruptibly();
+
+				int n = 0;
+				for (int i = fromIndex; i < toIndex && count != workItems.length; i++, n++)
+					insert(workList.get(i));
+
+				return n;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		public void putAll(List<? extends E> workList, int fromIndex, int toIndex) {
+			checkRange(workList, fromIndex, toIndex);
+
+			final E[] workItems = this.workItems;
+			final ReentrantLock lock = this.lock;
+			lock.lock();
+			try {
+				if (blockAndFlush)
+					flushed.awaitUninterruptibly();
+
+				for (int i = fromIndex; i < toIndex; i++) {
+					while (count == workItems.length)
+						notFull.awaitUninterruptibly();
+
+					insert(workList.get(i));
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+
 		public E poll() {
 			final ReentrantLock lock = this.lock;
 			lock.lock();
@@ -401,6 +485,446 @@ public class WorkerPool<T> {
 		}
 	}
 
+	// lock-free bounded MPMC ring buffer. Producers and consumers only
+	// fall back to the queue lock when they have to wait.
+	public static final class RingBufferWorkQueue<E> extends WorkQueue<E> {
+		// marks removed work items, which keep their slot until a consumer passes it
+		private static final Object REMOVED = new Object();
+
+		private final AtomicReferenceArray<Object> workItems;
+		private final AtomicLongArray sequences;
+		private final AtomicLong putIndex = new AtomicLong();
+		private final AtomicLong takeIndex = new AtomicLong();
+		private final int capacity;
+		private final int mask;
+
+		// producers currently adding work items. join() waits for them to
+		// finish so that blockAndFlush takes effect atomically with enqueuing.
+		private final AtomicInteger producers = new AtomicInteger();
+
+		// only modified while holding the queue lock
+		private volatile int takeWaiters;
+		private volatile int putWaiters;
+
+		public RingBufferWorkQueue(int capacity) {
+			super(null, false);
+
+			if (capacity <= 0)
+				throw new IllegalArgumentException();
+
+			int size = 2;
+			while (size < capacity)
+				size <<= 1;
+
+			this.capacity = size;
+			mask = size - 1;
+			workItems = new AtomicReferenceArray<Object>(size);
+			sequences = new AtomicLongArray(size);
+			for (int i = 0; i < size; i++)
+				sequences.set(i, i);
+		}
+
+		private boolean enqueue(E work) {
+			for (;;) {
+				long pos = putIndex.get();
+				int index = (int)pos & mask;
+				long diff = sequences.get(index) - pos;
+
+				if (diff == 0) {
+					if (putIndex.compareAndSet(pos, pos + 1)) {
+						workItems.lazySet(index, work);
+						sequences.set(index, pos + 1);
+						return true;
+					}
+				} else if (diff < 0)
+					return false;
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private E dequeue() {
+			boolean skipped = false;
+
+			for (;;) {
+				long pos = takeIndex.get();
+				int index = (int)pos & mask;
+				long diff = sequences.get(index) - (pos + 1);
+
+				if (diff == 0) {
+					if (takeIndex.compareAndSet(pos, pos + 1)) {
+						// getAndSet competes with remove() for the work item
+						Object work = workItems.getAndSet(index, null);
+						sequences.set(index, pos + capacity);
+
+						if (work != REMOVED) {
+							if (skipped)
+								signalTaken(true);
+
+							return (E)work;
+						}
+
+						skipped = true;
+					}
+				} else if (diff < 0) {
+					if (skipped)
+						signalTaken(true);
+
+					return null;
+				}
+			}
+		}
+
+		private void awaitFlushed() {
+			final ReentrantLock lock = this.lock;
+			lock.lock();
+			try {
+				while (blockAndFlush)
+					flushed.awaitUninterruptibly();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private void beginPut() {
+			for (;;) {
+				if (blockAndFlush)
+					awaitFlushed();
+
+				producers.incrementAndGet();
+				if (!blockAndFlush)
+					return;
+
+				// join() started in between, so back off and wait for it
+				endPut();
+			}
+		}
+
+		private void endPut() {
+			if (producers.decrementAndGet() == 0 && blockAndFlush) {
+				final ReentrantLock lock = this.lock;
+				lock.lock();
+				try {
+					empty.signalAll();
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+
+		@Override
+		void awaitProducers() throws InterruptedException {
+			++emptyWaiters;
+			try {
+				while (producers.get() > 0)
+					empty.await();
+			} finally {
+				--emptyWaiters;
+			}
+		}
+
+		private void signalNotEmpty(int n) {
+			if (takeWaiters > 0) {
+				final ReentrantLock lock = this.lock;
+				lock.lock();
+				try {
+					for (int i = Math.min(n, takeWaiters); i > 0; i--)
+						notEmpty.signal();
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+
+		private void signalTaken(boolean all) {
+			if (putWaiters > 0 || (emptyWaiters > 0 && isEmpty())) {
+				final ReentrantLock lock = this.lock;
+				lock.lock();
+				try {
+					if (all)
+						notFull.signalAll();
+					else
+						notFull.signal();
+
+					if (isEmpty())
+						empty.signalAll();
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+
+		private void awaitNotFull(E work) {
+			final ReentrantLock lock = this.lock;
+			lock.lock();
+			try {
+				++putWaiters;
+				try {
+					while (!enqueue(work))
+						notFull.awaitUninterruptibly();
+				} finally {
+					--putWaiters;
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		public boolean offer(E work) {
+			if (work == null)
+				throw new NullPointerException();
+
+			beginPut();
+			try {
+				if (!enqueue(work))
+					return false;
+			} finally {
+				endPut();
+			}
+
+			signalNotEmpty(1);
+			return true;
+		}
+
+		public boolean offer(E work, long timeout, TimeUnit unit) throws InterruptedException {
+			if (work == null)
+				throw new NullPointerException();
+
+			beginPut();
+			try {
+				if (!enqueue(work)) {
+					long nanos = unit.toNanos(timeout);
+					final ReentrantLock lock = this.lock;
+					lock.lockInterruptibly();
+					try {
+						++putWaiters;
+						try {
+							while (!enqueue(work)) {
+								if (nanos <= 0)
+									return false;
+
+								nanos = notFull.awaitNanos(nanos);
+							}
+						} catch (InterruptedException ie) {
+							notFull.signal();
+							throw ie;
+						} finally {
+							--putWaiters;
+						}
+					} finally {
+						lock.unlock();
+					}
+				}
+			} finally {
+				endPut();
+			}
+
+			signalNotEmpty(1);
+			return true;
+		}
+
+		public void put(E work) {
+			if (work == null)
+				throw new NullPointerException();
+
+			beginPut();
+			try {
+				if (!enqueue(work))
+					awaitNotFull(work);
+			} finally {
+				endPut();
+			}
+
+			signalNotEmpty(1);
+		}
+
+		public int offerAll(List<? extends E> workList, int fromIndex, int toIndex) {
+			checkRange(workList, fromIndex, toIndex);
+
+			int n = 0;
+			beginPut();
+			try {
+				for (int i = fromIndex; i < toIndex && enqueue(workList.get(i)); i++)
+					++n;
+			} finally {
+				endPut();
+			}
+
+			if (n > 0)
+				signalNotEmpty(n);
+
+			return n;
+		}
+
+		public void putAll(List<? extends E> workList, int fromIndex, int toIndex) {
+			checkRange(workList, fromIndex, toIndex);
+
+			int n = 0;
+			beginPut();
+			try {
+				for (int i = fromIndex; i < toIndex; i++) {
+					E work = workList.get(i);
+					if (!enqueue(work)) {
+						// wake up consumers before waiting for free slots
+						if (n > 0)
+							signalNotEmpty(n);
+
+						awaitNotFull(work);
+						n = 0;
+					}
+
+					++n;
+				}
+			} finally {
+				endPut();
+			}
+
+			if (n > 0)
+				signalNotEmpty(n);
+		}
+
+		public E poll() {
+			E work = dequeue();
+			if (work != null)
+				signalTaken(false);
+
+			return work;
+		}
+
+		public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+			E work = dequeue();
+
+			if (work == null) {
+				long nanos = unit.toNanos(timeout);
+				final ReentrantLock lock = this.lock;
+				lock.lockInterruptibly();
+				try {
+					++takeWaiters;
+					try {
+						while ((work = dequeue()) == null) {
+							if (nanos <= 0)
+								return null;
+
+							nanos = notEmpty.awaitNanos(nanos);
+						}
+					} catch (InterruptedException ie) {
+						notEmpty.signal();
+						throw ie;
+					} finally {
+						--takeWaiters;
+					}
+				} finally {
+					lock.unlock();
+				}
+			}
+
+			signalTaken(false);
+			return work;
+		}
+
+		public E take() throws InterruptedException {
+			E work = dequeue();
+
+			if (work == null) {
+				final ReentrantLock lock = this.lock;
+				lock.lockInterruptibly();
+				try {
+					++takeWaiters;
+					try {
+						while ((work = dequeue()) == null)
+							notEmpty.await();
+					} catch (InterruptedException ie) {
+						notEmpty.signal();
+						throw ie;
+					} finally {
+						--takeWaiters;
+					}
+				} finally {
+					lock.unlock();
+				}
+			}
+
+			signalTaken(false);
+			return work;
+		}
+
+		@SuppressWarnings("unchecked")
+		public E peek() {
+			long putPos = putIndex.get();
+			for (long pos = takeIndex.get(); pos < putPos; pos++) {
+				int index = (int)pos & mask;
+				long diff = sequences.get(index) - (pos + 1);
+				if (diff < 0)
+					return null;
+
+				if (diff == 0) {
+					Object work = workItems.get(index);
+					if (work != null && work != REMOVED)
+						return (E)work;
+				}
+			}
+
+			return null;
+		}
+
+		public boolean remove(E work) {
+			if (work == null)
+				return false;
+
+			long putPos = putIndex.get();
+			for (long pos = takeIndex.get(); pos < putPos; pos++) {
+				int index = (int)pos & mask;
+				if (sequences.get(index) != pos + 1)
+					continue;
+
+				Object item = workItems.get(index);
+				if (item != REMOVED && work.equals(item) && workItems.compareAndSet(index, item, REMOVED))
+					return true;
+			}
+
+			return false;
+		}
+
+		public int size() {
+			long take = takeIndex.get();
+			long size = putIndex.get() - take;
+			return (int)Math.max(0, Math.min(size, capacity));
+		}
+
+		public int remainingCapacity() {
+			return capacity - size();
+		}
+
+		public boolean isEmpty() {
+			return size() == 0;
+		}
+
+		public void clear() {
+			int n = 0;
+			while (dequeue() != null)
+				++n;
+
+			if (n > 0)
+				signalTaken(true);
+		}
+
+		public int drainTo(Collection<? super E> collection) {
+			if (collection == null)
+				throw new NullPointerException();
+
+			int n = 0;
+			E work;
+			while ((work = dequeue()) != null) {
+				collection.add(work);
+				++n;
+			}
+
+			if (n > 0)
+				signalTaken(true);
+
+			return n;
+		}
+	}
+
 	// WorkerPool
 	public WorkerPool(String poolName,
 			int corePoolSize,
@@ -409,7 +933,8 @@ public class WorkerPool<T> {
 			WorkerFactory<T> workerFactory,
 			int queueSize,
 			boolean fair,
-			boolean daemon) {
+			boolean daemon,
+			WorkQueueType workQueueType) {
 		if (corePoolSize <= 0)
 			throw new IllegalArgumentException("Core pool size must be greater than zero.");
 		
@@ -427,14 +952,40 @@ public class WorkerPool<T> {
 		this.workerFactory = workerFactory;
 		this.defaultClassLoader = Thread.currentThread().getContextClassLoader();
 
-		// setting up work queue and workers map
+		// setting up work queue and workers map. The importer and exporter pass
+		// the queue type of the default pool config to all of their pools
 		this.queueSize = queueSize;
-		workQueue = new WorkQueue<T>(queueSize, fair);
+		if (workQueueType == WorkQueueType.RING_BUFFER)
+			workQueue = new RingBufferWorkQueue<T>(queueSize);
+		else
+			workQueue = new WorkQueue<T>(queueSize, fair);
+
 		workers = new ConcurrentHashMap<Worker<T>, Object>(maximumPoolSize);
 
 		log = ObjectRegistry.getInstance().getLogController();
 	}
 
+	public WorkerPool(String poolName,
+			int corePoolSize,
+			int maximumPoolSize,
+			PoolSizeAdaptationStrategy adaptationStrategy,
+			WorkerFactory<T> workerFactory,
+			int queueSize,
+			boolean fair,
+			boolean daemon) {
+		this(poolName, corePoolSize, maximumPoolSize, adaptationStrategy, workerFactory, queueSize, fair, daemon, WorkQueueType.BLOCKING);
+	}
+
+	public WorkerPool(String poolName,
+			int corePoolSize,
+			int maximumPoolSize,
+			PoolSizeAdaptationStrategy adaptationStrategy,
+			WorkerFactory<T> workerFactory,
+			int queueSize,
+			WorkQueueType workQueueType) {
+		this(poolName, corePoolSize, maximumPoolSize, adaptationStrategy, workerFactory, queueSize, false, true, workQueueType);
+	}
+
 	public WorkerPool(String poolName,
 			int corePoolSize,
 			int maximumPoolSize,
@@ -583,6 +1134,34 @@ public class WorkerPool<T> {
 		}
 	}
 
+	public void addWorkBatch(List<? extends T> workList) {
+		if (workList == null)
+			throw new NullPointerException();
+
+		int size = workList.size();
+		for (int i = 0; i < size; i++) {
+			if (workList.get(i) == null)
+				throw new NullPointerException();
+		}
+
+		// hand the first work items to newly created core workers
+		int index = 0;
+		while (index < size && poolSize < corePoolSize && addIfUnderCorePoolSize(workList.get(index)))
+			++index;
+
+		if (index == size || runState != RUNNING)
+			return;
+
+		index += workQueue.offerAll(workList, index, size);
+
+		// the queue is full, so try and create additional workers
+		while (index < size && addIfUnderMaximumPoolSize(workList.get(index)))
+			++index;
+
+		if (index < size && runState == RUNNING)
+			workQueue.putAll(workList, index, size);
+	}
+
 	public void addWorkAndWait(T work) {
 		if (work == null)
 			throw new NullPointerException();
@@ -594,8 +1173,7 @@ public class WorkerPool<T> {
 			addWork(work);
 			queueLock.lock();
 			try {
-				while(!workQueue.isEmpty())
-					workQueue.empty.await();
+				workQueue.awaitEmpty();
 			} catch (InterruptedException ie) {
 				// re-try
 			}
@@ -648,9 +1226,7 @@ public class WorkerPool<T> {
 
 			queueLock.lock();
 			try {
-				while (!workQueue.isEmpty())
-					workQueue.empty.await();
-
+				workQueue.awaitEmpty();
 			} catch (InterruptedException ie) {
 				// re-try
 			}
@@ -680,9 +1256,7 @@ public class WorkerPool<T> {
 
 			queueLock.lock();
 			try {
-				while (!workQueue.isEmpty())
-					workQueue.empty.await();
-
+				workQueue.awaitEmpty();
 			} catch (InterruptedException ie) {
 				// re-try
 			}
@@ -742,9 +1316,8 @@ public class WorkerPool<T> {
 
 			queueLock.lock();
 			try {
-				while (!workQueue.isEmpty())
-					workQueue.empty.await();
-
+				workQueue.awaitProducers();
+				workQueue.awaitEmpty();
 			} catch (InterruptedException ie) {
 				// re-try
 			}
@@ -779,9 +1352,7 @@ public class WorkerPool<T> {
 
 			queueLock.lock();
 			try {
-				while (!workQueue.isEmpty())
-					workQueue.empty.await();
-
+				workQueue.awaitEmpty();
 			} catch (InterruptedException ie) {
 				// re-try
 			}
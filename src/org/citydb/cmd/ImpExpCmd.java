@@ -46,6 +46,8 @@ import org.citydb.config.Config;
 import org.citydb.config.project.database.DBConnection;
 import org.citydb.database.DatabaseConnectionPool;
 import org.citydb.log.Logger;
+import org.citydb.modules.citygml.deleter.controller.CityGMLDeleteException;
+import org.citydb.modules.citygml.deleter.controller.Deleter;
 import org.citydb.modules.citygml.exporter.controller.CityGMLExportException;
 import org.citydb.modules.citygml.exporter.controller.Exporter;
 import org.citydb.modules.citygml.importer.controller.CityGMLImportException;
@@ -195,6 +197,46 @@ public class ImpExpCmd {
 		}
 	}
 
+	public void doDelete() {
+		initDBPool();
+		if (!dbPool.isConnected()) {
+			LOG.error("Aborting...");
+			return;
+		}
+
+		LOG.info("Initializing database deletion...");
+
+		EventDispatcher eventDispatcher = ObjectRegistry.getInstance().getEventDispatcher();
+		Deleter deleter = new Deleter(dbPool, config, eventDispatcher);
+		boolean success = false;
+
+		try {
+			success = deleter.doProcess();
+		} catch (CityGMLDeleteException e) {
+			LOG.error(e.getMessage());
+
+			Throwable cause = e.getCause();
+			while (cause != null) {
+				LOG.error("Cause: " + cause.getMessage());
+				cause = cause.getCause();
+			}
+		} finally {
+			try {
+				eventDispatcher.flushEvents();
+			} catch (InterruptedException e) {
+				//
+			}
+
+			dbPool.disconnect();
+		}
+
+		if (success) {
+			LOG.info("Database deletion successfully finished.");
+		} else {
+			LOG.warn("Database deletion aborted.");
+		}
+	}
+
 	public void doKmlExport() {
 		initDBPool();
 		if (!dbPool.isConnected()) {
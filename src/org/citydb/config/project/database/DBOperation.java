@@ -37,6 +37,8 @@ import org.citydb.config.project.general.FeatureClassMode;
 		"lastUsed",
 		"boundingBoxFeatureClass",
 		"boundingBoxSrs",
+		"boundingBoxThreads",
+		"deleteThreads",
 		"spatialIndex",
 		"normalIndex"
 })
@@ -45,6 +47,8 @@ public class DBOperation {
 	private FeatureClassMode boundingBoxFeatureClass = FeatureClassMode.CITYOBJECT;
 	@XmlIDREF
 	private DatabaseSrs boundingBoxSrs = DatabaseSrs.createDefaultSrs();
+	private Integer boundingBoxThreads = Runtime.getRuntime().availableProcessors();
+	private Integer deleteThreads = Runtime.getRuntime().availableProcessors();
 	private boolean spatialIndex;
 	private boolean normalIndex;
 	
@@ -75,6 +79,24 @@ public class DBOperation {
 		this.boundingBoxSrs = boundingBoxSrs;
 	}
 
+	public Integer getBoundingBoxThreads() {
+		return boundingBoxThreads;
+	}
+
+	public void setBoundingBoxThreads(Integer boundingBoxThreads) {
+		if (boundingBoxThreads != null && boundingBoxThreads > 0)
+			this.boundingBoxThreads = boundingBoxThreads;
+	}
+
+	public Integer getDeleteThreads() {
+		return deleteThreads;
+	}
+
+	public void setDeleteThreads(Integer deleteThreads) {
+		if (deleteThreads != null && deleteThreads > 0)
+			this.deleteThreads = deleteThreads;
+	}
+
 	public boolean isSetSpatialIndex() {
 		return spatialIndex;
 	}
@@ -0,0 +1,126 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.config.project.exporter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlSchemaType;
+import javax.xml.bind.annotation.XmlType;
+
+@XmlType(name="ExportOutputType", propOrder={
+		"bufferSize",
+		"flushInterval",
+		"compress",
+		"compressionThreads",
+		"maxFeaturesPerFile",
+		"maxFileSize"
+})
+public class ExportOutput {
+	@XmlElement(defaultValue="1024")
+	@XmlSchemaType(name="positiveInteger")
+	private Integer bufferSize = 1024;
+	@XmlElement(defaultValue="0")
+	@XmlSchemaType(name="nonNegativeInteger")
+	private Integer flushInterval = 0;
+	private Boolean compress = false;
+	@XmlSchemaType(name="positiveInteger")
+	private Integer compressionThreads;
+	@XmlElement(defaultValue="0")
+	@XmlSchemaType(name="nonNegativeInteger")
+	private Integer maxFeaturesPerFile = 0;
+	@XmlElement(defaultValue="0")
+	@XmlSchemaType(name="nonNegativeInteger")
+	private Integer maxFileSize = 0;
+
+	public ExportOutput() {
+		compressionThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+	}
+
+	public Integer getBufferSize() {
+		return bufferSize;
+	}
+
+	public void setBufferSize(Integer bufferSize) {
+		if (bufferSize != null && bufferSize > 0)
+			this.bufferSize = bufferSize;
+	}
+
+	public Integer getFlushInterval() {
+		return flushInterval;
+	}
+
+	public void setFlushInterval(Integer flushInterval) {
+		if (flushInterval != null && flushInterval >= 0)
+			this.flushInterval = flushInterval;
+	}
+
+	public boolean isSetCompress() {
+		if (compress != null)
+			return compress.booleanValue();
+
+		return false;
+	}
+
+	public Boolean getCompress() {
+		return compress;
+	}
+
+	public void setCompress(Boolean compress) {
+		this.compress = compress;
+	}
+
+	public Integer getCompressionThreads() {
+		return compressionThreads;
+	}
+
+	public void setCompressionThreads(Integer compressionThreads) {
+		if (compressionThreads != null && compressionThreads > 0)
+			this.compressionThreads = compressionThreads;
+	}
+
+	public Integer getMaxFeaturesPerFile() {
+		return maxFeaturesPerFile;
+	}
+
+	public void setMaxFeaturesPerFile(Integer maxFeaturesPerFile) {
+		if (maxFeaturesPerFile != null && maxFeaturesPerFile >= 0)
+			this.maxFeaturesPerFile = maxFeaturesPerFile;
+	}
+
+	public Integer getMaxFileSize() {
+		return maxFileSize;
+	}
+
+	public void setMaxFileSize(Integer maxFileSize) {
+		if (maxFileSize != null && maxFileSize >= 0)
+			this.maxFileSize = maxFileSize;
+	}
+
+	public boolean isSetRollingOutput() {
+		return maxFeaturesPerFile > 0 || maxFileSize > 0;
+	}
+}
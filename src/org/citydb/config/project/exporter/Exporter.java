@@ -43,6 +43,7 @@ import org.citydb.config.project.resources.Resources;
 		"filter",
 		"cityGMLVersion",
 		"xlink",
+		"output",
 		"resources"
 })
 public class Exporter {
@@ -55,6 +56,7 @@ public class Exporter {
 	private ExportFilterConfig filter;
 	private CityGMLVersionType cityGMLVersion = CityGMLVersionType.v2_0_0;
 	private XLink xlink;
+	private ExportOutput output;
 	private Resources resources;
 
 	public Exporter() {
@@ -64,6 +66,7 @@ public class Exporter {
 		appearances = new ExportAppearance();
 		filter = new ExportFilterConfig();
 		xlink = new XLink();
+		output = new ExportOutput();
 		resources = new Resources();
 	}
 
@@ -138,6 +141,15 @@ public class Exporter {
 			this.xlink = xlink;
 	}
 
+	public ExportOutput getOutput() {
+		return output;
+	}
+
+	public void setOutput(ExportOutput output) {
+		if (output != null)
+			this.output = output;
+	}
+
 	public Resources getResources() {
 		return resources;
 	}
@@ -39,7 +39,9 @@ public enum TilingMode {
     @XmlEnumValue("automatic")
     AUTOMATIC("automatic"),
     @XmlEnumValue("manual")
-    MANUAL("manual");
+    MANUAL("manual"),
+    @XmlEnumValue("adaptive")
+    ADAPTIVE("adaptive");
 
     private final String value;
 
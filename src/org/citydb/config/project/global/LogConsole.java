@@ -33,11 +33,15 @@ import org.citydb.api.log.LogLevel;
 
 @XmlType(name="LogConsoleType", propOrder={
 		"wrapText",
-		"logLevel"
+		"logLevel",
+		"maxLines",
+		"refreshInterval"
 		})
 public class LogConsole {
 	private boolean wrapText = false;
 	private LogLevel logLevel = LogLevel.INFO;
+	private Integer maxLines = 10000;
+	private Integer refreshInterval = 200;
 	
 	public LogConsole() {
 	}
@@ -57,5 +61,23 @@ public class LogConsole {
 	public boolean isWrapText() {
 		return wrapText;
 	}
+
+	public Integer getMaxLines() {
+		return maxLines;
+	}
+
+	public void setMaxLines(Integer maxLines) {
+		if (maxLines != null && maxLines > 0)
+			this.maxLines = maxLines;
+	}
+
+	public Integer getRefreshInterval() {
+		return refreshInterval;
+	}
+
+	public void setRefreshInterval(Integer refreshInterval) {
+		if (refreshInterval != null && refreshInterval > 0)
+			this.refreshInterval = refreshInterval;
+	}
 	
 }
@@ -0,0 +1,90 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.config.project.global;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlType;
+
+@XmlType(name="LogQueueType", propOrder={
+		"size",
+		"overflowPolicy",
+		"flushInterval"
+		})
+public class LogQueue {
+	@XmlAttribute(required=false)
+	private Boolean active = true;
+	private Integer size = 10000;
+	private LogOverflowPolicy overflowPolicy = LogOverflowPolicy.BLOCK;
+	private Integer flushInterval = 500;
+
+	public LogQueue() {
+	}
+
+	public boolean isSet() {
+		if (active != null)
+			return active.booleanValue();
+
+		return false;
+	}
+
+	public Boolean getActive() {
+		return active;
+	}
+
+	public void setActive(Boolean active) {
+		this.active = active;
+	}
+
+	public Integer getSize() {
+		return size;
+	}
+
+	public void setSize(Integer size) {
+		if (size != null && size > 0)
+			this.size = size;
+	}
+
+	public LogOverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	public void setOverflowPolicy(LogOverflowPolicy overflowPolicy) {
+		if (overflowPolicy != null)
+			this.overflowPolicy = overflowPolicy;
+	}
+
+	public Integer getFlushInterval() {
+		return flushInterval;
+	}
+
+	public void setFlushInterval(Integer flushInterval) {
+		if (flushInterval != null && flushInterval > 0)
+			this.flushInterval = flushInterval;
+	}
+
+}
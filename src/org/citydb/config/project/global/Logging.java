@@ -31,15 +31,18 @@ import javax.xml.bind.annotation.XmlType;
 
 @XmlType(name="LoggingType", propOrder={
 		"console",
-		"file"
+		"file",
+		"queue"
 		})
 public class Logging {
 	private LogConsole console;
 	private LogFile file;
+	private LogQueue queue;
 	
 	public Logging() {
 		console = new LogConsole();
 		file = new LogFile();
+		queue = new LogQueue();
 	}
 
 	public LogConsole getConsole() {
@@ -59,5 +62,14 @@ public class Logging {
 		if (file != null)
 			this.file = file;
 	}
+
+	public LogQueue getQueue() {
+		return queue;
+	}
+
+	public void setQueue(LogQueue queue) {
+		if (queue != null)
+			this.queue = queue;
+	}
 	
 }
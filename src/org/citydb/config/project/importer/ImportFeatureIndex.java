@@ -0,0 +1,70 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.config.project.importer;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlType;
+
+@XmlType(name="ImportFeatureIndexType", propOrder={
+		"useFeatureIndex",
+		"readerThreads"
+})
+public class ImportFeatureIndex {
+	@XmlElement(required=true, defaultValue="false")
+	private Boolean useFeatureIndex = false;
+	@XmlElement(defaultValue="1")
+	private Integer readerThreads = 1;
+
+	public ImportFeatureIndex() {
+	}
+
+	public boolean isSetUseFeatureIndex() {
+		if (useFeatureIndex != null)
+			return useFeatureIndex.booleanValue();
+
+		return false;
+	}
+
+	public Boolean getUseFeatureIndex() {
+		return useFeatureIndex;
+	}
+
+	public void setUseFeatureIndex(Boolean useFeatureIndex) {
+		this.useFeatureIndex = useFeatureIndex;
+	}
+
+	public int getReaderThreads() {
+		return readerThreads != null && readerThreads > 0 ? readerThreads : 1;
+	}
+
+	public void setReaderThreads(Integer readerThreads) {
+		if (readerThreads != null && readerThreads > 0)
+			this.readerThreads = readerThreads;
+	}
+
+}
@@ -42,6 +42,8 @@ import org.citydb.config.project.general.Path;
 		"affineTransformation",
 		"indexes",
 		"xmlValidation",
+		"featureIndex",
+		"delta",
 		"importLog",
 		"resources"
 })
@@ -55,6 +57,8 @@ public class Importer {
 	private AffineTransformation affineTransformation;
 	private Index indexes;
 	private XMLValidation xmlValidation;
+	private ImportFeatureIndex featureIndex;
+	private ImportDelta delta;
 	private ImportLog importLog;
 	private ImportResources resources;
 
@@ -68,6 +72,8 @@ public class Importer {
 		affineTransformation = new AffineTransformation();
 		indexes = new Index();
 		xmlValidation = new XMLValidation();
+		featureIndex = new ImportFeatureIndex();
+		delta = new ImportDelta();
 		importLog = new ImportLog();
 		resources = new ImportResources();
 	}
@@ -144,6 +150,24 @@ public class Importer {
 			this.xmlValidation = xmlValidation;
 	}
 
+	public ImportFeatureIndex getFeatureIndex() {
+		return featureIndex;
+	}
+
+	public void setFeatureIndex(ImportFeatureIndex featureIndex) {
+		if (featureIndex != null)
+			this.featureIndex = featureIndex;
+	}
+
+	public ImportDelta getDelta() {
+		return delta;
+	}
+
+	public void setDelta(ImportDelta delta) {
+		if (delta != null)
+			this.delta = delta;
+	}
+
 	public AffineTransformation getAffineTransformation() {
 		return affineTransformation;
 	}
@@ -27,15 +27,25 @@
  */
 package org.citydb.config.project.importer;
 
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlSchemaType;
 import javax.xml.bind.annotation.XmlType;
 
 @XmlType(name="IndexType", propOrder={
 		"spatial",
-		"normal"
+		"normal",
+		"parallelism",
+		"maintenanceWorkMem"
 		})
 public class Index {
 	private IndexMode spatial = IndexMode.UNCHANGED;
 	private IndexMode normal = IndexMode.UNCHANGED;
+	@XmlElement(defaultValue="2")
+	@XmlSchemaType(name="positiveInteger")
+	private Integer parallelism = 2;
+	@XmlElement(defaultValue="0")
+	@XmlSchemaType(name="nonNegativeInteger")
+	private Integer maintenanceWorkMem = 0;
 	
 	public Index() {
 	}
@@ -56,6 +66,24 @@ public class Index {
 		this.normal = normal;
 	}
 	
+	public Integer getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(Integer parallelism) {
+		if (parallelism != null && parallelism > 0)
+			this.parallelism = parallelism;
+	}
+
+	public Integer getMaintenanceWorkMem() {
+		return maintenanceWorkMem;
+	}
+
+	public void setMaintenanceWorkMem(Integer maintenanceWorkMem) {
+		if (maintenanceWorkMem != null && maintenanceWorkMem >= 0)
+			this.maintenanceWorkMem = maintenanceWorkMem;
+	}
+	
 	public boolean isSpatialIndexModeUnchanged() {
 		return spatial == IndexMode.UNCHANGED;
 	}
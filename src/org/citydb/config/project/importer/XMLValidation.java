@@ -32,13 +32,16 @@ import javax.xml.bind.annotation.XmlType;
 
 @XmlType(name="XMLValidationType", propOrder={
 		"useXMLValidation",
-		"reportOneErrorPerFeature"
+		"reportOneErrorPerFeature",
+		"useParallelValidation"
 })
 public class XMLValidation {
 	@XmlElement(required=true, defaultValue="false")
 	private Boolean useXMLValidation = false;
 	@XmlElement(defaultValue="false")
 	private Boolean reportOneErrorPerFeature = false;
+	@XmlElement(defaultValue="false")
+	private Boolean useParallelValidation = false;
 
 	public XMLValidation() {
 	}
@@ -72,5 +75,20 @@ public class XMLValidation {
 	public void setReportOneErrorPerFeature(Boolean reportOneErrorPerFeature) {
 		this.reportOneErrorPerFeature = reportOneErrorPerFeature;
 	}
+
+	public boolean isSetUseParallelValidation() {
+		if (useParallelValidation != null)
+			return useParallelValidation.booleanValue();
+		
+		return false;
+	}
+	
+	public Boolean getUseParallelValidation() {
+		return useParallelValidation;
+	}
+
+	public void setUseParallelValidation(Boolean useParallelValidation) {
+		this.useParallelValidation = useParallelValidation;
+	}
 	
 }
@@ -39,7 +39,12 @@ import javax.xml.bind.annotation.XmlType;
 		"scaleImages",
 		"imageScaleFactor",
 		"groupObjects",
-		"groupSize"
+		"groupSize",
+		"compactGeometry",
+		"positionQuantizationBits",
+		"texCoordQuantizationBits",
+		"simplifyGroupedObjects",
+		"simplificationTriangleBudget"
 })
 public class ColladaOptions {
 	private boolean ignoreSurfaceOrientation;
@@ -52,6 +57,11 @@ public class ColladaOptions {
 	private double imageScaleFactor;
 	private boolean groupObjects;
 	private int groupSize;
+	private boolean compactGeometry;
+	private int positionQuantizationBits;
+	private int texCoordQuantizationBits;
+	private boolean simplifyGroupedObjects;
+	private int simplificationTriangleBudget;
 
 	public ColladaOptions() {
 		ignoreSurfaceOrientation = false;
@@ -64,6 +74,11 @@ public class ColladaOptions {
 		imageScaleFactor = 1.0;
 		groupObjects = false;
 		groupSize = 1;
+		compactGeometry = false;
+		positionQuantizationBits = 14;
+		texCoordQuantizationBits = 12;
+		simplifyGroupedObjects = false;
+		simplificationTriangleBudget = 50000;
 	}
 
 	public void setIgnoreSurfaceOrientation(boolean ignoreSurfaceOrientation) {
@@ -147,4 +162,44 @@ public class ColladaOptions {
 	}
 
 	
+	public void setCompactGeometry(boolean compactGeometry) {
+		this.compactGeometry = compactGeometry;
+	}
+
+	public boolean isCompactGeometry() {
+		return compactGeometry;
+	}
+
+	public void setPositionQuantizationBits(int positionQuantizationBits) {
+		this.positionQuantizationBits = positionQuantizationBits;
+	}
+
+	public int getPositionQuantizationBits() {
+		return positionQuantizationBits;
+	}
+
+	public void setTexCoordQuantizationBits(int texCoordQuantizationBits) {
+		this.texCoordQuantizationBits = texCoordQuantizationBits;
+	}
+
+	public int getTexCoordQuantizationBits() {
+		return texCoordQuantizationBits;
+	}
+
+	public void setSimplifyGroupedObjects(boolean simplifyGroupedObjects) {
+		this.simplifyGroupedObjects = simplifyGroupedObjects;
+	}
+
+	public boolean isSimplifyGroupedObjects() {
+		return simplifyGroupedObjects;
+	}
+
+	public void setSimplificationTriangleBudget(int simplificationTriangleBudget) {
+		this.simplificationTriangleBudget = simplificationTriangleBudget;
+	}
+
+	public int getSimplificationTriangleBudget() {
+		return simplificationTriangleBudget;
+	}
+
 }
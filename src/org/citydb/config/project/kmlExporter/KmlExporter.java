@@ -85,6 +85,8 @@ import org.citydb.config.project.resources.Resources;
 		"showTileBorders",
 		"exportEmptyTiles",
 		"autoTileSideLength",
+		"adaptiveTileMaxObjects",
+		"adaptiveTileMaxLevel",
 		"oneFilePerObject",
 		"singleObjectRegionSize",
 		"viewRefreshMode",
@@ -96,6 +98,7 @@ import org.citydb.config.project.resources.Resources;
 		"pathOfGltfConverter",
 		"notCreateColladaFiles",
 		"embedTexturesInGltfFiles",
+		"create3dTiles",
 		"appearanceTheme",
 		"altitudeMode",
 		"altitudeOffsetMode",
@@ -171,6 +174,8 @@ public class KmlExporter {
 	private boolean showTileBorders;
 	private boolean exportEmptyTiles;
 	private double autoTileSideLength;
+	private int adaptiveTileMaxObjects;
+	private int adaptiveTileMaxLevel;
 	private boolean oneFilePerObject;
 	private double singleObjectRegionSize;
 	private String viewRefreshMode;
@@ -182,6 +187,7 @@ public class KmlExporter {
 	private String pathOfGltfConverter;
 	private boolean notCreateColladaFiles;
 	private boolean embedTexturesInGltfFiles;
+	private boolean create3dTiles;
 	private boolean exportAsKmz;
 	private String appearanceTheme;
 	private AltitudeMode altitudeMode;
@@ -240,6 +246,8 @@ public class KmlExporter {
 		showTileBorders = false;
 		exportEmptyTiles = true;
 		autoTileSideLength = 125.0;
+		adaptiveTileMaxObjects = 1000;
+		adaptiveTileMaxLevel = 8;
 		oneFilePerObject = false;
 		singleObjectRegionSize = 50.0;
 		viewRefreshMode = "onRegion";
@@ -250,6 +258,7 @@ public class KmlExporter {
 		createGltfModel = false;
 		notCreateColladaFiles = false;
 		embedTexturesInGltfFiles = false;
+		create3dTiles = false;
 
 		pathOfGltfConverter = "contribs" + File.separator + "collada2gltf";
 		String osName = System.getProperty("os.name").toLowerCase(Locale.ENGLISH);
@@ -444,6 +453,14 @@ public class KmlExporter {
 		return embedTexturesInGltfFiles;
 	}
 
+	public void setCreate3dTiles(boolean create3dTiles) {
+		this.create3dTiles = create3dTiles;
+	}
+
+	public boolean isCreate3dTiles() {
+		return create3dTiles;
+	}
+
 	public void setShowBoundingBox(boolean showBoundingBox) {
 		this.showBoundingBox = showBoundingBox;
 	}
@@ -516,6 +533,22 @@ public class KmlExporter {
 		return autoTileSideLength;
 	}
 
+	public int getAdaptiveTileMaxObjects() {
+		return adaptiveTileMaxObjects;
+	}
+
+	public void setAdaptiveTileMaxObjects(int adaptiveTileMaxObjects) {
+		this.adaptiveTileMaxObjects = adaptiveTileMaxObjects;
+	}
+
+	public int getAdaptiveTileMaxLevel() {
+		return adaptiveTileMaxLevel;
+	}
+
+	public void setAdaptiveTileMaxLevel(int adaptiveTileMaxLevel) {
+		this.adaptiveTileMaxLevel = adaptiveTileMaxLevel;
+	}
+
 	public void setWriteJSONFile(boolean writeJSONFile) {
 		this.writeJSONFile = writeJSONFile;
 	}
@@ -33,7 +33,9 @@ import javax.xml.bind.annotation.XmlType;
 
 @XmlType(name="ThreadPoolConfigType", propOrder={
 		"minThreads",
-		"maxThreads"		
+		"maxThreads",
+		"workQueue",
+		"batchSize"
 })
 public class ThreadPoolConfig {
 	@XmlElement(required=true)
@@ -42,10 +44,19 @@ public class ThreadPoolConfig {
 	@XmlElement(required=true)
 	@XmlSchemaType(name="positiveInteger")
 	private Integer maxThreads;
+	// applies to all worker pools of an import or export operation that are
+	// set up from the default pool, so the queue type cannot be chosen per pool
+	@XmlElement(defaultValue="blocking")
+	private WorkQueueMode workQueue;
+	@XmlElement(defaultValue="1")
+	@XmlSchemaType(name="positiveInteger")
+	private Integer batchSize;
 	
 	public ThreadPoolConfig() {
 		minThreads = 2;
 		maxThreads = Math.max(minThreads, Runtime.getRuntime().availableProcessors());
+		workQueue = WorkQueueMode.BLOCKING;
+		batchSize = 1;
 	}
 
 	public Integer getMinThreads() {
@@ -65,5 +76,23 @@ public class ThreadPoolConfig {
 		if (maxThreads != null && maxThreads > 0)
 			this.maxThreads = maxThreads;
 	}
+
+	public WorkQueueMode getWorkQueue() {
+		return workQueue;
+	}
+
+	public void setWorkQueue(WorkQueueMode workQueue) {
+		if (workQueue != null)
+			this.workQueue = workQueue;
+	}
+
+	public Integer getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(Integer batchSize) {
+		if (batchSize != null && batchSize > 0)
+			this.batchSize = batchSize;
+	}
 	
 }
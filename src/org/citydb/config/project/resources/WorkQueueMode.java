@@ -0,0 +1,69 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.config.project.resources;
+
+import javax.xml.bind.annotation.XmlEnum;
+import javax.xml.bind.annotation.XmlEnumValue;
+import javax.xml.bind.annotation.XmlType;
+
+import org.citydb.api.concurrent.WorkQueueType;
+
+@XmlType(name="WorkQueueModeType")
+@XmlEnum
+public enum WorkQueueMode {
+	@XmlEnumValue("blocking")
+    BLOCKING("blocking", WorkQueueType.BLOCKING),
+    @XmlEnumValue("ringBuffer")
+    RING_BUFFER("ringBuffer", WorkQueueType.RING_BUFFER);
+
+    private final String value;
+    private final WorkQueueType workQueueType;
+
+    WorkQueueMode(String v, WorkQueueType workQueueType) {
+        value = v;
+        this.workQueueType = workQueueType;
+    }
+
+    public String value() {
+        return value;
+    }
+
+    public WorkQueueType getWorkQueueType() {
+    	return workQueueType;
+    }
+
+    public static WorkQueueMode fromValue(String v) {
+        for (WorkQueueMode c: WorkQueueMode.values()) {
+            if (c.value.equals(v)) {
+                return c;
+            }
+        }
+
+        return BLOCKING;
+    }
+}
@@ -219,6 +219,10 @@ public class DatabaseConnectionPool {
 		return dataSource.getConnection();
 	}
 
+	public int getMaxActive() {
+		return isConnected() ? dataSource.getMaxActive() : 0;
+	}
+
 	public boolean isConnected() {
 		return dataSource != null && dataSource.getPool() != null && !dataSource.getPool().isClosed();
 	}
@@ -61,10 +61,13 @@ public abstract class AbstractSQLAdapter {
 	public abstract String getBoundingBoxPredicate(String attributeName, BoundingBox bbox, boolean overlap);
 	public abstract boolean spatialPredicateRequiresNoIndexHint();
 	public abstract String getHierarchicalGeometryQuery();
+	public abstract String getHierarchicalGeometryIdQuery(int numberOfRoots);
 	public abstract String getNextSequenceValue(DBSequencerEnum sequence);
 	public abstract String getCurrentSequenceValue(DBSequencerEnum sequence);
 	public abstract String getNextSequenceValuesQuery(DBSequencerEnum sequence);
 	public abstract int getMaximumNumberOfItemsForInOperator();
+	// selectQuery must return the columns ID and VAL
+	public abstract String getUpdateFromSelect(String tableName, String columnName, String selectQuery);
 	
 	public String getBoundingBoxPredicate(String attributeName, String tablePrefix, BoundingBox bbox, boolean overlap) {
 		return getBoundingBoxPredicate(tablePrefix + '.' + attributeName, bbox, overlap);
@@ -36,13 +36,22 @@ import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.citydb.api.database.DatabaseSrs;
 import org.citydb.api.database.DatabaseUtil;
 import org.citydb.api.geometry.BoundingBox;
 import org.citydb.api.geometry.GeometryObject;
+import org.citydb.api.geometry.Position;
 import org.citydb.config.project.database.Workspace;
 import org.citydb.config.project.general.FeatureClassMode;
 import org.citydb.database.DatabaseMetaDataImpl;
@@ -52,16 +61,19 @@ import org.citydb.util.Util;
 import org.citygml4j.model.citygml.CityGMLClass;
 
 public abstract class AbstractUtilAdapter implements DatabaseUtil {
+	private static final int BOUNDING_BOX_CHUNK_SIZE = 5000;
 	protected final AbstractDatabaseAdapter databaseAdapter;
 	protected final ConcurrentHashMap<Integer, DatabaseSrs> srsInfoMap;
 
 	protected CallableStatement interruptableCallableStatement;
 	protected Statement interruptableStatement;
+	protected final Set<Statement> interruptableStatements;
 	protected volatile boolean isInterrupted;
 
 	protected AbstractUtilAdapter(AbstractDatabaseAdapter databaseAdapter) {
 		this.databaseAdapter = databaseAdapter;
 		srsInfoMap = new ConcurrentHashMap<>();
+		interruptableStatements = Collections.newSetFromMap(new ConcurrentHashMap<Statement, Boolean>());
 	}
 	
 	protected abstract void getCityDBVersion(DatabaseMetaDataImpl metaData, Connection connection) throws SQLException;
@@ -69,11 +81,16 @@ public abstract class AbstractUtilAdapter implements DatabaseUtil {
 	protected abstract void getSrsInfo(DatabaseSrs srs, Connection connection) throws SQLException;
 	protected abstract String[] createDatabaseReport(Connection connection) throws SQLException;
 	protected abstract BoundingBox calcBoundingBox(List<Integer> classIds, Connection connection) throws SQLException;
+	protected abstract long[] countCityObjects(BoundingBox extent, int cells, List<Integer> classIds, Connection connection) throws SQLException;
 	protected abstract BoundingBox createBoundingBoxes(List<Integer> classIds, boolean onlyIfNull, Connection connection) throws SQLException;
+	protected abstract BoundingBox createBoundingBoxes(int classId, long minId, long maxId, boolean onlyIfNull, Connection connection) throws SQLException;
 	protected abstract BoundingBox transformBoundingBox(BoundingBox bbox, DatabaseSrs sourceSrs, DatabaseSrs targetSrs, Connection connection) throws SQLException;
 	protected abstract GeometryObject transform(GeometryObject geometry, DatabaseSrs targetSrs, Connection connection) throws SQLException;
 	protected abstract int get2DSrid(DatabaseSrs srs, Connection connection) throws SQLException;	
 	protected abstract IndexStatusInfo manageIndexes(String operation, IndexType type, Connection connection) throws SQLException;
+	protected abstract IndexStatusInfo manageIndex(String indexName, boolean create, IndexType type, Connection connection) throws SQLException;
+	protected abstract void setIndexSessionHints(int maintenanceWorkMem, Connection connection) throws SQLException;
+	protected abstract void resetIndexSessionHints(Connection connection) throws SQLException;
 	protected abstract boolean updateTableStats(IndexType type, Connection connection) throws SQLException;
 	public abstract DatabaseSrs getWGS843D();
 	
@@ -174,6 +191,131 @@ public abstract class AbstractUtilAdapter implements DatabaseUtil {
 		}
 	}
 	
+	// counts the city objects per cell of a cells x cells grid over the extent based on
+	// the centroids of their envelopes. the result is ordered by row and then by column
+	public long[] countCityObjects(Workspace workspace, BoundingBox extent, int cells, List<Integer> classIds) throws SQLException {
+		Connection conn = null;
+
+		try {
+			conn = databaseAdapter.connectionPool.getConnection();
+			conn.setAutoCommit(true);
+			if (databaseAdapter.hasVersioningSupport())
+				databaseAdapter.getWorkspaceManager().gotoWorkspace(conn, workspace);
+
+			return countCityObjects(extent, cells, classIds, conn);
+		} finally {
+			if (conn != null) {
+				try {
+					conn.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	public BoundingBox createBoundingBoxes(Workspace workspace, FeatureClassMode featureClass, boolean onlyIfNull, int threads) throws SQLException {
+		if (threads <= 1)
+			return createBoundingBoxes(workspace, featureClass, onlyIfNull);
+
+		final int groupClassId = Util.cityObject2classId(CityGMLClass.CITY_OBJECT_GROUP);
+		List<Integer> classIds = featureClass != FeatureClassMode.CITYOBJECT ? getClassIds(featureClass) : null;
+		List<long[]> ranges = new ArrayList<long[]>();
+		boolean hasGroups = false;
+
+		BoundingBox bbox = new BoundingBox(new Position(Double.MAX_VALUE, Double.MAX_VALUE), new Position(-Double.MAX_VALUE, -Double.MAX_VALUE));
+		Connection conn = null;
+
+		try {
+			conn = databaseAdapter.connectionPool.getConnection();
+			conn.setAutoCommit(false);
+			if (databaseAdapter.hasVersioningSupport())
+				databaseAdapter.getWorkspaceManager().gotoWorkspace(conn, workspace);
+
+			// split the work by object class and id range
+			try (Statement stmt = conn.createStatement();
+					ResultSet rs = stmt.executeQuery("select objectclass_id, min(id), max(id), count(*) from cityobject" 
+							+ (onlyIfNull ? " where envelope is null" : "") + " group by objectclass_id")) {
+				while (rs.next()) {
+					int classId = rs.getInt(1);
+					if (classIds != null && !classIds.contains(classId))
+						continue;
+
+					// city object groups depend on the envelopes of their members
+					if (classId == groupClassId) {
+						hasGroups = true;
+						continue;
+					}
+
+					long minId = rs.getLong(2);
+					long maxId = rs.getLong(3);
+					long chunks = Math.max(1, Math.min(rs.getLong(4) / BOUNDING_BOX_CHUNK_SIZE, threads * 4));
+					long step = (maxId - minId) / chunks + 1;
+
+					for (long from = minId; from <= maxId; from += step)
+						ranges.add(new long[]{ classId, from, Math.min(from + step - 1, maxId) });
+				}
+			}
+
+			conn.commit();
+			if (!ranges.isEmpty()) {
+				ExecutorService service = Executors.newFixedThreadPool(Math.min(threads, ranges.size()), new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r);
+						t.setDaemon(true);
+						return t;
+					}
+				});
+
+				List<Future<BoundingBox>> futures = new ArrayList<Future<BoundingBox>>(ranges.size());
+				for (long[] range : ranges)
+					futures.add(service.submit(new BoundingBoxTask(workspace, (int)range[0], range[1], range[2], onlyIfNull)));
+
+				service.shutdown();
+
+				try {
+					for (Future<BoundingBox> future : futures) {
+						BoundingBox partial = future.get();
+						if (partial != null)
+							bbox.update(partial.getLowerCorner(), partial.getUpperCorner());
+					}
+				} catch (InterruptedException e) {
+					isInterrupted = true;
+				} catch (ExecutionException e) {
+					if (!isInterrupted) {
+						service.shutdownNow();
+						throw e.getCause() instanceof SQLException ? (SQLException)e.getCause() : new SQLException(e.getCause());
+					}
+				} finally {
+					service.shutdownNow();
+				}
+			}
+
+			if (hasGroups && !isInterrupted) {
+				BoundingBox partial = createBoundingBoxes(Arrays.asList(new Integer[]{groupClassId}), onlyIfNull, conn);
+				if (partial != null) {
+					bbox.update(partial.getLowerCorner(), partial.getUpperCorner());
+					conn.commit();
+				} else
+					isInterrupted = true;
+			}
+		} finally {
+			if (conn != null) {
+				try {
+					conn.rollback();
+					conn.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+		}
+
+		boolean interrupted = isInterrupted;
+		isInterrupted = false;
+
+		return !interrupted ? bbox : null;
+	}
+
 	public BoundingBox createBoundingBoxes(Workspace workspace, FeatureClassMode featureClass, boolean onlyIfNull) throws SQLException {
 		BoundingBox bbox = null;
 		Connection conn = null;
@@ -332,6 +474,48 @@ public abstract class AbstractUtilAdapter implements DatabaseUtil {
 		}
 	}
 	
+	public IndexStatusInfo createIndex(String indexName, IndexType type, int maintenanceWorkMem) throws SQLException {
+		Connection conn = null;
+
+		try {
+			conn = databaseAdapter.connectionPool.getConnection();
+			conn.setAutoCommit(true);
+
+			setIndexSessionHints(maintenanceWorkMem, conn);
+			try {
+				return manageIndex(indexName, true, type, conn);
+			} finally {
+				resetIndexSessionHints(conn);
+			}
+		} finally {
+			if (conn != null) {
+				try {
+					conn.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	public IndexStatusInfo dropIndex(String indexName, IndexType type) throws SQLException {
+		Connection conn = null;
+
+		try {
+			conn = databaseAdapter.connectionPool.getConnection();
+			conn.setAutoCommit(true);
+			return manageIndex(indexName, false, type, conn);
+		} finally {
+			if (conn != null) {
+				try {
+					conn.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+		}
+	}
+
 	public boolean updateTableStatsSpatialColumns() throws SQLException {
 		return updateTableStats(IndexType.SPATIAL);
 	}
@@ -569,6 +753,14 @@ public abstract class AbstractUtilAdapter implements DatabaseUtil {
 	public void interruptDatabaseOperation() {
 		isInterrupted = true;
 
+		for (Statement stmt : interruptableStatements) {
+			try {
+				stmt.cancel();
+			} catch (SQLException e) {
+				//
+			}
+		}
+
 		try {
 			if (interruptableCallableStatement != null)
 				interruptableCallableStatement.cancel();
@@ -583,4 +775,47 @@ public abstract class AbstractUtilAdapter implements DatabaseUtil {
 			//
 		}
 	}
+
+	private final class BoundingBoxTask implements Callable<BoundingBox> {
+		private final Workspace workspace;
+		private final int classId;
+		private final long minId;
+		private final long maxId;
+		private final boolean onlyIfNull;
+
+		private BoundingBoxTask(Workspace workspace, int classId, long minId, long maxId, boolean onlyIfNull) {
+			this.workspace = workspace;
+			this.classId = classId;
+			this.minId = minId;
+			this.maxId = maxId;
+			this.onlyIfNull = onlyIfNull;
+		}
+
+		@Override
+		public BoundingBox call() throws SQLException {
+			if (isInterrupted)
+				return null;
+
+			Connection conn = null;
+
+			try {
+				conn = databaseAdapter.connectionPool.getConnection();
+				conn.setAutoCommit(false);
+				if (databaseAdapter.hasVersioningSupport())
+					databaseAdapter.getWorkspaceManager().gotoWorkspace(conn, workspace);
+
+				BoundingBox bbox = createBoundingBoxes(classId, minId, maxId, onlyIfNull, conn);
+				conn.commit();
+				return bbox;
+			} catch (SQLException e) {
+				if (conn != null)
+					conn.rollback();
+
+				throw e;
+			} finally {
+				if (conn != null)
+					conn.close();
+			}
+		}
+	}
 }
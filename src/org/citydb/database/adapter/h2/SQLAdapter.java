@@ -142,6 +142,12 @@ public class SQLAdapter extends AbstractSQLAdapter {
 		return 0;
 	}
 
+	@Override
+	public String getUpdateFromSelect(String tableName, String columnName, String selectQuery) {
+		return new StringBuilder("update ").append(tableName).append(" t set ").append(columnName).append("=(select s.VAL from (")
+				.append(selectQuery).append(") s where s.ID=t.ID) where t.ID in (select s.ID from (").append(selectQuery).append(") s)").toString();
+	}
+
 	@Override
 	public String getBoundingBoxPredicate(String attributeName, BoundingBox bbox, boolean overlap) {
 		// not required for cache tables
@@ -159,6 +165,12 @@ public class SQLAdapter extends AbstractSQLAdapter {
 		return "";
 	}
 
+	@Override
+	public String getHierarchicalGeometryIdQuery(int numberOfRoots) {
+		// not required for cache tables
+		return "";
+	}
+
 	@Override
 	public String getNextSequenceValue(DBSequencerEnum sequence) {
 		// not required for cache tables
@@ -38,10 +38,6 @@ import org.citydb.api.geometry.GeometryObject;
 import org.citydb.api.geometry.ElementType;
 import org.citydb.database.adapter.AbstractGeometryConverterAdapter;
 
-import oracle.jdbc.driver.OracleConnection;
-import oracle.spatial.geometry.J3D_Geometry;
-import oracle.spatial.geometry.JGeometry;
-
 public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 
 	protected GeometryConverterAdapter() {
@@ -63,7 +59,7 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 		GeometryObject envelope = null;
 
 		if (geomObj instanceof Struct) {
-			JGeometry geometry = JGeometry.loadJS((Struct)geomObj);
+			SdoGeometry geometry = SdoGeometry.load((Struct)geomObj);
 			double[] ordinates = geometry.getMBR();
 			double[] coordinates;
 
@@ -81,13 +77,13 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 	@Override
 	public GeometryObject getPoint(Object geomObj) throws SQLException {
 		if (geomObj instanceof Struct)
-			return getPoint(JGeometry.loadJS((Struct)geomObj));
+			return getPoint(SdoGeometry.load((Struct)geomObj));
 
 		return null;
 	}
 
-	private GeometryObject getPoint(JGeometry geometry) {
-		if (geometry.getType() == JGeometry.GTYPE_POINT) 
+	private GeometryObject getPoint(SdoGeometry geometry) {
+		if (geometry.getType() == SdoGeometry.GTYPE_POINT) 
 			return GeometryObject.createPoint(geometry.getPoint(), geometry.getDimensions(), geometry.getSRID());
 
 		return null;
@@ -96,13 +92,13 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 	@Override
 	public GeometryObject getMultiPoint(Object geomObj) throws SQLException {
 		if (geomObj instanceof Struct)
-			return getMultiPoint(JGeometry.loadJS((Struct)geomObj));
+			return getMultiPoint(SdoGeometry.load((Struct)geomObj));
 
 		return null;
 	}
 
-	private GeometryObject getMultiPoint(JGeometry geometry) {
-		if (geometry.getType() == JGeometry.GTYPE_MULTIPOINT) {
+	private GeometryObject getMultiPoint(SdoGeometry geometry) {
+		if (geometry.getType() == SdoGeometry.GTYPE_MULTIPOINT) {
 			double[] ordinates = geometry.getOrdinatesArray();
 			int dimension = geometry.getDimensions();
 
@@ -116,7 +112,7 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 			return GeometryObject.createMultiPoint(coordinates, dimension, geometry.getSRID());
 		}
 
-		else if (geometry.getType() == JGeometry.GTYPE_POINT) {
+		else if (geometry.getType() == SdoGeometry.GTYPE_POINT) {
 			double[][] coordinates = new double[1][];				
 			coordinates[0] = geometry.getPoint();
 
@@ -129,13 +125,13 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 	@Override
 	public GeometryObject getCurve(Object geomObj) throws SQLException {
 		if (geomObj instanceof Struct)
-			return getCurve(JGeometry.loadJS((Struct)geomObj));
+			return getCurve(SdoGeometry.load((Struct)geomObj));
 
 		return null;
 	}
 
-	private GeometryObject getCurve(JGeometry geometry) {
-		if (geometry.getType() == JGeometry.GTYPE_CURVE)
+	private GeometryObject getCurve(SdoGeometry geometry) {
+		if (geometry.getType() == SdoGeometry.GTYPE_CURVE)
 			return GeometryObject.createCurve(geometry.getOrdinatesArray(), geometry.getDimensions(), geometry.getSRID());
 
 		return null;
@@ -144,13 +140,13 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 	@Override
 	public GeometryObject getMultiCurve(Object geomObj) throws SQLException {
 		if (geomObj instanceof Struct)
-			return getMultiCurve(JGeometry.loadJS((Struct)geomObj));
+			return getMultiCurve(SdoGeometry.load((Struct)geomObj));
 
 		return null;
 	}
 
-	private GeometryObject getMultiCurve(JGeometry geometry) {
-		if (geometry.getType() == JGeometry.GTYPE_MULTICURVE) {
+	private GeometryObject getMultiCurve(SdoGeometry geometry) {
+		if (geometry.getType() == SdoGeometry.GTYPE_MULTICURVE) {
 			int[] elemInfo = geometry.getElemInfo();
 			double[] ordinates = geometry.getOrdinatesArray();
 			if (elemInfo.length < 3)
@@ -171,7 +167,7 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 			return GeometryObject.createMultiCurve(coordinates, geometry.getDimensions(), geometry.getSRID());
 		}
 
-		else if (geometry.getType() == JGeometry.GTYPE_CURVE) {
+		else if (geometry.getType() == SdoGeometry.GTYPE_CURVE) {
 			double[][] coordinates = new double[1][];
 			coordinates[0] = geometry.getOrdinatesArray();
 
@@ -184,19 +180,19 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 	@Override
 	public GeometryObject getPolygon(Object geomObj) throws SQLException {
 		if (geomObj instanceof Struct)
-			return getPolygon(JGeometry.loadJS((Struct)geomObj));
+			return getPolygon(SdoGeometry.load((Struct)geomObj));
 
 		return null;
 	}
 
-	private GeometryObject getPolygon(JGeometry geometry) {
-		if (geometry.getType() == JGeometry.GTYPE_POLYGON)
+	private GeometryObject getPolygon(SdoGeometry geometry) {
+		if (geometry.getType() == SdoGeometry.GTYPE_POLYGON)
 			return GeometryObject.createPolygon(getPolygonCoordinates(geometry), geometry.getDimensions(), geometry.getSRID());
 
 		return null;
 	}
 	
-	private double[][] getPolygonCoordinates(JGeometry geometry) {
+	private double[][] getPolygonCoordinates(SdoGeometry geometry) {
 		int[] elemInfo = geometry.getElemInfo();
 		double[] ordinates = geometry.getOrdinatesArray();
 		if (elemInfo.length < 3)
@@ -220,13 +216,13 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 	@Override
 	public GeometryObject getMultiPolygon(Object geomObj) throws SQLException {
 		if (geomObj instanceof Struct)
-			return getMultiPolygon(JGeometry.loadJS((Struct)geomObj));
+			return getMultiPolygon(SdoGeometry.load((Struct)geomObj));
 
 		return null;
 	}
 	
-	private GeometryObject getMultiPolygon(JGeometry geometry) {
-		if (geometry.getType() == JGeometry.GTYPE_MULTIPOLYGON) {
+	private GeometryObject getMultiPolygon(SdoGeometry geometry) {
+		if (geometry.getType() == SdoGeometry.GTYPE_MULTIPOLYGON) {
 			int[] elemInfo = geometry.getElemInfo();
 			double[] ordinates = geometry.getOrdinatesArray();
 			if (elemInfo.length < 3)
@@ -257,7 +253,7 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 			return GeometryObject.createMultiPolygon(coordinates, exteriorRings, geometry.getDimensions(), geometry.getSRID());
 		}
 		
-		else if (geometry.getType() == JGeometry.GTYPE_POLYGON) {
+		else if (geometry.getType() == SdoGeometry.GTYPE_POLYGON) {
 			double[][] coordinates = getPolygonCoordinates(geometry);
 			int[] exteriorRings = new int[]{ 0 };
 			
@@ -270,19 +266,19 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 	@Override
 	public GeometryObject getGeometry(Object geomObj) throws SQLException {
 		if (geomObj instanceof Struct) {
-			JGeometry geometry = JGeometry.loadJS((Struct)geomObj);
+			SdoGeometry geometry = SdoGeometry.load((Struct)geomObj);
 			switch (geometry.getType()) {
-			case JGeometry.GTYPE_POINT:
+			case SdoGeometry.GTYPE_POINT:
 				return getPoint(geometry);
-			case JGeometry.GTYPE_MULTIPOINT:
+			case SdoGeometry.GTYPE_MULTIPOINT:
 				return getMultiPoint(geometry);
-			case JGeometry.GTYPE_CURVE:
+			case SdoGeometry.GTYPE_CURVE:
 				return getCurve(geometry);
-			case JGeometry.GTYPE_MULTICURVE:
+			case SdoGeometry.GTYPE_MULTICURVE:
 				return getMultiCurve(geometry);
-			case JGeometry.GTYPE_POLYGON:
+			case SdoGeometry.GTYPE_POLYGON:
 				return getPolygon(geometry);
-			case JGeometry.GTYPE_MULTIPOLYGON:
+			case SdoGeometry.GTYPE_MULTIPOLYGON:
 				return getMultiPolygon(geometry);
 			default:
 				throw new SQLException("Cannot convert Oracle geometry type '" + geometry.getType() + "' to internal representation: Unsupported type.");
@@ -294,85 +290,83 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 
 	@Override
 	public Object getDatabaseObject(GeometryObject geomObj, Connection connection) throws SQLException {
-		JGeometry geometry = null;
+		SdoGeometry geometry = null;
 
 		switch (geomObj.getGeometryType()) {
 		case POLYGON:
-			geometry = convertPolygonToJGeometry(geomObj);
+			geometry = convertPolygonToSdoGeometry(geomObj);
 			break;
 		case LINE_STRING:
-			geometry = convertCurveToJGeometry(geomObj);
+			geometry = convertCurveToSdoGeometry(geomObj);
 			break;
 		case POINT:
-			geometry = convertPointToJGeometry(geomObj);
+			geometry = convertPointToSdoGeometry(geomObj);
 			break;
 		case MULTI_LINE_STRING:
-			geometry = convertMultiCurveToJGeometry(geomObj);
+			geometry = convertMultiCurveToSdoGeometry(geomObj);
 			break;
 		case MULTI_POINT:
-			geometry = convertMultiPointToJGeometry(geomObj);
+			geometry = convertMultiPointToSdoGeometry(geomObj);
 			break;
 		case ENVELOPE:
-			geometry = convertEnvelopeToJGeometry(geomObj);
+			geometry = convertEnvelopeToSdoGeometry(geomObj);
 			break;
 		case MULTI_POLYGON:
-			geometry = convertMultiPolygonToJGeometry(geomObj);
+			geometry = convertMultiPolygonToSdoGeometry(geomObj);
 			break;
 		case SOLID:
-			geometry = convertSolidToJGeometry(geomObj);
+			geometry = convertSolidToSdoGeometry(geomObj);
 			break;
 		case COMPOSITE_SOLID:
-			geometry = convertCompositeSolidToJGeometry(geomObj);
+			geometry = convertCompositeSolidToSdoGeometry(geomObj);
 			break;
 		}
 
 		if (geometry == null)
 			throw new SQLException("Failed to convert geometry to internal database representation.");
 
-		try {
-			return JGeometry.storeJS(connection.unwrap(OracleConnection.class), geometry);
-		} catch (Exception e) {
-			throw new SQLException(e.getMessage(), e);
-		}
+		return geometry.store(connection);
 	}
 
-	private JGeometry convertPointToJGeometry(GeometryObject geomObj) {
-		return JGeometry.createPoint(geomObj.getCoordinates(0), geomObj.getDimension(), geomObj.getSrid());
+	private SdoGeometry convertPointToSdoGeometry(GeometryObject geomObj) {
+		return new SdoGeometry(SdoGeometry.GTYPE_POINT, geomObj.getDimension(), geomObj.getSrid(), geomObj.getCoordinates(0), null, null);
 	}
 
-	private JGeometry convertMultiPointToJGeometry(GeometryObject geomObj) {
-		Object[] objectArray = new Object[geomObj.getNumElements()];
-		for (int i = 0; i < geomObj.getNumElements(); i++)
-			objectArray[i] = geomObj.getCoordinates(i);
-
-		return JGeometry.createMultiPoint(objectArray, geomObj.getDimension(), geomObj.getSrid());
+	private SdoGeometry convertMultiPointToSdoGeometry(GeometryObject geomObj) {
+		int[] elemInfo = new int[]{1, 1, geomObj.getNumElements()};
+		return new SdoGeometry(SdoGeometry.GTYPE_MULTIPOINT, geomObj.getDimension(), geomObj.getSrid(), null, elemInfo, getOrdinates(geomObj));
 	}
 
-	private JGeometry convertCurveToJGeometry(GeometryObject geomObj) {
-		return JGeometry.createLinearLineString(geomObj.getCoordinates(0), geomObj.getDimension(), geomObj.getSrid());
+	private SdoGeometry convertCurveToSdoGeometry(GeometryObject geomObj) {
+		int[] elemInfo = new int[]{1, 2, 1};
+		return new SdoGeometry(SdoGeometry.GTYPE_CURVE, geomObj.getDimension(), geomObj.getSrid(), null, elemInfo, geomObj.getCoordinates(0));
 	}
 
-	private JGeometry convertMultiCurveToJGeometry(GeometryObject geomObj) {
-		Object[] objectArray = new Object[geomObj.getNumElements()];
-		for (int i = 0; i < geomObj.getNumElements(); i++)
-			objectArray[i] = geomObj.getCoordinates(i);
+	private SdoGeometry convertMultiCurveToSdoGeometry(GeometryObject geomObj) {
+		int[] elemInfo = new int[geomObj.getNumElements() * 3];
+		for (int i = 0, ordinatesIndex = 0; i < geomObj.getNumElements(); i++) {
+			elemInfo[i * 3] = ordinatesIndex + 1;
+			elemInfo[i * 3 + 1] = 2;
+			elemInfo[i * 3 + 2] = 1;
+			ordinatesIndex += geomObj.getCoordinates(i).length;
+		}
 
-		return JGeometry.createLinearMultiLineString(objectArray, geomObj.getDimension(), geomObj.getSrid());
+		return new SdoGeometry(SdoGeometry.GTYPE_MULTICURVE, geomObj.getDimension(), geomObj.getSrid(), null, elemInfo, getOrdinates(geomObj));
 	}
 
-	private JGeometry convertPolygonToJGeometry(GeometryObject geomObj) {
-		if (geomObj.getNumElements() == 1) {
-			return JGeometry.createLinearPolygon(geomObj.getCoordinates(0), geomObj.getDimension(), geomObj.getSrid());
-		} else {
-			Object[] objectArray = new Object[geomObj.getNumElements()];
-			for (int i = 0; i < geomObj.getNumElements(); i++)
-				objectArray[i] = geomObj.getCoordinates(i);
+	private SdoGeometry convertPolygonToSdoGeometry(GeometryObject geomObj) {
+		int[] elemInfo = new int[geomObj.getNumElements() * 3];
+		for (int i = 0, ordinatesIndex = 0; i < geomObj.getNumElements(); i++) {
+			elemInfo[i * 3] = ordinatesIndex + 1;
+			elemInfo[i * 3 + 1] = i == 0 ? 1003 : 2003;
+			elemInfo[i * 3 + 2] = 1;
+			ordinatesIndex += geomObj.getCoordinates(i).length;
+		}
 
-			return JGeometry.createLinearPolygon(objectArray, geomObj.getDimension(), geomObj.getSrid());
-		} 
+		return new SdoGeometry(SdoGeometry.GTYPE_POLYGON, geomObj.getDimension(), geomObj.getSrid(), null, elemInfo, getOrdinates(geomObj));
 	}
 	
-	private JGeometry convertMultiPolygonToJGeometry(GeometryObject geomObj) {
+	private SdoGeometry convertMultiPolygonToSdoGeometry(GeometryObject geomObj) {
 		int[] elemInfo = new int[geomObj.getNumElements() * 3];
 		double[] ordinates = new double[geomObj.getNumCoordinates()];
 		
@@ -385,14 +379,14 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 			elemInfo[elemInfoIndex++] = 1;
 			
 			double[] coordinates = geomObj.getCoordinates(i);
-			for (int j = 0; j < coordinates.length; j++)
-				ordinates[ordinatesIndex++] = coordinates[j];
+			System.arraycopy(coordinates, 0, ordinates, ordinatesIndex, coordinates.length);
+			ordinatesIndex += coordinates.length;
 		}
 		
-		return new JGeometry(JGeometry.GTYPE_MULTIPOLYGON, geomObj.getSrid(), elemInfo, ordinates);
+		return new SdoGeometry(SdoGeometry.GTYPE_MULTIPOLYGON, geomObj.getDimension(), geomObj.getSrid(), null, elemInfo, ordinates);
 	}
 	
-	private J3D_Geometry convertSolidToJGeometry(GeometryObject geomObj) {
+	private SdoGeometry convertSolidToSdoGeometry(GeometryObject geomObj) {
 		int[] elemInfo = new int[(geomObj.getNumElements() + 2) * 3];
 		double[] ordinates = new double[geomObj.getNumCoordinates()];
 		
@@ -415,14 +409,14 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 			elemInfo[elemInfoIndex++] = 1;
 			
 			double[] coordinates = geomObj.getCoordinates(i);
-			for (int j = 0; j < coordinates.length; j++)
-				ordinates[ordinatesIndex++] = coordinates[j];
+			System.arraycopy(coordinates, 0, ordinates, ordinatesIndex, coordinates.length);
+			ordinatesIndex += coordinates.length;
 		}
 		
-		return new J3D_Geometry(J3D_Geometry.GTYPE_SOLID, geomObj.getSrid(), elemInfo, ordinates);
+		return new SdoGeometry(SdoGeometry.GTYPE_SOLID, geomObj.getDimension(), geomObj.getSrid(), null, elemInfo, ordinates);
 	}
 	
-	private J3D_Geometry convertCompositeSolidToJGeometry(GeometryObject geomObj) {
+	private SdoGeometry convertCompositeSolidToSdoGeometry(GeometryObject geomObj) {
 		List<Integer> shellIndexes = new ArrayList<>();
 		for (int i = 0; i < geomObj.getNumElements(); i++)
 			if (geomObj.getElementType(i) == ElementType.SHELL)
@@ -461,57 +455,69 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 				elemInfo[elemInfoIndex++] = 1;
 				
 				double[] coordinates = geomObj.getCoordinates(i);
-				for (int j = 0; j < coordinates.length; j++)
-					ordinates[ordinatesIndex++] = coordinates[j];				
+				System.arraycopy(coordinates, 0, ordinates, ordinatesIndex, coordinates.length);
+				ordinatesIndex += coordinates.length;
 			}			
 		}
 		
-		return new J3D_Geometry(J3D_Geometry.GTYPE_SOLID, geomObj.getSrid(), elemInfo, ordinates);
+		return new SdoGeometry(SdoGeometry.GTYPE_SOLID, geomObj.getDimension(), geomObj.getSrid(), null, elemInfo, ordinates);
 	}
 
-	private JGeometry convertEnvelopeToJGeometry(GeometryObject geomObj) {
+	private SdoGeometry convertEnvelopeToSdoGeometry(GeometryObject geomObj) {
 		int dimension = geomObj.getDimension();
 		double[] coordinates = new double[5 * dimension];
+		double[] envelope = geomObj.getCoordinates(0);
 		int i = 0;
 
 		if (dimension == 3) {
-			coordinates[i++] = geomObj.getCoordinates()[0][0];
-			coordinates[i++] = geomObj.getCoordinates()[0][1];
-			coordinates[i++] = geomObj.getCoordinates()[0][2];
+			coordinates[i++] = envelope[0];
+			coordinates[i++] = envelope[1];
+			coordinates[i++] = envelope[2];
 
-			coordinates[i++] = geomObj.getCoordinates()[0][3];
-			coordinates[i++] = geomObj.getCoordinates()[0][1];
-			coordinates[i++] = geomObj.getCoordinates()[0][2];
+			coordinates[i++] = envelope[3];
+			coordinates[i++] = envelope[1];
+			coordinates[i++] = envelope[2];
 
-			coordinates[i++] = geomObj.getCoordinates()[0][3];
-			coordinates[i++] = geomObj.getCoordinates()[0][4];
-			coordinates[i++] = geomObj.getCoordinates()[0][5];
+			coordinates[i++] = envelope[3];
+			coordinates[i++] = envelope[4];
+			coordinates[i++] = envelope[5];
 
-			coordinates[i++] = geomObj.getCoordinates()[0][0];
-			coordinates[i++] = geomObj.getCoordinates()[0][4];
-			coordinates[i++] = geomObj.getCoordinates()[0][5];
+			coordinates[i++] = envelope[0];
+			coordinates[i++] = envelope[4];
+			coordinates[i++] = envelope[5];
 
-			coordinates[i++] = geomObj.getCoordinates()[0][0];
-			coordinates[i++] = geomObj.getCoordinates()[0][1];
-			coordinates[i++] = geomObj.getCoordinates()[0][2];
+			coordinates[i++] = envelope[0];
+			coordinates[i++] = envelope[1];
+			coordinates[i++] = envelope[2];
 		} else {
-			coordinates[i++] = geomObj.getCoordinates()[0][0];
-			coordinates[i++] = geomObj.getCoordinates()[0][1];
+			coordinates[i++] = envelope[0];
+			coordinates[i++] = envelope[1];
 
-			coordinates[i++] = geomObj.getCoordinates()[0][2];
-			coordinates[i++] = geomObj.getCoordinates()[0][1];
+			coordinates[i++] = envelope[2];
+			coordinates[i++] = envelope[1];
 			
-			coordinates[i++] = geomObj.getCoordinates()[0][2];
-			coordinates[i++] = geomObj.getCoordinates()[0][3];
+			coordinates[i++] = envelope[2];
+			coordinates[i++] = envelope[3];
+
+			coordinates[i++] = envelope[0];
+			coordinates[i++] = envelope[3];
+
+			coordinates[i++] = envelope[0];
+			coordinates[i++] = envelope[1];
+		}
 
-			coordinates[i++] = geomObj.getCoordinates()[0][0];
-			coordinates[i++] = geomObj.getCoordinates()[0][3];
+		return new SdoGeometry(SdoGeometry.GTYPE_POLYGON, dimension, geomObj.getSrid(), null, new int[]{1, 1003, 1}, coordinates);
+	}
 
-			coordinates[i++] = geomObj.getCoordinates()[0][0];
-			coordinates[i++] = geomObj.getCoordinates()[0][1];
+	private double[] getOrdinates(GeometryObject geomObj) {
+		double[] ordinates = new double[geomObj.getNumCoordinates()];
+		for (int i = 0, ordinatesIndex = 0; i < geomObj.getNumElements(); i++) {
+			double[] coordinates = geomObj.getCoordinates(i);
+			System.arraycopy(coordinates, 0, ordinates, ordinatesIndex, coordinates.length);
+			ordinatesIndex += coordinates.length;
 		}
 
-		return JGeometry.createLinearPolygon(coordinates, geomObj.getDimension(), geomObj.getSrid());
+		return ordinates;
 	}
 
 }
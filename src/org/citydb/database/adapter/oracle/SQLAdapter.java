@@ -157,6 +157,12 @@ public class SQLAdapter extends AbstractSQLAdapter {
 		return 1000;
 	}
 
+	@Override
+	public String getUpdateFromSelect(String tableName, String columnName, String selectQuery) {
+		return new StringBuilder("merge into ").append(tableName).append(" t using (")
+				.append(selectQuery).append(") s on (t.ID=s.ID) when matched then update set t.").append(columnName).append("=s.VAL").toString();
+	}
+
 	@Override
 	public String getBoundingBoxPredicate(String attributeName, BoundingBox bbox, boolean overlap) {
 		StringBuilder geometry = new StringBuilder()
@@ -189,6 +195,16 @@ public class SQLAdapter extends AbstractSQLAdapter {
 		return "select sg.*, LEVEL from SURFACE_GEOMETRY sg start with sg.ID=? connect by prior sg.ID=sg.PARENT_ID";
 	}
 
+	@Override
+	public String getHierarchicalGeometryIdQuery(int numberOfRoots) {
+		StringBuilder query = new StringBuilder("select CONNECT_BY_ROOT sg.ID as START_ID, sg.ID, sg.PARENT_ID from SURFACE_GEOMETRY sg start with sg.ID in (");
+		for (int i = 0; i < numberOfRoots; i++)
+			query.append(i == 0 ? "?" : ", ?");
+
+		query.append(") connect by prior sg.ID=sg.PARENT_ID");
+		return query.toString();
+	}
+
 	@Override
 	public BlobImportAdapter getBlobImportAdapter(Connection connection, BlobType type) throws SQLException {
 		return new BlobImportAdapterImpl(connection, type);
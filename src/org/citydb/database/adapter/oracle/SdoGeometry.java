@@ -0,0 +1,185 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.database.adapter.oracle;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Struct;
+
+import oracle.jdbc.OracleArray;
+import oracle.jdbc.OracleConnection;
+
+// reads and writes MDSYS.SDO_GEOMETRY values directly from and to the
+// element info and ordinate arrays without building JGeometry objects
+final class SdoGeometry {
+	static final int GTYPE_POINT = 1;
+	static final int GTYPE_CURVE = 2;
+	static final int GTYPE_POLYGON = 3;
+	static final int GTYPE_MULTIPOINT = 5;
+	static final int GTYPE_MULTICURVE = 6;
+	static final int GTYPE_MULTIPOLYGON = 7;
+	static final int GTYPE_SOLID = 8;
+
+	private final int gtype;
+	private final int srid;
+	private final double[] point;
+	private final int[] elemInfo;
+	private final double[] ordinates;
+
+	SdoGeometry(int type, int dimension, int srid, double[] point, int[] elemInfo, double[] ordinates) {
+		this.gtype = dimension * 1000 + type;
+		this.srid = srid;
+		this.point = point;
+		this.elemInfo = elemInfo;
+		this.ordinates = ordinates;
+	}
+
+	static SdoGeometry load(Struct struct) throws SQLException {
+		Object[] attributes = struct.getAttributes();
+		int gtype = ((Number)attributes[0]).intValue();
+		int srid = attributes[1] != null ? ((Number)attributes[1]).intValue() : 0;
+
+		double[] point = null;
+		if (attributes[2] instanceof Struct) {
+			Object[] values = ((Struct)attributes[2]).getAttributes();
+			int dimension = gtype / 1000 == 3 && values[2] != null ? 3 : 2;
+			point = new double[dimension];
+			for (int i = 0; i < dimension; i++)
+				point[i] = ((Number)values[i]).doubleValue();
+		}
+
+		int[] elemInfo = attributes[3] != null ? toIntArray((Array)attributes[3]) : new int[0];
+		double[] ordinates = attributes[4] != null ? toDoubleArray((Array)attributes[4]) : new double[0];
+
+		// gtypes without dimension are two-dimensional
+		return new SdoGeometry(gtype % 100, gtype >= 1000 ? gtype / 1000 : 2, srid, point, elemInfo, ordinates);
+	}
+
+	Struct store(Connection connection) throws SQLException {
+		// the driver looks up the type descriptors in the descriptor cache
+		// of the connection, so every worker uses its own descriptors
+		OracleConnection oracleConnection = connection.unwrap(OracleConnection.class);
+
+		Struct pointStruct = null;
+		if (point != null) {
+			pointStruct = oracleConnection.createStruct("MDSYS.SDO_POINT_TYPE", new Object[]{
+					point[0], point[1], getDimensions() == 3 && point.length > 2 ? point[2] : null});
+		}
+
+		Object[] attributes = new Object[]{
+				gtype,
+				srid != 0 ? srid : null,
+				pointStruct,
+				point == null ? oracleConnection.createOracleArray("MDSYS.SDO_ELEM_INFO_ARRAY", elemInfo) : null,
+				point == null ? oracleConnection.createOracleArray("MDSYS.SDO_ORDINATE_ARRAY", ordinates) : null
+		};
+
+		return oracleConnection.createStruct("MDSYS.SDO_GEOMETRY", attributes);
+	}
+
+	int getType() {
+		return gtype % 100;
+	}
+
+	int getDimensions() {
+		return gtype / 1000;
+	}
+
+	int getSRID() {
+		return srid;
+	}
+
+	int[] getElemInfo() {
+		return elemInfo;
+	}
+
+	double[] getOrdinatesArray() {
+		return ordinates;
+	}
+
+	double[] getPoint() {
+		if (point != null)
+			return point;
+
+		int dimension = getDimensions();
+		if (ordinates.length < dimension)
+			return null;
+
+		double[] first = new double[dimension];
+		System.arraycopy(ordinates, 0, first, 0, dimension);
+		return first;
+	}
+
+	double[] getMBR() {
+		int dimension = getDimensions();
+		double[] mbr = new double[dimension * 2];
+		for (int i = 0; i < dimension; i++) {
+			mbr[i] = Double.MAX_VALUE;
+			mbr[dimension + i] = -Double.MAX_VALUE;
+		}
+
+		if (point != null) {
+			for (int i = 0; i < dimension && i < point.length; i++)
+				mbr[i] = mbr[dimension + i] = point[i];
+		} else {
+			for (int i = 0; i < ordinates.length; i++) {
+				int axis = i % dimension;
+				mbr[axis] = Math.min(mbr[axis], ordinates[i]);
+				mbr[dimension + axis] = Math.max(mbr[dimension + axis], ordinates[i]);
+			}
+		}
+
+		return mbr;
+	}
+
+	private static int[] toIntArray(Array array) throws SQLException {
+		if (array instanceof OracleArray)
+			return ((OracleArray)array).getIntArray();
+
+		Object[] values = (Object[])array.getArray();
+		int[] result = new int[values.length];
+		for (int i = 0; i < values.length; i++)
+			result[i] = ((Number)values[i]).intValue();
+
+		return result;
+	}
+
+	private static double[] toDoubleArray(Array array) throws SQLException {
+		if (array instanceof OracleArray)
+			return ((OracleArray)array).getDoubleArray();
+
+		Object[] values = (Object[])array.getArray();
+		double[] result = new double[values.length];
+		for (int i = 0; i < values.length; i++)
+			result[i] = ((Number)values[i]).doubleValue();
+
+		return result;
+	}
+
+}
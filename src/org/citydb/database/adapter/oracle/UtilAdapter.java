@@ -28,12 +28,14 @@
 package org.citydb.database.adapter.oracle;
 
 import java.sql.Array;
+import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.sql.Types;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -342,6 +344,118 @@ public class UtilAdapter extends AbstractUtilAdapter {
 		return bbox;
 	}
 
+	@Override
+	protected BoundingBox createBoundingBoxes(int classId, long minId, long maxId, boolean onlyIfNull, Connection connection) throws SQLException {
+		CallableStatement cStmt = null;
+
+		try {
+			// functions updating the envelope column cannot be called from a query
+			StringBuilder call = new StringBuilder()
+			.append("declare env SDO_GEOMETRY; xmin NUMBER; ymin NUMBER; xmax NUMBER; ymax NUMBER; begin ")
+			.append("for rec in (select id, objectclass_id from cityobject where objectclass_id = ? and id between ? and ?")
+			.append(onlyIfNull ? " and envelope is null" : "").append(") loop ")
+			.append("env := ").append(databaseAdapter.getSQLAdapter().resolveDatabaseOperationName("citydb_envelope.get_envelope_cityobject")).append("(rec.id, rec.objectclass_id, 1); ")
+			.append("if env is not null then ")
+			.append("xmin := least(nvl(xmin, sdo_geom.sdo_min_mbr_ordinate(env, 1)), sdo_geom.sdo_min_mbr_ordinate(env, 1)); ")
+			.append("ymin := least(nvl(ymin, sdo_geom.sdo_min_mbr_ordinate(env, 2)), sdo_geom.sdo_min_mbr_ordinate(env, 2)); ")
+			.append("xmax := greatest(nvl(xmax, sdo_geom.sdo_max_mbr_ordinate(env, 1)), sdo_geom.sdo_max_mbr_ordinate(env, 1)); ")
+			.append("ymax := greatest(nvl(ymax, sdo_geom.sdo_max_mbr_ordinate(env, 2)), sdo_geom.sdo_max_mbr_ordinate(env, 2)); ")
+			.append("end if; end loop; ")
+			.append("? := xmin; ? := ymin; ? := xmax; ? := ymax; end;");
+
+			cStmt = connection.prepareCall(call.toString());
+			interruptableStatements.add(cStmt);
+			cStmt.setInt(1, classId);
+			cStmt.setLong(2, minId);
+			cStmt.setLong(3, maxId);
+			for (int i = 4; i <= 7; i++)
+				cStmt.registerOutParameter(i, Types.DOUBLE);
+
+			cStmt.executeUpdate();
+
+			double xmin = cStmt.getDouble(4);
+			if (!cStmt.wasNull())
+				return new BoundingBox(new Position(xmin, cStmt.getDouble(5)), new Position(cStmt.getDouble(6), cStmt.getDouble(7)));
+
+			return null;
+		} finally {
+			if (cStmt != null) {
+				interruptableStatements.remove(cStmt);
+
+				try {
+					cStmt.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	@Override
+	protected long[] countCityObjects(BoundingBox extent, int cells, List<Integer> classIds, Connection connection) throws SQLException {
+		PreparedStatement pStmt = null;
+		ResultSet rs = null;
+
+		try {
+			double xmin = extent.getLowerCorner().getX();
+			double ymin = extent.getLowerCorner().getY();
+			double xmax = extent.getUpperCorner().getX();
+			double ymax = extent.getUpperCorner().getY();
+
+			StringBuilder query = new StringBuilder()
+			.append("select cell_x, cell_y, count(*) from (select ")
+			.append("floor(((sdo_geom.sdo_min_mbr_ordinate(envelope, 1) + sdo_geom.sdo_max_mbr_ordinate(envelope, 1)) / 2 - ?) / ?) as cell_x, ")
+			.append("floor(((sdo_geom.sdo_min_mbr_ordinate(envelope, 2) + sdo_geom.sdo_max_mbr_ordinate(envelope, 2)) / 2 - ?) / ?) as cell_y ")
+			.append("from cityobject where sdo_anyinteract(envelope, ?) = 'TRUE'");
+
+			if (!classIds.isEmpty())
+				query.append(" and objectclass_id in (").append(Util.collection2string(classIds, ", ")).append(")");
+
+			query.append(") group by cell_x, cell_y");
+
+			GeometryObject window = GeometryObject.createPolygon(new double[]{
+					xmin, ymin, 0, xmax, ymin, 0, xmax, ymax, 0, xmin, ymax, 0, xmin, ymin, 0
+			}, 3, databaseAdapter.getConnectionMetaData().getReferenceSystem().getSrid());
+
+			pStmt = connection.prepareStatement(query.toString());
+			interruptableStatements.add(pStmt);
+			pStmt.setDouble(1, xmin);
+			pStmt.setDouble(2, (xmax - xmin) / cells);
+			pStmt.setDouble(3, ymin);
+			pStmt.setDouble(4, (ymax - ymin) / cells);
+			pStmt.setObject(5, databaseAdapter.getGeometryConverter().getDatabaseObject(window, connection));
+
+			long[] counts = new long[cells * cells];
+			rs = pStmt.executeQuery();
+			while (rs.next()) {
+				int column = rs.getInt(1);
+				int row = rs.getInt(2);
+				if (column >= 0 && column < cells && row >= 0 && row < cells)
+					counts[row * cells + column] += rs.getLong(3);
+			}
+
+			return counts;
+		} finally {
+			if (rs != null) {
+				try {
+					rs.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+
+			if (pStmt != null) {
+				interruptableStatements.remove(pStmt);
+
+				try {
+					pStmt.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+		}
+	}
+
 	@Override
 	protected IndexStatusInfo manageIndexes(String operation, IndexType type, Connection connection) throws SQLException {
 		try {
@@ -372,6 +486,54 @@ public class UtilAdapter extends AbstractUtilAdapter {
 		return null;
 	}
 
+	@Override
+	protected IndexStatusInfo manageIndex(String indexName, boolean create, IndexType type, Connection connection) throws SQLException {
+		CallableStatement cStmt = null;
+
+		try {
+			String indexTable = databaseAdapter.getSQLAdapter().resolveDatabaseOperationName("citydb_idx.index_table");
+			String operation = databaseAdapter.getSQLAdapter().resolveDatabaseOperationName(create ? "citydb_idx.create_index" : "citydb_idx.drop_index");
+			String status = databaseAdapter.getSQLAdapter().resolveDatabaseOperationName("citydb_idx.index_status");
+
+			StringBuilder call = new StringBuilder()
+			.append("declare idx INDEX_OBJ; sql_error VARCHAR2(4000); begin ")
+			.append("select t.obj into idx from ").append(indexTable).append(" t where upper(t.obj.index_name) = upper(?); ")
+			.append("sql_error := ").append(operation).append("(idx, citydb_util.versioning_table(idx.table_name) = 'ON'); ")
+			.append("? := ").append(status).append("(idx) || ':' || idx.index_name || ':' || USER || ':' || idx.table_name || ':' || idx.attribute_name || ':' || sql_error; ")
+			.append("end;");
+
+			cStmt = connection.prepareCall(call.toString());
+			cStmt.setString(1, indexName);
+			cStmt.registerOutParameter(2, Types.VARCHAR);
+			cStmt.executeUpdate();
+
+			return IndexStatusInfo.createFromDatabaseQuery(new String[]{ cStmt.getString(2) }, type);
+		} finally {
+			if (cStmt != null) {
+				try {
+					cStmt.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	@Override
+	protected void setIndexSessionHints(int maintenanceWorkMem, Connection connection) throws SQLException {
+		// memory is managed by the pga target, so we only enforce parallel ddl
+		try (Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("ALTER SESSION FORCE PARALLEL DDL");
+		}
+	}
+
+	@Override
+	protected void resetIndexSessionHints(Connection connection) throws SQLException {
+		try (Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("ALTER SESSION ENABLE PARALLEL DDL");
+		}
+	}
+
 	@Override
 	protected boolean updateTableStats(IndexType type, Connection connection) throws SQLException {
 		return false;
@@ -395,6 +395,10 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 
 		switch (geomObj.getGeometryType()) {
 		case POLYGON:
+			// build polygons directly from the coordinate arrays
+			// instead of parsing their EWKT representation
+			geometry = new PGgeometry(convertToPolygon(geomObj));
+			break;
 		case LINE_STRING:
 		case POINT:
 		case MULTI_LINE_STRING:
@@ -419,6 +423,27 @@ public class GeometryConverterAdapter extends AbstractGeometryConverterAdapter {
 		return geometry;
 	}
 
+	private Polygon convertToPolygon(GeometryObject geomObj) {
+		double[][] coordinates = geomObj.getCoordinates();
+		int dimension = geomObj.getDimension();
+		LinearRing[] rings = new LinearRing[coordinates.length];
+
+		for (int i = 0; i < coordinates.length; i++) {
+			double[] ring = coordinates[i];
+			Point[] points = new Point[ring.length / dimension];
+
+			for (int j = 0, k = 0; j < ring.length; j += dimension)
+				points[k++] = dimension == 3 ? new Point(ring[j], ring[j + 1], ring[j + 2]) : new Point(ring[j], ring[j + 1]);
+
+			rings[i] = new LinearRing(points);
+		}
+
+		Polygon polygon = new Polygon(rings);
+		polygon.setSrid(geomObj.getSrid());
+
+		return polygon;
+	}
+
 	private String convertToEWKT(GeometryObject geomObj) {
 		double[][] coordinates = geomObj.getCoordinates();
 		int dimension = geomObj.getDimension();
@@ -155,6 +155,12 @@ public class SQLAdapter extends AbstractSQLAdapter {
 		return 1000;
 	}
 
+	@Override
+	public String getUpdateFromSelect(String tableName, String columnName, String selectQuery) {
+		return new StringBuilder("update ").append(tableName).append(" set ").append(columnName).append("=s.VAL from (")
+				.append(selectQuery).append(") s where ").append(tableName).append(".ID=s.ID").toString();
+	}
+
 	@Override
 	public String getBoundingBoxPredicate(String attributeName, BoundingBox bbox, boolean overlap) {
 		StringBuilder geometry = new StringBuilder()
@@ -195,6 +201,22 @@ public class SQLAdapter extends AbstractSQLAdapter {
 		return query.toString();
 	}
 
+	@Override
+	public String getHierarchicalGeometryIdQuery(int numberOfRoots) {
+		StringBuilder query = new StringBuilder()
+		.append("WITH RECURSIVE geometry_rec (start_id, id, parent_id) ")
+		.append("AS (SELECT sg.id, sg.id, sg.parent_id FROM surface_geometry sg WHERE sg.id IN (");
+
+		for (int i = 0; i < numberOfRoots; i++)
+			query.append(i == 0 ? "?" : ", ?");
+
+		query.append(") UNION ALL ")
+		.append("SELECT g.start_id, sg.id, sg.parent_id FROM surface_geometry sg, geometry_rec g WHERE sg.parent_id=g.id) ")
+		.append("SELECT start_id, id, parent_id FROM geometry_rec");
+
+		return query.toString();
+	}
+
 	@Override
 	public BlobImportAdapter getBlobImportAdapter(Connection connection, BlobType type) throws SQLException {
 		return new BlobImportAdapterImpl(connection, type);
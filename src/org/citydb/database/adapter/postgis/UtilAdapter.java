@@ -335,6 +335,122 @@ public class UtilAdapter extends AbstractUtilAdapter {
 		return bbox;
 	}
 
+	@Override
+	protected BoundingBox createBoundingBoxes(int classId, long minId, long maxId, boolean onlyIfNull, Connection connection) throws SQLException {
+		PreparedStatement pStmt = null;
+		ResultSet rs = null;
+
+		try {
+			StringBuilder query = new StringBuilder()
+			.append("select ST_XMin(e), ST_YMin(e), ST_XMax(e), ST_YMax(e) from (select ST_3DExtent(")
+			.append(databaseAdapter.getSQLAdapter().resolveDatabaseOperationName("citydb_envelope.get_envelope_cityobject"))
+			.append("(id, objectclass_id, 1)) as e from cityobject where objectclass_id = ? and id between ? and ?");
+
+			if (onlyIfNull)
+				query.append(" and envelope is null");
+
+			query.append(") envelopes");
+
+			pStmt = connection.prepareStatement(query.toString());
+			interruptableStatements.add(pStmt);
+			pStmt.setInt(1, classId);
+			pStmt.setLong(2, minId);
+			pStmt.setLong(3, maxId);
+
+			rs = pStmt.executeQuery();
+			if (rs.next()) {
+				double xmin = rs.getDouble(1);
+				if (!rs.wasNull())
+					return new BoundingBox(new Position(xmin, rs.getDouble(2)), new Position(rs.getDouble(3), rs.getDouble(4)));
+			}
+
+			return null;
+		} finally {
+			if (rs != null) {
+				try {
+					rs.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+
+			if (pStmt != null) {
+				interruptableStatements.remove(pStmt);
+
+				try {
+					pStmt.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	@Override
+	protected long[] countCityObjects(BoundingBox extent, int cells, List<Integer> classIds, Connection connection) throws SQLException {
+		PreparedStatement pStmt = null;
+		ResultSet rs = null;
+
+		try {
+			double xmin = extent.getLowerCorner().getX();
+			double ymin = extent.getLowerCorner().getY();
+			double xmax = extent.getUpperCorner().getX();
+			double ymax = extent.getUpperCorner().getY();
+
+			StringBuilder query = new StringBuilder()
+			.append("select cell_x, cell_y, count(*) from (select ")
+			.append("floor(((ST_XMin(envelope) + ST_XMax(envelope)) / 2 - ?) / ?) as cell_x, ")
+			.append("floor(((ST_YMin(envelope) + ST_YMax(envelope)) / 2 - ?) / ?) as cell_y ")
+			.append("from cityobject where envelope && ?");
+
+			if (!classIds.isEmpty())
+				query.append(" and objectclass_id in (").append(Util.collection2string(classIds, ", ")).append(")");
+
+			query.append(") cells group by cell_x, cell_y");
+
+			GeometryObject window = GeometryObject.createPolygon(new double[]{
+					xmin, ymin, 0, xmax, ymin, 0, xmax, ymax, 0, xmin, ymax, 0, xmin, ymin, 0
+			}, 3, databaseAdapter.getConnectionMetaData().getReferenceSystem().getSrid());
+
+			pStmt = connection.prepareStatement(query.toString());
+			interruptableStatements.add(pStmt);
+			pStmt.setDouble(1, xmin);
+			pStmt.setDouble(2, (xmax - xmin) / cells);
+			pStmt.setDouble(3, ymin);
+			pStmt.setDouble(4, (ymax - ymin) / cells);
+			pStmt.setObject(5, databaseAdapter.getGeometryConverter().getDatabaseObject(window, connection));
+
+			long[] counts = new long[cells * cells];
+			rs = pStmt.executeQuery();
+			while (rs.next()) {
+				int column = rs.getInt(1);
+				int row = rs.getInt(2);
+				if (column >= 0 && column < cells && row >= 0 && row < cells)
+					counts[row * cells + column] += rs.getLong(3);
+			}
+
+			return counts;
+		} finally {
+			if (rs != null) {
+				try {
+					rs.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+
+			if (pStmt != null) {
+				interruptableStatements.remove(pStmt);
+
+				try {
+					pStmt.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+		}
+	}
+
 	@Override
 	protected IndexStatusInfo manageIndexes(String operation, IndexType type, Connection connection) throws SQLException {
 		try {
@@ -365,6 +481,71 @@ public class UtilAdapter extends AbstractUtilAdapter {
 		return null;
 	}
 
+	@Override
+	protected IndexStatusInfo manageIndex(String indexName, boolean create, IndexType type, Connection connection) throws SQLException {
+		PreparedStatement pStmt = null;
+		ResultSet rs = null;
+
+		try {
+			String indexTable = databaseAdapter.getSQLAdapter().resolveDatabaseOperationName("citydb_idx.index_table");
+			String operation = databaseAdapter.getSQLAdapter().resolveDatabaseOperationName(create ? "citydb_idx.create_index" : "citydb_idx.drop_index");
+			String status = databaseAdapter.getSQLAdapter().resolveDatabaseOperationName("citydb_idx.index_status");
+
+			pStmt = connection.prepareStatement("SELECT " + operation + "(obj) FROM " + indexTable + " WHERE upper((obj).index_name) = upper(?)");
+			pStmt.setString(1, indexName);
+			rs = pStmt.executeQuery();
+			if (!rs.next())
+				return null;
+
+			String sqlError = rs.getString(1);
+			rs.close();
+			pStmt.close();
+
+			// query status in a separate statement so that it reflects the executed ddl
+			pStmt = connection.prepareStatement("SELECT " + status + "(obj), (obj).index_name, (obj).table_name, (obj).attribute_name FROM " + indexTable + " WHERE upper((obj).index_name) = upper(?)");
+			pStmt.setString(1, indexName);
+			rs = pStmt.executeQuery();
+			if (!rs.next())
+				return null;
+
+			String result = rs.getString(1) + ":" + rs.getString(2) + ":citydb:" + rs.getString(3) + ":" + rs.getString(4) + ":" + sqlError;
+			return IndexStatusInfo.createFromDatabaseQuery(new String[]{ result }, type);
+		} finally {
+			if (rs != null) {
+				try {
+					rs.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+
+			if (pStmt != null) {
+				try {
+					pStmt.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	@Override
+	protected void setIndexSessionHints(int maintenanceWorkMem, Connection connection) throws SQLException {
+		if (maintenanceWorkMem <= 0)
+			return;
+
+		try (Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("SET maintenance_work_mem = '" + maintenanceWorkMem + "MB'");
+		}
+	}
+
+	@Override
+	protected void resetIndexSessionHints(Connection connection) throws SQLException {
+		try (Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("RESET maintenance_work_mem");
+		}
+	}
+
 	@Override
 	protected boolean updateTableStats(IndexType type, Connection connection) throws SQLException {
 		PreparedStatement pStmt = null;
@@ -42,9 +42,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FilterOutputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
@@ -68,7 +66,6 @@ import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JTextArea;
-import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.border.Border;
 import javax.swing.border.CompoundBorder;
@@ -76,6 +73,8 @@ import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import javax.swing.event.PopupMenuEvent;
 import javax.swing.event.PopupMenuListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
 import javax.swing.plaf.basic.BasicSplitPaneDivider;
 import javax.swing.plaf.basic.BasicSplitPaneUI;
 import javax.xml.bind.JAXBContext;
@@ -102,8 +101,10 @@ import org.citydb.config.gui.window.MainWindow;
 import org.citydb.config.gui.window.WindowSize;
 import org.citydb.config.language.Language;
 import org.citydb.config.project.global.LanguageType;
+import org.citydb.config.project.global.LogConsole;
 import org.citydb.database.DatabaseConnectionPool;
 import org.citydb.event.SwitchLocaleEventImpl;
+import org.citydb.gui.console.ConsoleBuffer;
 import org.citydb.gui.console.ConsoleWindow;
 import org.citydb.gui.factory.DefaultComponentFactory;
 import org.citydb.gui.factory.PopupMenuDecorator;
@@ -141,6 +142,7 @@ public final class ImpExpGui extends JFrame implements ViewController, EventHand
 	private ConsolePopupMenuWrapper consolePopup;
 	private ConsoleWindow consoleWindow;
 	private JTextArea consoleText;
+	private ConsoleBuffer consoleBuffer;
 
 	private int tmpConsoleWidth;
 	private int activePosition;
@@ -409,7 +411,9 @@ public final class ImpExpGui extends JFrame implements ViewController, EventHand
 		}
 
 		// let standard out point to console
-		JTextAreaOutputStream consoleWriter = new JTextAreaOutputStream(consoleText, new ByteArrayOutputStream(), encoding);
+		LogConsole logConsole = config.getProject().getGlobal().getLogging().getConsole();
+		consoleBuffer = new ConsoleBuffer(consoleText, logConsole.getMaxLines(), logConsole.getRefreshInterval());
+		ConsoleOutputStream consoleWriter = new ConsoleOutputStream(consoleBuffer, encoding);
 		PrintStream writer;
 
 		try {
@@ -577,7 +581,10 @@ public final class ImpExpGui extends JFrame implements ViewController, EventHand
 
 	@Override
 	public void clearConsole() {
-		consoleText.setText("");
+		if (consoleBuffer != null)
+			consoleBuffer.clear();
+		else
+			consoleText.setText("");
 	}
 
 	@Override
@@ -669,59 +676,45 @@ public final class ImpExpGui extends JFrame implements ViewController, EventHand
 		setDatabaseStatus(((DatabaseConnectionStateEvent)event).isConnected());
 	}
 
-	private class JTextAreaOutputStream extends FilterOutputStream {
-		private final int MAX_DOC_LENGTH = 10000;
-		private final JTextArea ta;
+	private class ConsoleOutputStream extends OutputStream {
+		private final ConsoleBuffer buffer;
 		private final Charset encoding;
 
-		public JTextAreaOutputStream (JTextArea ta, OutputStream stream, Charset encoding) {
-			super(stream);
-			this.ta = ta;
+		public ConsoleOutputStream(ConsoleBuffer buffer, Charset encoding) {
+			this.buffer = buffer;
 			this.encoding = encoding;
 		}
 
 		@Override
-		public void write(final byte[] b) {
-			try {
-				ta.append(new String(b, encoding));
-			} catch (Error e) {
-				//
-			}
-
-			flush();
+		public void write(int b) {
+			write(new byte[]{ (byte)b }, 0, 1);
 		}
 
 		@Override
 		public void write(final byte b[], final int off, final int len) {
-			try {
-				ta.append(new String(b, off, len, encoding));
-			} catch (Error e) {
-				//
-			} 
-
-			flush();
-		}
-
-		public void flush() {
-			SwingUtilities.invokeLater(new Runnable() {
-				public void run() {
-					ta.setCaretPosition(ta.getDocument().getLength());	
-					if (ta.getLineCount() > MAX_DOC_LENGTH)
-						ta.setText("...truncating console output after " + MAX_DOC_LENGTH + " log messages...");
-				}
-			});
+			buffer.append(new String(b, off, len, encoding));
 		}
 	}
 
 	private final class ConsolePopupMenuWrapper {
+		private JMenuItem find;
 		private JMenuItem clear;	
+		private String lastQuery;
 
 		public ConsolePopupMenuWrapper(JPopupMenu popupMenu) {
+			find = new JMenuItem();
 			clear = new JMenuItem();	
 
 			popupMenu.addSeparator();
+			popupMenu.add(find);
 			popupMenu.add(clear);
 
+			find.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					findInConsole();
+				}
+			});
+
 			clear.addActionListener(new ActionListener() {
 				public void actionPerformed(ActionEvent e) {
 					clearConsole();
@@ -733,6 +726,7 @@ public final class ImpExpGui extends JFrame implements ViewController, EventHand
 				@Override
 				public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
 					clear.setEnabled(consoleText.getDocument().getLength() != 0);
+					find.setEnabled(consoleText.getDocument().getLength() != 0 && consoleBuffer != null);
 				}
 
 				@Override
@@ -748,7 +742,36 @@ public final class ImpExpGui extends JFrame implements ViewController, EventHand
 
 		}
 
+		private void findInConsole() {
+			String query = (String)JOptionPane.showInputDialog(getTopFrame(), 
+					Language.I18N.getString("main.console.find.message"), 
+					Language.I18N.getString("main.console.popup.find"), 
+					JOptionPane.PLAIN_MESSAGE, null, null, lastQuery);
+
+			if (query == null || query.length() == 0)
+				return;
+
+			lastQuery = query;
+
+			try {
+				// continue searching after the line of the current selection
+				Element root = consoleText.getDocument().getDefaultRootElement();
+				int fromLine = consoleText.getSelectionStart() != consoleText.getSelectionEnd() ? 
+						root.getElementIndex(consoleText.getSelectionStart()) + 1 : 0;
+
+				int line = consoleBuffer.find(query, fromLine, true);
+				if (line != -1) {
+					consoleText.requestFocusInWindow();
+					consoleText.select(consoleText.getLineStartOffset(line), consoleText.getLineEndOffset(line) - 1);
+				} else
+					Toolkit.getDefaultToolkit().beep();
+			} catch (BadLocationException e) {
+				//
+			}
+		}
+
 		private void doTranslation() {
+			find.setText(Language.I18N.getString("main.console.popup.find"));
 			clear.setText(Language.I18N.getString("main.console.popup.clear"));
 		}
 	}
@@ -0,0 +1,270 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.gui.console;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+
+import org.citydb.log.Logger;
+
+public class ConsoleBuffer {
+	private final Logger LOG = Logger.getInstance();
+	private final JTextArea textArea;
+	private final String[] lines;
+	private final Timer timer;
+
+	// ring buffer of the retained lines
+	private int head;
+	private int size;
+
+	// text received since the last refresh of the view
+	private final StringBuilder partialLine = new StringBuilder();
+	private final StringBuilder pending = new StringBuilder();
+	private int pendingLines;
+	private int evictedLines;
+	private boolean rebuild;
+	private boolean isScheduled;
+
+	// number of lines shown by the view, only accessed on the event dispatch thread
+	private int viewLines;
+
+	public ConsoleBuffer(JTextArea textArea, int capacity, int refreshInterval) {
+		this.textArea = textArea;
+		lines = new String[Math.max(1, capacity)];
+
+		timer = new Timer(Math.max(1, refreshInterval), new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				refresh();
+			}
+		});
+
+		timer.setRepeats(false);
+	}
+
+	public void append(String text) {
+		boolean isLoggerOutput = LOG.isLoggerOutput();
+		List<String> unlogged = null;
+		boolean schedule = false;
+
+		synchronized (this) {
+			int start = 0;
+			int end;
+
+			while ((end = text.indexOf('\n', start)) != -1) {
+				partialLine.append(text, start, end);
+				int length = partialLine.length();
+				if (length > 0 && partialLine.charAt(length - 1) == '\r')
+					partialLine.setLength(length - 1);
+
+				String line = partialLine.toString();
+				addLine(line);
+
+				if (!isLoggerOutput) {
+					if (unlogged == null)
+						unlogged = new ArrayList<String>();
+
+					unlogged.add(line);
+				}
+
+				partialLine.setLength(0);
+				start = end + 1;
+			}
+
+			partialLine.append(text, start, text.length());
+
+			// the view is refreshed at most once per refresh interval
+			if (!isScheduled && (pendingLines > 0 || rebuild)) {
+				isScheduled = true;
+				schedule = true;
+			}
+		}
+
+		// other output to standard out is written to the log file as it arrives, so 
+		// evicted lines are kept there in their original order if file logging is on
+		if (unlogged != null) {
+			for (String line : unlogged)
+				LOG.writeToFile(line);
+		}
+
+		if (schedule)
+			timer.start();
+	}
+
+	public void clear() {
+		synchronized (this) {
+			head = 0;
+			size = 0;
+			partialLine.setLength(0);
+			pending.setLength(0);
+			pendingLines = 0;
+			evictedLines = 0;
+			rebuild = true;
+
+			if (isScheduled)
+				return;
+
+			isScheduled = true;
+		}
+
+		timer.start();
+	}
+
+	public int getLineCount() {
+		synchronized (this) {
+			return size;
+		}
+	}
+
+	// must be called on the event dispatch thread since the returned index refers to the lines of the view
+	public int find(String query, int fromLine, boolean ignoreCase) {
+		if (query == null || query.length() == 0)
+			return -1;
+
+		refresh();
+
+		synchronized (this) {
+			// only search lines which are also shown by the view
+			int first = evictedLines;
+			int count = Math.min(viewLines, size - first);
+			if (rebuild || count <= 0)
+				return -1;
+
+			for (int i = 0; i < count; i++) {
+				int index = (Math.max(0, fromLine) + i) % count;
+				String line = lines[(head + first + index) % lines.length];
+
+				if (contains(line, query, ignoreCase))
+					return index;
+			}
+		}
+
+		return -1;
+	}
+
+	private boolean contains(String line, String query, boolean ignoreCase) {
+		int max = line.length() - query.length();
+		for (int i = 0; i <= max; i++) {
+			if (line.regionMatches(ignoreCase, i, query, 0, query.length()))
+				return true;
+		}
+
+		return false;
+	}
+
+	private void addLine(String line) {
+		if (size == lines.length) {
+			head = (head + 1) % lines.length;
+			evictedLines++;
+		} else
+			size++;
+
+		lines[(head + size - 1) % lines.length] = line;
+
+		if (!rebuild) {
+			pending.append(line).append('\n');
+
+			// more new lines than we can show, so the view is rebuilt from the buffer
+			if (++pendingLines > lines.length) {
+				pending.setLength(0);
+				pendingLines = 0;
+				rebuild = true;
+			}
+		}
+	}
+
+	private void refresh() {
+		String text;
+		int removed;
+		int added;
+		boolean replace;
+
+		synchronized (this) {
+			isScheduled = false;
+			replace = rebuild || evictedLines > viewLines;
+
+			if (replace) {
+				StringBuilder builder = new StringBuilder();
+				for (int i = 0; i < size; i++)
+					builder.append(lines[(head + i) % lines.length]).append('\n');
+
+				text = builder.toString();
+				removed = viewLines;
+				added = size;
+			} else {
+				text = pending.toString();
+				removed = evictedLines;
+				added = pendingLines;
+			}
+
+			pending.setLength(0);
+			pendingLines = 0;
+			evictedLines = 0;
+			rebuild = false;
+		}
+
+		if (!replace && removed == 0 && added == 0)
+			return;
+
+		Document document = textArea.getDocument();
+
+		try {
+			if (replace) {
+				textArea.setText(text);
+			} else {
+				if (removed > 0) {
+					Element root = document.getDefaultRootElement();
+					document.remove(0, root.getElement(removed).getStartOffset());
+				}
+
+				document.insertString(document.getLength(), text, null);
+			}
+
+			viewLines += added - removed;
+		} catch (BadLocationException e) {
+			// the view is out of sync, so rebuild it with the next refresh
+			synchronized (this) {
+				rebuild = true;
+			}
+
+			timer.start();
+		}
+
+		// do not clear a selection, e.g. a line found by the user
+		if (textArea.getSelectionStart() == textArea.getSelectionEnd())
+			textArea.setCaretPosition(document.getLength());
+	}
+
+}
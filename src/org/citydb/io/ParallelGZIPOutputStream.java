@@ -0,0 +1,228 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+	private static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	private static final byte[] GZIP_HEADER = new byte[]{ 0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte)0xff };
+
+	private final ExecutorService service;
+	private final ArrayDeque<Future<byte[]>> blocks;
+	private final int maxPendingBlocks;
+	private final int blockSize;
+	private final CRC32 crc;
+
+	private byte[] buffer;
+	private int count;
+	private byte[] dictionary;
+	private long size;
+	private boolean closed;
+
+	public ParallelGZIPOutputStream(OutputStream out, int threads, int blockSize) throws IOException {
+		super(out);
+		this.blockSize = Math.max(DICTIONARY_SIZE, blockSize);
+		threads = Math.max(1, threads);
+
+		service = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		maxPendingBlocks = threads * 2;
+		blocks = new ArrayDeque<Future<byte[]>>(maxPendingBlocks);
+		crc = new CRC32();
+		buffer = new byte[this.blockSize];
+
+		out.write(GZIP_HEADER);
+	}
+
+	public ParallelGZIPOutputStream(OutputStream out, int threads) throws IOException {
+		this(out, threads, DEFAULT_BLOCK_SIZE);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (count == buffer.length)
+			submitBlock(false);
+
+		buffer[count++] = (byte)b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (count == buffer.length)
+				submitBlock(false);
+
+			int length = Math.min(len, buffer.length - count);
+			System.arraycopy(b, off, buffer, count, length);
+			count += length;
+			off += length;
+			len -= length;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		// only write blocks that are already compressed, flushing must not
+		// produce small deflate blocks
+		while (!blocks.isEmpty() && blocks.peek().isDone())
+			writeBlock(blocks.poll());
+
+		out.flush();
+	}
+
+	public void finish() throws IOException {
+		if (closed)
+			return;
+
+		submitBlock(true);
+		while (!blocks.isEmpty())
+			writeBlock(blocks.poll());
+
+		writeInt((int)crc.getValue());
+		writeInt((int)size);
+		closed = true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			finish();
+		} finally {
+			service.shutdownNow();
+			out.close();
+		}
+	}
+
+	private void submitBlock(boolean last) throws IOException {
+		crc.update(buffer, 0, count);
+		size += count;
+
+		// the tail of the previous block primes the deflater so that
+		// independent blocks compress almost as well as a single stream
+		blocks.add(service.submit(new DeflateTask(buffer, count, dictionary, last)));
+		dictionary = buffer;
+		buffer = new byte[blockSize];
+		count = 0;
+
+		while (blocks.size() >= maxPendingBlocks)
+			writeBlock(blocks.poll());
+	}
+
+	private void writeBlock(Future<byte[]> block) throws IOException {
+		try {
+			out.write(block.get());
+		} catch (InterruptedException e) {
+			service.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing output.", e);
+		} catch (ExecutionException e) {
+			service.shutdownNow();
+			throw new IOException("Failed to compress output.", e.getCause());
+		} catch (IOException e) {
+			// the stream cannot be used anymore, so do not keep the compression threads
+			service.shutdownNow();
+			throw e;
+		}
+	}
+
+	private void writeInt(int value) throws IOException {
+		out.write(value & 0xff);
+		out.write((value >> 8) & 0xff);
+		out.write((value >> 16) & 0xff);
+		out.write((value >> 24) & 0xff);
+	}
+
+	private static final class DeflateTask implements Callable<byte[]> {
+		private final byte[] data;
+		private final int length;
+		private final byte[] dictionary;
+		private final boolean last;
+
+		private DeflateTask(byte[] data, int length, byte[] dictionary, boolean last) {
+			this.data = data;
+			this.length = length;
+			this.dictionary = dictionary;
+			this.last = last;
+		}
+
+		@Override
+		public byte[] call() {
+			Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			ByteArrayOutputStream result = new ByteArrayOutputStream(length / 2 + 64);
+			byte[] chunk = new byte[16 * 1024];
+
+			try {
+				if (dictionary != null)
+					deflater.setDictionary(dictionary, dictionary.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+
+				deflater.setInput(data, 0, length);
+
+				if (last) {
+					deflater.finish();
+					while (!deflater.finished()) {
+						int n = deflater.deflate(chunk);
+						result.write(chunk, 0, n);
+					}
+				} else {
+					// sync flush ends the block on a byte boundary without
+					// marking it as the final block of the stream
+					int n;
+					do {
+						n = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+						result.write(chunk, 0, n);
+					} while (n == chunk.length);
+				}
+
+				return result.toByteArray();
+			} finally {
+				deflater.end();
+			}
+		}
+	}
+
+}
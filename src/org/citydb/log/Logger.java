@@ -33,23 +33,36 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.Calendar;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.citydb.api.controller.LogController;
 import org.citydb.api.log.LogLevel;
 
 public class Logger implements LogController {
 	private static Logger instance = new Logger();
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
-	private LogLevel consoleLogLevel = LogLevel.INFO;
-	private LogLevel fileLogLevel = LogLevel.INFO;
+	private volatile LogLevel consoleLogLevel = LogLevel.INFO;
+	private volatile LogLevel fileLogLevel = LogLevel.INFO;
 
-	private Calendar cal;
+	private volatile Timestamp timestamp = new Timestamp(-1, "");
 	private DecimalFormat df = new DecimalFormat("00");
 
-	private boolean isLogToConsole = true;
-	private boolean isLogToFile = false;
+	private volatile boolean isLogToConsole = true;
+	private volatile boolean isLogToFile = false;
+	private final Object fileLock = new Object();
 	private BufferedWriter logFile;
 
+	// tells console sinks whether the console output of this thread comes from the logger
+	private final ThreadLocal<Boolean> loggerOutput = new ThreadLocal<Boolean>();
+
+	private volatile AsyncWriter asyncWriter;
+	private boolean hasShutdownHook;
+
 	private Logger() {
 		// just to thwart instantiation
 	}
@@ -76,20 +89,61 @@ public class Logger implements LogController {
 		return fileLogLevel;
 	}
 
+	public synchronized void enableAsynchronousLogging(int queueSize, boolean dropOnOverflow, long flushInterval) {
+		disableAsynchronousLogging();
+		asyncWriter = new AsyncWriter(Math.max(1, queueSize), dropOnOverflow, Math.max(1, flushInterval));
+
+		// pending messages must not get lost when the application exits
+		if (!hasShutdownHook) {
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				public void run() {
+					disableAsynchronousLogging();
+				}
+			});
+
+			hasShutdownHook = true;
+		}
+	}
+
+	public synchronized void disableAsynchronousLogging() {
+		AsyncWriter writer = asyncWriter;
+		if (writer != null) {
+			asyncWriter = null;
+			writer.shutdown();
+		}
+	}
+
+	public boolean isAsynchronousLogging() {
+		return asyncWriter != null;
+	}
+
+	public void flush() {
+		AsyncWriter writer = asyncWriter;
+		if (writer != null)
+			writer.flush();
+	}
+
 	private String getPrefix(LogLevel type) {
-		cal = Calendar.getInstance();
+		// the time of day only changes once per second, so it is formatted once and shared
+		long second = System.currentTimeMillis() / 1000;
+		Timestamp current = timestamp;
+
+		if (current.second != second) {
+			Calendar cal = Calendar.getInstance();
+			cal.setTimeInMillis(second * 1000);
 
-		int h = cal.get(Calendar.HOUR_OF_DAY);
-		int m = cal.get(Calendar.MINUTE);
-		int s = cal.get(Calendar.SECOND);
+			StringBuilder time = new StringBuilder(8);
+			appendTwoDigits(time, cal.get(Calendar.HOUR_OF_DAY)).append(':');
+			appendTwoDigits(time, cal.get(Calendar.MINUTE)).append(':');
+			appendTwoDigits(time, cal.get(Calendar.SECOND));
 
-		StringBuffer prefix = new StringBuffer()
+			current = new Timestamp(second, time.toString());
+			timestamp = current;
+		}
+
+		StringBuilder prefix = new StringBuilder()
 		.append("[")
-		.append(df.format(h))
-		.append(":")
-		.append(df.format(m))
-		.append(":")
-		.append(df.format(s))
+		.append(current.value)
 		.append(" ")
 		.append(type.value())
 		.append("] ");
@@ -97,23 +151,17 @@ public class Logger implements LogController {
 		return prefix.toString();
 	}
 
+	private StringBuilder appendTwoDigits(StringBuilder builder, int value) {
+		return builder.append((char)('0' + value / 10)).append((char)('0' + value % 10));
+	}
+
 	@Override
 	public void log(LogLevel type, String msg) {
-		StringBuffer buffer = new StringBuffer(getPrefix(type));
-		buffer.append(msg);
+		boolean toConsole = isLogToConsole && consoleLogLevel.ordinal() >= type.ordinal();
+		boolean toFile = isLogToFile && fileLogLevel.ordinal() >= type.ordinal();
 
-		if (isLogToConsole && consoleLogLevel.ordinal() >= type.ordinal())
-			System.out.println(buffer.toString());
-
-		if (isLogToFile && fileLogLevel.ordinal() >= type.ordinal()) {
-			try {
-				logFile.write(buffer.toString());
-				logFile.newLine();
-				logFile.flush();
-			} catch (IOException e) {
-				//
-			}
-		}
+		if (toConsole || toFile)
+			write(getPrefix(type) + msg, toConsole, toFile);
 	}
 
 	@Override
@@ -138,36 +186,62 @@ public class Logger implements LogController {
 
 	@Override
 	public void all(LogLevel type, String message) {
-		StringBuffer buffer = new StringBuffer(getPrefix(type));
-		buffer.append(message);
+		boolean toConsole = isLogToConsole && consoleLogLevel.ordinal() >= type.ordinal();
+		boolean toFile = isLogToFile && fileLogLevel.ordinal() >= type.ordinal();
 
-		if (isLogToConsole && consoleLogLevel.ordinal() >= type.ordinal())
-			System.out.println(buffer.toString());
-
-		if (fileLogLevel.ordinal() >= type.ordinal())
-			writeToFile(buffer.toString());
+		if (toConsole || toFile)
+			write(getPrefix(type) + message, toConsole, toFile);
 	}
 
 	@Override
 	public void print(String msg) {
-		if (isLogToConsole)
-			System.out.println(msg);
-
-		writeToFile(msg);
+		write(msg, isLogToConsole, isLogToFile);
 	}
 
 	public void writeToFile(String msg) {
-		if (isLogToFile) {
-			try {
-				logFile.write(msg);
-				logFile.newLine();
-				logFile.flush();
-			} catch (IOException e) {
-				//
+		if (isLogToFile)
+			write(msg, false, true);
+	}
+
+	// console output of the logger has already been written to the log file according 
+	// to the file log level, whereas other output to standard out has not
+	public boolean isLoggerOutput() {
+		return loggerOutput.get() == Boolean.TRUE;
+	}
+
+	private void printToConsole(String text) {
+		loggerOutput.set(Boolean.TRUE);
+
+		try {
+			System.out.print(text);
+		} finally {
+			loggerOutput.remove();
+		}
+	}
+
+	private void write(String line, boolean toConsole, boolean toFile) {
+		AsyncWriter writer = asyncWriter;
+		if (writer != null && writer.enqueue(new LogEntry(line, toConsole, toFile)))
+			return;
+
+		if (toConsole)
+			printToConsole(line + LINE_SEPARATOR);
+
+		if (toFile) {
+			synchronized (fileLock) {
+				if (logFile != null) {
+					try {
+						logFile.write(line);
+						logFile.newLine();
+						logFile.flush();
+					} catch (IOException e) {
+						//
+					}
+				}
 			}
 		}
 	}
-	
+
 	public void logToConsole(boolean isLogToConsole) {
 		this.isLogToConsole = isLogToConsole;
 	}
@@ -192,8 +266,10 @@ public class Logger implements LogController {
 			info("Writing log messages to file: '" + file.getAbsolutePath() + "'");
 			detachLogFile();
 
-			this.logFile = new BufferedWriter(new FileWriter(file, file.exists()));
-			isLogToFile = true;
+			synchronized (fileLock) {
+				this.logFile = new BufferedWriter(new FileWriter(file, file.exists()));
+				isLogToFile = true;
+			}
 		} catch (IOException e) {
 			error("Failed to open log file '" + logFile + "': " + e.getMessage());
 			error("Not writing log messages to file");
@@ -205,20 +281,27 @@ public class Logger implements LogController {
 
 	public void detachLogFile() {
 		if (logFile != null) {
-			try {
-				warn("Stopped writing log messages to log file.");
-				logFile.close();
-			} catch (IOException e) {
-				//
-			} finally {
-				logFile = null;
-				isLogToFile = false;
+			warn("Stopped writing log messages to log file.");
+
+			// write pending messages before closing the file
+			flush();
+
+			synchronized (fileLock) {
+				try {
+					if (logFile != null)
+						logFile.close();
+				} catch (IOException e) {
+					//
+				} finally {
+					logFile = null;
+					isLogToFile = false;
+				}
 			}
 		}
 	}
 
 	private String getDefaultLogFile() {
-		cal = Calendar.getInstance();
+		Calendar cal = Calendar.getInstance();
 
 		int m = cal.get(Calendar.MONTH) + 1;
 		int d = cal.get(Calendar.DATE);
@@ -235,4 +318,190 @@ public class Logger implements LogController {
 		return defaultLog.toString();
 	}
 
+	private static final class Timestamp {
+		private final long second;
+		private final String value;
+
+		private Timestamp(long second, String value) {
+			this.second = second;
+			this.value = value;
+		}
+	}
+
+	private static final class LogEntry {
+		private final String line;
+		private final boolean toConsole;
+		private final boolean toFile;
+
+		private LogEntry(String line, boolean toConsole, boolean toFile) {
+			this.line = line;
+			this.toConsole = toConsole;
+			this.toFile = toFile;
+		}
+	}
+
+	private final class AsyncWriter implements Runnable {
+		private final int BATCH_SIZE = 1000;
+		private final ConcurrentLinkedQueue<LogEntry> queue = new ConcurrentLinkedQueue<LogEntry>();
+		private final AtomicInteger size = new AtomicInteger();
+		private final AtomicLong enqueued = new AtomicLong();
+		private final AtomicLong written = new AtomicLong();
+		private final AtomicLong dropped = new AtomicLong();
+		private final int capacity;
+		private final boolean dropOnOverflow;
+		private final long flushInterval;
+		private final Thread thread;
+		private volatile boolean shouldRun = true;
+
+		private AsyncWriter(int capacity, boolean dropOnOverflow, long flushInterval) {
+			this.capacity = capacity;
+			this.dropOnOverflow = dropOnOverflow;
+			this.flushInterval = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+
+			thread = new Thread(this, "log-writer");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		private boolean enqueue(LogEntry entry) {
+			// reserve a slot first so that the queue never grows beyond its capacity
+			int reserved;
+			while ((reserved = size.incrementAndGet()) > capacity) {
+				size.decrementAndGet();
+
+				// fall back to synchronous writing if the writer is gone
+				if (!shouldRun || !thread.isAlive())
+					return false;
+
+				if (dropOnOverflow) {
+					dropped.incrementAndGet();
+					return true;
+				}
+
+				// apply back-pressure until the writer has made room
+				LockSupport.unpark(thread);
+				LockSupport.parkNanos(this, 100000);
+			}
+
+			if (!shouldRun || !thread.isAlive()) {
+				size.decrementAndGet();
+				return false;
+			}
+
+			enqueued.incrementAndGet();
+			queue.offer(entry);
+
+			if (reserved == 1)
+				LockSupport.unpark(thread);
+
+			return true;
+		}
+
+		private void flush() {
+			long target = enqueued.get();
+			while (written.get() < target && thread.isAlive()) {
+				LockSupport.unpark(thread);
+				LockSupport.parkNanos(this, 1000000);
+			}
+		}
+
+		private void shutdown() {
+			shouldRun = false;
+			LockSupport.unpark(thread);
+
+			try {
+				thread.join(5000);
+			} catch (InterruptedException e) {
+				//
+			}
+
+			// messages which raced with the shutdown are written synchronously
+			LogEntry entry;
+			while ((entry = queue.poll()) != null)
+				write(entry.line, entry.toConsole, entry.toFile);
+		}
+
+		@Override
+		public void run() {
+			StringBuilder consoleBuffer = new StringBuilder();
+			StringBuilder fileBuffer = new StringBuilder();
+			long lastFlush = System.nanoTime();
+			boolean isDirty = false;
+
+			while (true) {
+				int count = 0;
+				LogEntry entry;
+
+				while (count < BATCH_SIZE && (entry = queue.poll()) != null) {
+					if (entry.toConsole)
+						consoleBuffer.append(entry.line).append(LINE_SEPARATOR);
+
+					if (entry.toFile)
+						fileBuffer.append(entry.line).append(LINE_SEPARATOR);
+
+					count++;
+				}
+
+				long lost = dropped.getAndSet(0);
+				if (lost > 0) {
+					String line = getPrefix(LogLevel.WARN) + "Dropped " + lost + " log message(s) due to a full log queue.";
+					if (isLogToConsole)
+						consoleBuffer.append(line).append(LINE_SEPARATOR);
+
+					if (isLogToFile)
+						fileBuffer.append(line).append(LINE_SEPARATOR);
+				}
+
+				if (consoleBuffer.length() > 0) {
+					printToConsole(consoleBuffer.toString());
+					consoleBuffer.setLength(0);
+				}
+
+				if (fileBuffer.length() > 0) {
+					synchronized (fileLock) {
+						if (logFile != null) {
+							try {
+								logFile.append(fileBuffer);
+								isDirty = true;
+							} catch (IOException e) {
+								//
+							}
+						}
+					}
+
+					fileBuffer.setLength(0);
+				}
+
+				if (count > 0) {
+					size.addAndGet(-count);
+					written.addAndGet(count);
+				}
+
+				// flush once the queue runs empty or at least once per flush interval
+				long now = System.nanoTime();
+				if (isDirty && (count < BATCH_SIZE || now - lastFlush >= flushInterval)) {
+					synchronized (fileLock) {
+						if (logFile != null) {
+							try {
+								logFile.flush();
+							} catch (IOException e) {
+								//
+							}
+						}
+					}
+
+					isDirty = false;
+					lastFlush = now;
+				}
+
+				if (count == 0) {
+					if (!shouldRun)
+						break;
+
+					LockSupport.parkNanos(this, flushInterval);
+				}
+			}
+		}
+	}
+
 }
@@ -33,9 +33,11 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.citydb.database.adapter.AbstractSQLAdapter;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableBasic;
+import org.citydb.modules.citygml.common.database.cache.model.CacheTableBasicTarget;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableDeprecatedMaterial;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableFeatureGmlId;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableGeometryGmlId;
+import org.citydb.modules.citygml.common.database.cache.model.CacheTableCityObjectId;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableGlobalAppearance;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableGroupToCityObject;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableLibraryObject;
@@ -45,6 +47,7 @@ import org.citydb.modules.citygml.common.database.cache.model.CacheTableModelEnu
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableSolidGeometry;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableSurfaceDataToTexImage;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableSurfaceGeometry;
+import org.citydb.modules.citygml.common.database.cache.model.CacheTableSurfaceGeometryCopy;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableTextureAssociation;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableTextureAssociationTarget;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableTextureCoordList;
@@ -70,6 +73,9 @@ public class CacheTable extends AbstractCacheTable {
 		case BASIC:
 			this.model = CacheTableBasic.getInstance();
 			break;
+		case BASIC_TARGET:
+			this.model = CacheTableBasicTarget.getInstance();
+			break;
 		case DEPRECATED_MATERIAL:
 			this.model = CacheTableDeprecatedMaterial.getInstance();
 			break;
@@ -94,6 +100,9 @@ public class CacheTable extends AbstractCacheTable {
 		case SURFACE_GEOMETRY:
 			this.model = CacheTableSurfaceGeometry.getInstance();
 			break;
+		case SURFACE_GEOMETRY_COPY:
+			this.model = CacheTableSurfaceGeometryCopy.getInstance();
+			break;
 		case SOLID_GEOMETRY:
 			this.model = CacheTableSolidGeometry.getInstance();
 			break;
@@ -118,6 +127,9 @@ public class CacheTable extends AbstractCacheTable {
 		case GLOBAL_APPEARANCE:
 			this.model = CacheTableGlobalAppearance.getInstance();
 			break;
+		case CITYOBJECT_ID:
+			this.model = CacheTableCityObjectId.getInstance();
+			break;
 		default:
 			throw new IllegalArgumentException("Unsupported cache table type " + model);
 		}
@@ -179,6 +191,10 @@ public class CacheTable extends AbstractCacheTable {
 	}
 
 	public void createIndexes() throws SQLException {
+		createIndexes(connection);
+	}
+
+	protected void createIndexes(Connection connection) throws SQLException {
 		if (!isCreated || isIndexed)
 			return;
 
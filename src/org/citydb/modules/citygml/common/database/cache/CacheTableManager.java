@@ -32,7 +32,18 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.citydb.config.Config;
 import org.citydb.database.DatabaseConnectionPool;
@@ -49,16 +60,24 @@ public class CacheTableManager {
 	private final Config config;
 
 	private String cacheDir;
+	private String cacheURL;
 	private AbstractDatabaseAdapter databaseAdapter;
 	private Connection databaseConnection;
 
 	private ConcurrentHashMap<CacheTableModelEnum, CacheTable> cacheTables;
 	private ConcurrentHashMap<CacheTableModelEnum, BranchCacheTable> branchCacheTables;
+	private final List<CacheTableShard> shards = new ArrayList<CacheTableShard>();
+	private final ConcurrentLinkedQueue<CacheTableShard> idleShards = new ConcurrentLinkedQueue<CacheTableShard>();
+	private volatile boolean isSharded = true;
 
 	public CacheTableManager(DatabaseConnectionPool dbPool, int concurrencyLevel, Config config) throws SQLException, IOException {		
 		if (config.getProject().getGlobal().getCache().isUseDatabase()) {
 			cacheAdapter = dbPool.getActiveDatabaseAdapter();
 			cacheConnection = dbPool.getConnection();
+
+			// every shard would take another connection from the pool that is
+			// shared with the import workers, so use the single cache connection
+			isSharded = false;
 		}
 
 		else {
@@ -74,7 +93,8 @@ public class CacheTableManager {
 
 			try {
 				cacheDir = tempDir.getAbsolutePath() + File.separator + DefaultGMLIdManager.getInstance().generateUUID("");		
-				cacheConnection = DriverManager.getConnection(cacheAdapter.getJDBCUrl(cacheDir + File.separator + "tmp", -1, null), "sa", "");
+				cacheURL = cacheAdapter.getJDBCUrl(cacheDir + File.separator + "tmp", -1, null);
+				cacheConnection = DriverManager.getConnection(cacheURL, "sa", "");
 			} catch (SQLException e) {
 				deleteTempFiles(new File(cacheDir));
 				throw e;
@@ -133,6 +153,162 @@ public class CacheTableManager {
 		return branchCacheTable;
 	}
 
+	// shards let concurrent writers fill cache tables on their own connection.
+	// returns null if the cache is kept in the database or once the shards 
+	// have been merged
+	public CacheTableShard acquireShard() throws SQLException {
+		if (!isSharded)
+			return null;
+
+		CacheTableShard shard = idleShards.poll();
+		if (shard == null) {
+			Connection connection = DriverManager.getConnection(cacheURL, "sa", "");
+			shard = new CacheTableShard(connection, cacheAdapter.getSQLAdapter());
+			synchronized (shards) {
+				shards.add(shard);
+			}
+		}
+
+		return shard;
+	}
+
+	public void releaseShard(CacheTableShard shard) throws SQLException {
+		try {
+			shard.commit();
+		} finally {
+			idleShards.offer(shard);
+		}
+	}
+
+	// all writers must have released their shards before calling this method
+	public void mergeShards(CacheTableModelEnum... indexedModels) throws SQLException {
+		isSharded = false;
+		idleShards.clear();
+
+		if (shards.isEmpty())
+			return;
+
+		EnumSet<CacheTableModelEnum> models = EnumSet.noneOf(CacheTableModelEnum.class);
+		for (CacheTableShard shard : shards) {
+			for (CacheTable cacheTable : shard.getCacheTables())
+				models.add(cacheTable.getModelType());
+		}
+
+		if (models.isEmpty()) {
+			dropShards();
+			return;
+		}
+
+		final EnumSet<CacheTableModelEnum> indexed = EnumSet.noneOf(CacheTableModelEnum.class);
+		for (CacheTableModelEnum model : indexedModels)
+			indexed.add(model);
+
+		// distribute the models over the shard connections so that every
+		// connection merges and indexes its models sequentially
+		List<List<CacheTable>> tasks = new ArrayList<List<CacheTable>>();
+		for (int i = 0; i < Math.min(models.size(), shards.size()); i++)
+			tasks.add(new ArrayList<CacheTable>());
+
+		int i = 0;
+		for (CacheTableModelEnum model : models)
+			tasks.get(i++ % tasks.size()).add(createCacheTable(model));
+
+		// make sure the target tables are visible to the shard connections
+		cacheConnection.commit();
+
+		ExecutorService service = Executors.newFixedThreadPool(tasks.size(), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+		for (i = 0; i < tasks.size(); i++) {
+			final List<CacheTable> targets = tasks.get(i);
+			final Connection connection = shards.get(i).getConnection();
+
+			futures.add(service.submit(new Callable<Void>() {
+				public Void call() throws SQLException {
+					for (CacheTable target : targets) {
+						for (CacheTableShard shard : shards)
+							shard.mergeInto(target, connection);
+
+						if (indexed.contains(target.getModelType())) {
+							target.createIndexes(connection);
+							connection.commit();
+						}
+					}
+
+					return null;
+				}
+			}));
+		}
+
+		service.shutdown();
+
+		try {
+			for (Future<Void> future : futures)
+				future.get();
+		} catch (InterruptedException e) {
+			service.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while merging cache table shards.", e);
+		} catch (ExecutionException e) {
+			service.shutdownNow();
+			if (e.getCause() instanceof SQLException)
+				throw (SQLException)e.getCause();
+			else
+				throw new SQLException("Failed to merge cache table shards.", e.getCause());
+		} finally {
+			// the shards must not be dropped while merge tasks still use them
+			awaitTermination(service);
+			dropShards();
+		}
+	}
+
+	private void awaitTermination(ExecutorService service) {
+		boolean interrupted = false;
+		while (!service.isTerminated()) {
+			try {
+				service.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	// additional connections let several readers query the cache at the same 
+	// time. if the cache is kept in the database, the cache connection is shared
+	public boolean supportsConcurrentConnections() {
+		return cacheURL != null;
+	}
+
+	public Connection openConnection() throws SQLException {
+		if (cacheURL == null)
+			return cacheConnection;
+
+		Connection connection = DriverManager.getConnection(cacheURL, "sa", "");
+		connection.setAutoCommit(false);
+		return connection;
+	}
+
+	public void closeConnection(Connection connection) throws SQLException {
+		if (connection != cacheConnection)
+			connection.close();
+	}
+
+	// changes on the cache connection are only visible to other connections 
+	// after a commit
+	public void commit() throws SQLException {
+		if (cacheURL != null)
+			cacheConnection.commit();
+	}
+
 	public CacheTable getCacheTable(CacheTableModelEnum type) {		
 		return cacheTables.get(type);
 	}
@@ -161,6 +337,7 @@ public class CacheTableManager {
 
 		} finally  {
 			// clean up
+			dropShards();
 			cacheTables.clear();
 			branchCacheTables.clear();
 
@@ -191,6 +368,22 @@ public class CacheTableManager {
 		}
 	}
 
+	private void dropShards() {
+		synchronized (shards) {
+			for (CacheTableShard shard : shards) {
+				try {
+					shard.drop();
+				} catch (SQLException e) {
+					//
+				} finally {
+					shard.close();
+				}
+			}
+
+			shards.clear();
+		}
+	}
+
 	private CacheTable getOrCreateCacheTable(CacheTableModelEnum model, AbstractDatabaseAdapter adapter, Connection connection) {
 		CacheTable cacheTable = cacheTables.get(model);
 		if (cacheTable == null) {
@@ -0,0 +1,116 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.common.database.cache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.EnumMap;
+
+import org.citydb.database.adapter.AbstractSQLAdapter;
+import org.citydb.modules.citygml.common.database.cache.model.CacheTableModelEnum;
+
+public class CacheTableShard {
+	private final Connection connection;
+	private final AbstractSQLAdapter sqlAdapter;
+	private final EnumMap<CacheTableModelEnum, CacheTable> cacheTables;
+
+	protected CacheTableShard(Connection connection, AbstractSQLAdapter sqlAdapter) throws SQLException {
+		this.connection = connection;
+		this.sqlAdapter = sqlAdapter;
+
+		connection.setAutoCommit(false);
+		cacheTables = new EnumMap<CacheTableModelEnum, CacheTable>(CacheTableModelEnum.class);
+	}
+
+	// a shard is owned by a single worker at a time, so there is no need for locking
+	public CacheTable createCacheTable(CacheTableModelEnum model) throws SQLException {
+		CacheTable cacheTable = cacheTables.get(model);
+		if (cacheTable == null) {
+			cacheTable = new CacheTable(model, connection, sqlAdapter);
+			cacheTable.create();
+			cacheTables.put(model, cacheTable);
+		}
+
+		return cacheTable;
+	}
+
+	public CacheTable getCacheTable(CacheTableModelEnum model) {
+		return cacheTables.get(model);
+	}
+
+	public Collection<CacheTable> getCacheTables() {
+		return cacheTables.values();
+	}
+
+	public Connection getConnection() {
+		return connection;
+	}
+
+	protected void commit() throws SQLException {
+		connection.commit();
+	}
+
+	protected void mergeInto(CacheTable target, Connection connection) throws SQLException {
+		CacheTable cacheTable = cacheTables.get(target.getModelType());
+		if (cacheTable == null)
+			return;
+
+		Statement stmt = null;
+
+		try {
+			stmt = connection.createStatement();
+			stmt.executeUpdate("insert into " + target.getTableName() + " select * from " + cacheTable.getTableName());
+			connection.commit();
+		} finally {
+			if (stmt != null) {
+				stmt.close();
+				stmt = null;
+			}
+		}
+	}
+
+	protected void drop() throws SQLException {
+		try {
+			for (CacheTable cacheTable : cacheTables.values())
+				cacheTable.drop();
+		} finally {
+			cacheTables.clear();
+		}
+	}
+
+	protected void close() {
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			//
+		}
+	}
+
+}
@@ -33,8 +33,10 @@ public enum CacheTableModelEnum {
 	GMLID_FEATURE("IDF"),
 	GMLID_GEOMETRY("IDG"),
 	SURFACE_GEOMETRY("SG"),
+	SURFACE_GEOMETRY_COPY("SGC"),
 	SOLID_GEOMETRY("SOG"),
 	BASIC("BA"),
+	BASIC_TARGET("BAT"),
 	LINEAR_RING("LR"),
 	TEXTURE_COORD_LIST("TC"),
 	TEXTUREPARAM("TP"),
@@ -46,7 +48,8 @@ public enum CacheTableModelEnum {
 	LIBRARY_OBJECT("LO"),
 	DEPRECATED_MATERIAL("DP"),
 	GROUP_TO_CITYOBJECT("GTC"),
-	GLOBAL_APPEARANCE("GA");
+	GLOBAL_APPEARANCE("GA"),
+	CITYOBJECT_ID("COI");
 
 	private final String value;
 
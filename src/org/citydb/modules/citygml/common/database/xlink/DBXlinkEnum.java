@@ -29,6 +29,7 @@ package org.citydb.modules.citygml.common.database.xlink;
 
 public enum DBXlinkEnum {
 	SURFACE_GEOMETRY,
+	SURFACE_GEOMETRY_BATCH,
 	SOLID_GEOMETRY,
 	BASIC,
 	LINEAR_RING,
@@ -0,0 +1,168 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.deleter.controller;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.citydb.api.event.Event;
+import org.citydb.api.event.EventDispatcher;
+import org.citydb.api.event.EventHandler;
+import org.citydb.config.Config;
+import org.citydb.config.project.database.Workspace;
+import org.citydb.database.DatabaseConnectionPool;
+import org.citydb.log.Logger;
+import org.citydb.modules.citygml.common.database.cache.CacheTableManager;
+import org.citydb.modules.citygml.deleter.database.DBBulkDeleter;
+import org.citydb.modules.common.event.EventType;
+import org.citydb.modules.common.event.InterruptEvent;
+import org.citydb.modules.common.filter.ExportFilter;
+import org.citydb.util.Util;
+
+public class Deleter implements EventHandler {
+	private final Logger LOG = Logger.getInstance();
+
+	private final DatabaseConnectionPool dbPool;
+	private final Config config;
+	private final EventDispatcher eventDispatcher;
+	private volatile DBBulkDeleter dbBulkDeleter;
+
+	private volatile boolean shouldRun = true;
+	private AtomicBoolean isInterrupted = new AtomicBoolean(false);
+
+	public Deleter(DatabaseConnectionPool dbPool, Config config, EventDispatcher eventDispatcher) {
+		this.dbPool = dbPool;
+		this.config = config;
+		this.eventDispatcher = eventDispatcher;
+	}
+
+	public void cleanup() {
+		eventDispatcher.removeEventHandler(this);
+	}
+
+	public boolean doProcess() throws CityGMLDeleteException {
+		// adding listeners
+		eventDispatcher.addEventHandler(EventType.INTERRUPT, this);
+
+		// checking workspace
+		Workspace workspace = config.getProject().getDatabase().getWorkspaces().getOperationWorkspace();
+		if (shouldRun && dbPool.getActiveDatabaseAdapter().hasVersioningSupport() && 
+				!dbPool.getActiveDatabaseAdapter().getWorkspaceManager().equalsDefaultWorkspaceName(workspace.getName()) &&
+				!dbPool.getActiveDatabaseAdapter().getWorkspaceManager().existsWorkspace(workspace, true))
+			return false;
+
+		// the city objects to be deleted are selected by the export filter settings
+		ExportFilter exportFilter = new ExportFilter(config);
+		if (!config.getProject().getExporter().getFilter().isSetSimpleFilter()
+				&& !exportFilter.getFeatureClassFilter().isActive()
+				&& !exportFilter.getGmlNameFilter().isActive()
+				&& !exportFilter.getBoundingBoxFilter().isActive()) {
+			LOG.error("No filter criteria are set. Refusing to delete all city objects.");
+			return false;
+		}
+
+		if (exportFilter.getFeatureCounterFilter().isActive())
+			LOG.warn("The feature counter filter is not supported for deletion and will be ignored.");
+
+		CacheTableManager cacheTableManager = null;
+		long start = System.currentTimeMillis();
+		long deleted = 0;
+
+		try {
+			try {
+				cacheTableManager = new CacheTableManager(dbPool, 1, config);
+			} catch (SQLException | IOException e) {
+				throw new CityGMLDeleteException("Failed to initialize internal cache manager.", e);
+			}
+
+			dbBulkDeleter = new DBBulkDeleter(dbPool, cacheTableManager, exportFilter, config);
+			if (shouldRun)
+				deleted = dbBulkDeleter.doDelete();
+
+		} catch (SQLException e) {
+			throw new CityGMLDeleteException("Failed to delete city objects.", e);
+		} finally {
+			dbBulkDeleter = null;
+
+			// clean up
+			if (cacheTableManager != null) {
+				try {
+					LOG.info("Cleaning temporary cache.");
+					cacheTableManager.dropAll();
+					cacheTableManager = null;
+				} catch (SQLException e) {
+					LOG.error("SQL error: " + e.getMessage());
+				}
+			}
+
+			cleanup();
+		}
+
+		if (shouldRun) {
+			LOG.info("Deleted city objects: " + deleted);
+			LOG.info("Total deletion time: " + Util.formatElapsedTime(System.currentTimeMillis() - start) + ".");
+		}
+
+		return shouldRun;
+	}
+
+	@Override
+	public void handleEvent(Event e) throws Exception {
+		if (e.getEventType() == EventType.INTERRUPT) {
+			if (isInterrupted.compareAndSet(false, true)) {
+				shouldRun = false;
+				InterruptEvent interruptEvent = (InterruptEvent)e;
+
+				if (interruptEvent.getCause() != null) {
+					Throwable cause = interruptEvent.getCause();
+
+					if (cause instanceof SQLException) {
+						Iterator<Throwable> iter = ((SQLException)cause).iterator();
+						LOG.error("A SQL error occured: " + iter.next().getMessage());
+						while (iter.hasNext())
+							LOG.error("Cause: " + iter.next().getMessage());
+					} else {
+						LOG.error("An error occured: " + cause.getMessage());
+						while ((cause = cause.getCause()) != null)
+							LOG.error("Cause: " + cause.getMessage());
+					}
+				}
+
+				String log = interruptEvent.getLogMessage();
+				if (log != null)
+					LOG.log(interruptEvent.getLogLevelType(), log);
+
+				DBBulkDeleter deleter = dbBulkDeleter;
+				if (deleter != null)
+					deleter.shutdown();
+			}
+		}
+	}
+}
@@ -0,0 +1,579 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.deleter.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.citydb.api.database.DatabaseSrs;
+import org.citydb.api.geometry.BoundingBox;
+import org.citydb.config.Config;
+import org.citydb.config.project.database.Workspace;
+import org.citydb.config.project.exporter.ExportFilterConfig;
+import org.citydb.config.project.filter.TiledBoundingBox;
+import org.citydb.config.project.filter.TilingMode;
+import org.citydb.database.DatabaseConnectionPool;
+import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.log.Logger;
+import org.citydb.modules.citygml.common.database.cache.CacheTable;
+import org.citydb.modules.citygml.common.database.cache.CacheTableManager;
+import org.citydb.modules.citygml.common.database.cache.model.CacheTableModelEnum;
+import org.citydb.modules.common.filter.ExportFilter;
+import org.citydb.util.Util;
+import org.citygml4j.model.citygml.CityGMLClass;
+
+public class DBBulkDeleter {
+	private final Logger LOG = Logger.getInstance();
+	private final DatabaseConnectionPool dbPool;
+	private final AbstractDatabaseAdapter databaseAdapter;
+	private final CacheTableManager cacheTableManager;
+	private final ExportFilter exportFilter;
+	private final Workspace workspace;
+	private final Config config;
+
+	private volatile boolean shouldRun = true;
+	private String idTable;
+	private String idSet;
+
+	// nested features which are only reachable through their parent, given as child table and parent column
+	private static final String[][] HIERARCHY = new String[][] {
+		{ "BUILDING", "BUILDING_PARENT_ID" },
+		{ "ROOM", "BUILDING_ID" },
+		{ "BUILDING_INSTALLATION", "BUILDING_ID" },
+		{ "BUILDING_INSTALLATION", "ROOM_ID" },
+		{ "BUILDING_FURNITURE", "ROOM_ID" },
+		{ "THEMATIC_SURFACE", "BUILDING_ID" },
+		{ "THEMATIC_SURFACE", "ROOM_ID" },
+		{ "THEMATIC_SURFACE", "BUILDING_INSTALLATION_ID" },
+		{ "BRIDGE", "BRIDGE_PARENT_ID" },
+		{ "BRIDGE_ROOM", "BRIDGE_ID" },
+		{ "BRIDGE_INSTALLATION", "BRIDGE_ID" },
+		{ "BRIDGE_INSTALLATION", "BRIDGE_ROOM_ID" },
+		{ "BRIDGE_CONSTR_ELEMENT", "BRIDGE_ID" },
+		{ "BRIDGE_FURNITURE", "BRIDGE_ROOM_ID" },
+		{ "BRIDGE_THEMATIC_SURFACE", "BRIDGE_ID" },
+		{ "BRIDGE_THEMATIC_SURFACE", "BRIDGE_ROOM_ID" },
+		{ "BRIDGE_THEMATIC_SURFACE", "BRIDGE_INSTALLATION_ID" },
+		{ "BRIDGE_THEMATIC_SURFACE", "BRIDGE_CONSTR_ELEMENT_ID" },
+		{ "TUNNEL", "TUNNEL_PARENT_ID" },
+		{ "TUNNEL_HOLLOW_SPACE", "TUNNEL_ID" },
+		{ "TUNNEL_INSTALLATION", "TUNNEL_ID" },
+		{ "TUNNEL_INSTALLATION", "TUNNEL_HOLLOW_SPACE_ID" },
+		{ "TUNNEL_FURNITURE", "TUNNEL_HOLLOW_SPACE_ID" },
+		{ "TUNNEL_THEMATIC_SURFACE", "TUNNEL_ID" },
+		{ "TUNNEL_THEMATIC_SURFACE", "TUNNEL_HOLLOW_SPACE_ID" },
+		{ "TUNNEL_THEMATIC_SURFACE", "TUNNEL_INSTALLATION_ID" },
+		{ "TRAFFIC_AREA", "TRANSPORTATION_COMPLEX_ID" }
+	};
+
+	// n:m link tables, given as link table, child column and parent column
+	private static final String[][] LINKS = new String[][] {
+		{ "OPENING_TO_THEM_SURFACE", "OPENING_ID", "THEMATIC_SURFACE_ID" },
+		{ "BRIDGE_OPEN_TO_THEM_SRF", "BRIDGE_OPENING_ID", "BRIDGE_THEMATIC_SURFACE_ID" },
+		{ "TUNNEL_OPEN_TO_THEM_SRF", "TUNNEL_OPENING_ID", "TUNNEL_THEMATIC_SURFACE_ID" },
+		{ "WATERBOD_TO_WATERBND_SRF", "WATERBOUNDARY_SURFACE_ID", "WATERBODY_ID" },
+		{ "RELIEF_FEAT_TO_REL_COMP", "RELIEF_COMPONENT_ID", "RELIEF_FEATURE_ID" }
+	};
+
+	public DBBulkDeleter(DatabaseConnectionPool dbPool, CacheTableManager cacheTableManager, ExportFilter exportFilter, Config config) {
+		this.dbPool = dbPool;
+		this.cacheTableManager = cacheTableManager;
+		this.exportFilter = exportFilter;
+		this.config = config;
+
+		databaseAdapter = dbPool.getActiveDatabaseAdapter();
+		workspace = config.getProject().getDatabase().getWorkspaces().getOperationWorkspace();
+	}
+
+	// only deleteCityObjects is available for a deleter created this way
+	public DBBulkDeleter(DatabaseConnectionPool dbPool, Config config) {
+		this(dbPool, null, null, config);
+	}
+
+	public void shutdown() {
+		shouldRun = false;
+	}
+
+	public long doDelete() throws SQLException {
+		CacheTable cacheTable = cacheTableManager.createCacheTableInDatabase(CacheTableModelEnum.CITYOBJECT_ID);
+		Connection conn = cacheTable.getConnection();
+		idTable = cacheTable.getTableName();
+		idSet = "select ID from " + idTable;
+
+		if (databaseAdapter.hasVersioningSupport())
+			databaseAdapter.getWorkspaceManager().gotoWorkspace(conn, workspace);
+
+		// collect the ids of all matching top-level features and of their nested features
+		long selected = selectCityObjects(conn);
+		cacheTable.createIndexes();
+		conn.commit();
+
+		if (selected == 0 || !shouldRun) {
+			LOG.info("No city objects match the filter settings.");
+			return 0;
+		}
+
+		LOG.info("Selected " + selected + " top-level city object(s) for deletion.");
+		long nested = expandCityObjects(conn);
+		if (nested > 0)
+			LOG.info("Selected " + nested + " nested city object(s) for deletion.");
+
+		int threads = Math.max(1, config.getProject().getDatabase().getOperation().getDeleteThreads());
+		ExecutorService service = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		// statements of one level are independent of each other and run in parallel,
+		// whereas each level must be finished before rows referenced by it are deleted.
+		// city objects are deleted last, so an interrupted run can simply be repeated
+		try {
+			long rows = 0;
+			for (List<DeleteTask> level : getDeleteLevels(true))
+				rows = executeLevel(service, level);
+
+			return rows;
+		} finally {
+			service.shutdownNow();
+		}
+	}
+
+	// deletes the given city objects including their nested features within the transaction 
+	// of the caller. the levels are executed sequentially for all chunks of IDs
+	public long deleteCityObjects(Connection conn, Collection<Long> ids) throws SQLException {
+		return deleteCollectedCityObjects(conn, collectCityObjects(conn, ids));
+	}
+
+	// returns the given city objects together with all nested features and n:m components
+	// that would be deleted along with them
+	public Set<Long> collectCityObjects(Connection conn, Collection<Long> ids) throws SQLException {
+		int maxItems = Math.max(1, databaseAdapter.getSQLAdapter().getMaximumNumberOfItemsForInOperator());
+		return collectCityObjects(conn, ids, maxItems);
+	}
+
+	// deletes city objects previously determined by collectCityObjects
+	public long deleteCollectedCityObjects(Connection conn, Set<Long> collected) throws SQLException {
+		int maxItems = Math.max(1, databaseAdapter.getSQLAdapter().getMaximumNumberOfItemsForInOperator());
+		List<Long> cityObjects = new ArrayList<Long>(collected);
+
+		List<List<List<DeleteTask>>> chunks = new ArrayList<List<List<DeleteTask>>>();
+		for (int i = 0; i < cityObjects.size(); i += maxItems) {
+			idSet = Util.collection2string(cityObjects.subList(i, Math.min(i + maxItems, cityObjects.size())), ", ");
+			chunks.add(getDeleteLevels(false));
+		}
+
+		long rows = 0;
+		for (int level = 0; chunks.size() > 0 && level < chunks.get(0).size(); level++) {
+			rows = 0;
+			for (List<List<DeleteTask>> levels : chunks) {
+				for (DeleteTask task : levels.get(level))
+					rows += task.execute(conn);
+			}
+		}
+
+		return rows;
+	}
+
+	// deletes appearance and address data no longer referenced by any city object
+	public long deleteOrphans(Connection conn) throws SQLException {
+		long rows = 0;
+		for (DeleteTask task : getOrphanTasks())
+			rows += task.execute(conn);
+
+		return rows;
+	}
+
+	private Set<Long> collectCityObjects(Connection conn, Collection<Long> ids, int maxItems) throws SQLException {
+		Set<Long> cityObjects = new LinkedHashSet<Long>(ids);
+		Map<Long, Set<Long>> linkedParents = new HashMap<Long, Set<Long>>();
+		List<Long> parents = new ArrayList<Long>(cityObjects);
+		Statement stmt = null;
+		ResultSet rs = null;
+
+		try {
+			stmt = conn.createStatement();
+
+			// repeat until a fixed point is reached since nesting may be arbitrarily deep
+			while (!parents.isEmpty() && shouldRun) {
+				List<Long> children = new ArrayList<Long>();
+
+				for (int i = 0; i < parents.size(); i += maxItems) {
+					String idList = Util.collection2string(parents.subList(i, Math.min(i + maxItems, parents.size())), ", ");
+
+					for (String[] child : HIERARCHY) {
+						rs = stmt.executeQuery("select ID from " + child[0] + " where " + child[1] + " in (" + idList + ")");
+						while (rs.next()) {
+							long id = rs.getLong(1);
+							if (cityObjects.add(id))
+								children.add(id);
+						}
+
+						rs.close();
+					}
+
+					// remember all parents of the linked components
+					for (String[] link : LINKS) {
+						rs = stmt.executeQuery("select l." + link[1] + ", l." + link[2] + " from " + link[0] + " l where l." + link[1] + 
+								" in (select c." + link[1] + " from " + link[0] + " c where c." + link[2] + " in (" + idList + "))");
+						while (rs.next()) {
+							long id = rs.getLong(1);
+							Set<Long> linked = linkedParents.get(id);
+							if (linked == null) {
+								linked = new LinkedHashSet<Long>();
+								linkedParents.put(id, linked);
+							}
+
+							linked.add(rs.getLong(2));
+						}
+
+						rs.close();
+					}
+				}
+
+				// components of n:m relations are only deleted if no remaining feature refers to them
+				for (Map.Entry<Long, Set<Long>> entry : linkedParents.entrySet()) {
+					if (!cityObjects.contains(entry.getKey()) && cityObjects.containsAll(entry.getValue())) {
+						cityObjects.add(entry.getKey());
+						children.add(entry.getKey());
+					}
+				}
+
+				parents = children;
+			}
+		} finally {
+			if (rs != null)
+				rs.close();
+
+			if (stmt != null)
+				stmt.close();
+		}
+
+		return cityObjects;
+	}
+
+	private List<List<DeleteTask>> getDeleteLevels(boolean deleteOrphans) {
+		List<List<DeleteTask>> levels = new ArrayList<List<DeleteTask>>();
+
+		// level 1: appearances, attributes and references to the city objects
+		List<DeleteTask> tasks = new ArrayList<DeleteTask>();
+		tasks.add(new DeleteTask()
+		.delete("TEXTUREPARAM", "SURFACE_GEOMETRY_ID in (select sg.ID from SURFACE_GEOMETRY sg where " + inIds("sg.CITYOBJECT_ID") + ")")
+		.delete("APPEAR_TO_SURFACE_DATA", "APPEARANCE_ID in (select a.ID from APPEARANCE a where " + inIds("a.CITYOBJECT_ID") + ")")
+		.delete("APPEARANCE", inIds("CITYOBJECT_ID")));
+		tasks.add(new DeleteTask().delete("CITYOBJECT_GENERICATTRIB", inIds("CITYOBJECT_ID")));
+		tasks.add(new DeleteTask().delete("EXTERNAL_REFERENCE", inIds("CITYOBJECT_ID")));
+		tasks.add(new DeleteTask().delete("ADDRESS_TO_BUILDING", inIds("BUILDING_ID")));
+		tasks.add(new DeleteTask().delete("ADDRESS_TO_BRIDGE", inIds("BRIDGE_ID")));
+		tasks.add(new DeleteTask()
+		.delete("GROUP_TO_CITYOBJECT", inIds("CITYOBJECT_ID") + " or " + inIds("CITYOBJECTGROUP_ID"))
+		.update("CITYOBJECTGROUP", "PARENT_CITYOBJECT_ID=null", inIds("PARENT_CITYOBJECT_ID")));
+		tasks.add(new DeleteTask().delete("GENERALIZATION", inIds("CITYOBJECT_ID") + " or " + inIds("GENERALIZES_TO_ID")));
+		tasks.add(new DeleteTask().delete("CITYOBJECT_MEMBER", inIds("CITYOBJECT_ID")));
+		for (String[] link : LINKS)
+			tasks.add(new DeleteTask().delete(link[0], inIds(link[1]) + " or " + inIds(link[2])));
+
+		levels.add(tasks);
+
+		// level 2: leaf features
+		levels.add(deleteTasks(
+				"OPENING", "BRIDGE_OPENING", "TUNNEL_OPENING",
+				"BREAKLINE_RELIEF", "MASSPOINT_RELIEF", "TIN_RELIEF", "RASTER_RELIEF",
+				"TRAFFIC_AREA", "WATERBOUNDARY_SURFACE", "WATERBODY", "RELIEF_FEATURE",
+				"LAND_USE", "PLANT_COVER", "SOLITARY_VEGETAT_OBJECT", "CITY_FURNITURE",
+				"GENERIC_CITYOBJECT", "CITYOBJECTGROUP",
+				"BUILDING_FURNITURE", "BRIDGE_FURNITURE", "TUNNEL_FURNITURE"));
+
+		// level 3: boundary surfaces and relief components
+		levels.add(deleteTasks(
+				"THEMATIC_SURFACE", "BRIDGE_THEMATIC_SURFACE", "TUNNEL_THEMATIC_SURFACE",
+				"RELIEF_COMPONENT", "TRANSPORTATION_COMPLEX"));
+
+		// level 4: installations and construction elements
+		levels.add(deleteTasks(
+				"BUILDING_INSTALLATION", "BRIDGE_INSTALLATION", "TUNNEL_INSTALLATION", "BRIDGE_CONSTR_ELEMENT"));
+
+		// level 5: rooms
+		levels.add(deleteTasks("ROOM", "BRIDGE_ROOM", "TUNNEL_HOLLOW_SPACE"));
+
+		// level 6: buildings, bridges and tunnels including their parts
+		levels.add(deleteTasks("BUILDING", "BRIDGE", "TUNNEL"));
+
+		// level 7: geometries and orphaned appearance and address data
+		tasks = new ArrayList<DeleteTask>();
+		tasks.add(new DeleteTask().delete("SURFACE_GEOMETRY", inIds("CITYOBJECT_ID")));
+		if (deleteOrphans)
+			tasks.addAll(getOrphanTasks());
+
+		levels.add(tasks);
+
+		// level 8: the city objects themselves
+		levels.add(deleteTasks("CITYOBJECT"));
+		return levels;
+	}
+
+	private List<DeleteTask> getOrphanTasks() {
+		List<DeleteTask> tasks = new ArrayList<DeleteTask>();
+		tasks.add(new DeleteTask()
+		.delete("TEXTUREPARAM", "SURFACE_DATA_ID in (select sd.ID from SURFACE_DATA sd where not exists (select 1 from APPEAR_TO_SURFACE_DATA asd where asd.SURFACE_DATA_ID=sd.ID))")
+		.delete("SURFACE_DATA", "not exists (select 1 from APPEAR_TO_SURFACE_DATA asd where asd.SURFACE_DATA_ID=SURFACE_DATA.ID)")
+		.delete("TEX_IMAGE", "not exists (select 1 from SURFACE_DATA sd where sd.TEX_IMAGE_ID=TEX_IMAGE.ID)"));
+		tasks.add(new DeleteTask()
+		.delete("ADDRESS", "not exists (select 1 from ADDRESS_TO_BUILDING ab where ab.ADDRESS_ID=ADDRESS.ID) "
+				+ "and not exists (select 1 from ADDRESS_TO_BRIDGE ab where ab.ADDRESS_ID=ADDRESS.ID) "
+				+ "and not exists (select 1 from OPENING o where o.ADDRESS_ID=ADDRESS.ID) "
+				+ "and not exists (select 1 from BRIDGE_OPENING o where o.ADDRESS_ID=ADDRESS.ID)"));
+
+		return tasks;
+	}
+
+	private long selectCityObjects(Connection conn) throws SQLException {
+		ExportFilterConfig filterConfig = config.getProject().getExporter().getFilter();
+		StringBuilder query = new StringBuilder("insert into ").append(idTable).append(" (ID) ");
+
+		if (filterConfig.isSetSimpleFilter()) {
+			List<String> gmlIdList = exportFilter.getGmlIdFilter().getFilterState();
+			if (gmlIdList == null || gmlIdList.isEmpty())
+				return 0;
+
+			query.append("select co.ID from CITYOBJECT co where co.GMLID in ('")
+			.append(Util.collection2string(gmlIdList, "', '")).append("')");
+		} else {
+			String optimizerHint = "";
+			String bboxFilter = null;
+
+			// bounding box filter
+			BoundingBox bbox = exportFilter.getBoundingBoxFilter().getFilterState();
+			if (exportFilter.getBoundingBoxFilter().isActive() && bbox != null) {
+				if (!bbox.getSrs().isSupported())
+					throw new SQLException("The SRID " + bbox.getSrs().getSrid() + " of the bounding box filter is not supported.");
+
+				// convert the srid of the bbox to that of the database
+				DatabaseSrs dbSrs = databaseAdapter.getConnectionMetaData().getReferenceSystem();				
+				if (bbox.getSrs().getSrid() != dbSrs.getSrid())	{
+					try {
+						bbox = databaseAdapter.getUtil().transformBoundingBox(bbox, bbox.getSrs(), dbSrs);
+					} catch (SQLException e) {
+						throw new SQLException("Failed to transform bounding box filter to database SRID.", e);
+					}
+				}
+
+				TiledBoundingBox tiledBBox = filterConfig.getComplexFilter().getTiledBoundingBox();
+				boolean overlap = tiledBBox.getTiling().getMode() != TilingMode.NO_TILING || tiledBBox.isSetOverlapMode();
+				bboxFilter = databaseAdapter.getSQLAdapter().getBoundingBoxPredicate("ENVELOPE", "co", bbox, overlap);
+
+				if (databaseAdapter.getSQLAdapter().spatialPredicateRequiresNoIndexHint())
+					optimizerHint = "/*+ no_index(co cityobject_objectclass_fkx) */";
+			}
+
+			List<Integer> classIds = new ArrayList<Integer>();
+			for (CityGMLClass featureClass : exportFilter.getFeatureClassFilter().getNotFilterState())
+				classIds.add(Util.cityObject2classId(featureClass));
+
+			if (classIds.isEmpty())
+				return 0;
+
+			query.append("select ").append(optimizerHint).append(" co.ID from CITYOBJECT co where co.OBJECTCLASS_ID in (")
+			.append(Util.collection2string(classIds, ", ")).append(") ");
+
+			String gmlNameFilter = exportFilter.getGmlNameFilter().getFilterState();
+			if (gmlNameFilter != null)
+				query.append("and upper(co.NAME) like '%").append(gmlNameFilter.toUpperCase()).append("%' ");
+
+			if (bboxFilter != null)
+				query.append("and ").append(bboxFilter);
+		}
+
+		Statement stmt = null;
+		try {
+			stmt = conn.createStatement();
+			return stmt.executeUpdate(query.toString());
+		} finally {
+			if (stmt != null)
+				stmt.close();
+		}
+	}
+
+	private long expandCityObjects(Connection conn) throws SQLException {
+		List<String> queries = new ArrayList<String>();
+		for (String[] child : HIERARCHY) {
+			queries.add(new StringBuilder("insert into ").append(idTable).append(" (ID) select t.ID from ").append(child[0])
+					.append(" t where ").append(inIds("t." + child[1]))
+					.append(" and not exists (select 1 from ").append(idTable).append(" x where x.ID=t.ID)").toString());
+		}
+
+		// components of n:m relations are only deleted if no remaining feature refers to them
+		for (String[] link : LINKS) {
+			queries.add(new StringBuilder("insert into ").append(idTable).append(" (ID) select distinct l.").append(link[1])
+					.append(" from ").append(link[0]).append(" l where ").append(inIds("l." + link[2]))
+					.append(" and not exists (select 1 from ").append(idTable).append(" x where x.ID=l.").append(link[1]).append(")")
+					.append(" and not exists (select 1 from ").append(link[0]).append(" o where o.").append(link[1]).append("=l.").append(link[1])
+					.append(" and o.").append(link[2]).append(" not in (select ID from ").append(idTable).append("))").toString());
+		}
+
+		long total = 0;
+		Statement stmt = null;
+
+		try {
+			stmt = conn.createStatement();
+
+			// repeat until a fixed point is reached since nesting may be arbitrarily deep
+			long inserted;
+			do {
+				inserted = 0;
+				for (String query : queries)
+					inserted += stmt.executeUpdate(query);
+
+				conn.commit();
+				total += inserted;
+			} while (inserted > 0 && shouldRun);
+		} finally {
+			if (stmt != null)
+				stmt.close();
+		}
+
+		return total;
+	}
+
+	private long executeLevel(ExecutorService service, List<DeleteTask> tasks) throws SQLException {
+		if (!shouldRun)
+			return 0;
+
+		List<Future<Long>> futures = new ArrayList<Future<Long>>(tasks.size());
+		for (DeleteTask task : tasks)
+			futures.add(service.submit(task));
+
+		long rows = 0;
+		try {
+			for (Future<Long> future : futures)
+				rows += future.get();
+		} catch (InterruptedException e) {
+			shouldRun = false;
+		} catch (ExecutionException e) {
+			shouldRun = false;
+			throw e.getCause() instanceof SQLException ? (SQLException)e.getCause() : new SQLException(e.getCause());
+		}
+
+		return rows;
+	}
+
+	private List<DeleteTask> deleteTasks(String... tables) {
+		List<DeleteTask> tasks = new ArrayList<DeleteTask>(tables.length);
+		for (String table : tables)
+			tasks.add(new DeleteTask().delete(table, inIds("ID")));
+
+		return tasks;
+	}
+
+	private String inIds(String column) {
+		return column + " in (" + idSet + ")";
+	}
+
+	private final class DeleteTask implements Callable<Long> {
+		private final List<String[]> statements = new ArrayList<String[]>();
+
+		private DeleteTask delete(String table, String predicate) {
+			statements.add(new String[]{ table, "delete from " + table + " where " + predicate });
+			return this;
+		}
+
+		private DeleteTask update(String table, String assignment, String predicate) {
+			statements.add(new String[]{ table, "update " + table + " set " + assignment + " where " + predicate });
+			return this;
+		}
+
+		@Override
+		public Long call() throws SQLException {
+			Connection conn = null;
+
+			try {
+				conn = dbPool.getConnection();
+				conn.setAutoCommit(true);
+
+				if (databaseAdapter.hasVersioningSupport())
+					databaseAdapter.getWorkspaceManager().gotoWorkspace(conn, workspace);
+
+				return execute(conn);
+			} finally {
+				if (conn != null) {
+					try {
+						conn.close();
+					} catch (SQLException e) {
+						//
+					}
+				}
+			}
+		}
+
+		private long execute(Connection conn) throws SQLException {
+			Statement stmt = null;
+			long rows = 0;
+
+			try {
+				stmt = conn.createStatement();
+				for (String[] statement : statements) {
+					if (!shouldRun)
+						break;
+
+					int affected = stmt.executeUpdate(statement[1]);
+					if (affected > 0)
+						LOG.debug("Processed " + affected + " row(s) of table " + statement[0] + ".");
+
+					rows += affected;
+				}
+			} finally {
+				if (stmt != null) {
+					try {
+						stmt.close();
+					} catch (SQLException e) {
+						//
+					}
+				}
+			}
+
+			return rows;
+		}
+	}
+}
@@ -28,9 +28,7 @@
 package org.citydb.modules.citygml.exporter.controller;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.sql.SQLException;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -48,6 +46,7 @@ import org.citydb.api.geometry.BoundingBox;
 import org.citydb.config.Config;
 import org.citydb.config.language.Language;
 import org.citydb.config.project.database.Workspace;
+import org.citydb.config.project.exporter.ExportOutput;
 import org.citydb.config.project.filter.TileNameSuffixMode;
 import org.citydb.config.project.filter.TileSuffixMode;
 import org.citydb.config.project.filter.Tiling;
@@ -65,7 +64,11 @@ import org.citydb.modules.citygml.exporter.database.content.DBSplitter;
 import org.citydb.modules.citygml.exporter.database.content.DBSplittingResult;
 import org.citydb.modules.citygml.exporter.database.uid.FeatureGmlIdCache;
 import org.citydb.modules.citygml.exporter.database.uid.GeometryGmlIdCache;
+import org.citydb.modules.citygml.exporter.util.CityJSONFeatureProcessorFactory;
+import org.citydb.modules.citygml.exporter.util.CityJSONWriter;
+import org.citydb.modules.citygml.exporter.util.FeatureProcessorFactory;
 import org.citydb.modules.citygml.exporter.util.FeatureWriterFactory;
+import org.citydb.modules.citygml.exporter.util.RollingOutput;
 import org.citydb.modules.common.concurrent.IOWriterWorkerFactory;
 import org.citydb.modules.common.event.CounterEvent;
 import org.citydb.modules.common.event.CounterType;
@@ -78,7 +81,6 @@ import org.citydb.modules.common.event.StatusDialogTitle;
 import org.citydb.modules.common.filter.ExportFilter;
 import org.citydb.util.Util;
 import org.citygml4j.builder.jaxb.JAXBBuilder;
-import org.citygml4j.builder.jaxb.xml.io.writer.JAXBModelWriter;
 import org.citygml4j.builder.jaxb.xml.io.writer.JAXBOutputFactory;
 import org.citygml4j.model.citygml.CityGMLClass;
 import org.citygml4j.model.gml.GMLClass;
@@ -90,7 +92,6 @@ import org.citygml4j.model.module.citygml.CityGMLVersion;
 import org.citygml4j.util.xml.SAXEventBuffer;
 import org.citygml4j.util.xml.SAXWriter;
 import org.citygml4j.xml.io.writer.CityGMLWriteException;
-import org.citygml4j.xml.io.writer.CityModelInfo;
 import org.xml.sax.SAXException;
 
 public class Exporter implements EventHandler {
@@ -238,6 +239,24 @@ public class Exporter implements EventHandler {
 		else
 			fileName = Util.stripFileExtension(fileName);
 
+		// gzip output is requested either explicitly or by a .gz file name
+		ExportOutput output = config.getProject().getExporter().getOutput();
+		boolean compress = output.isSetCompress();
+		if (fileExtension.equals("gz")) {
+			compress = true;
+			fileExtension = Util.getFileExtension(fileName);
+			if (fileExtension == null)
+				fileExtension = "gml";
+			else
+				fileName = Util.stripFileExtension(fileName);
+		}
+
+		// a .json file name selects CityJSON instead of CityGML output
+		boolean cityJSON = fileExtension.equals("json");
+
+		if (compress)
+			fileExtension += ".gz";
+
 		File folder = new File(folderName);
 		if (!folder.exists() && !folder.mkdirs())
 			throw new CityGMLExportException("Failed to create folder '" + folderName + "'.");
@@ -247,6 +266,8 @@ public class Exporter implements EventHandler {
 
 		for (int i = 0; shouldRun && i < rows; i++) {
 			for (int j = 0; shouldRun && j < columns; j++) {
+				RollingOutput rollingOutput = null;
+				CityJSONWriter cityJSONWriter = null;
 
 				try {
 					File file = null;
@@ -344,11 +365,28 @@ public class Exporter implements EventHandler {
 						}
 					}
 
-					// open file for writing
+					// open file for writing and write CityModel header element
 					try {
-						saxWriter.setOutput(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+						if (cityJSON) {
+							cityJSONWriter = new CityJSONWriter(file, compress, config.getInternal().getExportTargetSRS().getSrid(), output);
+							cityJSONWriter.open();
+						} else {
+							rollingOutput = new RollingOutput(
+									saxWriter, 
+									(JAXBOutputFactory)jaxbBuilder.createCityGMLOutputFactory(moduleContext), 
+									moduleContext, 
+									file.getParentFile(), 
+									file.getName().substring(0, file.getName().length() - fileExtension.length() - 1), 
+									fileExtension, 
+									compress, 
+									output);
+
+							rollingOutput.open();
+						}
 					} catch (IOException e) {
 						throw new CityGMLExportException("Failed to open file '" + fileName + "' for writing.", e);
+					} catch (CityGMLWriteException | SAXException e) {
+						throw new CityGMLExportException("Failed to write CityGML file.", e);
 					}					
 
 					// create instance of temp table manager
@@ -397,11 +435,18 @@ public class Exporter implements EventHandler {
 							300,
 							false);
 
-					ioWriterPool = new SingleWorkerPool<SAXEventBuffer>(
-							"citygml_writer_pool",
-							new IOWriterWorkerFactory(saxWriter),
-							100,
-							false);
+					FeatureProcessorFactory featureProcessorFactory = null;
+					if (cityJSON)
+						featureProcessorFactory = new CityJSONFeatureProcessorFactory(cityJSONWriter);
+					else {
+						ioWriterPool = new SingleWorkerPool<SAXEventBuffer>(
+								"citygml_writer_pool",
+								new IOWriterWorkerFactory(saxWriter, output.getFlushInterval(), rollingOutput, eventDispatcher),
+								100,
+								false);
+
+						featureProcessorFactory = new FeatureWriterFactory(ioWriterPool, jaxbBuilder, config);
+					}
 
 					dbWorkerPool = new WorkerPool<DBSplittingResult>(
 							"db_exporter_pool",
@@ -411,7 +456,7 @@ public class Exporter implements EventHandler {
 							new DBExportWorkerFactory(
 									dbPool,
 									jaxbBuilder,
-									new FeatureWriterFactory(ioWriterPool, jaxbBuilder, config),
+									featureProcessorFactory,
 									xlinkExporterPool,
 									uidCacheManager,
 									cacheTableManager,
@@ -419,11 +464,13 @@ public class Exporter implements EventHandler {
 									config,
 									eventDispatcher),
 							300,
-							false);
+							config.getProject().getExporter().getResources().getThreadPool().getDefaultPool().getWorkQueue().getWorkQueueType());
 
 					// prestart pool workers
 					xlinkExporterPool.prestartCoreWorkers();
-					ioWriterPool.prestartCoreWorkers();
+					if (ioWriterPool != null)
+						ioWriterPool.prestartCoreWorkers();
+
 					dbWorkerPool.prestartCoreWorkers();
 
 					// fail if we could not start a single import worker
@@ -431,22 +478,7 @@ public class Exporter implements EventHandler {
 						throw new CityGMLExportException("Failed to start database export worker pool. Check the database connection pool settings.");
 
 					// ok, preparations done. inform user...
-					LOG.info("Exporting to file: " + file.getAbsolutePath());
-
-					// write CityModel header element
-					JAXBModelWriter writer = null;
-					try {
-						writer = new JAXBModelWriter(
-								saxWriter, 
-								(JAXBOutputFactory)jaxbBuilder.createCityGMLOutputFactory(moduleContext), 
-								moduleContext, 
-								new CityModelInfo());
-
-						writer.writeStartDocument();
-						saxWriter.flush();
-					} catch (CityGMLWriteException | SAXException e) {
-						throw new CityGMLExportException("Failed to write CityGML file.", e);
-					}
+					LOG.info("Exporting to file: " + (cityJSON ? cityJSONWriter.getFile() : rollingOutput.getFile()).getAbsolutePath());
 
 					// get database splitter and start query
 					dbSplitter = null;
@@ -469,16 +501,18 @@ public class Exporter implements EventHandler {
 					try {
 						dbWorkerPool.shutdownAndWait();
 						xlinkExporterPool.shutdownAndWait();
-						ioWriterPool.shutdownAndWait();
+						if (ioWriterPool != null)
+							ioWriterPool.shutdownAndWait();
 					} catch (InterruptedException e) {
 						throw new CityGMLExportException("Failed to shutdown worker pools.", e);
 					}
 
-					// write footer element and flush sax writer
+					// write footer element and close output files
 					try {
-						writer.writeEndDocument();						
-						saxWriter.flush();
-						saxWriter.getOutputWriter().close();
+						if (cityJSON)
+							cityJSONWriter.close();
+						else
+							rollingOutput.close();
 					} catch (CityGMLWriteException | SAXException | IOException e) {
 						throw new CityGMLExportException("Failed to write CityGML file.", e);
 					}
@@ -495,6 +529,13 @@ public class Exporter implements EventHandler {
 					if (ioWriterPool != null && !ioWriterPool.isTerminated())
 						ioWriterPool.shutdownNow();
 
+					// release the output files of a failed export
+					if (rollingOutput != null)
+						rollingOutput.abort();
+
+					if (cityJSONWriter != null)
+						cityJSONWriter.abort();
+
 					try {
 						eventDispatcher.flushEvents();
 					} catch (InterruptedException e) {
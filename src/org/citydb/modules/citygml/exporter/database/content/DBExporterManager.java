@@ -72,6 +72,7 @@ public class DBExporterManager {
 	private final EventDispatcher eventDispatcher;
 
 	private final JAXBUnmarshaller jaxbUnmarshaller;
+	private Unmarshaller unmarshaller;
 	private AddressExportFactory addressExportFactory;
 	private EnumMap<DBExporterEnum, DBExporter> dbExporterMap;
 	private HashMap<CityGMLClass, Long> featureCounterMap;
@@ -314,7 +315,9 @@ public class DBExporterManager {
 		Object object = null;
 
 		try {
-			Unmarshaller unmarshaller = jaxbBuilder.getJAXBContext().createUnmarshaller();
+			if (unmarshaller == null)
+				unmarshaller = jaxbBuilder.getJAXBContext().createUnmarshaller();
+
 			object = unmarshaller.unmarshal(reader);
 			if (object != null)
 				object = jaxbUnmarshaller.unmarshal(object);
@@ -35,6 +35,7 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.citydb.api.concurrent.WorkBatcher;
 import org.citydb.api.concurrent.WorkerPool;
 import org.citydb.api.database.DatabaseSrs;
 import org.citydb.api.event.EventDispatcher;
@@ -65,6 +66,7 @@ public class DBSplitter {
 
 	private final DatabaseConnectionPool dbConnectionPool;
 	private final WorkerPool<DBSplittingResult> dbWorkerPool;
+	private final WorkBatcher<DBSplittingResult> dbWorkBatcher;
 	private final UIDCache featureGmlIdCache;
 	private final CacheTableManager cacheTableManager;
 	private final Config config;
@@ -103,6 +105,9 @@ public class DBSplitter {
 		this.eventDispatcher = eventDispatcher;
 		this.config = config;
 
+		dbWorkBatcher = new WorkBatcher<DBSplittingResult>(dbWorkerPool, 
+				config.getProject().getExporter().getResources().getThreadPool().getDefaultPool().getBatchSize());
+
 		init(exportFilter, cacheTableManager);
 	}
 
@@ -293,9 +298,11 @@ public class DBSplitter {
 
 				// set initial context...
 				DBSplittingResult splitter = new DBSplittingResult(primaryKey, cityObjectType);
-				dbWorkerPool.addWork(splitter);
+				dbWorkBatcher.addWork(splitter);
 			}
 
+			dbWorkBatcher.flush();
+
 		} catch (SQLException sqlEx) {
 			throw sqlEx;
 		} finally {
@@ -435,13 +442,14 @@ public class DBSplitter {
 						// set initial context...
 						DBSplittingResult splitter = new DBSplittingResult(gmlId, memberId, cityObjectType);
 						splitter.setCheckIfAlreadyExported(true);
-						dbWorkerPool.addWork(splitter);
+						dbWorkBatcher.addWork(splitter);
 					} 
 
 					rs.close();
 				}
 
 				memberStmt.close();
+				dbWorkBatcher.flush();
 
 				// wait for jobs to be done...
 				try {
@@ -459,9 +467,11 @@ public class DBSplitter {
 					break;
 
 				DBSplittingResult splitter = new DBSplittingResult(groupId, CityGMLClass.CITY_OBJECT_GROUP);
-				dbWorkerPool.addWork(splitter);
+				dbWorkBatcher.addWork(splitter);
 			}
 
+			dbWorkBatcher.flush();
+
 		} catch (SQLException sqlEx) {
 			LOG.error("SQL error: " + sqlEx.getMessage());
 			throw sqlEx;
@@ -527,9 +537,11 @@ public class DBSplitter {
 
 				// send appearance to export workers
 				DBSplittingResult splitter = new DBSplittingResult(appearanceId, CityGMLClass.APPEARANCE);
-				dbWorkerPool.addWork(splitter);
+				dbWorkBatcher.addWork(splitter);
 			}
 
+			dbWorkBatcher.flush();
+
 		} catch (SQLException sqlEx) {
 			LOG.error("SQL error: " + sqlEx.getMessage());
 			throw sqlEx;
@@ -0,0 +1,751 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.exporter.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.citydb.util.Util;
+import org.citygml4j.model.citygml.appearance.AbstractSurfaceData;
+import org.citygml4j.model.citygml.appearance.AbstractTextureParameterization;
+import org.citygml4j.model.citygml.appearance.Appearance;
+import org.citygml4j.model.citygml.appearance.Color;
+import org.citygml4j.model.citygml.appearance.ParameterizedTexture;
+import org.citygml4j.model.citygml.appearance.SurfaceDataProperty;
+import org.citygml4j.model.citygml.appearance.TexCoordList;
+import org.citygml4j.model.citygml.appearance.TextureAssociation;
+import org.citygml4j.model.citygml.appearance.TextureCoordinates;
+import org.citygml4j.model.citygml.appearance.X3DMaterial;
+import org.citygml4j.model.citygml.building.AbstractBuilding;
+import org.citygml4j.model.citygml.core.AbstractCityObject;
+import org.citygml4j.model.citygml.generics.AbstractGenericAttribute;
+import org.citygml4j.model.citygml.generics.DateAttribute;
+import org.citygml4j.model.citygml.generics.DoubleAttribute;
+import org.citygml4j.model.citygml.generics.GenericAttributeSet;
+import org.citygml4j.model.citygml.generics.IntAttribute;
+import org.citygml4j.model.citygml.generics.MeasureAttribute;
+import org.citygml4j.model.citygml.generics.StringAttribute;
+import org.citygml4j.model.citygml.generics.UriAttribute;
+import org.citygml4j.model.common.base.ModelObject;
+import org.citygml4j.model.common.child.Child;
+import org.citygml4j.model.gml.feature.AbstractFeature;
+import org.citygml4j.model.gml.geometry.AbstractGeometry;
+import org.citygml4j.model.gml.geometry.GeometryProperty;
+import org.citygml4j.model.gml.geometry.aggregates.MultiCurve;
+import org.citygml4j.model.gml.geometry.aggregates.MultiLineString;
+import org.citygml4j.model.gml.geometry.aggregates.MultiPoint;
+import org.citygml4j.model.gml.geometry.aggregates.MultiSolid;
+import org.citygml4j.model.gml.geometry.aggregates.MultiSurface;
+import org.citygml4j.model.gml.geometry.complexes.CompositeSolid;
+import org.citygml4j.model.gml.geometry.complexes.CompositeSurface;
+import org.citygml4j.model.gml.geometry.primitives.AbstractRingProperty;
+import org.citygml4j.model.gml.geometry.primitives.AbstractSolid;
+import org.citygml4j.model.gml.geometry.primitives.AbstractSurface;
+import org.citygml4j.model.gml.geometry.primitives.AbstractSurfacePatch;
+import org.citygml4j.model.gml.geometry.primitives.CurveProperty;
+import org.citygml4j.model.gml.geometry.primitives.LineString;
+import org.citygml4j.model.gml.geometry.primitives.LineStringProperty;
+import org.citygml4j.model.gml.geometry.primitives.LinearRing;
+import org.citygml4j.model.gml.geometry.primitives.OrientableSurface;
+import org.citygml4j.model.gml.geometry.primitives.Point;
+import org.citygml4j.model.gml.geometry.primitives.PointProperty;
+import org.citygml4j.model.gml.geometry.primitives.Polygon;
+import org.citygml4j.model.gml.geometry.primitives.Rectangle;
+import org.citygml4j.model.gml.geometry.primitives.Sign;
+import org.citygml4j.model.gml.geometry.primitives.Solid;
+import org.citygml4j.model.gml.geometry.primitives.SolidProperty;
+import org.citygml4j.model.gml.geometry.primitives.Surface;
+import org.citygml4j.model.gml.geometry.primitives.SurfaceProperty;
+import org.citygml4j.model.gml.geometry.primitives.Triangle;
+import org.citygml4j.model.gml.geometry.primitives.TriangulatedSurface;
+import org.citygml4j.util.walker.FeatureWalker;
+import org.citygml4j.util.walker.GeometryWalker;
+
+public class CityJSONFeatureProcessor implements FeatureProcessor {
+	private static final Set<String> CITY_OBJECT_TYPES = new HashSet<String>(Arrays.asList(
+			"Building", "BuildingPart", "BuildingInstallation",
+			"Bridge", "BridgePart", "BridgeInstallation", "BridgeConstructionElement",
+			"Tunnel", "TunnelPart", "TunnelInstallation",
+			"Road", "Railway", "TransportSquare", "TINRelief", "WaterBody", "LandUse", "PlantCover",
+			"SolitaryVegetationObject", "CityFurniture", "GenericCityObject", "CityObjectGroup"));
+
+	private static final Set<String> SEMANTIC_TYPES = new HashSet<String>(Arrays.asList(
+			"RoofSurface", "GroundSurface", "WallSurface", "ClosureSurface", "OuterCeilingSurface", "OuterFloorSurface",
+			"Window", "Door", "FloorSurface", "InteriorWallSurface", "CeilingSurface",
+			"WaterSurface", "WaterGroundSurface", "WaterClosureSurface", "TrafficArea", "AuxiliaryTrafficArea"));
+
+	private final CityJSONWriter writer;
+
+	public CityJSONFeatureProcessor(CityJSONWriter writer) {
+		this.writer = writer;
+	}
+
+	@Override
+	public void process(AbstractFeature abstractFeature) throws FeatureProcessException {
+		// global appearances cannot be related to the city objects they are
+		// assigned to at this point and are therefore not exported
+		if (!(abstractFeature instanceof AbstractCityObject))
+			return;
+
+		CityJSONFragment fragment = new Converter().convert((AbstractCityObject)abstractFeature);
+		if (!fragment.isEmpty()) {
+			try {
+				writer.write(fragment);
+			} catch (IOException e) {
+				throw new FeatureProcessException("Failed to write CityJSON file.", e);
+			}
+		}
+	}
+
+	private static String getType(AbstractCityObject cityObject) {
+		String type = cityObject.getClass().getSimpleName();
+		if (type.equals("Square"))
+			return "TransportSquare";
+		else if (type.equals("Track") || type.equals("TransportationComplex"))
+			return "Road";
+
+		return CITY_OBJECT_TYPES.contains(type) ? type : null;
+	}
+
+	private static String getSemanticType(AbstractCityObject cityObject) {
+		String type = cityObject.getClass().getSimpleName();
+		return SEMANTIC_TYPES.contains(type) ? type : null;
+	}
+
+	private static AbstractCityObject getParent(AbstractCityObject cityObject) {
+		ModelObject parent = cityObject.getParent();
+		while (parent != null) {
+			if (parent instanceof AbstractCityObject)
+				return (AbstractCityObject)parent;
+
+			parent = parent instanceof Child ? ((Child)parent).getParent() : null;
+		}
+
+		return null;
+	}
+
+	private static String stripHash(String reference) {
+		return reference != null && reference.startsWith("#") ? reference.substring(1) : reference;
+	}
+
+	// converts a single top-level feature including its nested features
+	private static final class Converter {
+		private final CityJSONFragment fragment = new CityJSONFragment();
+		private final List<AbstractCityObject> cityObjects = new ArrayList<AbstractCityObject>();
+		private final List<Appearance> appearances = new ArrayList<Appearance>();
+		private final Map<String, AbstractSurface> surfaces = new HashMap<String, AbstractSurface>();
+		private final Map<String, AbstractCityObject> semanticSurfaces = new HashMap<String, AbstractCityObject>();
+		private final Map<AbstractCityObject, CityJSONFragment.CityObject> converted = new IdentityHashMap<AbstractCityObject, CityJSONFragment.CityObject>();
+		private final Set<String> consumed = new HashSet<String>();
+		private final Map<String, Map<String, TextureReference>> ringTextures = new LinkedHashMap<String, Map<String, TextureReference>>();
+		private final Map<String, Map<String, Integer>> surfaceMaterials = new LinkedHashMap<String, Map<String, Integer>>();
+
+		private CityJSONFragment convert(AbstractCityObject feature) {
+			feature.accept(new FeatureWalker() {
+				@Override
+				public void visit(AbstractCityObject cityObject) {
+					cityObjects.add(cityObject);
+					super.visit(cityObject);
+				}
+
+				@Override
+				public void visit(Appearance appearance) {
+					appearances.add(appearance);
+					super.visit(appearance);
+				}
+			});
+
+			// index surfaces so that xlinks between geometries can be resolved
+			for (final AbstractCityObject cityObject : cityObjects) {
+				final boolean isSemantic = getSemanticType(cityObject) != null;
+				for (GeometryProperty<? extends AbstractGeometry> property : getGeometries(cityObject)) {
+					if (property.isSetGeometry()) {
+						property.getGeometry().accept(new GeometryWalker() {
+							@Override
+							public void visit(AbstractSurface surface) {
+								if (surface.isSetId()) {
+									surfaces.put(surface.getId(), surface);
+									if (isSemantic)
+										semanticSurfaces.put(surface.getId(), cityObject);
+								}
+
+								super.visit(surface);
+							}
+						});
+					}
+				}
+			}
+
+			for (Appearance appearance : appearances)
+				addAppearance(appearance);
+
+			for (AbstractCityObject cityObject : cityObjects) {
+				String type = getType(cityObject);
+				if (type != null)
+					addCityObject(cityObject, type);
+			}
+
+			// thematic surfaces whose geometry is not referenced from
+			// their parent are added to the parent as separate geometry
+			Map<AbstractCityObject, CityJSONFragment.Geometry[]> remaining = new IdentityHashMap<AbstractCityObject, CityJSONFragment.Geometry[]>();
+			Map<CityJSONFragment.Geometry, Map<AbstractCityObject, Integer>> semantics = new IdentityHashMap<CityJSONFragment.Geometry, Map<AbstractCityObject, Integer>>();
+			for (AbstractCityObject cityObject : cityObjects) {
+				if (getSemanticType(cityObject) == null)
+					continue;
+
+				AbstractCityObject owner = getParent(cityObject);
+				while (owner != null && !converted.containsKey(owner))
+					owner = getParent(owner);
+
+				if (owner == null)
+					continue;
+
+				CityJSONFragment.Geometry[] geometries = remaining.get(owner);
+				if (geometries == null) {
+					geometries = new CityJSONFragment.Geometry[5];
+					remaining.put(owner, geometries);
+				}
+
+				for (int lod = 0; lod < 5; lod++) {
+					if (!cityObject.getLodRepresentation().isSetLodGeometry(lod))
+						continue;
+
+					CityJSONFragment.Geometry geometry = geometries[lod];
+					if (geometry == null) {
+						geometry = geometries[lod] = new CityJSONFragment.Geometry("MultiSurface", lod);
+						semantics.put(geometry, new IdentityHashMap<AbstractCityObject, Integer>());
+					}
+
+					for (GeometryProperty<? extends AbstractGeometry> property : cityObject.getLodRepresentation().getLodGeometry(lod)) {
+						AbstractGeometry abstractGeometry = resolve(property);
+						if (abstractGeometry instanceof AbstractSurface)
+							addSurface((AbstractSurface)abstractGeometry, false, lod, true, geometry.getBoundaries(), geometry, semantics.get(geometry));
+						else if (abstractGeometry instanceof MultiSurface) {
+							for (SurfaceProperty member : ((MultiSurface)abstractGeometry).getSurfaceMember())
+								addSurface(resolve(member), false, lod, true, geometry.getBoundaries(), geometry, semantics.get(geometry));
+						}
+					}
+				}
+			}
+
+			for (Map.Entry<AbstractCityObject, CityJSONFragment.Geometry[]> entry : remaining.entrySet()) {
+				for (CityJSONFragment.Geometry geometry : entry.getValue()) {
+					if (geometry != null && !geometry.getBoundaries().isEmpty())
+						converted.get(entry.getKey()).addGeometry(geometry);
+				}
+			}
+
+			return fragment;
+		}
+
+		private void addCityObject(AbstractCityObject cityObject, String type) {
+			String id = cityObject.isSetId() ? cityObject.getId() : "UUID_" + UUID.randomUUID().toString();
+			CityJSONFragment.CityObject target = fragment.addCityObject(id, type);
+			converted.put(cityObject, target);
+
+			AbstractCityObject parent = getParent(cityObject);
+			while (parent != null && !converted.containsKey(parent))
+				parent = getParent(parent);
+
+			if (parent != null)
+				target.setParent(converted.get(parent));
+
+			addAttributes(cityObject, target);
+
+			for (int lod = 0; lod < 5; lod++) {
+				if (!cityObject.getLodRepresentation().isSetLodGeometry(lod))
+					continue;
+
+				for (GeometryProperty<? extends AbstractGeometry> property : cityObject.getLodRepresentation().getLodGeometry(lod)) {
+					CityJSONFragment.Geometry geometry = convertGeometry(resolve(property), lod);
+					if (geometry != null && !geometry.getBoundaries().isEmpty())
+						target.addGeometry(geometry);
+				}
+			}
+		}
+
+		private CityJSONFragment.Geometry convertGeometry(AbstractGeometry abstractGeometry, int lod) {
+			if (abstractGeometry == null)
+				return null;
+
+			CityJSONFragment.Geometry geometry = null;
+			Map<AbstractCityObject, Integer> semantics = new IdentityHashMap<AbstractCityObject, Integer>();
+
+			if (abstractGeometry instanceof AbstractSolid) {
+				geometry = new CityJSONFragment.Geometry("Solid", lod);
+				addSolid((AbstractSolid)abstractGeometry, lod, geometry.getBoundaries(), geometry, semantics);
+			}
+
+			else if (abstractGeometry instanceof MultiSolid || abstractGeometry instanceof CompositeSolid) {
+				boolean isMulti = abstractGeometry instanceof MultiSolid;
+				geometry = new CityJSONFragment.Geometry(isMulti ? "MultiSolid" : "CompositeSolid", lod);
+
+				List<SolidProperty> members = isMulti ?
+						((MultiSolid)abstractGeometry).getSolidMember() : ((CompositeSolid)abstractGeometry).getSolidMember();
+
+				for (SolidProperty member : members) {
+					List<Object> shells = new ArrayList<Object>();
+					if (member.isSetSolid())
+						addSolid(member.getSolid(), lod, shells, geometry, semantics);
+
+					if (!shells.isEmpty())
+						geometry.getBoundaries().add(shells);
+				}
+			}
+
+			else if (abstractGeometry instanceof CompositeSurface) {
+				geometry = new CityJSONFragment.Geometry("CompositeSurface", lod);
+				addSurface((AbstractSurface)abstractGeometry, false, lod, false, geometry.getBoundaries(), geometry, semantics);
+			}
+
+			else if (abstractGeometry instanceof AbstractSurface) {
+				geometry = new CityJSONFragment.Geometry("MultiSurface", lod);
+				addSurface((AbstractSurface)abstractGeometry, false, lod, false, geometry.getBoundaries(), geometry, semantics);
+			}
+
+			else if (abstractGeometry instanceof MultiSurface) {
+				geometry = new CityJSONFragment.Geometry("MultiSurface", lod);
+				for (SurfaceProperty member : ((MultiSurface)abstractGeometry).getSurfaceMember())
+					addSurface(resolve(member), false, lod, false, geometry.getBoundaries(), geometry, semantics);
+			}
+
+			else if (abstractGeometry instanceof MultiCurve) {
+				geometry = new CityJSONFragment.Geometry("MultiLineString", lod);
+				for (CurveProperty member : ((MultiCurve)abstractGeometry).getCurveMember()) {
+					if (member.getCurve() instanceof LineString)
+						addLineString((LineString)member.getCurve(), geometry.getBoundaries());
+				}
+			}
+
+			else if (abstractGeometry instanceof MultiLineString) {
+				geometry = new CityJSONFragment.Geometry("MultiLineString", lod);
+				for (LineStringProperty member : ((MultiLineString)abstractGeometry).getLineStringMember()) {
+					if (member.isSetLineString())
+						addLineString(member.getLineString(), geometry.getBoundaries());
+				}
+			}
+
+			else if (abstractGeometry instanceof LineString) {
+				geometry = new CityJSONFragment.Geometry("MultiLineString", lod);
+				addLineString((LineString)abstractGeometry, geometry.getBoundaries());
+			}
+
+			else if (abstractGeometry instanceof MultiPoint) {
+				geometry = new CityJSONFragment.Geometry("MultiPoint", lod);
+				for (PointProperty member : ((MultiPoint)abstractGeometry).getPointMember()) {
+					if (member.isSetPoint())
+						addPoint(member.getPoint(), geometry.getBoundaries());
+				}
+			}
+
+			else if (abstractGeometry instanceof Point) {
+				geometry = new CityJSONFragment.Geometry("MultiPoint", lod);
+				addPoint((Point)abstractGeometry, geometry.getBoundaries());
+			}
+
+			return geometry;
+		}
+
+		private void addSolid(AbstractSolid abstractSolid, int lod, List<Object> shells, CityJSONFragment.Geometry geometry, Map<AbstractCityObject, Integer> semantics) {
+			if (!(abstractSolid instanceof Solid))
+				return;
+
+			Solid solid = (Solid)abstractSolid;
+			List<SurfaceProperty> members = new ArrayList<SurfaceProperty>();
+			if (solid.isSetExterior())
+				members.add(solid.getExterior());
+
+			if (solid.isSetInterior())
+				members.addAll(solid.getInterior());
+
+			for (SurfaceProperty member : members) {
+				List<Object> shell = new ArrayList<Object>();
+				addSurface(resolve(member), false, lod, false, shell, geometry, semantics);
+				if (!shell.isEmpty())
+					shells.add(shell);
+			}
+		}
+
+		private void addSurface(AbstractSurface abstractSurface, boolean reverse, int lod, boolean onlyRemaining, List<Object> target, CityJSONFragment.Geometry geometry, Map<AbstractCityObject, Integer> semantics) {
+			if (abstractSurface instanceof Polygon) {
+				Polygon polygon = (Polygon)abstractSurface;
+				if (onlyRemaining && polygon.isSetId() && consumed.contains(lod + ":" + polygon.getId()))
+					return;
+
+				List<AbstractRingProperty> rings = new ArrayList<AbstractRingProperty>();
+				rings.add(polygon.getExterior());
+				if (polygon.isSetInterior())
+					rings.addAll(polygon.getInterior());
+
+				CityJSONFragment.Surface surface = createSurface(polygon.getId(), rings, reverse, lod, geometry, semantics);
+				if (surface != null)
+					target.add(surface);
+			}
+
+			else if (abstractSurface instanceof OrientableSurface) {
+				OrientableSurface orientableSurface = (OrientableSurface)abstractSurface;
+				boolean flip = orientableSurface.getOrientation() == Sign.MINUS;
+				addSurface(resolve(orientableSurface.getBaseSurface()), reverse ^ flip, lod, onlyRemaining, target, geometry, semantics);
+			}
+
+			else if (abstractSurface instanceof CompositeSurface) {
+				for (SurfaceProperty member : ((CompositeSurface)abstractSurface).getSurfaceMember())
+					addSurface(resolve(member), reverse, lod, onlyRemaining, target, geometry, semantics);
+			}
+
+			else if (abstractSurface instanceof TriangulatedSurface) {
+				TriangulatedSurface triangulatedSurface = (TriangulatedSurface)abstractSurface;
+				if (triangulatedSurface.isSetTrianglePatches()) {
+					for (Triangle triangle : triangulatedSurface.getTrianglePatches().getTriangle()) {
+						CityJSONFragment.Surface surface = createSurface(null, Collections.singletonList(triangle.getExterior()), reverse, lod, geometry, semantics);
+						if (surface != null)
+							target.add(surface);
+					}
+				}
+			}
+
+			else if (abstractSurface instanceof Surface) {
+				Surface surface = (Surface)abstractSurface;
+				if (surface.isSetPatches()) {
+					for (AbstractSurfacePatch patch : surface.getPatches().getSurfacePatch()) {
+						AbstractRingProperty exterior = null;
+						if (patch instanceof Triangle)
+							exterior = ((Triangle)patch).getExterior();
+						else if (patch instanceof Rectangle)
+							exterior = ((Rectangle)patch).getExterior();
+
+						CityJSONFragment.Surface converted = createSurface(null, Collections.singletonList(exterior), reverse, lod, geometry, semantics);
+						if (converted != null)
+							target.add(converted);
+					}
+				}
+			}
+		}
+
+		private CityJSONFragment.Surface createSurface(String id, List<AbstractRingProperty> rings, boolean reverse, int lod, CityJSONFragment.Geometry geometry, Map<AbstractCityObject, Integer> semantics) {
+			CityJSONFragment.Surface surface = new CityJSONFragment.Surface();
+			List<String> ringIds = new ArrayList<String>();
+
+			for (AbstractRingProperty property : rings) {
+				if (property == null || !(property.getRing() instanceof LinearRing))
+					continue;
+
+				LinearRing ring = (LinearRing)property.getRing();
+				List<Double> coords = ring.toList3d(reverse);
+				int points = coords.size() / 3;
+
+				// CityJSON rings are not closed explicitly
+				if (points > 1 && coords.get(0).equals(coords.get(points * 3 - 3))
+						&& coords.get(1).equals(coords.get(points * 3 - 2))
+						&& coords.get(2).equals(coords.get(points * 3 - 1)))
+					points--;
+
+				if (points < 3) {
+					if (surface.getRingCount() == 0)
+						return null;
+
+					continue;
+				}
+
+				int[] indexes = new int[points];
+				for (int i = 0; i < points; i++)
+					indexes[i] = fragment.addVertex(coords.get(i * 3), coords.get(i * 3 + 1), coords.get(i * 3 + 2));
+
+				surface.addRing(indexes);
+				ringIds.add(ring.getId());
+			}
+
+			if (surface.getRingCount() == 0)
+				return null;
+
+			if (id != null) {
+				consumed.add(lod + ":" + id);
+
+				AbstractCityObject semanticSurface = semanticSurfaces.get(id);
+				if (semanticSurface != null)
+					surface.setSemantic(getSemantic(semanticSurface, geometry, semantics));
+
+				for (Map.Entry<String, Map<String, Integer>> entry : surfaceMaterials.entrySet()) {
+					Integer material = entry.getValue().get(id);
+					if (material != null)
+						surface.setMaterial(entry.getKey(), material);
+				}
+			}
+
+			for (Map.Entry<String, Map<String, TextureReference>> entry : ringTextures.entrySet()) {
+				int[][] textures = new int[surface.getRingCount()][];
+				for (int i = 0; i < textures.length; i++) {
+					TextureReference reference = ringIds.get(i) != null ? entry.getValue().get(ringIds.get(i)) : null;
+					if (reference != null)
+						textures[i] = getTextureIndexes(reference, surface.getRingSize(i), reverse);
+				}
+
+				if (textures[0] != null)
+					surface.setTexture(entry.getKey(), textures);
+			}
+
+			return surface;
+		}
+
+		private int[] getTextureIndexes(TextureReference reference, int points, boolean reverse) {
+			// texture coordinates of closed rings repeat the first point
+			int pairs = reference.coordinates.size() / 2;
+			if (pairs != points && pairs != points + 1)
+				return null;
+
+			int[] indexes = new int[points + 1];
+			indexes[0] = reference.texture;
+			for (int i = 0; i < points; i++) {
+				int pair = reverse ? (points - i) % points : i;
+				indexes[i + 1] = fragment.addTextureVertex(reference.coordinates.get(pair * 2), reference.coordinates.get(pair * 2 + 1));
+			}
+
+			return indexes;
+		}
+
+		private int getSemantic(AbstractCityObject semanticSurface, CityJSONFragment.Geometry geometry, Map<AbstractCityObject, Integer> semantics) {
+			Integer index = semantics.get(semanticSurface);
+			if (index == null) {
+				// openings are linked to the thematic surface they belong to
+				int parent = -1;
+				AbstractCityObject parentSurface = getParent(semanticSurface);
+				if (parentSurface != null && getSemanticType(parentSurface) != null)
+					parent = getSemantic(parentSurface, geometry, semantics);
+
+				index = geometry.addSemantic(getSemanticType(semanticSurface), parent);
+				semantics.put(semanticSurface, index);
+			}
+
+			return index;
+		}
+
+		private void addLineString(LineString lineString, List<Object> target) {
+			List<Double> coords = lineString.toList3d();
+			int[] indexes = new int[coords.size() / 3];
+			for (int i = 0; i < indexes.length; i++)
+				indexes[i] = fragment.addVertex(coords.get(i * 3), coords.get(i * 3 + 1), coords.get(i * 3 + 2));
+
+			if (indexes.length > 1)
+				target.add(indexes);
+		}
+
+		private void addPoint(Point point, List<Object> target) {
+			List<Double> coords = point.toList3d();
+			if (coords.size() >= 3)
+				target.add(fragment.addVertex(coords.get(0), coords.get(1), coords.get(2)));
+		}
+
+		private void addAppearance(Appearance appearance) {
+			String theme = appearance.isSetTheme() ? appearance.getTheme() : "default";
+
+			for (SurfaceDataProperty property : appearance.getSurfaceDataMember()) {
+				AbstractSurfaceData surfaceData = property.getSurfaceData();
+
+				if (surfaceData instanceof ParameterizedTexture) {
+					ParameterizedTexture texture = (ParameterizedTexture)surfaceData;
+					String json = getTexture(texture);
+					if (json == null)
+						continue;
+
+					int index = fragment.addTexture(json);
+					Map<String, TextureReference> textures = ringTextures.get(theme);
+					if (textures == null) {
+						textures = new HashMap<String, TextureReference>();
+						ringTextures.put(theme, textures);
+					}
+
+					for (TextureAssociation target : texture.getTarget()) {
+						AbstractTextureParameterization parameterization = target.getTextureParameterization();
+						if (!(parameterization instanceof TexCoordList))
+							continue;
+
+						for (TextureCoordinates coordinates : ((TexCoordList)parameterization).getTextureCoordinates()) {
+							if (coordinates.isSetRing())
+								textures.put(stripHash(coordinates.getRing()), new TextureReference(index, coordinates.getValue()));
+						}
+					}
+				}
+
+				else if (surfaceData instanceof X3DMaterial) {
+					X3DMaterial material = (X3DMaterial)surfaceData;
+					int index = fragment.addMaterial(getMaterial(material));
+
+					Map<String, Integer> materials = surfaceMaterials.get(theme);
+					if (materials == null) {
+						materials = new HashMap<String, Integer>();
+						surfaceMaterials.put(theme, materials);
+					}
+
+					for (String target : material.getTarget())
+						materials.put(stripHash(target), index);
+				}
+			}
+		}
+
+		private String getTexture(ParameterizedTexture texture) {
+			if (!texture.isSetImageURI())
+				return null;
+
+			// CityJSON only supports PNG and JPEG images
+			String extension = Util.getFileExtension(texture.getImageURI());
+			String type = null;
+			if ("png".equalsIgnoreCase(extension))
+				type = "PNG";
+			else if ("jpg".equalsIgnoreCase(extension) || "jpeg".equalsIgnoreCase(extension))
+				type = "JPG";
+			else
+				return null;
+
+			StringBuilder json = new StringBuilder("{\"type\":\"").append(type).append('"');
+			json.append(",\"image\":").append(CityJSONFragment.quote(texture.getImageURI().replace('\\', '/')));
+			if (texture.isSetWrapMode())
+				json.append(",\"wrapMode\":\"").append(texture.getWrapMode().getValue()).append('"');
+			if (texture.isSetTextureType())
+				json.append(",\"textureType\":\"").append(texture.getTextureType().getValue()).append('"');
+
+			return json.append('}').toString();
+		}
+
+		private String getMaterial(X3DMaterial material) {
+			String name = material.isSetName() && material.getName().get(0).isSetValue() ? material.getName().get(0).getValue() :
+				material.isSetId() ? material.getId() : "material";
+
+			StringBuilder json = new StringBuilder("{\"name\":").append(CityJSONFragment.quote(name));
+			if (material.isSetAmbientIntensity())
+				json.append(",\"ambientIntensity\":").append(material.getAmbientIntensity());
+			if (material.isSetDiffuseColor())
+				json.append(",\"diffuseColor\":").append(getColor(material.getDiffuseColor()));
+			if (material.isSetEmissiveColor())
+				json.append(",\"emissiveColor\":").append(getColor(material.getEmissiveColor()));
+			if (material.isSetSpecularColor())
+				json.append(",\"specularColor\":").append(getColor(material.getSpecularColor()));
+			if (material.isSetShininess())
+				json.append(",\"shininess\":").append(material.getShininess());
+			if (material.isSetTransparency())
+				json.append(",\"transparency\":").append(material.getTransparency());
+			if (material.isSetIsSmooth())
+				json.append(",\"isSmooth\":").append(material.getIsSmooth());
+
+			return json.append('}').toString();
+		}
+
+		private String getColor(Color color) {
+			return "[" + color.getRed() + ',' + color.getGreen() + ',' + color.getBlue() + ']';
+		}
+
+		private void addAttributes(AbstractCityObject cityObject, CityJSONFragment.CityObject target) {
+			if (cityObject.isSetName() && cityObject.getName().get(0).isSetValue())
+				target.addAttribute("name", cityObject.getName().get(0).getValue());
+
+			if (cityObject.isSetDescription() && cityObject.getDescription().isSetValue())
+				target.addAttribute("description", cityObject.getDescription().getValue());
+
+			if (cityObject instanceof AbstractBuilding) {
+				AbstractBuilding building = (AbstractBuilding)cityObject;
+				if (building.isSetFunction() && building.getFunction().get(0).isSetValue())
+					target.addAttribute("function", building.getFunction().get(0).getValue());
+				if (building.isSetRoofType() && building.getRoofType().isSetValue())
+					target.addAttribute("roofType", building.getRoofType().getValue());
+				if (building.isSetMeasuredHeight())
+					target.addAttribute("measuredHeight", building.getMeasuredHeight().getValue());
+				if (building.isSetStoreysAboveGround())
+					target.addAttribute("storeysAboveGround", building.getStoreysAboveGround());
+			}
+
+			addGenericAttributes(cityObject.getGenericAttribute(), target);
+		}
+
+		private void addGenericAttributes(List<AbstractGenericAttribute> attributes, CityJSONFragment.CityObject target) {
+			for (AbstractGenericAttribute attribute : attributes) {
+				if (!attribute.isSetName())
+					continue;
+
+				if (attribute instanceof StringAttribute && ((StringAttribute)attribute).isSetValue())
+					target.addAttribute(attribute.getName(), ((StringAttribute)attribute).getValue());
+				else if (attribute instanceof UriAttribute && ((UriAttribute)attribute).isSetValue())
+					target.addAttribute(attribute.getName(), ((UriAttribute)attribute).getValue());
+				else if (attribute instanceof IntAttribute && ((IntAttribute)attribute).isSetValue())
+					target.addAttribute(attribute.getName(), ((IntAttribute)attribute).getValue());
+				else if (attribute instanceof DoubleAttribute && ((DoubleAttribute)attribute).isSetValue())
+					target.addAttribute(attribute.getName(), ((DoubleAttribute)attribute).getValue());
+				else if (attribute instanceof MeasureAttribute && ((MeasureAttribute)attribute).isSetValue())
+					target.addAttribute(attribute.getName(), ((MeasureAttribute)attribute).getValue().getValue());
+				else if (attribute instanceof DateAttribute && ((DateAttribute)attribute).isSetValue())
+					target.addAttribute(attribute.getName(), String.format("%tF", ((DateAttribute)attribute).getValue()));
+				else if (attribute instanceof GenericAttributeSet)
+					addGenericAttributes(((GenericAttributeSet)attribute).getGenericAttribute(), target);
+			}
+		}
+
+		private List<GeometryProperty<? extends AbstractGeometry>> getGeometries(AbstractCityObject cityObject) {
+			List<GeometryProperty<? extends AbstractGeometry>> geometries = new ArrayList<GeometryProperty<? extends AbstractGeometry>>();
+			for (int lod = 0; lod < 5; lod++) {
+				if (cityObject.getLodRepresentation().isSetLodGeometry(lod))
+					geometries.addAll(cityObject.getLodRepresentation().getLodGeometry(lod));
+			}
+
+			return geometries;
+		}
+
+		private AbstractGeometry resolve(GeometryProperty<? extends AbstractGeometry> property) {
+			if (property == null)
+				return null;
+
+			if (property.isSetGeometry())
+				return property.getGeometry();
+
+			return property.isSetHref() ? surfaces.get(stripHash(property.getHref())) : null;
+		}
+
+		private AbstractSurface resolve(SurfaceProperty property) {
+			AbstractGeometry geometry = resolve((GeometryProperty<? extends AbstractGeometry>)property);
+			return geometry instanceof AbstractSurface ? (AbstractSurface)geometry : null;
+		}
+	}
+
+	private static final class TextureReference {
+		private final int texture;
+		private final List<Double> coordinates;
+
+		private TextureReference(int texture, List<Double> coordinates) {
+			this.texture = texture;
+			this.coordinates = coordinates;
+		}
+	}
+
+}
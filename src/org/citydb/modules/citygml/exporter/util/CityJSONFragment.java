@@ -0,0 +1,474 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.exporter.util;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+public class CityJSONFragment {
+	private final List<CityObject> cityObjects = new ArrayList<CityObject>();
+	private final List<String> textures = new ArrayList<String>();
+	private final List<String> materials = new ArrayList<String>();
+	private final Map<String, Integer> textureIndex = new HashMap<String, Integer>();
+	private final Map<String, Integer> materialIndex = new HashMap<String, Integer>();
+
+	private double[] vertices = new double[3 * 64];
+	private int vertexCount;
+	private double[] textureVertices = new double[2 * 64];
+	private int textureVertexCount;
+
+	public CityObject addCityObject(String id, String type) {
+		CityObject cityObject = new CityObject(id, type);
+		cityObjects.add(cityObject);
+		return cityObject;
+	}
+
+	public boolean isEmpty() {
+		return cityObjects.isEmpty();
+	}
+
+	public int addVertex(double x, double y, double z) {
+		if (vertexCount * 3 == vertices.length)
+			vertices = Arrays.copyOf(vertices, vertices.length * 2);
+
+		vertices[vertexCount * 3] = x;
+		vertices[vertexCount * 3 + 1] = y;
+		vertices[vertexCount * 3 + 2] = z;
+		return vertexCount++;
+	}
+
+	public int addTextureVertex(double u, double v) {
+		if (textureVertexCount * 2 == textureVertices.length)
+			textureVertices = Arrays.copyOf(textureVertices, textureVertices.length * 2);
+
+		textureVertices[textureVertexCount * 2] = u;
+		textureVertices[textureVertexCount * 2 + 1] = v;
+		return textureVertexCount++;
+	}
+
+	public int addTexture(String json) {
+		return add(json, textures, textureIndex);
+	}
+
+	public int addMaterial(String json) {
+		return add(json, materials, materialIndex);
+	}
+
+	public double[] getVertices() {
+		return vertices;
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	public double[] getTextureVertices() {
+		return textureVertices;
+	}
+
+	public int getTextureVertexCount() {
+		return textureVertexCount;
+	}
+
+	public List<String> getTextures() {
+		return textures;
+	}
+
+	public List<String> getMaterials() {
+		return materials;
+	}
+
+	public List<Entry<String, String>> toJSON(int[] vertexMap, int[] textureVertexMap, int[] textureMap, int[] materialMap) {
+		List<Entry<String, String>> result = new ArrayList<Entry<String, String>>(cityObjects.size());
+		StringBuilder json = new StringBuilder();
+
+		for (CityObject cityObject : cityObjects) {
+			json.setLength(0);
+			json.append("{\"type\":").append(quote(cityObject.type));
+
+			if (!cityObject.attributes.isEmpty()) {
+				json.append(",\"attributes\":{");
+				boolean first = true;
+				for (Entry<String, String> attribute : cityObject.attributes.entrySet()) {
+					if (!first)
+						json.append(',');
+
+					json.append(quote(attribute.getKey())).append(':').append(attribute.getValue());
+					first = false;
+				}
+				json.append('}');
+			}
+
+			if (cityObject.parent != null)
+				json.append(",\"parents\":[").append(quote(cityObject.parent)).append(']');
+
+			if (!cityObject.children.isEmpty()) {
+				json.append(",\"children\":[");
+				for (int i = 0; i < cityObject.children.size(); i++)
+					json.append(i > 0 ? "," : "").append(quote(cityObject.children.get(i)));
+				json.append(']');
+			}
+
+			json.append(",\"geometry\":[");
+			for (int i = 0; i < cityObject.geometries.size(); i++) {
+				if (i > 0)
+					json.append(',');
+
+				appendGeometry(cityObject.geometries.get(i), vertexMap, textureVertexMap, textureMap, materialMap, json);
+			}
+			json.append("]}");
+
+			result.add(new SimpleEntry<String, String>(cityObject.id, json.toString()));
+		}
+
+		return result;
+	}
+
+	private void appendGeometry(Geometry geometry, int[] vertexMap, int[] textureVertexMap, int[] textureMap, int[] materialMap, StringBuilder json) {
+		json.append("{\"type\":\"").append(geometry.type).append("\",\"lod\":").append(geometry.lod);
+		json.append(",\"boundaries\":");
+		appendBoundaries(geometry.boundaries, vertexMap, json);
+
+		if (!geometry.semantics.isEmpty()) {
+			json.append(",\"semantics\":{\"surfaces\":[");
+			for (int i = 0; i < geometry.semantics.size(); i++) {
+				Semantic semantic = geometry.semantics.get(i);
+				json.append(i > 0 ? ",{" : "{").append("\"type\":").append(quote(semantic.type));
+				if (semantic.parent >= 0)
+					json.append(",\"parent\":").append(semantic.parent);
+
+				if (!semantic.children.isEmpty()) {
+					json.append(",\"children\":[");
+					for (int j = 0; j < semantic.children.size(); j++)
+						json.append(j > 0 ? "," : "").append(semantic.children.get(j));
+					json.append(']');
+				}
+
+				json.append('}');
+			}
+
+			json.append("],\"values\":");
+			appendValues(geometry.boundaries, null, null, json);
+			json.append('}');
+		}
+
+		Set<String> materialThemes = new LinkedHashSet<String>();
+		Set<String> textureThemes = new LinkedHashSet<String>();
+		collectThemes(geometry.boundaries, materialThemes, textureThemes);
+
+		if (!materialThemes.isEmpty()) {
+			json.append(",\"material\":{");
+			appendThemes(geometry, materialThemes, true, textureVertexMap, textureMap, materialMap, json);
+			json.append('}');
+		}
+
+		if (!textureThemes.isEmpty()) {
+			json.append(",\"texture\":{");
+			appendThemes(geometry, textureThemes, false, textureVertexMap, textureMap, materialMap, json);
+			json.append('}');
+		}
+
+		json.append('}');
+	}
+
+	private void appendThemes(Geometry geometry, Set<String> themes, boolean material, int[] textureVertexMap, int[] textureMap, int[] materialMap, StringBuilder json) {
+		boolean first = true;
+		for (String theme : themes) {
+			if (!first)
+				json.append(',');
+
+			json.append(quote(theme)).append(":{\"values\":");
+			if (material)
+				appendValues(geometry.boundaries, theme, materialMap, json);
+			else
+				appendTextureValues(geometry.boundaries, theme, textureVertexMap, textureMap, json);
+
+			json.append('}');
+			first = false;
+		}
+	}
+
+	private void appendBoundaries(Object node, int[] vertexMap, StringBuilder json) {
+		if (node instanceof Surface) {
+			json.append('[');
+			List<int[]> rings = ((Surface)node).rings;
+			for (int i = 0; i < rings.size(); i++) {
+				if (i > 0)
+					json.append(',');
+
+				appendIndexes(rings.get(i), vertexMap, json);
+			}
+			json.append(']');
+		} else if (node instanceof int[])
+			appendIndexes((int[])node, vertexMap, json);
+		else if (node instanceof Integer)
+			json.append(vertexMap[(Integer)node]);
+		else if (node instanceof List<?>) {
+			json.append('[');
+			List<?> children = (List<?>)node;
+			for (int i = 0; i < children.size(); i++) {
+				if (i > 0)
+					json.append(',');
+
+				appendBoundaries(children.get(i), vertexMap, json);
+			}
+			json.append(']');
+		}
+	}
+
+	// semantics and materials share the same structure: one value per surface
+	private void appendValues(Object node, String theme, int[] materialMap, StringBuilder json) {
+		if (node instanceof Surface) {
+			Surface surface = (Surface)node;
+			if (theme == null)
+				json.append(surface.semantic >= 0 ? String.valueOf(surface.semantic) : "null");
+			else {
+				Integer material = surface.materials.get(theme);
+				json.append(material != null ? String.valueOf(materialMap[material]) : "null");
+			}
+		} else if (node instanceof List<?>) {
+			json.append('[');
+			List<?> children = (List<?>)node;
+			for (int i = 0; i < children.size(); i++) {
+				if (i > 0)
+					json.append(',');
+
+				appendValues(children.get(i), theme, materialMap, json);
+			}
+			json.append(']');
+		}
+	}
+
+	private void appendTextureValues(Object node, String theme, int[] textureVertexMap, int[] textureMap, StringBuilder json) {
+		if (node instanceof Surface) {
+			int[][] rings = ((Surface)node).textures.get(theme);
+			if (rings == null) {
+				json.append("[[null]]");
+				return;
+			}
+
+			json.append('[');
+			for (int i = 0; i < rings.length; i++) {
+				if (i > 0)
+					json.append(',');
+
+				if (rings[i] == null)
+					json.append("[null]");
+				else {
+					json.append('[').append(textureMap[rings[i][0]]);
+					for (int j = 1; j < rings[i].length; j++)
+						json.append(',').append(textureVertexMap[rings[i][j]]);
+					json.append(']');
+				}
+			}
+			json.append(']');
+		} else if (node instanceof List<?>) {
+			json.append('[');
+			List<?> children = (List<?>)node;
+			for (int i = 0; i < children.size(); i++) {
+				if (i > 0)
+					json.append(',');
+
+				appendTextureValues(children.get(i), theme, textureVertexMap, textureMap, json);
+			}
+			json.append(']');
+		}
+	}
+
+	private void collectThemes(Object node, Set<String> materialThemes, Set<String> textureThemes) {
+		if (node instanceof Surface) {
+			materialThemes.addAll(((Surface)node).materials.keySet());
+			textureThemes.addAll(((Surface)node).textures.keySet());
+		} else if (node instanceof List<?>) {
+			for (Object child : (List<?>)node)
+				collectThemes(child, materialThemes, textureThemes);
+		}
+	}
+
+	private void appendIndexes(int[] indexes, int[] vertexMap, StringBuilder json) {
+		json.append('[');
+		for (int i = 0; i < indexes.length; i++)
+			json.append(i > 0 ? "," : "").append(vertexMap[indexes[i]]);
+		json.append(']');
+	}
+
+	private int add(String json, List<String> values, Map<String, Integer> index) {
+		Integer i = index.get(json);
+		if (i == null) {
+			i = values.size();
+			values.add(json);
+			index.put(json, i);
+		}
+
+		return i;
+	}
+
+	public static String quote(String value) {
+		StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				quoted.append("\\\"");
+				break;
+			case '\\':
+				quoted.append("\\\\");
+				break;
+			case '\n':
+				quoted.append("\\n");
+				break;
+			case '\r':
+				quoted.append("\\r");
+				break;
+			case '\t':
+				quoted.append("\\t");
+				break;
+			default:
+				if (c < 0x20)
+					quoted.append(String.format("\\u%04x", (int)c));
+				else
+					quoted.append(c);
+			}
+		}
+
+		return quoted.append('"').toString();
+	}
+
+	public static class CityObject {
+		private final String id;
+		private final String type;
+		private final Map<String, String> attributes = new LinkedHashMap<String, String>();
+		private final List<String> children = new ArrayList<String>();
+		private final List<Geometry> geometries = new ArrayList<Geometry>();
+		private String parent;
+
+		private CityObject(String id, String type) {
+			this.id = id;
+			this.type = type;
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public void setParent(CityObject parent) {
+			this.parent = parent.id;
+			parent.children.add(id);
+		}
+
+		public void addAttribute(String name, String value) {
+			attributes.put(name, quote(value));
+		}
+
+		public void addAttribute(String name, Number value) {
+			attributes.put(name, value.toString());
+		}
+
+		public void addGeometry(Geometry geometry) {
+			geometries.add(geometry);
+		}
+	}
+
+	public static class Geometry {
+		private final String type;
+		private final int lod;
+		private final List<Object> boundaries = new ArrayList<Object>();
+		private final List<Semantic> semantics = new ArrayList<Semantic>();
+
+		public Geometry(String type, int lod) {
+			this.type = type;
+			this.lod = lod;
+		}
+
+		public List<Object> getBoundaries() {
+			return boundaries;
+		}
+
+		public int addSemantic(String type, int parent) {
+			Semantic semantic = new Semantic(type, parent);
+			semantics.add(semantic);
+
+			int index = semantics.size() - 1;
+			if (parent >= 0)
+				semantics.get(parent).children.add(index);
+
+			return index;
+		}
+	}
+
+	private static class Semantic {
+		private final String type;
+		private final int parent;
+		private final List<Integer> children = new ArrayList<Integer>();
+
+		private Semantic(String type, int parent) {
+			this.type = type;
+			this.parent = parent;
+		}
+	}
+
+	public static class Surface {
+		private final List<int[]> rings = new ArrayList<int[]>();
+		private final Map<String, int[][]> textures = new HashMap<String, int[][]>();
+		private final Map<String, Integer> materials = new HashMap<String, Integer>();
+		private int semantic = -1;
+
+		public void addRing(int[] ring) {
+			rings.add(ring);
+		}
+
+		public int getRingCount() {
+			return rings.size();
+		}
+
+		public int getRingSize(int ring) {
+			return rings.get(ring).length;
+		}
+
+		public void setSemantic(int semantic) {
+			this.semantic = semantic;
+		}
+
+		public void setTexture(String theme, int[][] rings) {
+			textures.put(theme, rings);
+		}
+
+		public void setMaterial(String theme, int material) {
+			materials.put(theme, material);
+		}
+	}
+
+}
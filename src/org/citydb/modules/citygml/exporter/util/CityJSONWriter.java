@@ -0,0 +1,357 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.exporter.util;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.citydb.config.project.exporter.ExportOutput;
+import org.citydb.io.ParallelGZIPOutputStream;
+
+public class CityJSONWriter {
+	// vertices are written as integers in millimetre precision
+	private static final double SCALE = 0.001;
+	private static final int DEDUPLICATION_WINDOW = 1 << 18;
+
+	private final File file;
+	private final boolean compress;
+	private final int srid;
+	private final ExportOutput output;
+
+	private final Object vertexLock = new Object();
+	private final VertexCache vertexCache = new VertexCache();
+	private final VertexCache textureVertexCache = new VertexCache();
+	private final Map<String, Integer> textures = new LinkedHashMap<String, Integer>();
+	private final Map<String, Integer> materials = new LinkedHashMap<String, Integer>();
+	private final double[] translate = new double[3];
+	private final double[] extent = new double[]{Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+
+	private Writer writer;
+	private File vertexFile;
+	private Writer vertexSpool;
+	private File textureVertexFile;
+	private Writer textureVertexSpool;
+	private int vertices;
+	private int textureVertices;
+	private boolean hasCityObjects;
+	private boolean closed;
+
+	public CityJSONWriter(File file, boolean compress, int srid, ExportOutput output) {
+		this.file = file;
+		this.compress = compress;
+		this.srid = srid;
+		this.output = output;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public void open() throws IOException {
+		OutputStream stream = new BufferedOutputStream(new FileOutputStream(file), output.getBufferSize() * 1024);
+		if (compress)
+			stream = new ParallelGZIPOutputStream(stream, output.getCompressionThreads());
+
+		writer = new BufferedWriter(new OutputStreamWriter(stream, "UTF-8"));
+		writer.write("{\"type\":\"CityJSON\",\"version\":\"1.0\",\"CityObjects\":{");
+
+		// vertices are only known completely after the last city object,
+		// so they are spooled to temporary files until then
+		vertexFile = createSpoolFile();
+		vertexSpool = openSpool(vertexFile);
+		textureVertexFile = createSpoolFile();
+		textureVertexSpool = openSpool(textureVertexFile);
+	}
+
+	public void write(CityJSONFragment fragment) throws IOException {
+		int[] vertexMap = null;
+		int[] textureVertexMap = null;
+		int[] textureMap = null;
+		int[] materialMap = null;
+
+		synchronized (vertexLock) {
+			vertexMap = addVertices(fragment.getVertices(), fragment.getVertexCount());
+			textureVertexMap = addTextureVertices(fragment.getTextureVertices(), fragment.getTextureVertexCount());
+			textureMap = addAll(fragment.getTextures(), textures);
+			materialMap = addAll(fragment.getMaterials(), materials);
+		}
+
+		// rendering only depends on the resolved indexes and is done outside the locks
+		List<Entry<String, String>> cityObjects = fragment.toJSON(vertexMap, textureVertexMap, textureMap, materialMap);
+
+		synchronized (this) {
+			for (Entry<String, String> cityObject : cityObjects) {
+				if (hasCityObjects)
+					writer.write(',');
+
+				writer.write(CityJSONFragment.quote(cityObject.getKey()));
+				writer.write(':');
+				writer.write(cityObject.getValue());
+				hasCityObjects = true;
+			}
+		}
+	}
+
+	public void close() throws IOException {
+		closed = true;
+
+		try {
+			vertexSpool.close();
+			textureVertexSpool.close();
+
+			writer.write("},\"vertices\":[");
+			copy(vertexFile);
+
+			writer.write("],\"transform\":{\"scale\":[" + SCALE + ',' + SCALE + ',' + SCALE + "],\"translate\":[");
+			writer.write(translate[0] + "," + translate[1] + "," + translate[2] + "]}");
+
+			writer.write(",\"metadata\":{\"referenceSystem\":\"urn:ogc:def:crs:EPSG::" + srid + '"');
+			if (vertices > 0) {
+				writer.write(",\"geographicalExtent\":[");
+				for (int i = 0; i < extent.length; i++)
+					writer.write((i > 0 ? "," : "") + extent[i]);
+				writer.write(']');
+			}
+			writer.write('}');
+
+			if (!textures.isEmpty() || !materials.isEmpty()) {
+				writer.write(",\"appearance\":{");
+				if (!materials.isEmpty()) {
+					writer.write("\"materials\":[");
+					writeAll(materials);
+					writer.write("],");
+				}
+
+				if (!textures.isEmpty()) {
+					writer.write("\"textures\":[");
+					writeAll(textures);
+					writer.write("],");
+				}
+
+				writer.write("\"vertices-texture\":[");
+				copy(textureVertexFile);
+				writer.write("]}");
+			}
+
+			writer.write('}');
+		} finally {
+			writer.close();
+			vertexFile.delete();
+			textureVertexFile.delete();
+		}
+	}
+
+	public void abort() {
+		if (closed || writer == null)
+			return;
+
+		closed = true;
+
+		// closing the output also stops the compression threads
+		try {
+			writer.close();
+		} catch (IOException e) {
+			//
+		}
+
+		try {
+			if (vertexSpool != null)
+				vertexSpool.close();
+
+			if (textureVertexSpool != null)
+				textureVertexSpool.close();
+		} catch (IOException e) {
+			//
+		} finally {
+			if (vertexFile != null)
+				vertexFile.delete();
+
+			if (textureVertexFile != null)
+				textureVertexFile.delete();
+		}
+	}
+
+	private int[] addVertices(double[] coords, int count) throws IOException {
+		int[] map = new int[count];
+		for (int i = 0; i < count; i++) {
+			double x = coords[i * 3], y = coords[i * 3 + 1], z = coords[i * 3 + 2];
+			if (vertices == 0) {
+				translate[0] = Math.floor(x);
+				translate[1] = Math.floor(y);
+				translate[2] = Math.floor(z);
+			}
+
+			long qx = Math.round((x - translate[0]) / SCALE);
+			long qy = Math.round((y - translate[1]) / SCALE);
+			long qz = Math.round((z - translate[2]) / SCALE);
+
+			VertexKey key = new VertexKey(qx, qy, qz);
+			Integer index = vertexCache.get(key);
+			if (index == null) {
+				index = vertices++;
+				vertexCache.put(key, index);
+
+				vertexSpool.write((index > 0 ? ",[" : "[") + qx + ',' + qy + ',' + qz + ']');
+				updateExtent(x, y, z);
+			}
+
+			map[i] = index;
+		}
+
+		return map;
+	}
+
+	private int[] addTextureVertices(double[] coords, int count) throws IOException {
+		int[] map = new int[count];
+		for (int i = 0; i < count; i++) {
+			double u = coords[i * 2], v = coords[i * 2 + 1];
+
+			VertexKey key = new VertexKey(Double.doubleToLongBits(u), Double.doubleToLongBits(v), 0);
+			Integer index = textureVertexCache.get(key);
+			if (index == null) {
+				index = textureVertices++;
+				textureVertexCache.put(key, index);
+				textureVertexSpool.write((index > 0 ? ",[" : "[") + u + ',' + v + ']');
+			}
+
+			map[i] = index;
+		}
+
+		return map;
+	}
+
+	private int[] addAll(List<String> values, Map<String, Integer> target) {
+		int[] map = new int[values.size()];
+		for (int i = 0; i < map.length; i++) {
+			Integer index = target.get(values.get(i));
+			if (index == null) {
+				index = target.size();
+				target.put(values.get(i), index);
+			}
+
+			map[i] = index;
+		}
+
+		return map;
+	}
+
+	private void updateExtent(double x, double y, double z) {
+		extent[0] = Math.min(extent[0], x);
+		extent[1] = Math.min(extent[1], y);
+		extent[2] = Math.min(extent[2], z);
+		extent[3] = Math.max(extent[3], x);
+		extent[4] = Math.max(extent[4], y);
+		extent[5] = Math.max(extent[5], z);
+	}
+
+	private void writeAll(Map<String, Integer> values) throws IOException {
+		boolean first = true;
+		for (String value : values.keySet()) {
+			if (!first)
+				writer.write(',');
+
+			writer.write(value);
+			first = false;
+		}
+	}
+
+	private File createSpoolFile() throws IOException {
+		File spool = File.createTempFile("cityjson", ".tmp");
+		spool.deleteOnExit();
+		return spool;
+	}
+
+	private Writer openSpool(File spool) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(spool), "UTF-8"), 64 * 1024);
+	}
+
+	private void copy(File spool) throws IOException {
+		try (Reader reader = new InputStreamReader(new FileInputStream(spool), "UTF-8")) {
+			char[] buffer = new char[64 * 1024];
+			int read;
+			while ((read = reader.read(buffer)) != -1)
+				writer.write(buffer, 0, read);
+		}
+	}
+
+	// duplicates are only detected within a window of recently used vertices
+	// so that the memory footprint does not grow with the size of the export
+	private static final class VertexCache extends LinkedHashMap<VertexKey, Integer> {
+		private static final long serialVersionUID = 1L;
+
+		private VertexCache() {
+			super(1024, 0.75f, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Entry<VertexKey, Integer> eldest) {
+			return size() > DEDUPLICATION_WINDOW;
+		}
+	}
+
+	private static final class VertexKey {
+		private final long x;
+		private final long y;
+		private final long z;
+
+		private VertexKey(long x, long y, long z) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+
+		@Override
+		public int hashCode() {
+			long hash = x * 31 * 31 + y * 31 + z;
+			return (int)(hash ^ (hash >>> 32));
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof VertexKey))
+				return false;
+
+			VertexKey other = (VertexKey)obj;
+			return x == other.x && y == other.y && z == other.z;
+		}
+	}
+
+}
@@ -50,6 +50,8 @@ public class FeatureWriter implements FeatureProcessor {
 	private final WorkerPool<SAXEventBuffer> ioWriterPool;
 	private final JAXBBuilder jaxbBuilder;
 	private final JAXBMarshaller jaxbMarshaller;
+	private final CityObjectMember cityObjectMember;
+	private Marshaller marshaller;
 	
 	public FeatureWriter(WorkerPool<SAXEventBuffer> ioWriterPool, JAXBBuilder jaxbBuilder, Config config) {
 		this.ioWriterPool = ioWriterPool;
@@ -57,6 +59,7 @@ public class FeatureWriter implements FeatureProcessor {
 				
 		CityGMLVersion version = Util.toCityGMLVersion(config.getProject().getExporter().getCityGMLVersion());
 		jaxbMarshaller = jaxbBuilder.createJAXBMarshaller(version);
+		cityObjectMember = new CityObjectMember();
 	}
 	
 	@Override
@@ -65,8 +68,8 @@ public class FeatureWriter implements FeatureProcessor {
 
 		// wrap feature with a feature property element
 		if (abstractFeature instanceof AbstractCityObject) {
-			member = new CityObjectMember();
-			((CityObjectMember)member).setCityObject((AbstractCityObject)abstractFeature);
+			member = cityObjectMember;
+			cityObjectMember.setCityObject((AbstractCityObject)abstractFeature);
 		} 
 
 		else if (abstractFeature instanceof Appearance) {
@@ -82,8 +85,12 @@ public class FeatureWriter implements FeatureProcessor {
 		if (member != null) {
 			try {
 				SAXEventBuffer buffer = new SAXEventBuffer();
-				Marshaller marshaller = jaxbBuilder.getJAXBContext().createMarshaller();
-				marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+
+				// marshallers are not thread-safe but can be reused by this worker
+				if (marshaller == null) {
+					marshaller = jaxbBuilder.getJAXBContext().createMarshaller();
+					marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+				}
 
 				JAXBElement<?> jaxbElement = jaxbMarshaller.marshalJAXBElement(member);
 				if (jaxbElement != null)
@@ -93,6 +100,9 @@ public class FeatureWriter implements FeatureProcessor {
 					ioWriterPool.addWork(buffer);
 			} catch (JAXBException e) {
 				throw new FeatureProcessException("Caused by: ", e);
+			} finally {
+				if (member == cityObjectMember)
+					cityObjectMember.unsetCityObject();
 			}
 		}
 	}
@@ -0,0 +1,226 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.exporter.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.citydb.config.project.exporter.ExportOutput;
+import org.citydb.io.ParallelGZIPOutputStream;
+import org.citydb.log.Logger;
+import org.citydb.modules.common.concurrent.IOWriterRollover;
+import org.citygml4j.builder.jaxb.xml.io.writer.JAXBModelWriter;
+import org.citygml4j.builder.jaxb.xml.io.writer.JAXBOutputFactory;
+import org.citygml4j.model.module.ModuleContext;
+import org.citygml4j.util.xml.SAXWriter;
+import org.citygml4j.xml.io.writer.CityGMLWriteException;
+import org.citygml4j.xml.io.writer.CityModelInfo;
+import org.xml.sax.SAXException;
+
+public class RollingOutput implements IOWriterRollover {
+	private final Logger LOG = Logger.getInstance();
+	private final SAXWriter saxWriter;
+	private final JAXBOutputFactory outputFactory;
+	private final ModuleContext moduleContext;
+	private final ExportOutput output;
+	private final boolean compress;
+	private final File folder;
+	private final String fileName;
+	private final String fileExtension;
+	private final long maxFeatures;
+	private final long maxBytes;
+
+	private final ExecutorService finalizer;
+	private final List<Future<Void>> finalizing;
+
+	private JAXBModelWriter writer;
+	private CountingOutputStream counter;
+	private File file;
+	private int part;
+	private long features;
+	private boolean closed;
+
+	public RollingOutput(SAXWriter saxWriter, 
+			JAXBOutputFactory outputFactory, 
+			ModuleContext moduleContext, 
+			File folder, 
+			String fileName, 
+			String fileExtension,
+			boolean compress,
+			ExportOutput output) {
+		this.saxWriter = saxWriter;
+		this.outputFactory = outputFactory;
+		this.moduleContext = moduleContext;
+		this.folder = folder;
+		this.fileName = fileName;
+		this.fileExtension = fileExtension;
+		this.compress = compress;
+		this.output = output;
+
+		maxFeatures = output.getMaxFeaturesPerFile();
+		maxBytes = output.getMaxFileSize() * 1024L * 1024L;
+
+		finalizer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		finalizing = new ArrayList<Future<Void>>();
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public void open() throws IOException, CityGMLWriteException, SAXException {
+		part++;
+		features = 0;
+
+		// parts are numbered only if the output is split at all
+		file = output.isSetRollingOutput() ?
+				new File(folder, fileName + '_' + part + '.' + fileExtension) :
+					new File(folder, fileName + '.' + fileExtension);
+
+		OutputStream stream = new BufferedOutputStream(new FileOutputStream(file), output.getBufferSize() * 1024);
+		if (compress)
+			stream = new ParallelGZIPOutputStream(stream, output.getCompressionThreads());
+
+		counter = new CountingOutputStream(stream);
+		saxWriter.setOutput(new OutputStreamWriter(counter, "UTF-8"));
+
+		writer = new JAXBModelWriter(saxWriter, outputFactory, moduleContext, new CityModelInfo());
+		writer.writeStartDocument();
+	}
+
+	@Override
+	public void beforeFeature() throws SAXException {
+		// a new part is only started when there is a feature to write into it
+		if ((maxFeatures > 0 && features >= maxFeatures) 
+				|| (maxBytes > 0 && counter.count >= maxBytes)) {
+			try {
+				finishPart();
+				open();
+				LOG.info("Continuing export in file: " + file.getAbsolutePath());
+			} catch (IOException | CityGMLWriteException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		features++;
+	}
+
+	public void close() throws IOException, CityGMLWriteException, SAXException {
+		try {
+			finishPart();
+
+			for (Future<Void> future : finalizing)
+				future.get();
+
+			// only a completed close must keep abort() from releasing the writer
+			closed = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while closing output files.", e);
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof IOException ? (IOException)e.getCause() : new IOException(e.getCause());
+		} finally {
+			finalizer.shutdown();
+		}
+	}
+
+	public void abort() {
+		if (closed)
+			return;
+
+		closed = true;
+		finalizer.shutdownNow();
+
+		// closing the output also stops the compression threads
+		Writer current = saxWriter.getOutputWriter();
+		if (current != null) {
+			try {
+				current.close();
+			} catch (IOException e) {
+				//
+			}
+		}
+	}
+
+	private void finishPart() throws CityGMLWriteException, SAXException {
+		writer.writeEndDocument();
+		saxWriter.flush();
+
+		// closing the part may have to wait for pending compression,
+		// so it is done in the background while the next part is written
+		final Writer completed = saxWriter.getOutputWriter();
+		finalizing.add(finalizer.submit(new Callable<Void>() {
+			public Void call() throws IOException {
+				completed.close();
+				return null;
+			}
+		}));
+	}
+
+	private static final class CountingOutputStream extends FilterOutputStream {
+		private long count;
+
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+
+}
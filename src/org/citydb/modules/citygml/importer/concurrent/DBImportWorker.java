@@ -30,6 +30,8 @@ package org.citydb.modules.citygml.importer.concurrent;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.citydb.api.concurrent.Worker;
@@ -45,6 +47,7 @@ import org.citydb.database.DatabaseConnectionPool;
 import org.citydb.log.Logger;
 import org.citydb.modules.citygml.common.database.uid.UIDCacheManager;
 import org.citydb.modules.citygml.common.database.xlink.DBXlink;
+import org.citydb.modules.citygml.deleter.database.DBBulkDeleter;
 import org.citydb.modules.citygml.importer.database.content.DBAppearance;
 import org.citydb.modules.citygml.importer.database.content.DBBridge;
 import org.citydb.modules.citygml.importer.database.content.DBBuilding;
@@ -60,6 +63,8 @@ import org.citydb.modules.citygml.importer.database.content.DBSolitaryVegetatObj
 import org.citydb.modules.citygml.importer.database.content.DBTransportationComplex;
 import org.citydb.modules.citygml.importer.database.content.DBTunnel;
 import org.citydb.modules.citygml.importer.database.content.DBWaterBody;
+import org.citydb.modules.citygml.importer.util.DeltaImportManager;
+import org.citydb.modules.citygml.importer.util.DeltaImportManager.ExternalLink;
 import org.citydb.modules.citygml.importer.util.ImportLogger;
 import org.citydb.modules.citygml.importer.util.ImportLogger.ImportLogEntry;
 import org.citydb.modules.common.event.CounterEvent;
@@ -109,9 +114,12 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 	private final EventDispatcher eventDispatcher;
 	private final ImportFilter importFilter;
 	private final ImportLogger importLogger;
+	private final DeltaImportManager deltaImportManager;
+	private final List<AbstractCityObject> deltaBatch = new ArrayList<AbstractCityObject>();
 
 	private Connection batchConn;
 	private DBImporterManager dbImporterManager;
+	private DBBulkDeleter bulkDeleter;
 	private int updateCounter = 0;
 	private int commitAfter = 20;
 
@@ -126,6 +134,7 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 			UIDCacheManager uidCacheManager,
 			ImportFilter importFilter,
 			ImportLogger importLogger,
+			DeltaImportManager deltaImportManager,
 			Config config,
 			EventDispatcher eventDispatcher) throws SQLException {
 		this.dbConnectionPool = dbConnectionPool;
@@ -134,6 +143,7 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 		this.uidCacheManager = uidCacheManager;
 		this.importFilter = importFilter;
 		this.importLogger = importLogger;
+		this.deltaImportManager = deltaImportManager;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 
@@ -166,6 +176,9 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 				uidCacheManager,
 				eventDispatcher);
 
+		if (deltaImportManager != null)
+			bulkDeleter = deltaImportManager.createBulkDeleter();
+
 		Integer commitAfterProp = database.getUpdateBatching().getFeatureBatchValue();
 		if (commitAfterProp != null && commitAfterProp > 0)
 			commitAfter = commitAfterProp;
@@ -212,6 +225,9 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 
 			try {
 				if (shouldWork) {
+					if (!deltaBatch.isEmpty())
+						importDeltaBatch();
+
 					dbImporterManager.executeBatch();
 					batchConn.commit();
 					updateImportContext();
@@ -311,91 +327,18 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 						featureBoundingBoxFilter.filter(cityObject.getBoundedBy().getEnvelope()))
 					return;
 
-				// if the cityobject did pass all filters, let us further work on it
-				switch (work.getCityGMLClass()) {
-				case BUILDING:
-					DBBuilding dbBuilding = (DBBuilding)dbImporterManager.getDBImporter(DBImporterEnum.BUILDING);
-					if (dbBuilding != null)
-						id = dbBuilding.insert((Building)work);
-
-					break;
-				case BRIDGE:
-					DBBridge dbBridge = (DBBridge)dbImporterManager.getDBImporter(DBImporterEnum.BRIDGE);
-					if (dbBridge != null)
-						id = dbBridge.insert((Bridge)work);
-
-					break;
-				case TUNNEL:
-					DBTunnel dbTunnel = (DBTunnel)dbImporterManager.getDBImporter(DBImporterEnum.TUNNEL);
-					if (dbTunnel != null)
-						id = dbTunnel.insert((Tunnel)work);
-
-					break;
-				case CITY_FURNITURE:
-					DBCityFurniture dbCityFurniture = (DBCityFurniture)dbImporterManager.getDBImporter(DBImporterEnum.CITY_FURNITURE);
-					if (dbCityFurniture != null)
-						id = dbCityFurniture.insert((CityFurniture)work);
-
-					break;
-				case LAND_USE:
-					DBLandUse dbLandUse = (DBLandUse)dbImporterManager.getDBImporter(DBImporterEnum.LAND_USE);
-					if (dbLandUse != null)
-						id = dbLandUse.insert((LandUse)work);
-
-					break;
-				case WATER_BODY:
-					DBWaterBody dbWaterBody = (DBWaterBody)dbImporterManager.getDBImporter(DBImporterEnum.WATERBODY);
-					if (dbWaterBody != null)
-						id = dbWaterBody.insert((WaterBody)work);
-
-					break;
-				case PLANT_COVER:
-					DBPlantCover dbPlantCover = (DBPlantCover)dbImporterManager.getDBImporter(DBImporterEnum.PLANT_COVER);
-					if (dbPlantCover != null)
-						id = dbPlantCover.insert((PlantCover)work);
-
-					break;
-				case SOLITARY_VEGETATION_OBJECT:
-					DBSolitaryVegetatObject dbSolVegObject = (DBSolitaryVegetatObject)dbImporterManager.getDBImporter(DBImporterEnum.SOLITARY_VEGETAT_OBJECT);
-					if (dbSolVegObject != null)
-						id = dbSolVegObject.insert((SolitaryVegetationObject)work);
-
-					break;
-				case TRANSPORTATION_COMPLEX:
-				case ROAD:
-				case RAILWAY:
-				case TRACK:
-				case SQUARE:
-					DBTransportationComplex dbTransComplex = (DBTransportationComplex)dbImporterManager.getDBImporter(DBImporterEnum.TRANSPORTATION_COMPLEX);
-					if (dbTransComplex != null)
-						id = dbTransComplex.insert((TransportationComplex)work);
-
-					break;
-				case RELIEF_FEATURE:
-					DBReliefFeature dbReliefFeature = (DBReliefFeature)dbImporterManager.getDBImporter(DBImporterEnum.RELIEF_FEATURE);
-					if (dbReliefFeature != null)
-						id = dbReliefFeature.insert((ReliefFeature)work);
-
-					break;
-				case GENERIC_CITY_OBJECT:
-					DBGenericCityObject dbGenericCityObject = (DBGenericCityObject)dbImporterManager.getDBImporter(DBImporterEnum.GENERIC_CITYOBJECT);
-					if (dbGenericCityObject != null)
-						id = dbGenericCityObject.insert((GenericCityObject)work);
-
-					break;
-				case CITY_OBJECT_GROUP:
-					DBCityObjectGroup dbCityObjectGroup = (DBCityObjectGroup)dbImporterManager.getDBImporter(DBImporterEnum.CITYOBJECTGROUP);
-					if (dbCityObjectGroup != null)
-						id = dbCityObjectGroup.insert((CityObjectGroup)work);
-
-					break;
-				default:
-					StringBuilder msg = new StringBuilder(Util.getFeatureSignature(
-							cityObject.getCityGMLClass(), 
-							cityObject.getId()));
-					LOG.error(msg.append(": Skipping import since this is not a top-level feature type.").toString());
+				// features of a delta import replace their previous versions. these are deleted
+				// set-based for a batch of features before the features are inserted
+				if (deltaImportManager != null && cityObject.hasLocalProperty(DeltaImportManager.HASH_PROPERTY)) {
+					deltaBatch.add(cityObject);
+					if (deltaBatch.size() == commitAfter)
+						importDeltaBatch();
+
 					return;
 				}
+
+				// if the cityobject did pass all filters, let us further work on it
+				id = insertCityObject(cityObject);
 			}
 
 			if (id != 0)
@@ -425,6 +368,128 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 		}
 	}
 
+	private long insertCityObject(AbstractCityObject cityObject) throws SQLException {
+		long id = 0;
+
+		switch (cityObject.getCityGMLClass()) {
+		case BUILDING:
+			DBBuilding dbBuilding = (DBBuilding)dbImporterManager.getDBImporter(DBImporterEnum.BUILDING);
+			if (dbBuilding != null)
+				id = dbBuilding.insert((Building)cityObject);
+
+			break;
+		case BRIDGE:
+			DBBridge dbBridge = (DBBridge)dbImporterManager.getDBImporter(DBImporterEnum.BRIDGE);
+			if (dbBridge != null)
+				id = dbBridge.insert((Bridge)cityObject);
+
+			break;
+		case TUNNEL:
+			DBTunnel dbTunnel = (DBTunnel)dbImporterManager.getDBImporter(DBImporterEnum.TUNNEL);
+			if (dbTunnel != null)
+				id = dbTunnel.insert((Tunnel)cityObject);
+
+			break;
+		case CITY_FURNITURE:
+			DBCityFurniture dbCityFurniture = (DBCityFurniture)dbImporterManager.getDBImporter(DBImporterEnum.CITY_FURNITURE);
+			if (dbCityFurniture != null)
+				id = dbCityFurniture.insert((CityFurniture)cityObject);
+
+			break;
+		case LAND_USE:
+			DBLandUse dbLandUse = (DBLandUse)dbImporterManager.getDBImporter(DBImporterEnum.LAND_USE);
+			if (dbLandUse != null)
+				id = dbLandUse.insert((LandUse)cityObject);
+
+			break;
+		case WATER_BODY:
+			DBWaterBody dbWaterBody = (DBWaterBody)dbImporterManager.getDBImporter(DBImporterEnum.WATERBODY);
+			if (dbWaterBody != null)
+				id = dbWaterBody.insert((WaterBody)cityObject);
+
+			break;
+		case PLANT_COVER:
+			DBPlantCover dbPlantCover = (DBPlantCover)dbImporterManager.getDBImporter(DBImporterEnum.PLANT_COVER);
+			if (dbPlantCover != null)
+				id = dbPlantCover.insert((PlantCover)cityObject);
+
+			break;
+		case SOLITARY_VEGETATION_OBJECT:
+			DBSolitaryVegetatObject dbSolVegObject = (DBSolitaryVegetatObject)dbImporterManager.getDBImporter(DBImporterEnum.SOLITARY_VEGETAT_OBJECT);
+			if (dbSolVegObject != null)
+				id = dbSolVegObject.insert((SolitaryVegetationObject)cityObject);
+
+			break;
+		case TRANSPORTATION_COMPLEX:
+		case ROAD:
+		case RAILWAY:
+		case TRACK:
+		case SQUARE:
+			DBTransportationComplex dbTransComplex = (DBTransportationComplex)dbImporterManager.getDBImporter(DBImporterEnum.TRANSPORTATION_COMPLEX);
+			if (dbTransComplex != null)
+				id = dbTransComplex.insert((TransportationComplex)cityObject);
+
+			break;
+		case RELIEF_FEATURE:
+			DBReliefFeature dbReliefFeature = (DBReliefFeature)dbImporterManager.getDBImporter(DBImporterEnum.RELIEF_FEATURE);
+			if (dbReliefFeature != null)
+				id = dbReliefFeature.insert((ReliefFeature)cityObject);
+
+			break;
+		case GENERIC_CITY_OBJECT:
+			DBGenericCityObject dbGenericCityObject = (DBGenericCityObject)dbImporterManager.getDBImporter(DBImporterEnum.GENERIC_CITYOBJECT);
+			if (dbGenericCityObject != null)
+				id = dbGenericCityObject.insert((GenericCityObject)cityObject);
+
+			break;
+		case CITY_OBJECT_GROUP:
+			DBCityObjectGroup dbCityObjectGroup = (DBCityObjectGroup)dbImporterManager.getDBImporter(DBImporterEnum.CITYOBJECTGROUP);
+			if (dbCityObjectGroup != null)
+				id = dbCityObjectGroup.insert((CityObjectGroup)cityObject);
+
+			break;
+		default:
+			StringBuilder msg = new StringBuilder(Util.getFeatureSignature(
+					cityObject.getCityGMLClass(), 
+					cityObject.getId()));
+			LOG.error(msg.append(": Skipping import since this is not a top-level feature type.").toString());
+			return 0;
+		}
+
+		return id;
+	}
+
+	private void importDeltaBatch() throws SQLException, IOException {
+		List<String> gmlIds = new ArrayList<String>(deltaBatch.size());
+		for (AbstractCityObject cityObject : deltaBatch)
+			gmlIds.add(cityObject.getId());
+
+		List<ExternalLink> links = deltaImportManager.deletePreviousVersions(batchConn, gmlIds, bulkDeleter);
+
+		List<String> hashes = new ArrayList<String>(deltaBatch.size());
+		for (AbstractCityObject cityObject : deltaBatch) {
+			String hash = (String)cityObject.getLocalProperty(DeltaImportManager.HASH_PROPERTY);
+			if (insertCityObject(cityObject) != 0)
+				updateCounter++;
+			else
+				hash = null;
+
+			hashes.add(hash);
+		}
+
+		deltaBatch.clear();
+		dbImporterManager.executeBatch();
+		deltaImportManager.restoreLinks(batchConn, links);
+		batchConn.commit();
+
+		for (int i = 0; i < gmlIds.size(); i++) {
+			if (hashes.get(i) != null)
+				deltaImportManager.register(gmlIds.get(i), hashes.get(i));
+		}
+
+		updateImportContext();
+	}
+
 	private void updateImportContext() throws IOException {
 		eventDispatcher.triggerEvent(new FeatureCounterEvent(dbImporterManager.getAndResetFeatureCounter(), this));
 		eventDispatcher.triggerEvent(new GeometryCounterEvent(dbImporterManager.getAndResetGeometryCounter(), this));
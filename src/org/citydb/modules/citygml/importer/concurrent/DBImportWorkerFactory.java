@@ -38,6 +38,7 @@ import org.citydb.database.DatabaseConnectionPool;
 import org.citydb.log.Logger;
 import org.citydb.modules.citygml.common.database.uid.UIDCacheManager;
 import org.citydb.modules.citygml.common.database.xlink.DBXlink;
+import org.citydb.modules.citygml.importer.util.DeltaImportManager;
 import org.citydb.modules.citygml.importer.util.ImportLogger;
 import org.citydb.modules.common.filter.ImportFilter;
 import org.citygml4j.builder.jaxb.JAXBBuilder;
@@ -52,6 +53,7 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 	private final UIDCacheManager uidCacheManager;
 	private final ImportFilter importFilter;
 	private final ImportLogger importLogger;
+	private final DeltaImportManager deltaImportManager;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
@@ -61,6 +63,7 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 			UIDCacheManager uidCacheManager,
 			ImportFilter importFilter,
 			ImportLogger importLogger,
+			DeltaImportManager deltaImportManager,
 			Config config,
 			EventDispatcher eventDispatcher) {
 		this.dbConnectionPool = dbConnectionPool;
@@ -69,6 +72,7 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 		this.uidCacheManager = uidCacheManager;
 		this.importFilter = importFilter;
 		this.importLogger = importLogger;
+		this.deltaImportManager = deltaImportManager;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 	}
@@ -84,6 +88,7 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 					uidCacheManager,
 					importFilter,
 					importLogger,
+					deltaImportManager,
 					config, 
 					eventDispatcher);
 		} catch (SQLException e) {
@@ -53,6 +53,7 @@ import org.citydb.modules.citygml.common.database.xlink.DBXlinkLibraryObject;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkSolidGeometry;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkSurfaceDataToTexImage;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkSurfaceGeometry;
+import org.citydb.modules.citygml.common.database.xlink.DBXlinkSurfaceGeometryBatch;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkTextureAssociation;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkTextureCoordList;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkTextureFile;
@@ -67,6 +68,7 @@ import org.citydb.modules.citygml.importer.database.xlink.resolver.XlinkLibraryO
 import org.citydb.modules.citygml.importer.database.xlink.resolver.XlinkSolidGeometry;
 import org.citydb.modules.citygml.importer.database.xlink.resolver.XlinkSurfaceDataToTexImage;
 import org.citydb.modules.citygml.importer.database.xlink.resolver.XlinkSurfaceGeometry;
+import org.citydb.modules.citygml.importer.database.xlink.resolver.XlinkSurfaceGeometryCopy;
 import org.citydb.modules.citygml.importer.database.xlink.resolver.XlinkTexCoordList;
 import org.citydb.modules.citygml.importer.database.xlink.resolver.XlinkTextureAssociation;
 import org.citydb.modules.citygml.importer.database.xlink.resolver.XlinkTextureImage;
@@ -231,6 +233,13 @@ public class DBImportXlinkResolverWorker extends Worker<DBXlink> implements Even
 				if (xlinkSurfaceGeometry != null)
 					success = xlinkSurfaceGeometry.insert(surfaceGeometry);
 
+				break;
+			case SURFACE_GEOMETRY_BATCH:
+				DBXlinkSurfaceGeometryBatch surfaceGeometryBatch = (DBXlinkSurfaceGeometryBatch)work;
+				XlinkSurfaceGeometryCopy xlinkSurfaceGeometryCopy = (XlinkSurfaceGeometryCopy)xlinkResolverManager.getDBXlinkResolver(DBXlinkResolverEnum.SURFACE_GEOMETRY_COPY);
+				if (xlinkSurfaceGeometryCopy != null)
+					success = xlinkSurfaceGeometryCopy.insert(surfaceGeometryBatch);
+
 				break;
 			case BASIC:
 				DBXlinkBasic basic = (DBXlinkBasic)work;
@@ -29,40 +29,78 @@ package org.citydb.modules.citygml.importer.concurrent;
 
 import java.util.concurrent.locks.ReentrantLock;
 
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
+
+import org.citydb.api.concurrent.WorkBatcher;
 import org.citydb.api.concurrent.Worker;
 import org.citydb.api.concurrent.WorkerPool;
 import org.citydb.api.event.EventDispatcher;
 import org.citydb.api.log.LogLevel;
 import org.citydb.config.Config;
 import org.citydb.log.Logger;
+import org.citydb.modules.citygml.importer.util.DeltaImportManager;
+import org.citydb.modules.citygml.importer.util.XMLChunkFilter;
+import org.citydb.modules.citygml.importer.util.XMLChunkHasher;
 import org.citydb.modules.common.event.InterruptEvent;
 import org.citydb.modules.common.event.InterruptReason;
+import org.citydb.modules.common.filter.ImportFilter;
 import org.citygml4j.model.citygml.CityGML;
+import org.citygml4j.model.citygml.CityGMLClass;
+import org.citygml4j.model.citygml.core.AbstractCityObject;
 import org.citygml4j.xml.io.reader.MissingADESchemaException;
 import org.citygml4j.xml.io.reader.UnmarshalException;
 import org.citygml4j.xml.io.reader.XMLChunk;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
 public class FeatureReaderWorker extends Worker<XMLChunk> {
 	private final Logger LOG = Logger.getInstance();
 	private final ReentrantLock runLock = new ReentrantLock();
 	private volatile boolean shouldRun = true;
+	private volatile boolean flushOnExit = true;
 
-	private final WorkerPool<CityGML> dbWorkerPool;
+	private final WorkBatcher<CityGML> dbWorkBatcher;
 	private final EventDispatcher eventDispatcher;
 	private final boolean useValidation;
+	private final XMLChunkFilter chunkFilter;
+	private final DeltaImportManager deltaImportManager;
+	private XMLChunkHasher chunkHasher;
+
+	private ValidatorHandler validatorHandler;
+	private ErrorHandler validationErrorHandler;
+	private int validationErrors;
 
 	public FeatureReaderWorker(WorkerPool<CityGML> dbWorkerPool,
+			int batchSize,
+			Schema validationSchema,
+			ErrorHandler validationErrorHandler,
+			ImportFilter importFilter,
+			DeltaImportManager deltaImportManager,
 			Config config,
 			EventDispatcher eventDispatcher) {
-		this.dbWorkerPool = dbWorkerPool;
 		this.eventDispatcher = eventDispatcher;
+		dbWorkBatcher = new WorkBatcher<CityGML>(dbWorkerPool, batchSize);
+		chunkFilter = new XMLChunkFilter(importFilter);
+		this.deltaImportManager = deltaImportManager;
+		if (deltaImportManager != null)
+			chunkHasher = new XMLChunkHasher();
 
-		useValidation = config.getProject().getImporter().getXMLValidation().isSetUseXMLValidation();
+		// validate chunks on this worker against the shared schema
+		if (validationSchema != null) {
+			this.validationErrorHandler = validationErrorHandler;
+			validatorHandler = validationSchema.newValidatorHandler();
+			validatorHandler.setErrorHandler(new ChunkErrorHandler());
+		}
+
+		useValidation = validatorHandler == null && config.getProject().getImporter().getXMLValidation().isSetUseXMLValidation();
 	}
 	
 	@Override
 	public void interrupt() {
 		shouldRun = false;
+		flushOnExit = false;
 		workerThread.interrupt();
 	}
 
@@ -89,12 +127,32 @@ public class FeatureReaderWorker extends Worker<XMLChunk> {
 
 		while (shouldRun) {
 			try {
-				XMLChunk work = workQueue.take();				
+				XMLChunk work = dbWorkBatcher.getBatchSize() > 1 ? workQueue.poll() : null;
+				if (work == null) {
+					// hand over pending features before waiting for new chunks
+					flush();
+					work = workQueue.take();
+				}
+
 				doWork(work);
 			} catch (InterruptedException ie) {
 				// re-check state
 			}
 		}
+
+		if (flushOnExit)
+			flush();
+	}
+
+	private void flush() {
+		final ReentrantLock runLock = this.runLock;
+		runLock.lock();
+
+		try {
+			dbWorkBatcher.flush();
+		} finally {
+			runLock.unlock();
+		}
 	}
 
 	private void doWork(XMLChunk work) {
@@ -103,9 +161,29 @@ public class FeatureReaderWorker extends Worker<XMLChunk> {
 
 		try {
 			try {
+				// drop filtered features before validating and unmarshalling them
+				if (chunkFilter.isActive() && chunkFilter.filter(work))
+					return;
+
+				// skip top-level features that have not changed since the last delta import
+				String hash = null;
+				if (chunkHasher != null && work.getCityGMLClass() != CityGMLClass.APPEARANCE) {
+					hash = chunkHasher.hash(work);
+					if (hash != null && deltaImportManager.isUnchanged(chunkHasher.getGmlId(), hash))
+						return;
+				}
+
+				if (validatorHandler != null && !validate(work))
+					return;
+
 				CityGML cityGML = work.unmarshal();
-				if (!useValidation || work.hasPassedXMLValidation())
-					dbWorkerPool.addWork(cityGML);
+				if (!useValidation || work.hasPassedXMLValidation()) {
+					// the hash is registered by the import worker once the feature has been imported
+					if (hash != null && cityGML instanceof AbstractCityObject)
+						((AbstractCityObject)cityGML).setLocalProperty(DeltaImportManager.HASH_PROPERTY, hash);
+
+					dbWorkBatcher.addWork(cityGML);
+				}
 			} catch (UnmarshalException e) {
 				if (!useValidation || work.hasPassedXMLValidation()) {
 					StringBuilder msg = new StringBuilder();				
@@ -123,4 +201,51 @@ public class FeatureReaderWorker extends Worker<XMLChunk> {
 		}
 	}
 
+	private boolean validate(XMLChunk work) {
+		validationErrors = 0;
+
+		try {
+			validatorHandler.startDocument();
+			work.send(validatorHandler, false);
+			validatorHandler.endDocument();
+		} catch (SAXException e) {
+			// validation of this feature has been aborted
+			if (validationErrors == 0)
+				LOG.error("Failed to validate XML chunk: " + e.getMessage());
+
+			return false;
+		}
+
+		return validationErrors == 0;
+	}
+
+	private final class ChunkErrorHandler implements ErrorHandler {
+
+		@Override
+		public void warning(SAXParseException e) throws SAXException {
+			if (validationErrorHandler != null) {
+				try {
+					validationErrorHandler.warning(e);
+				} catch (SAXException abort) {
+					validationErrors++;
+					throw abort;
+				}
+			}
+		}
+
+		@Override
+		public void error(SAXParseException e) throws SAXException {
+			validationErrors++;
+			if (validationErrorHandler != null)
+				validationErrorHandler.error(e);
+		}
+
+		@Override
+		public void fatalError(SAXParseException e) throws SAXException {
+			validationErrors++;
+			if (validationErrorHandler != null)
+				validationErrorHandler.fatalError(e);
+		}
+	}
+
 }
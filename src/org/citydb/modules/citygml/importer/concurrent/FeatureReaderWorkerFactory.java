@@ -27,29 +27,49 @@
  */
 package org.citydb.modules.citygml.importer.concurrent;
 
+import javax.xml.validation.Schema;
+
 import org.citydb.api.concurrent.Worker;
 import org.citydb.api.concurrent.WorkerFactory;
 import org.citydb.api.concurrent.WorkerPool;
 import org.citydb.api.event.EventDispatcher;
 import org.citydb.config.Config;
+import org.citydb.modules.citygml.importer.util.DeltaImportManager;
+import org.citydb.modules.common.filter.ImportFilter;
 import org.citygml4j.model.citygml.CityGML;
 import org.citygml4j.xml.io.reader.XMLChunk;
+import org.xml.sax.ErrorHandler;
 
 public class FeatureReaderWorkerFactory implements WorkerFactory<XMLChunk> {
 	private final WorkerPool<CityGML> dbWorkerPool;
+	private final int batchSize;
+	private final Schema validationSchema;
+	private final ErrorHandler validationErrorHandler;
+	private final ImportFilter importFilter;
+	private final DeltaImportManager deltaImportManager;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
 	public FeatureReaderWorkerFactory(WorkerPool<CityGML> dbWorkerPool,
+			int batchSize,
+			Schema validationSchema,
+			ErrorHandler validationErrorHandler,
+			ImportFilter importFilter,
+			DeltaImportManager deltaImportManager,
 			Config config,
 			EventDispatcher eventDispatcher) {
 		this.dbWorkerPool = dbWorkerPool;
+		this.batchSize = batchSize;
+		this.validationSchema = validationSchema;
+		this.validationErrorHandler = validationErrorHandler;
+		this.importFilter = importFilter;
+		this.deltaImportManager = deltaImportManager;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 	}
 
 	@Override
 	public Worker<XMLChunk> createWorker() {
-		return new FeatureReaderWorker(dbWorkerPool, config, eventDispatcher);
+		return new FeatureReaderWorker(dbWorkerPool, batchSize, validationSchema, validationErrorHandler, importFilter, deltaImportManager, config, eventDispatcher);
 	}
 }
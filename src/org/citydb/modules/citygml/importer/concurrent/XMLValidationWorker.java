@@ -0,0 +1,218 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.importer.concurrent;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
+import org.citydb.api.concurrent.Worker;
+import org.citydb.api.event.EventDispatcher;
+import org.citydb.api.log.LogLevel;
+import org.citydb.config.language.Language;
+import org.citydb.log.Logger;
+import org.citydb.modules.common.event.CounterEvent;
+import org.citydb.modules.common.event.CounterType;
+import org.citydb.modules.common.event.StatusDialogMessage;
+import org.citydb.modules.common.event.StatusDialogTitle;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+public class XMLValidationWorker extends Worker<File> {
+	private final Logger LOG = Logger.getInstance();
+	private final ReentrantLock runLock = new ReentrantLock();
+	private volatile boolean shouldRun = true;
+
+	private final Validator validator;
+	private final ValidationErrorHandler errorHandler;
+	private final boolean reportAllErrors;
+	private final AtomicInteger remainingFiles;
+	private final EventDispatcher eventDispatcher;
+	private volatile InputStream inputStream;
+
+	public XMLValidationWorker(Schema schema,
+			boolean reportAllErrors,
+			AtomicInteger remainingFiles,
+			EventDispatcher eventDispatcher) {
+		this.reportAllErrors = reportAllErrors;
+		this.remainingFiles = remainingFiles;
+		this.eventDispatcher = eventDispatcher;
+
+		// validators are not thread-safe, so every worker uses its own one
+		validator = schema.newValidator();
+		errorHandler = new ValidationErrorHandler();
+	}
+
+	@Override
+	public void interrupt() {
+		shouldRun = false;
+		workerThread.interrupt();
+
+		// abort the validation of the current file
+		InputStream inputStream = this.inputStream;
+		if (inputStream != null) {
+			try {
+				inputStream.close();
+			} catch (IOException e) {
+				//
+			}
+		}
+	}
+
+	@Override
+	public void interruptIfIdle() {
+		final ReentrantLock runLock = this.runLock;
+		shouldRun = false;
+
+		if (runLock.tryLock()) {
+			try {
+				workerThread.interrupt();
+			} finally {
+				runLock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		if (firstWork != null) {
+			doWork(firstWork);
+			firstWork = null;
+		}
+
+		while (shouldRun) {
+			try {
+				File work = workQueue.take();
+				doWork(work);
+			} catch (InterruptedException ie) {
+				// re-check state
+			}
+		}
+	}
+
+	private void doWork(File file) {
+		final ReentrantLock runLock = this.runLock;
+		runLock.lock();
+
+		try {
+			eventDispatcher.triggerEvent(new StatusDialogTitle(file.getName(), this));
+			eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("validate.dialog.validate.msg"), this));
+			eventDispatcher.triggerEvent(new CounterEvent(CounterType.FILE, remainingFiles.decrementAndGet(), this));
+
+			LOG.info("Validating file: " + file.toString());
+
+			validator.reset();
+			validator.setErrorHandler(errorHandler);
+			errorHandler.reset(file);
+
+			try {
+				inputStream = new FileInputStream(file);
+				validator.validate(new StreamSource(inputStream));
+			} catch (SAXException | IOException e) {
+				if (!errorHandler.isAborted && shouldRun)
+					LOG.error("Failed to validate CityGML file " + file.getName() + ": " + e.getMessage());
+			} finally {
+				if (inputStream != null) {
+					try {
+						inputStream.close();
+					} catch (IOException e) {
+						//
+					}
+
+					inputStream = null;
+				}
+			}
+
+			eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("validate.dialog.finish.msg"), this));
+
+			// show XML validation errors
+			if (errorHandler.errors > 0)
+				LOG.warn(errorHandler.errors + " error(s) reported while validating the document " + file.getName() + ".");
+			else if (shouldRun)
+				LOG.info("The CityGML file " + file.getName() + " is valid.");
+		} catch (Exception e) {
+			LOG.error("Failed to validate CityGML file " + file.getName() + ": " + e.getMessage());
+		} finally {
+			runLock.unlock();
+		}
+	}
+
+	private final class ValidationErrorHandler implements ErrorHandler {
+		String fileName;
+		int errors;
+		boolean isAborted;
+
+		public void reset(File file) {
+			fileName = file.getName();
+			errors = 0;
+			isAborted = false;
+		}
+
+		@Override
+		public void warning(SAXParseException e) throws SAXException {
+			write(e, "Warning", LogLevel.WARN);
+		}
+
+		@Override
+		public void fatalError(SAXParseException e) throws SAXException {
+			write(e, "Invalid content", LogLevel.ERROR);
+		}
+
+		@Override
+		public void error(SAXParseException e) throws SAXException {
+			write(e, "Invalid content", LogLevel.ERROR);
+		}
+
+		public void write(SAXParseException e, String prefix, LogLevel level) throws SAXException {
+			if (!isAborted) {
+				StringBuilder msg = new StringBuilder()
+				.append(prefix).append(" at ")
+				.append('[').append(fileName).append(':')
+				.append(e.getLineNumber()).append(',').append(e.getColumnNumber()).append("]: ")
+				.append(e.getMessage());
+				LOG.log(level, msg.toString());
+
+				errors++;
+
+				if (!reportAllErrors) {
+					isAborted = true;
+					throw new SAXException();
+				}
+			}
+		}
+	}
+
+}
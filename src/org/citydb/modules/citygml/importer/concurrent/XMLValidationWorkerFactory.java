@@ -0,0 +1,59 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.importer.concurrent;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.validation.Schema;
+
+import org.citydb.api.concurrent.Worker;
+import org.citydb.api.concurrent.WorkerFactory;
+import org.citydb.api.event.EventDispatcher;
+
+public class XMLValidationWorkerFactory implements WorkerFactory<File> {
+	private final Schema schema;
+	private final boolean reportAllErrors;
+	private final AtomicInteger remainingFiles;
+	private final EventDispatcher eventDispatcher;
+
+	public XMLValidationWorkerFactory(Schema schema,
+			boolean reportAllErrors,
+			AtomicInteger remainingFiles,
+			EventDispatcher eventDispatcher) {
+		this.schema = schema;
+		this.reportAllErrors = reportAllErrors;
+		this.remainingFiles = remainingFiles;
+		this.eventDispatcher = eventDispatcher;
+	}
+
+	@Override
+	public Worker<File> createWorker() {
+		return new XMLValidationWorker(schema, reportAllErrors, remainingFiles, eventDispatcher);
+	}
+}
@@ -35,12 +35,18 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.xml.XMLConstants;
 import javax.xml.bind.ValidationEvent;
 import javax.xml.bind.ValidationEventHandler;
 import javax.xml.namespace.QName;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
 
 import org.citydb.api.concurrent.PoolSizeAdaptationStrategy;
+import org.citydb.api.concurrent.WorkBatcher;
+import org.citydb.api.concurrent.WorkQueueType;
 import org.citydb.api.concurrent.WorkerPool;
 import org.citydb.api.event.Event;
 import org.citydb.api.event.EventDispatcher;
@@ -52,12 +58,13 @@ import org.citydb.config.language.Language;
 import org.citydb.config.project.database.Database;
 import org.citydb.config.project.database.Workspace;
 import org.citydb.config.project.general.AffineTransformation;
+import org.citydb.config.project.importer.ImportDelta;
+import org.citydb.config.project.importer.ImportFeatureIndex;
 import org.citydb.config.project.importer.ImportGmlId;
 import org.citydb.config.project.importer.ImportResources;
 import org.citydb.config.project.importer.Index;
 import org.citydb.config.project.importer.XMLValidation;
 import org.citydb.database.DatabaseConnectionPool;
-import org.citydb.database.IndexStatusInfo;
 import org.citydb.database.IndexStatusInfo.IndexInfoObject;
 import org.citydb.database.IndexStatusInfo.IndexStatus;
 import org.citydb.database.IndexStatusInfo.IndexType;
@@ -66,11 +73,11 @@ import org.citydb.io.DirectoryScanner;
 import org.citydb.io.DirectoryScanner.CityGMLFilenameFilter;
 import org.citydb.log.Logger;
 import org.citydb.modules.citygml.common.database.cache.CacheTableManager;
+import org.citydb.modules.citygml.common.database.cache.model.CacheTableModelEnum;
 import org.citydb.modules.citygml.common.database.uid.UIDCacheManager;
 import org.citydb.modules.citygml.common.database.uid.UIDCacheType;
 import org.citydb.modules.citygml.common.database.xlink.DBXlink;
 import org.citydb.modules.citygml.importer.concurrent.DBImportWorkerFactory;
-import org.citydb.modules.citygml.importer.concurrent.DBImportXlinkResolverWorkerFactory;
 import org.citydb.modules.citygml.importer.concurrent.DBImportXlinkWorkerFactory;
 import org.citydb.modules.citygml.importer.concurrent.FeatureReaderWorkerFactory;
 import org.citydb.modules.citygml.importer.database.uid.FeatureGmlIdCache;
@@ -78,7 +85,11 @@ import org.citydb.modules.citygml.importer.database.uid.GeometryGmlIdCache;
 import org.citydb.modules.citygml.importer.database.uid.TextureImageCache;
 import org.citydb.modules.citygml.importer.database.xlink.resolver.DBXlinkSplitter;
 import org.citydb.modules.citygml.importer.util.AffineTransformer;
+import org.citydb.modules.citygml.importer.util.DeltaImportManager;
+import org.citydb.modules.citygml.importer.util.FeatureIndex;
+import org.citydb.modules.citygml.importer.util.FeatureIndexReader;
 import org.citydb.modules.citygml.importer.util.ImportLogger;
+import org.citydb.modules.citygml.importer.util.ParallelIndexManager;
 import org.citydb.modules.common.event.CounterEvent;
 import org.citydb.modules.common.event.CounterType;
 import org.citydb.modules.common.event.EventType;
@@ -104,6 +115,10 @@ import org.citygml4j.xml.io.reader.CityGMLReadException;
 import org.citygml4j.xml.io.reader.CityGMLReader;
 import org.citygml4j.xml.io.reader.FeatureReadMode;
 import org.citygml4j.xml.io.reader.XMLChunk;
+import org.citygml4j.xml.schema.SchemaHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
 
 public class Importer implements EventHandler {
@@ -120,7 +135,8 @@ public class Importer implements EventHandler {
 	private EnumMap<CityGMLClass, Long> featureCounterMap;
 	private EnumMap<GMLClass, Long> geometryCounterMap;
 	private DirectoryScanner directoryScanner;
-	private long xmlValidationErrorCounter;
+	private volatile FeatureIndexReader featureIndexReader;
+	private AtomicLong xmlValidationErrorCounter = new AtomicLong();
 
 	public Importer(JAXBBuilder jaxbBuilder, 
 			DatabaseConnectionPool dbPool, 
@@ -152,11 +168,15 @@ public class Importer implements EventHandler {
 		ImportResources resourcesConfig = importerConfig.getResources();
 		Index indexConfig = importerConfig.getIndexes();
 		ImportGmlId gmlIdConfig = importerConfig.getGmlId();
+		ImportFeatureIndex featureIndexConfig = importerConfig.getFeatureIndex();
+		ImportDelta deltaConfig = importerConfig.getDelta();
 
 		// worker pool settings 
 		int minThreads = resourcesConfig.getThreadPool().getDefaultPool().getMinThreads();
 		int maxThreads = resourcesConfig.getThreadPool().getDefaultPool().getMaxThreads();
-		int queueSize = maxThreads * 2;
+		int batchSize = resourcesConfig.getThreadPool().getDefaultPool().getBatchSize();
+		int queueSize = Math.max(maxThreads, batchSize) * 2;
+		WorkQueueType workQueueType = resourcesConfig.getThreadPool().getDefaultPool().getWorkQueue().getWorkQueueType();
 
 		// gml:id lookup cache update
 		int lookupCacheBatchSize = databaseConfig.getUpdateBatching().getGmlIdCacheBatchValue();
@@ -225,15 +245,29 @@ public class Importer implements EventHandler {
 
 		// prepare XML validation 
 		XMLValidation xmlValidation = importerConfig.getXMLValidation();
+		ValidationErrorHandler validationHandler = null;
+		Schema validationSchema = null;
 		if (xmlValidation.isSetUseXMLValidation()) {
-			LOG.info("Using XML validation during database import.");
+			validationHandler = new ValidationErrorHandler();
+			validationHandler.allErrors = !xmlValidation.isSetReportOneErrorPerFeature();
 
-			in.setProperty(CityGMLInputFactory.USE_VALIDATION, true);
-			in.setProperty(CityGMLInputFactory.PARSE_SCHEMA, true);
+			if (xmlValidation.isSetUseParallelValidation()) {
+				LOG.info("Using parallel XML validation of top-level features during database import.");
 
-			ValidationErrorHandler validationHandler = new ValidationErrorHandler();
-			validationHandler.allErrors = !xmlValidation.isSetReportOneErrorPerFeature();
-			in.setValidationEventHandler(validationHandler);
+				// the schema is compiled once and shared by all feature reader workers
+				try {
+					SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+					validationSchema = schemaFactory.newSchema(SchemaHandler.newInstance().getSchemaSources());
+				} catch (SAXException e) {
+					throw new CityGMLImportException("Failed to create CityGML schema context.", e);
+				}
+			} else {
+				LOG.info("Using XML validation during database import.");
+
+				in.setProperty(CityGMLInputFactory.USE_VALIDATION, true);
+				in.setProperty(CityGMLInputFactory.PARSE_SCHEMA, true);
+				in.setValidationEventHandler(validationHandler);
+			}
 		}
 
 		// affine transformation
@@ -263,12 +297,28 @@ public class Importer implements EventHandler {
 			}
 		};
 
+		// load the content hashes of features imported by previous delta imports
+		DeltaImportManager deltaImportManager = null;
+		if (shouldRun && deltaConfig.isSetUseDeltaImport()) {
+			// features are matched with their previous versions by gml:id
+			if (gmlIdConfig.isUUIDModeReplace())
+				throw new CityGMLImportException("Delta import cannot be used when gml:ids are replaced by UUIDs.");
+
+			LOG.info("Loading content hashes for delta import...");
+			deltaImportManager = new DeltaImportManager(dbPool, config);
+
+			try {
+				LOG.info(deltaImportManager.init() + " content hash(es) of previously imported features loaded.");
+			} catch (SQLException e) {
+				throw new CityGMLImportException("SQL error while loading content hashes for delta import.", e);
+			}
+		}
+
 		CacheTableManager cacheTableManager = null;
 		UIDCacheManager uidCacheManager = null;
 		WorkerPool<CityGML> dbWorkerPool = null;
 		WorkerPool<XMLChunk> featureWorkerPool = null;
 		WorkerPool<DBXlink> tmpXlinkPool = null;
-		WorkerPool<DBXlink> xlinkResolverPool = null;
 		DBXlinkSplitter tmpSplitter = null;
 		ImportLogger importLogger = null;
 		long start = System.currentTimeMillis();
@@ -304,7 +354,31 @@ public class Importer implements EventHandler {
 					}
 				} else
 					internalConfig.setCurrentGmlIdCodespace(null);
-				
+
+				// the feature index lets us skip straight to the selected top-level features
+				FeatureIndex featureIndex = null;
+				if (featureIndexConfig.isSetUseFeatureIndex()) {
+					try {
+						featureIndex = FeatureIndex.read(file);
+						if (featureIndex == null) {
+							LOG.info("Creating feature index " + FeatureIndex.getIndexFile(file) + ".");
+							featureIndex = FeatureIndex.build(file);
+
+							if (featureIndex != null) {
+								try {
+									featureIndex.write();
+								} catch (IOException e) {
+									LOG.warn("Failed to write feature index: " + e.getMessage());
+								}
+							} else
+								LOG.warn("The top-level features of the file cannot be indexed. Parsing the whole file.");
+						}
+					} catch (IOException e) {
+						LOG.warn("Failed to read feature index: " + e.getMessage());
+						featureIndex = null;
+					}
+				}
+
 				// create import logger
 				if (importerConfig.getImportLog().isSetLogImportedFeatures()) {
 					try {
@@ -386,10 +460,11 @@ public class Importer implements EventHandler {
 								uidCacheManager, 
 								importFilter,
 								importLogger,
+								deltaImportManager,
 								config, 
 								eventDispatcher),
 								queueSize,
-								false);
+								workQueueType);
 
 				// this worker pool unmarshals the input file and passes xml chunks to the dbworker pool
 				featureWorkerPool = new WorkerPool<XMLChunk>(
@@ -397,9 +472,9 @@ public class Importer implements EventHandler {
 						minThreads,
 						maxThreads,
 						PoolSizeAdaptationStrategy.AGGRESSIVE,
-						new FeatureReaderWorkerFactory(dbWorkerPool, config, eventDispatcher),
+						new FeatureReaderWorkerFactory(dbWorkerPool, batchSize, validationSchema, validationHandler, importFilter, deltaImportManager, config, eventDispatcher),
 						queueSize,
-						false);
+						workQueueType);
 
 				// prestart threads
 				tmpXlinkPool.prestartCoreWorkers();
@@ -414,24 +489,57 @@ public class Importer implements EventHandler {
 
 				// ok, preparation done. start parsing the input file
 				CityGMLReader reader = null;
+				WorkBatcher<XMLChunk> chunkBatcher = new WorkBatcher<XMLChunk>(featureWorkerPool, batchSize);
 				try {
-					reader = in.createFilteredCityGMLReader(in.createCityGMLReader(file), inputFilter);	
+					if (featureIndex != null) {
+						// select the features on the index and only parse their byte ranges
+						int[] entries = new int[featureIndex.size()];
+						int count = 0;
+
+						for (int i = 0; i < featureIndex.size(); i++) {
+							CityGMLClass type = featureIndex.getType(i);
+							if (type != null && !inputFilter.accept(type))
+								continue;
 
-					while (shouldRun && reader.hasNext()) {
-						XMLChunk chunk = reader.nextChunk();
+							if (counterFilter.isActive()) {
+								elementCounter++;
 
-						if (counterFilter.isActive()) {
-							elementCounter++;
+								if (counterFirstElement != null && elementCounter < counterFirstElement)
+									continue;
 
-							if (counterFirstElement != null && elementCounter < counterFirstElement)
-								continue;
+								if (counterLastElement != null && elementCounter > counterLastElement)
+									break;
+							}
 
-							if (counterLastElement != null && elementCounter > counterLastElement)
-								break;
+							if (!featureIndex.filter(i, importFilter))
+								entries[count++] = i;
 						}
 
-						featureWorkerPool.addWork(chunk);
-					}					
+						LOG.info(count + " of " + featureIndex.size() + " top-level feature(s) selected on the feature index.");
+						featureIndexReader = new FeatureIndexReader(featureIndex, in, inputFilter, featureWorkerPool, batchSize);
+						if (shouldRun)
+							featureIndexReader.read(entries, count, featureIndexConfig.getReaderThreads());
+					} else {
+						reader = in.createFilteredCityGMLReader(in.createCityGMLReader(file), inputFilter);	
+
+						while (shouldRun && reader.hasNext()) {
+							XMLChunk chunk = reader.nextChunk();
+
+							if (counterFilter.isActive()) {
+								elementCounter++;
+
+								if (counterFirstElement != null && elementCounter < counterFirstElement)
+									continue;
+
+								if (counterLastElement != null && elementCounter > counterLastElement)
+									break;
+							}
+
+							chunkBatcher.addWork(chunk);
+						}
+
+						chunkBatcher.flush();
+					}
 				} catch (CityGMLReadException e) {
 					throw new CityGMLImportException("Failed to parse CityGML file. Aborting.", e);
 				}
@@ -440,9 +548,18 @@ public class Importer implements EventHandler {
 				// the xlink pool is not shutdown because we need it afterwards
 				try {
 					featureWorkerPool.shutdownAndWait();
-					reader.close();
+					if (reader != null)
+						reader.close();
+
+					if (featureIndexReader != null) {
+						featureIndexReader.close();
+						featureIndexReader = null;
+					}
 					dbWorkerPool.shutdownAndWait();
-					tmpXlinkPool.join();
+
+					// the xlink workers have spooled to their own cache table shards.
+					// shutting them down flushes the shards, which are then merged
+					tmpXlinkPool.shutdownAndWait();
 				} catch (InterruptedException e) {
 					throw new CityGMLImportException("Failed to shutdown worker pools.", e);
 				} catch (CityGMLReadException e) {
@@ -450,60 +567,54 @@ public class Importer implements EventHandler {
 				}
 
 				if (shouldRun) {
-					// get an xlink resolver pool
+					try {
+						// the resolvers join on these tables
+						cacheTableManager.mergeShards(CacheTableModelEnum.TEXTURE_COORD_LIST,
+								CacheTableModelEnum.LINEAR_RING,
+								CacheTableModelEnum.TEXTUREASSOCIATION_TARGET);
+					} catch (SQLException e) {
+						throw new CityGMLImportException("SQL error while merging cache tables.", e);
+					}
+
+					// resolve xlinks based on temp tables. every xlink stage 
+					// uses worker pools of its own
 					LOG.info("Resolving XLink references.");
-					xlinkResolverPool = new WorkerPool<DBXlink>(
-							"xlink_resolver_pool",
+					tmpSplitter = new DBXlinkSplitter(dbPool,
+							cacheTableManager, 
+							uidCacheManager,
+							importFilter,
 							minThreads,
 							maxThreads,
-							PoolSizeAdaptationStrategy.AGGRESSIVE,
-							new DBImportXlinkResolverWorkerFactory(dbPool, 
-									tmpXlinkPool, 
-									uidCacheManager, 
-									cacheTableManager, 
-									importFilter,
-									config, 
-									eventDispatcher),
-									queueSize,
-									false);
-
-					// prestart its workers
-					xlinkResolverPool.prestartCoreWorkers();
-
-					// resolve xlinks based on temp tables
-					if (shouldRun) {
-						tmpSplitter = new DBXlinkSplitter(cacheTableManager, 
-								xlinkResolverPool, 
-								tmpXlinkPool,
-								Event.GLOBAL_CHANNEL,
-								eventDispatcher);
-
-						tmpSplitter.startQuery();
-					}
+							queueSize,
+							config,
+							Event.GLOBAL_CHANNEL,
+							eventDispatcher);
 
-					// shutdown worker pools
-					try {
-						xlinkResolverPool.shutdownAndWait();
-					} catch (InterruptedException e) {
-						throw new CityGMLImportException("Failed to shutdown worker pools.", e);
-					}
+					tmpSplitter.startQuery();
 				}
 
-				// shutdown tmp xlink pool
-				try {
-					tmpXlinkPool.shutdownAndWait();
-				} catch (InterruptedException e) {
-					throw new CityGMLImportException("Failed to shutdown worker pools.", e);
+				// remember the hashes of the imported features
+				if (shouldRun && deltaImportManager != null) {
+					LOG.info(deltaImportManager.getSkipped() + " unchanged top-level feature(s) skipped.");
+					LOG.info(deltaImportManager.getReplaced() + " previous version(s) of changed top-level features replaced.");
+					if (deltaImportManager.getWithoutGmlId() > 0)
+						LOG.warn(deltaImportManager.getWithoutGmlId() + " top-level feature(s) without gml:id imported. These cannot be replaced by subsequent delta imports.");
+
+					try {
+						deltaImportManager.commit();
+					} catch (SQLException e) {
+						throw new CityGMLImportException("SQL error while updating content hashes for delta import.", e);
+					}
 				}
 
 				eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("import.dialog.finish.msg"), this));
 				eventDispatcher.triggerEvent(new StatusDialogProgressBar(true, this));
 
 				// show XML validation errors
-				if (xmlValidation.isSetUseXMLValidation() && xmlValidationErrorCounter > 0)
-					LOG.warn(xmlValidationErrorCounter + " error(s) encountered while validating the document.");
+				if (xmlValidation.isSetUseXMLValidation() && xmlValidationErrorCounter.get() > 0)
+					LOG.warn(xmlValidationErrorCounter.get() + " error(s) encountered while validating the document.");
 
-				xmlValidationErrorCounter = 0;
+				xmlValidationErrorCounter.set(0);
 			} finally {
 				// clean up
 				if (featureWorkerPool != null && !featureWorkerPool.isTerminated())
@@ -512,12 +623,12 @@ public class Importer implements EventHandler {
 				if (dbWorkerPool != null && !dbWorkerPool.isTerminated())
 					dbWorkerPool.shutdownNow();
 
-				if (xlinkResolverPool != null && !xlinkResolverPool.isTerminated())
-					xlinkResolverPool.shutdownNow();
-
 				if (tmpXlinkPool != null && !tmpXlinkPool.isTerminated())
 					tmpXlinkPool.shutdownNow();
 
+				if (deltaImportManager != null)
+					deltaImportManager.reset();
+
 				try {
 					eventDispatcher.flushEvents();
 				} catch (InterruptedException e) {
@@ -597,23 +708,19 @@ public class Importer implements EventHandler {
 
 	private void manageIndexes(boolean enable, boolean workOnSpatialIndexes) throws SQLException {
 		AbstractUtilAdapter utilAdapter = dbPool.getActiveDatabaseAdapter().getUtil();
+		Index indexConfig = config.getProject().getImporter().getIndexes();
 		LOG.info((enable ? "Activating " : "Deactivating ") + (workOnSpatialIndexes ? "spatial" : "normal") + " indexes...");
 
-		IndexStatusInfo indexStatus = null;
-		if (enable) {
-			indexStatus = workOnSpatialIndexes ? utilAdapter.createSpatialIndexes() : utilAdapter.createNormalIndexes();
-		} else {
-			indexStatus = workOnSpatialIndexes ? utilAdapter.dropSpatialIndexes() : utilAdapter.dropNormalIndexes();	
-		}
+		ParallelIndexManager indexManager = new ParallelIndexManager(utilAdapter, indexConfig.getParallelism(), indexConfig.getMaintenanceWorkMem(), eventDispatcher);
+		IndexType type = workOnSpatialIndexes ? IndexType.SPATIAL : IndexType.NORMAL;
+		List<IndexInfoObject> indexObjects = enable ? indexManager.createIndexes(type) : indexManager.dropIndexes(type);
 
-		if (indexStatus != null) {
-			IndexStatus expectedStatus = enable ? IndexStatus.VALID : IndexStatus.DROPPED;
-			for (IndexInfoObject indexObj : indexStatus.getIndexObjects()) {
-				if (indexObj.getStatus() != expectedStatus) {
-					LOG.error("FAILED: " + indexObj.toString());
-					if (indexObj.hasErrorMessage())
-						LOG.error("Error cause: " + indexObj.getErrorMessage());
-				}
+		IndexStatus expectedStatus = enable ? IndexStatus.VALID : IndexStatus.DROPPED;
+		for (IndexInfoObject indexObj : indexObjects) {
+			if (indexObj.getStatus() != expectedStatus) {
+				LOG.error("FAILED: " + indexObj.toString());
+				if (indexObj.hasErrorMessage())
+					LOG.error("Error cause: " + indexObj.getErrorMessage());
 			}
 		}
 	}
@@ -675,11 +782,15 @@ public class Importer implements EventHandler {
 
 				if (directoryScanner != null)
 					directoryScanner.stopScanning();
+
+				FeatureIndexReader featureIndexReader = this.featureIndexReader;
+				if (featureIndexReader != null)
+					featureIndexReader.stopReading();
 			}
 		}
 	}
 
-	private final class ValidationErrorHandler implements ValidationEventHandler {
+	private final class ValidationErrorHandler implements ValidationEventHandler, ErrorHandler {
 		boolean allErrors = false;
 
 		@Override
@@ -704,9 +815,33 @@ public class Importer implements EventHandler {
 			msg.append(": ").append(event.getMessage());
 			LOG.log(type, msg.toString());
 
-			xmlValidationErrorCounter++;
+			xmlValidationErrorCounter.incrementAndGet();
 			return allErrors;
 		}
+
+		@Override
+		public void warning(SAXParseException e) throws SAXException {
+			write(e, "Warning", LogLevel.WARN);
+		}
+
+		@Override
+		public void error(SAXParseException e) throws SAXException {
+			write(e, "Invalid content", LogLevel.ERROR);
+		}
+
+		@Override
+		public void fatalError(SAXParseException e) throws SAXException {
+			write(e, "Invalid content", LogLevel.ERROR);
+		}
+
+		private void write(SAXParseException e, String prefix, LogLevel level) throws SAXException {
+			LOG.log(level, prefix + ": " + e.getMessage());
+			xmlValidationErrorCounter.incrementAndGet();
+
+			// abort validation of the current top-level feature
+			if (!allErrors)
+				throw e;
+		}
 	}
 
 }
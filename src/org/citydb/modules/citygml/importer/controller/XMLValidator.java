@@ -28,38 +28,30 @@
 package org.citydb.modules.citygml.importer.controller;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.XMLConstants;
-import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
-import javax.xml.validation.Validator;
 
+import org.citydb.api.concurrent.PoolSizeAdaptationStrategy;
+import org.citydb.api.concurrent.WorkerPool;
 import org.citydb.api.event.Event;
 import org.citydb.api.event.EventDispatcher;
 import org.citydb.api.event.EventHandler;
 import org.citydb.api.log.LogLevel;
 import org.citydb.config.Config;
 import org.citydb.config.internal.Internal;
-import org.citydb.config.language.Language;
 import org.citydb.io.DirectoryScanner;
 import org.citydb.io.DirectoryScanner.CityGMLFilenameFilter;
 import org.citydb.log.Logger;
-import org.citydb.modules.common.event.CounterEvent;
-import org.citydb.modules.common.event.CounterType;
+import org.citydb.modules.citygml.importer.concurrent.XMLValidationWorkerFactory;
 import org.citydb.modules.common.event.EventType;
 import org.citydb.modules.common.event.InterruptEvent;
-import org.citydb.modules.common.event.StatusDialogMessage;
-import org.citydb.modules.common.event.StatusDialogTitle;
 import org.citydb.util.Util;
 import org.citygml4j.xml.schema.SchemaHandler;
-import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
-import org.xml.sax.SAXParseException;
 
 public class XMLValidator implements EventHandler {
 	private final Logger LOG = Logger.getInstance();
@@ -69,8 +61,7 @@ public class XMLValidator implements EventHandler {
 
 	private volatile boolean shouldRun = true;
 	private DirectoryScanner directoryScanner;
-	private boolean reportAllErrors;
-	private InputStream inputStream;
+	private WorkerPool<File> validationPool;
 	
 	public XMLValidator(Config config, EventDispatcher eventDispatcher) {
 		this.config = config;
@@ -106,53 +97,44 @@ public class XMLValidator implements EventHandler {
 		LOG.info(remainingFiles + " file(s) will be validated.");
 
 		// prepare XML validation
-		reportAllErrors = !config.getProject().getImporter().getXMLValidation().isSetReportOneErrorPerFeature();
-		Validator validator = null;
-		ValidationErrorHandler errorHandler = new ValidationErrorHandler();
+		boolean reportAllErrors = !config.getProject().getImporter().getXMLValidation().isSetReportOneErrorPerFeature();
+		Schema schema = null;
 		try {
 			SchemaHandler schemaHandler = SchemaHandler.newInstance();
 			SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);		
-			Schema schema = schemaFactory.newSchema(schemaHandler.getSchemaSources());	
-			validator = schema.newValidator();
+			schema = schemaFactory.newSchema(schemaHandler.getSchemaSources());	
 		} catch (SAXException e) {
 			LOG.error("Failed to create CityGML schema context: " + e.getMessage());
 			return false;
 		}
 
+		// worker pool settings
+		// the compiled schema is shared, so files can be validated in parallel
+		int maxThreads = Math.min(importFiles.size(), config.getProject().getImporter().getResources().getThreadPool().getDefaultPool().getMaxThreads());
+		int minThreads = Math.min(maxThreads, config.getProject().getImporter().getResources().getThreadPool().getDefaultPool().getMinThreads());
+
 		long start = System.currentTimeMillis();
-		
-		while (shouldRun && fileCounter < importFiles.size()) {			
-			File file = importFiles.get(fileCounter++);
-			intConfig.setImportPath(file.getParent());
-
-			eventDispatcher.triggerEvent(new StatusDialogTitle(file.getName(), this));
-			eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("validate.dialog.validate.msg"), this));
-			eventDispatcher.triggerEvent(new CounterEvent(CounterType.FILE, --remainingFiles, this));
-
-			// ok, preparation done. inform user and start validating the input file
-			try {
-				LOG.info("Validating file: " + file.toString());
-				
-				validator.reset(); 
-				validator.setErrorHandler(errorHandler);
-				errorHandler.reset();
-				
-				inputStream = new FileInputStream(file);
-				validator.validate(new StreamSource(inputStream));	
-			} catch (SAXException | IOException e) {
-				if (!errorHandler.isAborted && shouldRun)
-					LOG.error("Failed to validate CityGML file: " + e.getMessage());
-			}
 
-			eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("validate.dialog.finish.msg"), this));
+		validationPool = new WorkerPool<File>(
+				"xml_validation_pool",
+				minThreads,
+				maxThreads,
+				PoolSizeAdaptationStrategy.AGGRESSIVE,
+				new XMLValidationWorkerFactory(schema, reportAllErrors, new AtomicInteger(remainingFiles), eventDispatcher),
+				maxThreads * 2,
+				false);
+
+		validationPool.prestartCoreWorkers();
 
-			// show XML validation errors
-			if (errorHandler.errors > 0)
-				LOG.warn(errorHandler.errors + " error(s) reported while validating the document.");
-			else if (errorHandler.errors == 0 && shouldRun)
-				LOG.info("The CityGML file is valid.");
+		while (shouldRun && fileCounter < importFiles.size())
+			validationPool.addWork(importFiles.get(fileCounter++));
+
+		try {
+			validationPool.shutdownAndWait();
+		} catch (InterruptedException e) {
+			LOG.error("Failed to shutdown XML validation workers: " + e.getMessage());
 		}
-		
+
 		if (shouldRun)
 			LOG.info("Total validation time: " + Util.formatElapsedTime(System.currentTimeMillis() - start) + ".");
 
@@ -179,50 +161,8 @@ public class XMLValidator implements EventHandler {
 			if (directoryScanner != null)
 				directoryScanner.stopScanning();
 
-			if (inputStream != null)
-				inputStream.close();
-		}
-	}
-
-	private final class ValidationErrorHandler implements ErrorHandler {
-		int errors;
-		boolean isAborted;
-
-		public void reset() {
-			errors = 0;
-			isAborted = false;
-		}
-
-		@Override
-		public void warning(SAXParseException e) throws SAXException {
-			write(e, "Warning", LogLevel.WARN);
-		}
-
-		@Override
-		public void fatalError(SAXParseException e) throws SAXException {
-			write(e, "Invalid content", LogLevel.ERROR);
-		}
-
-		@Override
-		public void error(SAXParseException e) throws SAXException {
-			write(e, "Invalid content", LogLevel.ERROR);
-		}
-
-		public void write(SAXParseException e, String prefix, LogLevel level) throws SAXException {
-			if (!isAborted) {
-				StringBuilder msg = new StringBuilder()
-				.append(prefix).append(" at ")
-				.append('[').append(e.getLineNumber()).append(',').append(e.getColumnNumber()).append("]: ")
-				.append(e.getMessage());
-				LOG.log(level, msg.toString());
-
-				errors++;						
-
-				if (!reportAllErrors) {
-					isAborted = true;
-					throw new SAXException();
-				}
-			}
+			if (validationPool != null)
+				validationPool.shutdownNow();
 		}
 	}
 
@@ -80,6 +80,7 @@ public class DBImporterManager {
 	private LocalTextureCoordinatesResolver localTexCoordResolver;
 	private CityGMLVersion cityGMLVersion;
 	private JAXBMarshaller jaxbMarshaller;
+	private Marshaller marshaller;
 	private SAXWriter saxWriter;
 	private boolean isLogImportedFeatures;
 
@@ -399,8 +400,11 @@ public class DBImporterManager {
 			saxWriter.setOutput(out);
 			saxWriter.setNamespaceContext(ctx);
 
-			Marshaller marshaller = jaxbBuilder.getJAXBContext().createMarshaller();
-			marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+			if (marshaller == null) {
+				marshaller = jaxbBuilder.getJAXBContext().createMarshaller();
+				marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+			}
+
 			JAXBElement<?> jaxbElement = jaxbMarshaller.marshalJAXBElement(object);
 			if (jaxbElement != null)
 				marshaller.marshal(jaxbElement, saxWriter);
@@ -45,6 +45,7 @@ import org.citydb.modules.citygml.common.database.xlink.DBXlinkLinearRing;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkSolidGeometry;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkSurfaceGeometry;
 import org.citydb.modules.citygml.importer.util.LocalTextureCoordinatesResolver;
+import org.citydb.modules.citygml.importer.util.CoordinateBuffer;
 import org.citydb.modules.citygml.importer.util.RingValidator;
 import org.citydb.util.Util;
 import org.citygml4j.model.citygml.CityGMLClass;
@@ -108,6 +109,7 @@ public class DBSurfaceGeometry implements DBImporter {
 	private String nullGeometryTypeName;
 	private LocalTextureCoordinatesResolver localTexCoordResolver;
 	private RingValidator ringValidator;
+	private CoordinateBuffer ringCoordinates;
 
 	public DBSurfaceGeometry(Connection batchConn, Config config, DBImporterManager dbImporterManager) throws SQLException {
 		this.batchConn = batchConn;
@@ -153,6 +155,7 @@ public class DBSurfaceGeometry implements DBImporter {
 		pkManager = new PrimaryKeyManager();
 		localTexCoordResolver = dbImporterManager.getLocalTextureCoordinatesResolver();
 		ringValidator = new RingValidator();
+		ringCoordinates = new CoordinateBuffer();
 	}
 
 	public boolean isSurfaceGeometry(AbstractGeometry abstractGeometry) {
@@ -284,12 +287,13 @@ public class DBSurfaceGeometry implements DBImporter {
 		// a single linearRing
 		if (surfaceGeometryType == GMLClass.LINEAR_RING) {
 			LinearRing linearRing = (LinearRing)surfaceGeometry;
-			if (!ringValidator.validate(linearRing, origGmlId))
+			if (!ringValidator.validate(linearRing, ringCoordinates, origGmlId))
 				return;
 
-			List<Double> points = linearRing.toList3d(reverse);
 			if (applyTransformation)
-				dbImporterManager.getAffineTransformer().transformCoordinates(points);
+				ringCoordinates.transform(dbImporterManager.getAffineTransformer());
+
+			double[] coordinates = ringCoordinates.toArray(reverse);
 
 			// well, taking care about geometry is not enough... this ring could
 			// be referenced by a <textureCoordinates> element. since we cannot store
@@ -308,12 +312,6 @@ public class DBSurfaceGeometry implements DBImporter {
 				}
 			}
 
-			double[] coordinates = new double[points.size()];
-
-			int i = 0;
-			for (Double point : points)
-				coordinates[i++] = point.doubleValue();
-
 			GeometryObject geomObj = GeometryObject.createPolygon(coordinates, 3, dbSrid);
 			Object obj = dbImporterManager.getDatabaseAdapter().getGeometryConverter().getDatabaseObject(geomObj, batchConn);
 
@@ -356,18 +354,17 @@ public class DBSurfaceGeometry implements DBImporter {
 			Polygon polygon = (Polygon)surfaceGeometry;
 
 			if (polygon.isSetExterior()) {
-				List<List<Double>> pointList = new ArrayList<List<Double>>();
+				List<double[]> pointList = new ArrayList<double[]>();
 				AbstractRing exteriorAbstractRing = polygon.getExterior().getRing();
 				if (exteriorAbstractRing instanceof LinearRing) {
 					LinearRing exteriorLinearRing = (LinearRing)exteriorAbstractRing;
-					if (!ringValidator.validate(exteriorLinearRing, origGmlId))
+					if (!ringValidator.validate(exteriorLinearRing, ringCoordinates, origGmlId))
 						return;
 
-					List<Double> points = exteriorLinearRing.toList3d(reverse);
 					if (applyTransformation)
-						dbImporterManager.getAffineTransformer().transformCoordinates(points);
+						ringCoordinates.transform(dbImporterManager.getAffineTransformer());
 
-					pointList.add(points);
+					pointList.add(ringCoordinates.toArray(reverse));
 					int ringNo = 0;
 					dbImporterManager.updateGeometryCounter(GMLClass.LINEAR_RING);
 
@@ -393,14 +390,13 @@ public class DBSurfaceGeometry implements DBImporter {
 							AbstractRing interiorAbstractRing = abstractRingProperty.getRing();
 							if (interiorAbstractRing instanceof LinearRing) {								
 								LinearRing interiorLinearRing = (LinearRing)interiorAbstractRing;
-								if (!ringValidator.validate(interiorLinearRing, origGmlId))
+								if (!ringValidator.validate(interiorLinearRing, ringCoordinates, origGmlId))
 									continue;
 
-								List<Double> interiorPoints = interiorLinearRing.toList3d(reverse);
 								if (applyTransformation)
-									dbImporterManager.getAffineTransformer().transformCoordinates(interiorPoints);
+									ringCoordinates.transform(dbImporterManager.getAffineTransformer());
 
-								pointList.add(interiorPoints);
+								pointList.add(ringCoordinates.toArray(reverse));
 
 								dbImporterManager.updateGeometryCounter(GMLClass.LINEAR_RING);
 
@@ -429,21 +425,7 @@ public class DBSurfaceGeometry implements DBImporter {
 						}
 					}
 
-					double[][] coordinates = new double[pointList.size()][];
-					int i = 0;
-					for (List<Double> coordsList : pointList) {
-						double[] coords = new double[coordsList.size()];
-
-						int j = 0;
-						for (Double coord : coordsList) {
-							coords[j] = coord.doubleValue();
-							j++;
-						}
-
-						coordinates[i] = coords;	
-						i++;
-					}
-
+					double[][] coordinates = pointList.toArray(new double[pointList.size()][]);
 					GeometryObject geomObj = GeometryObject.createPolygon(coordinates, 3, dbSrid);
 					Object obj = dbImporterManager.getDatabaseAdapter().getGeometryConverter().getDatabaseObject(geomObj, batchConn);
 
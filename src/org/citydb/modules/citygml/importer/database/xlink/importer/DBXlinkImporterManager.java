@@ -35,12 +35,15 @@ import org.citydb.api.event.EventDispatcher;
 import org.citydb.database.adapter.AbstractDatabaseAdapter;
 import org.citydb.modules.citygml.common.database.cache.CacheTable;
 import org.citydb.modules.citygml.common.database.cache.CacheTableManager;
+import org.citydb.modules.citygml.common.database.cache.CacheTableShard;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableModelEnum;
 
 public class DBXlinkImporterManager {
 	private final CacheTableManager cacheTableManager;
 	private final EventDispatcher eventDispatcher;
 	private HashMap<DBXlinkImporterEnum, DBXlinkImporter> dbImporterMap;
+	private CacheTableShard shard;
+	private boolean isShardAcquired;
 
 	public DBXlinkImporterManager(CacheTableManager cacheTableManager, EventDispatcher eventDispatcher) {
 		this.cacheTableManager = cacheTableManager;
@@ -58,43 +61,43 @@ public class DBXlinkImporterManager {
 
 			switch (xlinkType) {
 			case SURFACE_GEOMETRY:
-				tempTable = cacheTableManager.createCacheTable(CacheTableModelEnum.SURFACE_GEOMETRY);
+				tempTable = createCacheTable(CacheTableModelEnum.SURFACE_GEOMETRY);
 				break;
 			case LINEAR_RING:
-				tempTable = cacheTableManager.createCacheTable(CacheTableModelEnum.LINEAR_RING);
+				tempTable = createCacheTable(CacheTableModelEnum.LINEAR_RING);
 				break;
 			case XLINK_BASIC:
-				tempTable = cacheTableManager.createCacheTable(CacheTableModelEnum.BASIC);
+				tempTable = createCacheTable(CacheTableModelEnum.BASIC);
 				break;
 			case XLINK_TEXTURE_COORD_LIST:
-				tempTable = cacheTableManager.createCacheTable(CacheTableModelEnum.TEXTURE_COORD_LIST);
+				tempTable = createCacheTable(CacheTableModelEnum.TEXTURE_COORD_LIST);
 				break;
 			case XLINK_TEXTUREPARAM:
-				tempTable = cacheTableManager.createCacheTable(CacheTableModelEnum.TEXTUREPARAM);
+				tempTable = createCacheTable(CacheTableModelEnum.TEXTUREPARAM);
 				break;
 			case TEXTUREASSOCIATION_TARGET:
-				tempTable = cacheTableManager.createCacheTable(CacheTableModelEnum.TEXTUREASSOCIATION_TARGET);
+				tempTable = createCacheTable(CacheTableModelEnum.TEXTUREASSOCIATION_TARGET);
 				break;
 			case XLINK_TEXTUREASSOCIATION:
-				tempTable = cacheTableManager.createCacheTable(CacheTableModelEnum.TEXTUREASSOCIATION);
+				tempTable = createCacheTable(CacheTableModelEnum.TEXTUREASSOCIATION);
 				break;
 			case TEXTURE_FILE:
-				tempTable = cacheTableManager.createCacheTable(CacheTableModelEnum.TEXTURE_FILE);
+				tempTable = createCacheTable(CacheTableModelEnum.TEXTURE_FILE);
 				break;
 			case SURFACE_DATA_TO_TEX_IMAGE:
-				tempTable = cacheTableManager.createCacheTable(CacheTableModelEnum.SURFACE_DATA_TO_TEX_IMAGE);
+				tempTable = createCacheTable(CacheTableModelEnum.SURFACE_DATA_TO_TEX_IMAGE);
 				break;
 			case LIBRARY_OBJECT:
-				tempTable = cacheTableManager.createCacheTable(CacheTableModelEnum.LIBRARY_OBJECT);
+				tempTable = createCacheTable(CacheTableModelEnum.LIBRARY_OBJECT);
 				break;
 			case XLINK_DEPRECATED_MATERIAL:
-				tempTable = cacheTableManager.createCacheTable(CacheTableModelEnum.DEPRECATED_MATERIAL);
+				tempTable = createCacheTable(CacheTableModelEnum.DEPRECATED_MATERIAL);
 				break;
 			case GROUP_TO_CITYOBJECT:
-				tempTable = cacheTableManager.createCacheTable(CacheTableModelEnum.GROUP_TO_CITYOBJECT);
+				tempTable = createCacheTable(CacheTableModelEnum.GROUP_TO_CITYOBJECT);
 				break;
 			case SOLID_GEOMETRY:
-				tempTable = cacheTableManager.createCacheTable(CacheTableModelEnum.SOLID_GEOMETRY);
+				tempTable = createCacheTable(CacheTableModelEnum.SOLID_GEOMETRY);
 				break;
 			}
 
@@ -150,6 +153,16 @@ public class DBXlinkImporterManager {
 		return dbImporter;
 	}
 
+	private CacheTable createCacheTable(CacheTableModelEnum model) throws SQLException {
+		// while the import is running, xlinks are spooled to a shard of our own
+		if (!isShardAcquired) {
+			shard = cacheTableManager.acquireShard();
+			isShardAcquired = true;
+		}
+
+		return shard != null ? shard.createCacheTable(model) : cacheTableManager.createCacheTable(model);
+	}
+
 	public void propagateEvent(Event event) {
 		eventDispatcher.triggerEvent(event);
 	}
@@ -164,7 +177,14 @@ public class DBXlinkImporterManager {
 	}
 	
 	public void close() throws SQLException {
-		for (DBXlinkImporter dbImporter : dbImporterMap.values())
-			dbImporter.close();
+		try {
+			for (DBXlinkImporter dbImporter : dbImporterMap.values())
+				dbImporter.close();
+		} finally {
+			if (shard != null) {
+				cacheTableManager.releaseShard(shard);
+				shard = null;
+			}
+		}
 	}
 }
@@ -0,0 +1,217 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.importer.database.xlink.resolver;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+
+import org.citydb.api.event.EventDispatcher;
+import org.citydb.config.Config;
+import org.citydb.database.DatabaseConnectionPool;
+import org.citydb.database.TableEnum;
+import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.database.adapter.AbstractSQLAdapter;
+import org.citydb.log.Logger;
+import org.citydb.modules.citygml.common.database.cache.CacheTable;
+import org.citydb.modules.citygml.common.database.cache.CacheTableManager;
+import org.citydb.modules.citygml.common.database.cache.model.CacheTableModelEnum;
+import org.citydb.modules.citygml.common.database.uid.UIDCacheEntry;
+import org.citydb.modules.citygml.common.database.uid.UIDCacheManager;
+import org.citydb.modules.common.event.ProgressBarEventType;
+import org.citydb.modules.common.event.StatusDialogProgressBar;
+import org.citygml4j.model.citygml.CityGMLClass;
+
+public class DBXlinkBasicBulkResolver {
+	private final Logger LOG = Logger.getInstance();
+
+	private final CacheTableManager cacheTableManager;
+	private final UIDCacheManager uidCacheManager;
+	private final Config config;
+	private final EventDispatcher eventDispatcher;
+	private volatile boolean shouldRun = true;
+
+	public DBXlinkBasicBulkResolver(CacheTableManager cacheTableManager, 
+			UIDCacheManager uidCacheManager, 
+			Config config, 
+			EventDispatcher eventDispatcher) {
+		this.cacheTableManager = cacheTableManager;
+		this.uidCacheManager = uidCacheManager;
+		this.config = config;
+		this.eventDispatcher = eventDispatcher;
+	}
+
+	public void resolve(CacheTable basicTable, Connection cacheConnection) throws SQLException {
+		AbstractDatabaseAdapter databaseAdapter = DatabaseConnectionPool.getInstance().getActiveDatabaseAdapter();
+		CacheTable targetTable = cacheTableManager.createCacheTableInDatabase(CacheTableModelEnum.BASIC_TARGET);
+		Connection conn = targetTable.getConnection();
+
+		// try and change workspace for temporary table
+		if (databaseAdapter.hasVersioningSupport()) {
+			databaseAdapter.getWorkspaceManager().gotoWorkspace(conn, 
+					config.getProject().getDatabase().getWorkspaces().getImportWorkspace());
+		}
+
+		DBGmlIdResolver gmlIdResolver = null;
+		AbstractSQLAdapter sqlAdapter = databaseAdapter.getSQLAdapter();
+		PreparedStatement psInsert = null;
+		Statement stmt = null;
+		ResultSet rs = null;
+
+		try {
+			gmlIdResolver = new DBGmlIdResolver(conn, uidCacheManager);
+			psInsert = conn.prepareStatement("insert into " + targetTable.getTableName() + " (ID, FROM_TABLE, TO_TABLE, ATTRNAME, TARGET_ID) values (?, ?, ?, ?, ?)");
+
+			// first step: copy the xlinks together with the resolved target ids 
+			// into a temporary table in the database
+			LinkedHashMap<String, String> statements = new LinkedHashMap<String, String>();
+			int maxBatchSize = databaseAdapter.getMaxBatchSize();
+			int batchCounter = 0;
+			int rowCounter = 0;
+
+			stmt = cacheConnection.createStatement();
+			rs = stmt.executeQuery("select * from " + basicTable.getTableName());
+
+			while (rs.next() && shouldRun) {
+				if (++rowCounter == maxBatchSize) {
+					eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.UPDATE, rowCounter, this));
+					rowCounter = 0;
+				}
+
+				long id = rs.getLong("ID");
+				int fromTable = rs.getInt("FROM_TABLE");
+				String gmlId = rs.getString("GMLID");
+				int toTable = rs.getInt("TO_TABLE");
+				String attrName = rs.getString("ATTRNAME");
+
+				if (attrName != null && attrName.length() == 0)
+					attrName = null;
+
+				CityGMLClass type = TableEnum.fromInt(toTable) == TableEnum.SURFACE_GEOMETRY ? 
+						CityGMLClass.ABSTRACT_GML_GEOMETRY : CityGMLClass.ABSTRACT_CITY_OBJECT;
+
+				UIDCacheEntry entry = gmlIdResolver.getDBId(gmlId, type, false);
+				if (entry == null)
+					LOG.error("Failed to resolve XLink reference '" + gmlId + "'.");
+				else {
+					String key = fromTable + "_" + toTable + "_" + attrName;
+					if (!statements.containsKey(key))
+						statements.put(key, getStatement(sqlAdapter, targetTable.getTableName(), TableEnum.fromInt(fromTable), TableEnum.fromInt(toTable), attrName));
+
+					if (statements.get(key) == null)
+						continue;
+
+					psInsert.setLong(1, id);
+					psInsert.setInt(2, fromTable);
+					psInsert.setInt(3, toTable);
+					psInsert.setString(4, attrName);
+					psInsert.setLong(5, entry.getId());
+
+					psInsert.addBatch();
+					if (++batchCounter == maxBatchSize) {
+						psInsert.executeBatch();
+						batchCounter = 0;
+					}
+				}
+			}
+
+			psInsert.executeBatch();
+			eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.UPDATE, rowCounter, this));
+
+			if (!shouldRun)
+				return;
+
+			// second step: resolve each group of xlinks with a single statement
+			targetTable.createIndexes();
+			Statement updateStmt = null;
+
+			try {
+				updateStmt = conn.createStatement();
+				for (String statement : statements.values()) {
+					if (statement != null && shouldRun)
+						updateStmt.executeUpdate(statement);
+				}
+			} finally {
+				if (updateStmt != null) {
+					updateStmt.close();
+					updateStmt = null;
+				}
+			}
+
+			conn.commit();
+		} finally {
+			if (rs != null) {
+				rs.close();
+				rs = null;
+			}
+
+			if (stmt != null) {
+				stmt.close();
+				stmt = null;
+			}
+
+			if (psInsert != null) {
+				psInsert.close();
+				psInsert = null;
+			}
+
+			if (gmlIdResolver != null) {
+				gmlIdResolver.close();
+				gmlIdResolver = null;
+			}
+
+			cacheTableManager.drop(targetTable);
+		}
+	}
+
+	private String getStatement(AbstractSQLAdapter sqlAdapter, String tableName, TableEnum fromTable, TableEnum toTable, String attrName) {
+		StringBuilder where = new StringBuilder(" from ").append(tableName)
+				.append(" where FROM_TABLE=").append(fromTable.ordinal())
+				.append(" and TO_TABLE=").append(toTable.ordinal())
+				.append(" and ATTRNAME").append(attrName != null ? "='" + attrName + "'" : " is null");
+
+		String linkTable = XlinkBasic.getLinkTable(fromTable, toTable);
+		if (linkTable != null)
+			return "insert into " + linkTable + " select TARGET_ID, ID" + where.toString();
+
+		else if (attrName != null)
+			return sqlAdapter.getUpdateFromSelect(fromTable.toString(), attrName, 
+					"select ID, max(TARGET_ID) as VAL" + where.toString() + " group by ID");
+
+		else
+			return null;
+	}
+
+	public void interrupt() {
+		shouldRun = false;
+	}
+
+}
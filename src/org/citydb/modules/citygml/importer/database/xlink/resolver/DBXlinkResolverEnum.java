@@ -29,6 +29,7 @@ package org.citydb.modules.citygml.importer.database.xlink.resolver;
 
 public enum DBXlinkResolverEnum {
 	SURFACE_GEOMETRY,
+	SURFACE_GEOMETRY_COPY,
 	SOLID_GEOMETRY,
 	TEXCOORDLIST,
 	TEXTUREPARAM,
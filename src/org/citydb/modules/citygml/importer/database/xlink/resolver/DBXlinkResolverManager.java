@@ -102,9 +102,15 @@ public class DBXlinkResolverManager {
 				if (surfaceGeomHeapView != null)
 					dbResolver = new XlinkSurfaceGeometry(connection, surfaceGeomHeapView, this);
 
+				break;
+			case SURFACE_GEOMETRY_COPY:
+				CacheTable surfaceGeomCopy = cacheTableManager.getCacheTable(CacheTableModelEnum.SURFACE_GEOMETRY_COPY);
+				if (surfaceGeomCopy != null)
+					dbResolver = new XlinkSurfaceGeometryCopy(connection, surfaceGeomCopy, this);
+
 				break;
 			case BASIC:
-				dbResolver = new XlinkBasic(connection, this);
+				dbResolver = new XlinkBasic(connection, config.getProject().getImporter().getDelta().isSetUseDeltaImport(), this);
 				break;
 			case TEXCOORDLIST:
 				CacheTable texCoords = cacheTableManager.getCacheTable(CacheTableModelEnum.TEXTURE_COORD_LIST);
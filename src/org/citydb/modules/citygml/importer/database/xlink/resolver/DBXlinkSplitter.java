@@ -27,164 +27,255 @@
  */
 package org.citydb.modules.citygml.importer.database.xlink.resolver;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.MessageFormat;
-
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.citydb.api.concurrent.PoolSizeAdaptationStrategy;
 import org.citydb.api.concurrent.WorkerPool;
 import org.citydb.api.event.Event;
 import org.citydb.api.event.EventDispatcher;
 import org.citydb.api.event.EventHandler;
 import org.citydb.api.log.LogLevel;
+import org.citydb.config.Config;
 import org.citydb.config.language.Language;
+import org.citydb.database.DatabaseConnectionPool;
 import org.citydb.database.TableEnum;
+import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.database.adapter.AbstractSQLAdapter;
 import org.citydb.log.Logger;
 import org.citydb.modules.citygml.common.database.cache.CacheTable;
 import org.citydb.modules.citygml.common.database.cache.CacheTableManager;
 import org.citydb.modules.citygml.common.database.cache.model.CacheTableModelEnum;
+import org.citydb.modules.citygml.common.database.uid.UIDCacheEntry;
+import org.citydb.modules.citygml.common.database.uid.UIDCacheManager;
 import org.citydb.modules.citygml.common.database.xlink.DBXlink;
-import org.citydb.modules.citygml.common.database.xlink.DBXlinkBasic;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkDeprecatedMaterial;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkGroupToCityObject;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkLibraryObject;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkSolidGeometry;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkSurfaceDataToTexImage;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkSurfaceGeometry;
+import org.citydb.modules.citygml.common.database.xlink.DBXlinkSurfaceGeometryBatch;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkTextureAssociation;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkTextureCoordList;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkTextureFile;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkTextureParam;
 import org.citydb.modules.citygml.common.database.xlink.DBXlinkTextureParamEnum;
+import org.citydb.modules.citygml.importer.concurrent.DBImportXlinkResolverWorkerFactory;
+import org.citydb.modules.citygml.importer.concurrent.DBImportXlinkWorkerFactory;
 import org.citydb.modules.common.event.EventType;
 import org.citydb.modules.common.event.InterruptEvent;
 import org.citydb.modules.common.event.InterruptReason;
 import org.citydb.modules.common.event.ProgressBarEventType;
 import org.citydb.modules.common.event.StatusDialogMessage;
 import org.citydb.modules.common.event.StatusDialogProgressBar;
+import org.citydb.modules.common.filter.ImportFilter;
+import org.citydb.util.Util;
+import org.citygml4j.model.citygml.CityGMLClass;
 
 public class DBXlinkSplitter implements EventHandler {
 	private final Logger LOG = Logger.getInstance();
 
+	private final DatabaseConnectionPool dbPool;
 	private final CacheTableManager cacheTableManager;
-	private final WorkerPool<DBXlink> xlinkResolverPool;
-	private final WorkerPool<DBXlink> tmpXlinkPool;
+	private final UIDCacheManager uidCacheManager;
+	private final ImportFilter importFilter;
+	private final int minThreads;
+	private final int maxThreads;
+	private final int queueSize;
 	private final Object eventChannel;
 	private final EventDispatcher eventDispatcher;
+	private final Config config;
+	private final DBXlinkBasicBulkResolver basicBulkResolver;
 	private volatile boolean shouldRun = true;
-
-	public DBXlinkSplitter(CacheTableManager cacheTableManager, 
-			WorkerPool<DBXlink> xlinkResolverPool, 
-			WorkerPool<DBXlink> tmpXlinkPool,
+	private int stageThreads;
+
+	public DBXlinkSplitter(DatabaseConnectionPool dbPool,
+			CacheTableManager cacheTableManager, 
+			UIDCacheManager uidCacheManager,
+			ImportFilter importFilter,
+			int minThreads,
+			int maxThreads,
+			int queueSize,
+			Config config,
 			Object eventChannel,
 			EventDispatcher eventDispatcher) {
+		this.dbPool = dbPool;
 		this.cacheTableManager = cacheTableManager;
-		this.xlinkResolverPool = xlinkResolverPool;
-		this.tmpXlinkPool = tmpXlinkPool;
+		this.uidCacheManager = uidCacheManager;
+		this.importFilter = importFilter;
+		this.minThreads = minThreads;
+		this.maxThreads = maxThreads;
+		this.queueSize = queueSize;
 		this.eventChannel = eventChannel;
 		this.eventDispatcher = eventDispatcher;
+		this.config = config;
 
+		basicBulkResolver = new DBXlinkBasicBulkResolver(cacheTableManager, uidCacheManager, config, eventDispatcher);
 		eventDispatcher.addEventHandler(EventType.INTERRUPT, this);
 	}
 
 	public void startQuery() {
-		try {
-			basicXlinks();
-			groupMemberXLinks(true);
-			appearanceXlinks();
-			libraryObjectXLinks();
+		// stages can only run concurrently if each of them gets its own connection
+		// to the cache. otherwise, they are executed one after another
+		boolean concurrent = cacheTableManager.supportsConcurrentConnections();
+
+		// the stages running at the same time share the resolver threads, since 
+		// every resolver worker keeps a connection from the database pool
+		int stages = 0;
+		for (XlinkStage stage : XlinkStage.values()) {
+			if (stage.usesWorkerPools && hasWork(stage))
+				stages++;
+		}
 
-			if (!shouldRun)
-				return;
+		stageThreads = concurrent ? Math.max(1, maxThreads / Math.max(1, stages)) : maxThreads;
 
-			// restart xlink worker pools
-			// just to make sure all appearance xlinks have been handled
-			// before starting to work on geometry xlinks
-			try {
-				xlinkResolverPool.join();
-				tmpXlinkPool.join();
-			} catch (InterruptedException e) {
-				//
+		ExecutorService service = Executors.newFixedThreadPool(concurrent ? XlinkStage.values().length : 1, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r);
+				t.setDaemon(true);
+				return t;
 			}
+		});
 
-			// xlinks to deprecated appearances can only be handled if
-			// appearances have been fully written - otherwise information is
-			// missing in tables SURFACE_DATA and TEXTURPARAM
-			deprecatedMaterialXlinks();
+		try {
+			// every stage is submitted right away but waits for its prerequisites
+			// to complete. stages are declared in topological order, so the futures 
+			// of all prerequisites are known when a stage is submitted
+			EnumMap<XlinkStage, Future<Void>> futures = new EnumMap<XlinkStage, Future<Void>>(XlinkStage.class);
+			for (XlinkStage stage : XlinkStage.values()) {
+				List<Future<Void>> prerequisites = new ArrayList<Future<Void>>(stage.prerequisites.length);
+				for (XlinkStage prerequisite : stage.prerequisites)
+					prerequisites.add(futures.get(prerequisite));
+
+				futures.put(stage, service.submit(new StageTask(stage, prerequisites)));
+			}
 
-			// handling geometry xlinks is more tricky...
-			// the reason is that we really hard copy the entries within the database.
-			// now imagine the following situation: a geometry referenced by an xlink
-			// itself points to another geometry. in order to really copy any information
-			// we have to resolve the inner xlink firstly. afterwards we can deal with the
-			// outer xlink. thus, we need a recursive strategy here...
-			surfaceGeometryXlinks(true);
+			SQLException exception = null;
+			for (Future<Void> future : futures.values()) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					shouldRun = false;
+				} catch (ExecutionException e) {
+					// stop all other stages as soon as one of them fails
+					shouldRun = false;
+					if (exception == null)
+						exception = getSQLException(e);
+				}
+			}
 
-			// rebuild solid geometry objects referencing surfaces from other features
-			// this requires that we have resolved surface geometry xlinks first
-			solidGeometryXlinks();
+			if (exception != null)
+				throw exception;
 		} catch (SQLException e) {
 			// fire interrupt event to stop other import workers
 			eventDispatcher.triggerEvent(new InterruptEvent(InterruptReason.SQL_ERROR, "Aborting import due to SQL errors.", LogLevel.WARN, e, eventChannel, this));
 		} finally {
+			service.shutdownNow();
 			eventDispatcher.removeEventHandler(this);
 		}
 	}
 
-	private void basicXlinks() throws SQLException {
-		if (!shouldRun)
+	private void resolve(XlinkStage stage) throws SQLException {
+		if (!hasWork(stage))
 			return;
 
-		Statement stmt = null;
-		ResultSet rs = null;
+		StageContext context = new StageContext();
 
 		try {
-			CacheTable cacheTable = cacheTableManager.getCacheTable(CacheTableModelEnum.BASIC);	
-			if (cacheTable == null)
-				return;
+			switch (stage) {
+			case BASIC:
+				basicXlinks(context);
+				break;
+			case GROUP_TO_CITYOBJECT:
+				groupMemberXLinks(context, true);
+				break;
+			case APPEARANCE:
+				appearanceXlinks(context);
+				break;
+			case LIBRARY_OBJECT:
+				libraryObjectXLinks(context);
+				break;
+			case DEPRECATED_MATERIAL:
+				deprecatedMaterialXlinks(context);
+				break;
+			case SURFACE_GEOMETRY:
+				surfaceGeometryXlinks(context);
+				break;
+			case SOLID_GEOMETRY:
+				solidGeometryXlinks(context);
+				break;
+			}
+		} finally {
+			// shutting down the worker pools of the stage waits until all of 
+			// its xlinks have been resolved and committed
+			context.close();
+		}
+	}
 
-			LOG.info("Resolving feature XLinks...");
-			eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.INIT, (int)cacheTable.size(), this));
-			eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("import.dialog.basicXLink.msg"), this));
+	private boolean hasWork(XlinkStage stage) {
+		switch (stage) {
+		case BASIC:
+			return cacheTableManager.existsCacheTable(CacheTableModelEnum.BASIC);
+		case GROUP_TO_CITYOBJECT:
+			return cacheTableManager.existsCacheTable(CacheTableModelEnum.GROUP_TO_CITYOBJECT);
+		case APPEARANCE:
+			return cacheTableManager.existsCacheTable(CacheTableModelEnum.TEXTURE_COORD_LIST) ||
+					cacheTableManager.existsCacheTable(CacheTableModelEnum.TEXTUREPARAM) ||
+					cacheTableManager.existsCacheTable(CacheTableModelEnum.SURFACE_DATA_TO_TEX_IMAGE);
+		case LIBRARY_OBJECT:
+			return cacheTableManager.existsCacheTable(CacheTableModelEnum.LIBRARY_OBJECT);
+		case DEPRECATED_MATERIAL:
+			return cacheTableManager.existsCacheTable(CacheTableModelEnum.DEPRECATED_MATERIAL);
+		case SURFACE_GEOMETRY:
+			return cacheTableManager.existsCacheTable(CacheTableModelEnum.SURFACE_GEOMETRY);
+		case SOLID_GEOMETRY:
+			return cacheTableManager.existsCacheTable(CacheTableModelEnum.SOLID_GEOMETRY);
+		default:
+			return false;
+		}
+	}
 
-			stmt = cacheTable.getConnection().createStatement();
-			rs = stmt.executeQuery("select * from " + cacheTable.getTableName());
+	private SQLException getSQLException(ExecutionException e) {
+		// failures of a prerequisite are reported as nested execution exceptions
+		Throwable cause = e.getCause();
+		while (cause instanceof ExecutionException && cause.getCause() != null)
+			cause = cause.getCause();
 
-			while (rs.next() && shouldRun) {
-				eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.UPDATE, 1, this));
+		return cause instanceof SQLException ? (SQLException)cause : new SQLException(cause);
+	}
 
-				long id = rs.getLong("ID");
-				int fromTable = rs.getInt("FROM_TABLE");
-				String gmlId = rs.getString("GMLID");
-				int toTable = rs.getInt("TO_TABLE");
-				String attrName = rs.getString("ATTRNAME");
+	private void basicXlinks(StageContext context) throws SQLException {
+		if (!shouldRun)
+			return;
 
-				// set initial context...
-				DBXlinkBasic xlink = new DBXlinkBasic(
-						id,
-						TableEnum.fromInt(fromTable),
-						gmlId,
-						TableEnum.fromInt(toTable));
+		CacheTable cacheTable = cacheTableManager.getCacheTable(CacheTableModelEnum.BASIC);	
+		if (cacheTable == null)
+			return;
 
-				if (attrName != null && attrName.length() != 0)
-					xlink.setAttrName(attrName);
+		LOG.info("Resolving feature XLinks...");
+		eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.INIT, (int)cacheTable.size(), this));
+		eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("import.dialog.basicXLink.msg"), this));
 
-				xlinkResolverPool.addWork(xlink);
-			}
-		} finally {
-			if (rs != null) {
-				rs.close();
-				rs = null;
-			}
-
-			if (stmt != null) {
-				stmt.close();
-				stmt = null;
-			}
-		}
+		// feature xlinks are resolved set-based within the database
+		basicBulkResolver.resolve(cacheTable, context.connection);
 	}
 
-	private void groupMemberXLinks(boolean checkRecursive) throws SQLException {
+	private void groupMemberXLinks(StageContext context, boolean checkRecursive) throws SQLException {
 		if (!shouldRun)
 			return;
 
@@ -194,10 +285,11 @@ public class DBXlinkSplitter implements EventHandler {
 
 		LOG.info("Resolving CityObjectGroup XLinks...");
 
-		queryGroupMemberXLinks(cacheTable, checkRecursive, -1, 1);
+		queryGroupMemberXLinks(context, cacheTable, checkRecursive, -1, 1);
 	}
 
-	private void queryGroupMemberXLinks(CacheTable cacheTable, 
+	private void queryGroupMemberXLinks(StageContext context,
+			CacheTable cacheTable, 
 			boolean checkRecursive, 
 			long remaining, 
 			int pass) throws SQLException {
@@ -213,7 +305,7 @@ public class DBXlinkSplitter implements EventHandler {
 			CacheTable mirrorTable = cacheTable.mirrorAndIndex();
 			cacheTable.truncate();
 
-			stmt = mirrorTable.getConnection().createStatement();
+			stmt = context.createStatement();
 			rs = stmt.executeQuery("select * from " + mirrorTable.getTableName());
 
 			while (rs.next() && shouldRun) {
@@ -231,26 +323,21 @@ public class DBXlinkSplitter implements EventHandler {
 						isParent == 1);
 
 				xlink.setRole(role);
-				xlinkResolverPool.addWork(xlink);
+				context.addWork(xlink);
 			}
 
 			if (checkRecursive && shouldRun) {
 				rs.close();
 				stmt.close();
 
-				try {
-					xlinkResolverPool.join();
-					tmpXlinkPool.join();
-				} catch (InterruptedException e) {
-					//
-				}
+				context.join();
 
 				long unresolved = cacheTable.size();
 				if (unresolved > 0) {
 					if (unresolved != remaining) {
 						// we still have unresolved xlinks... so do another recursion
 						cacheTable.dropMirrorTable();
-						queryGroupMemberXLinks(cacheTable, checkRecursive, unresolved, ++pass);
+						queryGroupMemberXLinks(context, cacheTable, checkRecursive, unresolved, ++pass);
 					} else {
 						// we detected a cycle and cannot resolve the remaining xlinks
 						LOG.error("Illegal graph cycle in grouping detected. XLink references cannot be resolved.");
@@ -270,7 +357,7 @@ public class DBXlinkSplitter implements EventHandler {
 		}
 	}
 
-	private void appearanceXlinks() throws SQLException {
+	private void appearanceXlinks(StageContext context) throws SQLException {
 		if (!shouldRun)
 			return;
 
@@ -301,7 +388,7 @@ public class DBXlinkSplitter implements EventHandler {
 				texCoordTable.createIndexes();
 				linearRingTable.createIndexes();
 
-				stmt = texCoordTable.getConnection().createStatement();
+				stmt = context.createStatement();
 				rs = stmt.executeQuery(new StringBuilder("select tc.ID, tc.GMLID, tc.TEXPARAM_GMLID, tc.TARGET_ID, lr.PARENT_ID, lr.REVERSE from ").append(texCoordTable.getTableName()).append(" tc ")
 						.append(" join ").append(linearRingTable.getTableName()).append(" lr on tc.GMLID=lr.GMLID where lr.RING_NO = 0").toString());
 
@@ -324,7 +411,7 @@ public class DBXlinkSplitter implements EventHandler {
 					xlink.setSurfaceGeometryId(surfaceGeometryId);
 					xlink.setReverse(reverse);
 
-					xlinkResolverPool.addWork(xlink);
+					context.addWork(xlink);
 				}
 
 				rs.close();
@@ -333,7 +420,7 @@ public class DBXlinkSplitter implements EventHandler {
 
 			// second step: resolve texture param other than texture coordinates
 			if (texParamTableTable != null) {			
-				stmt = texParamTableTable.getConnection().createStatement();
+				stmt = context.createStatement();
 				rs = stmt.executeQuery("select * from " + texParamTableTable.getTableName());
 
 				while (rs.next() && shouldRun) {
@@ -356,7 +443,7 @@ public class DBXlinkSplitter implements EventHandler {
 					xlink.setTexParamGmlId(texParamGmlId);
 					xlink.setWorldToTexture(worldToTexture);
 
-					xlinkResolverPool.addWork(xlink);
+					context.addWork(xlink);
 				}
 
 				rs.close();
@@ -374,7 +461,7 @@ public class DBXlinkSplitter implements EventHandler {
 				eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.INIT, (int)temporaryTable.size(), this));
 				eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("import.dialog.texImg.msg"), this));
 
-				stmt = temporaryTable.getConnection().createStatement();
+				stmt = context.createStatement();
 				rs = stmt.executeQuery("select * from " + temporaryTable.getTableName());
 
 				while (rs.next() && shouldRun) {
@@ -384,7 +471,7 @@ public class DBXlinkSplitter implements EventHandler {
 					String imageURI = rs.getString("FILE_URI");
 					boolean isWorldFile = rs.getBoolean("IS_WORLD_FILE");
 
-					xlinkResolverPool.addWork(new DBXlinkTextureFile(id, imageURI, isWorldFile));
+					context.addWork(new DBXlinkTextureFile(id, imageURI, isWorldFile));
 				}
 
 				rs.close();
@@ -392,12 +479,7 @@ public class DBXlinkSplitter implements EventHandler {
 			}
 
 			// restart xlink worker pools
-			try {
-				xlinkResolverPool.join();
-				tmpXlinkPool.join();
-			} catch (InterruptedException e) {
-				//
-			}
+			context.join();
 
 			// fourth step: linking surface data to texture images
 			if (cacheTableManager.existsCacheTable(CacheTableModelEnum.SURFACE_DATA_TO_TEX_IMAGE)) {
@@ -407,7 +489,7 @@ public class DBXlinkSplitter implements EventHandler {
 				eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.INIT, (int)temporaryTable.size(), this));
 				eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("import.dialog.linkTexImg.msg"), this));
 
-				stmt = temporaryTable.getConnection().createStatement();
+				stmt = context.createStatement();
 				rs = stmt.executeQuery("select * from " + temporaryTable.getTableName());
 
 				while (rs.next() && shouldRun) {
@@ -416,7 +498,7 @@ public class DBXlinkSplitter implements EventHandler {
 					long fromId = rs.getLong("FROM_ID");
 					long toId = rs.getLong("TO_ID");
 
-					xlinkResolverPool.addWork(new DBXlinkSurfaceDataToTexImage(fromId, toId));
+					context.addWork(new DBXlinkSurfaceDataToTexImage(fromId, toId));
 				}
 
 				rs.close();
@@ -424,12 +506,7 @@ public class DBXlinkSplitter implements EventHandler {
 			}
 
 			// restart xlink worker pools
-			try {
-				xlinkResolverPool.join();
-				tmpXlinkPool.join();
-			} catch (InterruptedException e) {
-				//
-			}
+			context.join();
 
 			if (!shouldRun)
 				return;
@@ -443,7 +520,7 @@ public class DBXlinkSplitter implements EventHandler {
 				eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.INIT, (int)cacheTable.size(), this));
 				eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("import.dialog.appXlink.msg"), this));
 
-				stmt = cacheTable.getConnection().createStatement();
+				stmt = context.createStatement();
 				rs = stmt.executeQuery("select * from " + cacheTable.getTableName());
 
 				while (rs.next() && shouldRun) {
@@ -453,7 +530,7 @@ public class DBXlinkSplitter implements EventHandler {
 					String gmlId = rs.getString("GMLID");
 					String targetURI = rs.getString("TARGET_URI");
 
-					xlinkResolverPool.addWork(new DBXlinkTextureAssociation(
+					context.addWork(new DBXlinkTextureAssociation(
 							id,
 							gmlId,
 							targetURI));
@@ -473,7 +550,7 @@ public class DBXlinkSplitter implements EventHandler {
 		}
 	}
 
-	private void libraryObjectXLinks() throws SQLException {
+	private void libraryObjectXLinks(StageContext context) throws SQLException {
 		if (!shouldRun)
 			return;
 
@@ -489,7 +566,7 @@ public class DBXlinkSplitter implements EventHandler {
 			eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.INIT, (int)cacheTable.size(), this));
 			eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("import.dialog.libObj.msg"), this));
 
-			stmt = cacheTable.getConnection().createStatement();
+			stmt = context.createStatement();
 			rs = stmt.executeQuery("select * from " + cacheTable.getTableName());
 
 			while (rs.next() && shouldRun) {
@@ -503,7 +580,7 @@ public class DBXlinkSplitter implements EventHandler {
 						id,
 						imageURI);
 
-				xlinkResolverPool.addWork(xlink);
+				context.addWork(xlink);
 			}
 		} finally {
 			if (rs != null) {
@@ -518,7 +595,7 @@ public class DBXlinkSplitter implements EventHandler {
 		}
 	}
 
-	private void deprecatedMaterialXlinks() throws SQLException {
+	private void deprecatedMaterialXlinks(StageContext context) throws SQLException {
 		if (!shouldRun)
 			return;
 
@@ -534,7 +611,7 @@ public class DBXlinkSplitter implements EventHandler {
 			eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.INIT, (int)cacheTable.size(), this));
 			eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("import.dialog.depMat.msg"), this));
 
-			stmt = cacheTable.getConnection().createStatement();
+			stmt = context.createStatement();
 			rs = stmt.executeQuery("select * from " + cacheTable.getTableName());
 
 			while (rs.next() && shouldRun) {
@@ -550,7 +627,7 @@ public class DBXlinkSplitter implements EventHandler {
 						gmlId,
 						surfaceGeometryId);
 
-				xlinkResolverPool.addWork(xlink);
+				context.addWork(xlink);
 			}
 		} finally {
 			if (rs != null) {
@@ -565,7 +642,7 @@ public class DBXlinkSplitter implements EventHandler {
 		}
 	}
 
-	private void surfaceGeometryXlinks(boolean checkRecursive) throws SQLException {
+	private void surfaceGeometryXlinks(StageContext context) throws SQLException {
 		if (!shouldRun)
 			return;
 
@@ -575,31 +652,69 @@ public class DBXlinkSplitter implements EventHandler {
 
 		LOG.info("Resolving geometry XLinks...");
 
-		querySurfaceGeometryXlinks(cacheTable, checkRecursive, -1, 1);
+		AbstractDatabaseAdapter databaseAdapter = DatabaseConnectionPool.getInstance().getActiveDatabaseAdapter();
+		CacheTable copyTable = cacheTableManager.createCacheTableInDatabase(CacheTableModelEnum.SURFACE_GEOMETRY_COPY);
+		copyTable.createIndexes();
+
+		// the resolver workers write to the copy table on their own connections, so
+		// we must not keep the lock of the index creation
+		copyTable.getConnection().commit();
+
+		// try and change workspace for temporary table
+		if (databaseAdapter.hasVersioningSupport()) {
+			databaseAdapter.getWorkspaceManager().gotoWorkspace(copyTable.getConnection(), 
+					config.getProject().getDatabase().getWorkspaces().getImportWorkspace());
+		}
+
+		int batchSize = databaseAdapter.getMaxBatchSize();
+		int maxItems = databaseAdapter.getSQLAdapter().getMaximumNumberOfItemsForInOperator();
+		if (maxItems > 0 && maxItems < batchSize)
+			batchSize = maxItems;
+
+		try {
+			List<List<DBXlinkSurfaceGeometry>> levels = getSurfaceGeometryLevels(context, cacheTable, copyTable.getConnection(), batchSize);
+			long batchId = 0;
+
+			for (int pass = 0; pass < levels.size() && shouldRun; pass++) {
+				List<DBXlinkSurfaceGeometry> level = levels.get(pass);
+
+				eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.INIT, level.size(), this));
+				String text = Language.I18N.getString("import.dialog.geomXLink.msg");
+				Object[] args = new Object[]{ pass + 1 };
+				eventDispatcher.triggerEvent(new StatusDialogMessage(MessageFormat.format(text, args), this));
+
+				// xlinks on the same level do not depend on each other, so their
+				// geometries can be copied in parallel
+				for (int i = 0; i < level.size() && shouldRun; i += batchSize) {
+					List<DBXlinkSurfaceGeometry> batch = new ArrayList<DBXlinkSurfaceGeometry>(level.subList(i, Math.min(i + batchSize, level.size())));
+					context.addWork(new DBXlinkSurfaceGeometryBatch(++batchId, batch));
+					eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.UPDATE, batch.size(), this));
+				}
+
+				// the next level may only be copied once this level has been committed
+				context.join();
+			}
+		} finally {
+			cacheTableManager.drop(copyTable);
+		}
 	}
 
-	private void querySurfaceGeometryXlinks(CacheTable cacheTable, 
-			boolean checkRecursive, 
-			long remaining, 
-			int pass) throws SQLException {
+	private List<List<DBXlinkSurfaceGeometry>> getSurfaceGeometryLevels(StageContext context, CacheTable cacheTable, Connection connection, int batchSize) throws SQLException {
+		List<DBXlinkSurfaceGeometry> xlinks = new ArrayList<DBXlinkSurfaceGeometry>();
+		List<DBXlinkSurfaceGeometry> implicitXlinks = new ArrayList<DBXlinkSurfaceGeometry>();
+		HashMap<Long, List<Integer>> targets = new HashMap<Long, List<Integer>>();
+		HashMap<Long, List<Integer>> locations = new HashMap<Long, List<Integer>>();
+
+		DBGmlIdResolver gmlIdResolver = null;
 		Statement stmt = null;
 		ResultSet rs = null;
 
 		try {
-			eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.INIT, (remaining == -1) ? (int)cacheTable.size() : (int)remaining, this));
-			String text = Language.I18N.getString("import.dialog.geomXLink.msg");
-			Object[] args = new Object[]{ pass };
-			eventDispatcher.triggerEvent(new StatusDialogMessage(MessageFormat.format(text, args), this));
-
-			CacheTable mirrorTable = cacheTable.mirrorAndIndex();
-			cacheTable.truncate();
-
-			stmt = mirrorTable.getConnection().createStatement();
-			rs = stmt.executeQuery("select * from " + mirrorTable.getTableName());
+			gmlIdResolver = new DBGmlIdResolver(connection, uidCacheManager);
+			stmt = context.createStatement();
+			rs = stmt.executeQuery("select * from " + cacheTable.getTableName());
 
 			while (rs.next() && shouldRun) {
-				eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.UPDATE, 1, this));
-
 				long id = rs.getLong("ID");
 				long parentId = rs.getLong("PARENT_ID");
 				long rootId = rs.getLong("ROOT_ID");
@@ -620,31 +735,138 @@ public class DBXlinkSplitter implements EventHandler {
 						TableEnum.fromInt(fromTable),
 						attrName);
 
-				xlinkResolverPool.addWork(xlink);
-			}
+				// implicit geometries are not copied
+				if (xlink.getFromTable() == TableEnum.IMPLICIT_GEOMETRY) {
+					implicitXlinks.add(xlink);
+					continue;
+				}
 
-			if (checkRecursive && shouldRun) {
+				// remote gml:ids are not supported so far...
+				UIDCacheEntry entry = gmlIdResolver.getDBId(gmlId, CityGMLClass.ABSTRACT_GML_GEOMETRY, false);
+				if (entry == null || entry.getRootId() == -1 || Util.isRemoteXlink(entry.getMapping())) {
+					LOG.error("Failed to resolve XLink reference '" + gmlId + "'.");
+					continue;
+				}
+
+				// the copy of the referenced geometry is attached to the node given by the id
+				int index = xlinks.size();
+				xlinks.add(xlink);
+				addLocation(targets, entry.getId(), index);
+				addLocation(locations, id, index);
+			}
+		} finally {
+			if (rs != null) {
 				rs.close();
+				rs = null;
+			}
+
+			if (stmt != null) {
 				stmt.close();
+				stmt = null;
+			}
 
-				try {
-					xlinkResolverPool.join();
-					tmpXlinkPool.join();
-				} catch (InterruptedException e) {
-					//
+			if (gmlIdResolver != null) {
+				gmlIdResolver.close();
+				gmlIdResolver = null;
+			}
+		}
+
+		// order the xlinks topologically. an xlink can only be copied after all 
+		// xlinks attaching geometries anywhere inside its referenced geometry have 
+		// been resolved. so we have to check the full hierarchy of every target
+		int[] inDegree = new int[xlinks.size()];
+		HashMap<Integer, List<Integer>> dependents = new HashMap<Integer, List<Integer>>();
+		if (!locations.isEmpty())
+			addContainmentDependencies(connection, targets, locations, batchSize, inDegree, dependents);
+
+		List<Integer> current = new ArrayList<Integer>();
+		for (int i = 0; i < xlinks.size(); i++) {
+			if (inDegree[i] == 0)
+				current.add(i);
+		}
+
+		List<List<DBXlinkSurfaceGeometry>> levels = new ArrayList<List<DBXlinkSurfaceGeometry>>();
+		levels.add(implicitXlinks);
+		int resolved = 0;
+
+		while (!current.isEmpty()) {
+			List<DBXlinkSurfaceGeometry> level = levels.size() == 1 ? implicitXlinks : new ArrayList<DBXlinkSurfaceGeometry>();
+			List<Integer> next = new ArrayList<Integer>();
+
+			for (Integer index : current) {
+				level.add(xlinks.get(index));
+				resolved++;
+
+				List<Integer> tmp = dependents.get(index);
+				if (tmp != null) {
+					for (Integer dependent : tmp) {
+						if (--inDegree[dependent] == 0)
+							next.add(dependent);
+					}
 				}
+			}
 
-				long unresolved = cacheTable.size();
-				if (unresolved > 0) {
-					if (unresolved != remaining) {
-						// we still have unresolved xlinks... so do another recursion
-						cacheTable.dropMirrorTable();
-						querySurfaceGeometryXlinks(cacheTable, checkRecursive, unresolved, ++pass);
-					} else {
-						// we detected a cycle and cannot resolve the remaining xlinks
-						LOG.error("Illegal graph cycle in geometry detected. XLink references cannot be resolved.");
+			if (level != implicitXlinks)
+				levels.add(level);
+
+			current = next;
+		}
+
+		if (resolved < xlinks.size()) {
+			// we detected a cycle and cannot resolve the remaining xlinks
+			LOG.error("Illegal graph cycle in geometry detected. XLink references cannot be resolved.");
+		}
+
+		return levels;
+	}
+
+	private void addContainmentDependencies(Connection connection,
+			HashMap<Long, List<Integer>> targets,
+			HashMap<Long, List<Integer>> locations,
+			int batchSize,
+			int[] inDegree,
+			HashMap<Integer, List<Integer>> dependents) throws SQLException {
+		AbstractSQLAdapter sqlAdapter = DatabaseConnectionPool.getInstance().getActiveDatabaseAdapter().getSQLAdapter();
+		List<Long> targetIds = new ArrayList<Long>(targets.keySet());
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+
+		try {
+			for (int i = 0; i < targetIds.size() && shouldRun; i += batchSize) {
+				List<Long> batch = targetIds.subList(i, Math.min(i + batchSize, targetIds.size()));
+				if (ps == null || batch.size() != batchSize) {
+					if (ps != null)
+						ps.close();
+
+					ps = connection.prepareStatement(sqlAdapter.getHierarchicalGeometryIdQuery(batch.size()));
+				}
+
+				int index = 1;
+				for (Long targetId : batch)
+					ps.setLong(index++, targetId);
+
+				rs = ps.executeQuery();
+				while (rs.next()) {
+					List<Integer> contained = locations.get(rs.getLong(2));
+					if (contained == null)
+						continue;
+
+					for (Integer dependent : targets.get(rs.getLong(1))) {
+						for (Integer dependency : contained) {
+							List<Integer> tmp = dependents.get(dependency);
+							if (tmp == null) {
+								tmp = new ArrayList<Integer>();
+								dependents.put(dependency, tmp);
+							}
+
+							tmp.add(dependent);
+							inDegree[dependent]++;
+						}
 					}
 				}
+
+				rs.close();
+				rs = null;
 			}
 		} finally {
 			if (rs != null) {
@@ -652,14 +874,27 @@ public class DBXlinkSplitter implements EventHandler {
 				rs = null;
 			}
 
-			if (stmt != null) {
-				stmt.close();
-				stmt = null;
+			if (ps != null) {
+				ps.close();
+				ps = null;
 			}
 		}
 	}
 
-	private void solidGeometryXlinks() throws SQLException {
+	private void addLocation(HashMap<Long, List<Integer>> locations, long id, int index) {
+		if (id == 0)
+			return;
+
+		List<Integer> tmp = locations.get(id);
+		if (tmp == null) {
+			tmp = new ArrayList<Integer>();
+			locations.put(id, tmp);
+		}
+
+		tmp.add(index);
+	}
+
+	private void solidGeometryXlinks(StageContext context) throws SQLException {
 		if (!shouldRun)
 			return;
 
@@ -674,7 +909,7 @@ public class DBXlinkSplitter implements EventHandler {
 			eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.INIT, (int)cacheTable.size(), this));
 			eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("import.dialog.solidXLink.msg"), this));
 
-			stmt = cacheTable.getConnection().createStatement();
+			stmt = context.createStatement();
 			rs = stmt.executeQuery("select * from " + cacheTable.getTableName());
 
 			while (rs.next() && shouldRun) {
@@ -684,7 +919,7 @@ public class DBXlinkSplitter implements EventHandler {
 
 				// set initial context
 				DBXlinkSolidGeometry xlink = new DBXlinkSolidGeometry(id);
-				xlinkResolverPool.addWork(xlink);
+				context.addWork(xlink);
 			}
 		} finally {
 			if (rs != null) {
@@ -699,10 +934,159 @@ public class DBXlinkSplitter implements EventHandler {
 		}
 	}
 
+	private enum XlinkStage {
+		// feature xlinks are resolved set-based without worker pools
+		BASIC(false),
+		GROUP_TO_CITYOBJECT(true),
+		APPEARANCE(true),
+		LIBRARY_OBJECT(true),
+
+		// xlinks to deprecated appearances can only be handled if
+		// appearances have been fully written - otherwise information is
+		// missing in tables SURFACE_DATA and TEXTURPARAM
+		DEPRECATED_MATERIAL(true, APPEARANCE),
+
+		// handling geometry xlinks is more tricky...
+		// the reason is that we really hard copy the entries within the database.
+		// now imagine the following situation: a geometry referenced by an xlink
+		// itself points to another geometry. in order to really copy any information
+		// we have to resolve the inner xlink firstly. afterwards we can deal with the
+		// outer xlink. thus, we need a recursive strategy here...
+		// feature xlinks and geometry xlinks both work on the database connection 
+		// of the cache table manager, so geometries are copied after feature xlinks
+		SURFACE_GEOMETRY(true, BASIC),
+
+		// rebuild solid geometry objects referencing surfaces from other features
+		// this requires that we have resolved surface geometry xlinks first
+		SOLID_GEOMETRY(true, SURFACE_GEOMETRY);
+
+		private final boolean usesWorkerPools;
+		private final XlinkStage[] prerequisites;
+
+		private XlinkStage(boolean usesWorkerPools, XlinkStage... prerequisites) {
+			this.usesWorkerPools = usesWorkerPools;
+			this.prerequisites = prerequisites;
+		}
+	}
+
+	// every stage reads its cache tables on its own connection and passes its xlinks
+	// to its own worker pools. joining these pools is the completion barrier of the 
+	// stage, so a stage never waits for the work of another stage
+	private final class StageContext {
+		private final Connection connection;
+		private WorkerPool<DBXlink> tmpXlinkPool;
+		private WorkerPool<DBXlink> xlinkResolverPool;
+
+		private StageContext() throws SQLException {
+			// make the cache tables filled during import visible
+			cacheTableManager.commit();
+			connection = cacheTableManager.openConnection();
+		}
+
+		private Statement createStatement() throws SQLException {
+			// make the cache tables written by the shared cache connection visible
+			cacheTableManager.commit();
+			return connection.createStatement();
+		}
+
+		private void addWork(DBXlink xlink) {
+			if (xlinkResolverPool == null) {
+				int coreThreads = Math.min(minThreads, stageThreads);
+
+				tmpXlinkPool = new WorkerPool<DBXlink>(
+						"xlink_importer_pool",
+						coreThreads,
+						stageThreads,
+						PoolSizeAdaptationStrategy.AGGRESSIVE,
+						new DBImportXlinkWorkerFactory(dbPool, cacheTableManager, config, eventDispatcher),
+						queueSize,
+						false);
+
+				xlinkResolverPool = new WorkerPool<DBXlink>(
+						"xlink_resolver_pool",
+						coreThreads,
+						stageThreads,
+						PoolSizeAdaptationStrategy.AGGRESSIVE,
+						new DBImportXlinkResolverWorkerFactory(dbPool, 
+								tmpXlinkPool, 
+								uidCacheManager, 
+								cacheTableManager, 
+								importFilter,
+								config, 
+								eventDispatcher),
+						queueSize,
+						false);
+
+				tmpXlinkPool.prestartCoreWorkers();
+				xlinkResolverPool.prestartCoreWorkers();
+			}
+
+			xlinkResolverPool.addWork(xlink);
+		}
+
+		private void join() {
+			if (xlinkResolverPool == null)
+				return;
+
+			// the pools are only used by this stage, so there are
+			// no concurrent producers or joins
+			try {
+				xlinkResolverPool.join();
+				tmpXlinkPool.join();
+			} catch (InterruptedException e) {
+				//
+			}
+		}
+
+		private void close() throws SQLException {
+			try {
+				if (xlinkResolverPool != null) {
+					try {
+						if (shouldRun) {
+							xlinkResolverPool.shutdownAndWait();
+							tmpXlinkPool.shutdownAndWait();
+						} else {
+							xlinkResolverPool.shutdownNow();
+							tmpXlinkPool.shutdownNow();
+						}
+					} catch (InterruptedException e) {
+						xlinkResolverPool.shutdownNow();
+						tmpXlinkPool.shutdownNow();
+					}
+				}
+			} finally {
+				cacheTableManager.closeConnection(connection);
+			}
+		}
+	}
+
+	private final class StageTask implements Callable<Void> {
+		private final XlinkStage stage;
+		private final List<Future<Void>> prerequisites;
+
+		private StageTask(XlinkStage stage, List<Future<Void>> prerequisites) {
+			this.stage = stage;
+			this.prerequisites = prerequisites;
+		}
+
+		@Override
+		public Void call() throws Exception {
+			for (Future<Void> prerequisite : prerequisites)
+				prerequisite.get();
+
+			if (shouldRun)
+				resolve(stage);
+
+			return null;
+		}
+	}
+
 	@Override
 	public void handleEvent(Event event) throws Exception {
-		if (event.getChannel() == eventChannel)
+		if (event.getChannel() == eventChannel) {
 			shouldRun = false;
+			basicBulkResolver.interrupt();
+		}
 	}
 
 }
@@ -41,12 +41,14 @@ import org.citygml4j.model.citygml.CityGMLClass;
 public class XlinkBasic implements DBXlinkResolver {
 	private final Connection batchConn;
 	private final DBXlinkResolverManager resolverManager;
+	private final boolean lookupGeneralizationInDatabase;
 
 	private HashMap<String, PreparedStatement> psMap;
 	private HashMap<String, Integer> psBatchCounterMap;
 
-	public XlinkBasic(Connection batchConn, DBXlinkResolverManager resolverManager) throws SQLException {
+	public XlinkBasic(Connection batchConn, boolean lookupGeneralizationInDatabase, DBXlinkResolverManager resolverManager) throws SQLException {
 		this.batchConn = batchConn;
+		this.lookupGeneralizationInDatabase = lookupGeneralizationInDatabase;
 		this.resolverManager = resolverManager;
 
 		psMap = new HashMap<String, PreparedStatement>();
@@ -57,7 +59,11 @@ public class XlinkBasic implements DBXlinkResolver {
 		CityGMLClass type = xlink.getToTable() == TableEnum.SURFACE_GEOMETRY ? 
 				CityGMLClass.ABSTRACT_GML_GEOMETRY : CityGMLClass.ABSTRACT_CITY_OBJECT;
 
-		UIDCacheEntry entry = resolverManager.getDBId(xlink.getGmlId(), type);
+		// unchanged features skipped by a delta import are only found in the database
+		boolean lookupInDatabase = lookupGeneralizationInDatabase && 
+				xlink.getFromTable() == TableEnum.CITYOBJECT && xlink.getToTable() == TableEnum.CITYOBJECT;
+
+		UIDCacheEntry entry = resolverManager.getDBId(xlink.getGmlId(), type, lookupInDatabase);
 		if (entry == null)
 			return false;
 
@@ -87,32 +93,9 @@ public class XlinkBasic implements DBXlinkResolver {
 		PreparedStatement ps = psMap.get(key);
 
 		if (ps == null) {
-			if (fromTable == TableEnum.THEMATIC_SURFACE && toTable == TableEnum.OPENING)
-				ps = batchConn.prepareStatement("insert into OPENING_TO_THEM_SURFACE (OPENING_ID, THEMATIC_SURFACE_ID) values (?, ?)");
-
-			else if (fromTable == TableEnum.BRIDGE_THEMATIC_SURFACE && toTable == TableEnum.BRIDGE_OPENING)
-				ps = batchConn.prepareStatement("insert into BRIDGE_OPEN_TO_THEM_SRF (BRIDGE_OPENING_ID, BRIDGE_THEMATIC_SURFACE_ID) values (?, ?)");
-
-			else if (fromTable == TableEnum.TUNNEL_THEMATIC_SURFACE && toTable == TableEnum.TUNNEL_OPENING)
-				ps = batchConn.prepareStatement("insert into TUNNEL_OPEN_TO_THEM_SRF (TUNNEL_OPENING_ID, TUNNEL_THEMATIC_SURFACE_ID) values (?, ?)");
-
-			else if (fromTable == TableEnum.APPEARANCE && toTable == TableEnum.SURFACE_DATA)
-				ps = batchConn.prepareStatement("insert into APPEAR_TO_SURFACE_DATA (SURFACE_DATA_ID, APPEARANCE_ID) values (?, ?)");
-
-			else if (fromTable == TableEnum.WATERBODY && toTable == TableEnum.WATERBOUNDARY_SURFACE)
-				ps = batchConn.prepareStatement("insert into WATERBOD_TO_WATERBND_SRF (WATERBOUNDARY_SURFACE_ID, WATERBODY_ID) values (?, ?)");
-
-			else if (fromTable == TableEnum.BUILDING && toTable == TableEnum.ADDRESS)
-				ps = batchConn.prepareStatement("insert into ADDRESS_TO_BUILDING (ADDRESS_ID, BUILDING_ID) values (?, ?)");
-
-			else if (fromTable == TableEnum.BRIDGE && toTable == TableEnum.ADDRESS)
-				ps = batchConn.prepareStatement("insert into ADDRESS_TO_BRIDGE (ADDRESS_ID, BRIDGE_ID) values (?, ?)");
-
-			else if (fromTable == TableEnum.RELIEF_FEATURE && toTable == TableEnum.RELIEF_COMPONENT)
-				ps = batchConn.prepareStatement("insert into RELIEF_FEAT_TO_REL_COMP (RELIEF_COMPONENT_ID, RELIEF_FEATURE_ID) values (?, ?)");
-
-			else if (fromTable == TableEnum.CITYOBJECT && toTable == TableEnum.CITYOBJECT)
-				ps = batchConn.prepareStatement("insert into GENERALIZATION (GENERALIZES_TO_ID, CITYOBJECT_ID) values (?, ?)");
+			String linkTable = getLinkTable(fromTable, toTable);
+			if (linkTable != null)
+				ps = batchConn.prepareStatement("insert into " + linkTable + " values (?, ?)");
 
 			else if (attrName != null)
 				ps = batchConn.prepareStatement("update " + fromTable + " set " + attrName + "=? where ID=?");
@@ -126,6 +109,38 @@ public class XlinkBasic implements DBXlinkResolver {
 		return ps;
 	}
 
+	static String getLinkTable(TableEnum fromTable, TableEnum toTable) {
+		if (fromTable == TableEnum.THEMATIC_SURFACE && toTable == TableEnum.OPENING)
+			return "OPENING_TO_THEM_SURFACE (OPENING_ID, THEMATIC_SURFACE_ID)";
+
+		else if (fromTable == TableEnum.BRIDGE_THEMATIC_SURFACE && toTable == TableEnum.BRIDGE_OPENING)
+			return "BRIDGE_OPEN_TO_THEM_SRF (BRIDGE_OPENING_ID, BRIDGE_THEMATIC_SURFACE_ID)";
+
+		else if (fromTable == TableEnum.TUNNEL_THEMATIC_SURFACE && toTable == TableEnum.TUNNEL_OPENING)
+			return "TUNNEL_OPEN_TO_THEM_SRF (TUNNEL_OPENING_ID, TUNNEL_THEMATIC_SURFACE_ID)";
+
+		else if (fromTable == TableEnum.APPEARANCE && toTable == TableEnum.SURFACE_DATA)
+			return "APPEAR_TO_SURFACE_DATA (SURFACE_DATA_ID, APPEARANCE_ID)";
+
+		else if (fromTable == TableEnum.WATERBODY && toTable == TableEnum.WATERBOUNDARY_SURFACE)
+			return "WATERBOD_TO_WATERBND_SRF (WATERBOUNDARY_SURFACE_ID, WATERBODY_ID)";
+
+		else if (fromTable == TableEnum.BUILDING && toTable == TableEnum.ADDRESS)
+			return "ADDRESS_TO_BUILDING (ADDRESS_ID, BUILDING_ID)";
+
+		else if (fromTable == TableEnum.BRIDGE && toTable == TableEnum.ADDRESS)
+			return "ADDRESS_TO_BRIDGE (ADDRESS_ID, BRIDGE_ID)";
+
+		else if (fromTable == TableEnum.RELIEF_FEATURE && toTable == TableEnum.RELIEF_COMPONENT)
+			return "RELIEF_FEAT_TO_REL_COMP (RELIEF_COMPONENT_ID, RELIEF_FEATURE_ID)";
+
+		else if (fromTable == TableEnum.CITYOBJECT && toTable == TableEnum.CITYOBJECT)
+			return "GENERALIZATION (GENERALIZES_TO_ID, CITYOBJECT_ID)";
+
+		else
+			return null;
+	}
+
 	private String getKey(DBXlinkBasic xlink) {
 		return xlink.getFromTable().ordinal() + "_" + xlink.getToTable().ordinal() + "_" + xlink.getAttrName();
 	}
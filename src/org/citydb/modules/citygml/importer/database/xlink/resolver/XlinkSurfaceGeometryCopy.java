@@ -0,0 +1,394 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.importer.database.xlink.resolver;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.citydb.api.geometry.GeometryObject;
+import org.citydb.database.TableEnum;
+import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.log.Logger;
+import org.citydb.modules.citygml.common.database.cache.CacheTable;
+import org.citydb.modules.citygml.common.database.uid.UIDCacheEntry;
+import org.citydb.modules.citygml.common.database.xlink.DBXlinkSurfaceGeometry;
+import org.citydb.modules.citygml.common.database.xlink.DBXlinkSurfaceGeometryBatch;
+import org.citydb.modules.citygml.importer.database.content.DBSequencerEnum;
+import org.citygml4j.model.citygml.CityGMLClass;
+
+public class XlinkSurfaceGeometryCopy implements DBXlinkResolver {
+	private static final ReentrantLock mainLock = new ReentrantLock();
+	private final Logger LOG = Logger.getInstance();
+
+	private final Connection batchConn;
+	private final DBXlinkResolverManager resolverManager;
+	private final AbstractDatabaseAdapter databaseAdapter;
+
+	private PreparedStatement psNextSeqValues;
+	private PreparedStatement psInsertCopy;
+	private PreparedStatement psCopySurfGeom;
+	private PreparedStatement psSelectReverse;
+	private PreparedStatement psUpdateGeometry;
+	private PreparedStatement psDeleteCopy;
+	private PreparedStatement psUpdateSurfGeom;
+	private HashMap<String, PreparedStatement> psMap;
+
+	private HashMap<String, Integer> psBatchCounterMap;
+	private int updateBatchCounter;
+
+	public XlinkSurfaceGeometryCopy(Connection batchConn, CacheTable copyTable, DBXlinkResolverManager resolverManager) throws SQLException {
+		this.batchConn = batchConn;
+		this.resolverManager = resolverManager;
+		databaseAdapter = resolverManager.getDatabaseAdapter();
+
+		psMap = new HashMap<String, PreparedStatement>();
+		psBatchCounterMap = new HashMap<String, Integer>();
+
+		init(copyTable.getTableName());
+	}
+
+	private void init(String copyTableName) throws SQLException {
+		psNextSeqValues = batchConn.prepareStatement(databaseAdapter.getSQLAdapter().getNextSequenceValuesQuery(DBSequencerEnum.SURFACE_GEOMETRY_ID_SEQ));
+		psInsertCopy = batchConn.prepareStatement("insert into " + copyTableName + " (BATCH_ID, OLD_ID, NEW_ID, NEW_PARENT_ID, NEW_ROOT_ID, REVERSE, CITYOBJECT_ID) values (?, ?, ?, ?, ?, ?, ?)");
+		psDeleteCopy = batchConn.prepareStatement("delete from " + copyTableName + " where BATCH_ID=?");
+		psUpdateSurfGeom = batchConn.prepareStatement("update SURFACE_GEOMETRY set IS_XLINK=1 where ID=?");
+		psUpdateGeometry = batchConn.prepareStatement("update SURFACE_GEOMETRY set GEOMETRY=? where ID=?");
+
+		psCopySurfGeom = batchConn.prepareStatement(new StringBuilder("insert into SURFACE_GEOMETRY (ID, GMLID, PARENT_ID, ROOT_ID, IS_SOLID, IS_COMPOSITE, IS_TRIANGULATED, IS_XLINK, IS_REVERSE, GEOMETRY, SOLID_GEOMETRY, CITYOBJECT_ID) ")
+				.append("select m.NEW_ID, sg.GMLID, m.NEW_PARENT_ID, m.NEW_ROOT_ID, sg.IS_SOLID, sg.IS_COMPOSITE, sg.IS_TRIANGULATED, 1, ")
+				.append("case when m.REVERSE=1 then 1-sg.IS_REVERSE else sg.IS_REVERSE end, sg.GEOMETRY, sg.SOLID_GEOMETRY, m.CITYOBJECT_ID ")
+				.append("from ").append(copyTableName).append(" m, SURFACE_GEOMETRY sg where m.OLD_ID=sg.ID and m.BATCH_ID=?").toString());
+
+		psSelectReverse = batchConn.prepareStatement(new StringBuilder("select m.NEW_ID, sg.GEOMETRY from ").append(copyTableName)
+				.append(" m, SURFACE_GEOMETRY sg where m.OLD_ID=sg.ID and m.BATCH_ID=? and m.REVERSE=1 and sg.GEOMETRY is not null").toString());
+	}
+
+	public boolean insert(DBXlinkSurfaceGeometryBatch batch) throws SQLException {
+		List<DBXlinkSurfaceGeometry> xlinks = new ArrayList<DBXlinkSurfaceGeometry>();
+		List<UIDCacheEntry> targets = new ArrayList<UIDCacheEntry>();
+		LinkedHashSet<Long> startIds = new LinkedHashSet<Long>();
+
+		for (DBXlinkSurfaceGeometry xlink : batch.getXlinks()) {
+			UIDCacheEntry entry = resolverManager.getDBId(xlink.getGmlId(), CityGMLClass.ABSTRACT_GML_GEOMETRY);
+			if (entry == null || entry.getRootId() == -1) {
+				// do not return an error in case of implicit geometries since the
+				// the implicit geometry might be a point or curve
+				if (xlink.getFromTable() != TableEnum.IMPLICIT_GEOMETRY)
+					LOG.error("Failed to resolve XLink reference '" + xlink.getGmlId() + "'.");
+
+				continue;
+			}
+
+			if (xlink.getFromTable() != TableEnum.IMPLICIT_GEOMETRY) {
+				xlinks.add(xlink);
+				targets.add(entry);
+				startIds.add(entry.getId());
+			}
+
+			psUpdateSurfGeom.setLong(1, entry.getId());
+			psUpdateSurfGeom.addBatch();
+			if (++updateBatchCounter == databaseAdapter.getMaxBatchSize())
+				executeUpdateSurfGeomBatch();
+		}
+
+		if (xlinks.isEmpty())
+			return true;
+
+		// read the structure of all referenced geometries with a single query
+		// and pre-allocate the ids of the copies
+		HashMap<Long, List<long[]>> hierarchies = readHierarchies(startIds);
+		int count = 0;
+		for (UIDCacheEntry target : targets) {
+			List<long[]> hierarchy = hierarchies.get(target.getId());
+			if (hierarchy != null)
+				count += hierarchy.size();
+		}
+
+		long[] ids = getNextIds(count);
+		HashMap<Long, Long> idMap = new HashMap<Long, Long>();
+		boolean hasReverse = false;
+		int index = 0;
+		int copyBatchCounter = 0;
+
+		for (int i = 0; i < xlinks.size(); i++) {
+			DBXlinkSurfaceGeometry xlink = xlinks.get(i);
+			UIDCacheEntry target = targets.get(i);
+
+			List<long[]> hierarchy = hierarchies.get(target.getId());
+			if (hierarchy == null) {
+				LOG.error("Failed to resolve XLink reference '" + xlink.getGmlId() + "'.");
+				continue;
+			}
+
+			idMap.clear();
+			for (long[] node : hierarchy)
+				idMap.put(node[0], ids[index++]);
+
+			long surfaceGeometryId = idMap.get(target.getId());
+			long rootId = xlink.getRootId() != 0 ? xlink.getRootId() : surfaceGeometryId;
+			boolean reverse = target.isReverse() ^ xlink.isReverse();
+			hasReverse |= reverse;
+
+			for (long[] node : hierarchy) {
+				psInsertCopy.setLong(1, batch.getBatchId());
+				psInsertCopy.setLong(2, node[0]);
+				psInsertCopy.setLong(3, idMap.get(node[0]));
+
+				if (node[0] != target.getId())
+					psInsertCopy.setLong(4, idMap.get(node[1]));
+				else if (xlink.getId() != 0)
+					psInsertCopy.setLong(4, xlink.getId());
+				else
+					psInsertCopy.setNull(4, Types.NULL);
+
+				psInsertCopy.setLong(5, rootId);
+				psInsertCopy.setInt(6, reverse ? 1 : 0);
+
+				if (xlink.getCityObjectId() != 0)
+					psInsertCopy.setLong(7, xlink.getCityObjectId());
+				else
+					psInsertCopy.setNull(7, Types.NULL);
+
+				psInsertCopy.addBatch();
+				if (++copyBatchCounter == databaseAdapter.getMaxBatchSize()) {
+					psInsertCopy.executeBatch();
+					copyBatchCounter = 0;
+				}
+			}
+
+			// if this is an xlink from a feature table, then we also let
+			// the geometry column of this table point to the geometry object 
+			if (xlink.getFromTable() != null && xlink.getFromTable() != TableEnum.UNDEFINED) {
+				String key = getKey(xlink);
+				PreparedStatement ps = getUpdateStatement(xlink, key);
+				ps.setLong(1, surfaceGeometryId);
+				ps.setLong(2, xlink.getCityObjectId());
+
+				ps.addBatch();
+				int counter = psBatchCounterMap.get(key);
+				if (++counter == databaseAdapter.getMaxBatchSize()) {
+					ps.executeBatch();
+					psBatchCounterMap.put(key, 0);
+				} else
+					psBatchCounterMap.put(key, counter);
+			}
+		}
+
+		psInsertCopy.executeBatch();
+
+		// copy all geometry hierarchies of this batch within the database
+		psCopySurfGeom.setLong(1, batch.getBatchId());
+		psCopySurfGeom.executeUpdate();
+
+		if (hasReverse)
+			reversePolygons(batch.getBatchId());
+
+		psDeleteCopy.setLong(1, batch.getBatchId());
+		psDeleteCopy.executeUpdate();
+
+		return true;
+	}
+
+	private HashMap<Long, List<long[]>> readHierarchies(LinkedHashSet<Long> startIds) throws SQLException {
+		HashMap<Long, List<long[]>> hierarchies = new HashMap<Long, List<long[]>>();
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+
+		try {
+			ps = batchConn.prepareStatement(databaseAdapter.getSQLAdapter().getHierarchicalGeometryIdQuery(startIds.size()));
+			int index = 1;
+			for (Long startId : startIds)
+				ps.setLong(index++, startId);
+
+			rs = ps.executeQuery();
+			while (rs.next()) {
+				long startId = rs.getLong(1);
+				List<long[]> hierarchy = hierarchies.get(startId);
+				if (hierarchy == null) {
+					hierarchy = new ArrayList<long[]>();
+					hierarchies.put(startId, hierarchy);
+				}
+
+				hierarchy.add(new long[]{ rs.getLong(2), rs.getLong(3) });
+			}
+
+			return hierarchies;
+		} finally {
+			if (rs != null) {
+				rs.close();
+				rs = null;
+			}
+
+			if (ps != null) {
+				ps.close();
+				ps = null;
+			}
+		}
+	}
+
+	private long[] getNextIds(int count) throws SQLException {
+		long[] ids = new long[count];
+		if (count == 0)
+			return ids;
+
+		ResultSet rs = null;
+
+		try {
+			psNextSeqValues.setInt(1, count);
+			rs = psNextSeqValues.executeQuery();
+
+			int i = 0;
+			while (rs.next())
+				ids[i++] = rs.getLong(1);
+
+			return ids;
+		} finally {
+			if (rs != null) {
+				rs.close();
+				rs = null;
+			}
+		}
+	}
+
+	private void reversePolygons(long batchId) throws SQLException {
+		ResultSet rs = null;
+		int batchCounter = 0;
+
+		try {
+			psSelectReverse.setLong(1, batchId);
+			rs = psSelectReverse.executeQuery();
+
+			while (rs.next()) {
+				long id = rs.getLong(1);
+				Object object = rs.getObject(2);
+				if (rs.wasNull() || object == null)
+					continue;
+
+				// reverse order of geometry instance
+				GeometryObject geometry = databaseAdapter.getGeometryConverter().getPolygon(object);
+				double[][] rings = new double[geometry.getNumElements()][];
+
+				for (int i = 0; i < rings.length; i++) {
+					double[] origRing = geometry.getCoordinates(i);
+					double[] reversedRing = new double[origRing.length];
+					for (int j = origRing.length - 3, ringIndex = 0; j >= 0; j -= 3) {
+						reversedRing[ringIndex++] = origRing[j];
+						reversedRing[ringIndex++] = origRing[j + 1];
+						reversedRing[ringIndex++] = origRing[j + 2];
+					}
+
+					rings[i] = reversedRing;
+				}
+
+				geometry = GeometryObject.createPolygon(rings, geometry.getDimension(), geometry.getSrid());
+				psUpdateGeometry.setObject(1, databaseAdapter.getGeometryConverter().getDatabaseObject(geometry, batchConn));
+				psUpdateGeometry.setLong(2, id);
+
+				psUpdateGeometry.addBatch();
+				if (++batchCounter == databaseAdapter.getMaxBatchSize()) {
+					psUpdateGeometry.executeBatch();
+					batchCounter = 0;
+				}
+			}
+
+			psUpdateGeometry.executeBatch();
+		} finally {
+			if (rs != null) {
+				rs.close();
+				rs = null;
+			}
+		}
+	}
+
+	private String getKey(DBXlinkSurfaceGeometry xlink) {
+		return xlink.getFromTable().ordinal() + "_" + xlink.getFromTableAttributeName();
+	}
+
+	private PreparedStatement getUpdateStatement(DBXlinkSurfaceGeometry xlink, String key) throws SQLException {
+		PreparedStatement ps = psMap.get(key);
+		if (ps == null) {
+			ps = batchConn.prepareStatement("update " + xlink.getFromTable() + " set " + xlink.getFromTableAttributeName() + "=? where ID=?");
+			psMap.put(key, ps);
+			psBatchCounterMap.put(key, 0);
+		}
+
+		return ps;
+	}
+
+	@Override
+	public void executeBatch() throws SQLException {
+		for (PreparedStatement ps : psMap.values())
+			ps.executeBatch();		
+
+		for (Entry<String, Integer> entry : psBatchCounterMap.entrySet())
+			entry.setValue(0);
+
+		executeUpdateSurfGeomBatch();
+	}
+
+	private void executeUpdateSurfGeomBatch() throws SQLException {
+		// we need to synchronize updates otherwise Oracle will run into deadlocks
+		final ReentrantLock lock = mainLock;
+		lock.lock();
+		try {
+			psUpdateSurfGeom.executeBatch();
+			updateBatchCounter = 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void close() throws SQLException {
+		psNextSeqValues.close();
+		psInsertCopy.close();
+		psCopySurfGeom.close();
+		psSelectReverse.close();
+		psUpdateGeometry.close();
+		psDeleteCopy.close();
+		psUpdateSurfGeom.close();
+
+		for (PreparedStatement ps : psMap.values())
+			ps.close();
+	}
+
+	@Override
+	public DBXlinkResolverEnum getDBXlinkResolverType() {
+		return DBXlinkResolverEnum.SURFACE_GEOMETRY_COPY;
+	}
+
+}
@@ -49,6 +49,7 @@ public class XMLValidationPanel extends AbstractPreferencesComponent {
 	private JCheckBox useXMLValidation;
 	private JLabel useXMLValidationDescr;
 	private JCheckBox oneError;
+	private JCheckBox parallel;
 	
 	public XMLValidationPanel(Config config) {
 		super(config);
@@ -61,6 +62,7 @@ public class XMLValidationPanel extends AbstractPreferencesComponent {
 		
 		if (useXMLValidation.isSelected() != xmlValidation.isSetUseXMLValidation()) return true;		
 		if (oneError.isSelected() != xmlValidation.isSetReportOneErrorPerFeature()) return true;
+		if (parallel.isSelected() != xmlValidation.isSetUseParallelValidation()) return true;
 		
 		return false;
 	}
@@ -69,6 +71,7 @@ public class XMLValidationPanel extends AbstractPreferencesComponent {
 		useXMLValidation = new JCheckBox("");
 		useXMLValidationDescr = new JLabel("");
 		oneError = new JCheckBox("");
+		parallel = new JCheckBox("");
 
 		setLayout(new GridBagLayout());
 		{
@@ -80,10 +83,12 @@ public class XMLValidationPanel extends AbstractPreferencesComponent {
 			useXMLValidationDescr.setFont(useXMLValidationDescr.getFont().deriveFont(Font.ITALIC));
 			int lmargin = (int)(useXMLValidation.getPreferredSize().getWidth()) + 11;
 			oneError.setIconTextGap(10);
+			parallel.setIconTextGap(10);
 			{
 				block1.add(useXMLValidation, GuiUtil.setConstraints(0,0,1.0,1.0,GridBagConstraints.BOTH,0,5,0,5));
 				block1.add(useXMLValidationDescr, GuiUtil.setConstraints(0,1,1.0,0.0,GridBagConstraints.BOTH,0,lmargin,5,5));		
 				block1.add(oneError, GuiUtil.setConstraints(0,2,1.0,1.0,GridBagConstraints.BOTH,0,5,0,5));
+				block1.add(parallel, GuiUtil.setConstraints(0,3,1.0,1.0,GridBagConstraints.BOTH,0,5,0,5));
 			}
 		}
 	}
@@ -94,6 +99,7 @@ public class XMLValidationPanel extends AbstractPreferencesComponent {
 		useXMLValidation.setText(Language.I18N.getString("pref.import.xmlValidation.label.useXMLValidation"));
 		useXMLValidationDescr.setText(Language.I18N.getString("pref.import.xmlValidation.label.useXMLValidation.description"));
 		oneError.setText(Language.I18N.getString("pref.import.xmlValidation.label.oneError"));
+		parallel.setText(Language.I18N.getString("pref.import.xmlValidation.label.parallel"));
 	}
 
 	@Override
@@ -102,6 +108,7 @@ public class XMLValidationPanel extends AbstractPreferencesComponent {
 
 		useXMLValidation.setSelected(xmlValidation.isSetUseXMLValidation());
 		oneError.setSelected(xmlValidation.isSetReportOneErrorPerFeature());	
+		parallel.setSelected(xmlValidation.isSetUseParallelValidation());
 	}
 
 	@Override
@@ -110,6 +117,7 @@ public class XMLValidationPanel extends AbstractPreferencesComponent {
 
 		xmlValidation.setUseXMLValidation(useXMLValidation.isSelected());
 		xmlValidation.setReportOneErrorPerFeature(oneError.isSelected());
+		xmlValidation.setUseParallelValidation(parallel.isSelected());
 	}
 	
 	@Override
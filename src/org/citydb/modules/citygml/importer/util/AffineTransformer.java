@@ -38,12 +38,18 @@ public class AffineTransformer {
 	private final Matrix matrix3x4;
 	private final Matrix inverse4x4;
 	private final Matrix inverse2x2;
+	private final double[] affine;
 	
 	public AffineTransformer(Config config) throws Exception {
 		matrix4x4 = toMatrix4x4(config.getProject().getImporter().getAffineTransformation().getTransformationMatrix());
 		matrix3x4 = matrix4x4.getMatrix(3, 4);
 		inverse4x4 = matrix4x4.inverse();
 		inverse2x2 = inverse4x4.getMatrix(2, 2);
+
+		affine = new double[12];
+		for (int i = 0; i < 3; i++)
+			for (int j = 0; j < 4; j++)
+				affine[i * 4 + j] = matrix3x4.get(i, j);
 		
 		// remove translation from matrix4x4 since it is used only
 		// in the context of implicit geometries for which translation
@@ -55,13 +61,25 @@ public class AffineTransformer {
 	
 	public void transformCoordinates(List<Double> points) {
 		for (int i = 0; i < points.size(); i += 3) {
-			double[] vals = new double[]{ points.get(i), points.get(i+1), points.get(i+2), 1};
-			Matrix v = new Matrix(vals, 4);
+			double x = points.get(i);
+			double y = points.get(i+1);
+			double z = points.get(i+2);
+
+			points.set(i, affine[0] * x + affine[1] * y + affine[2] * z + affine[3]);
+			points.set(i+1, affine[4] * x + affine[5] * y + affine[6] * z + affine[7]);
+			points.set(i+2, affine[8] * x + affine[9] * y + affine[10] * z + affine[11]);
+		}
+	}
+
+	public void transformCoordinates(double[] points, int length) {
+		for (int i = 0; i < length; i += 3) {
+			double x = points[i];
+			double y = points[i+1];
+			double z = points[i+2];
 
-			v = matrix3x4.times(v);
-			points.set(i, v.get(0, 0));
-			points.set(i+1, v.get(1, 0));
-			points.set(i+2, v.get(2, 0));
+			points[i] = affine[0] * x + affine[1] * y + affine[2] * z + affine[3];
+			points[i+1] = affine[4] * x + affine[5] * y + affine[6] * z + affine[7];
+			points[i+2] = affine[8] * x + affine[9] * y + affine[10] * z + affine[11];
 		}
 	}
 	
@@ -0,0 +1,155 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.importer.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.citygml4j.model.gml.geometry.primitives.DirectPosition;
+import org.citygml4j.model.gml.geometry.primitives.DirectPositionList;
+import org.citygml4j.model.gml.geometry.primitives.LinearRing;
+import org.citygml4j.model.gml.geometry.primitives.PosOrPointPropertyOrPointRep;
+
+public class CoordinateBuffer {
+	private double[] coords;
+	private int size;
+
+	public CoordinateBuffer() {
+		coords = new double[96];
+	}
+
+	public void read(LinearRing ring) {
+		size = 0;
+
+		// read the common encodings directly and let citygml4j
+		// deal with all other cases
+		if (ring.isSetPosList() && !ring.isSetPosOrPointPropertyOrPointRep() && !ring.isSetCoord() && !ring.isSetCoordinates()) {
+			DirectPositionList posList = ring.getPosList();
+			List<Double> values = posList.getValue();
+			if (values != null && values.size() % 3 == 0 && (posList.getSrsDimension() == null || posList.getSrsDimension() == 3)) {
+				ensureCapacity(values.size());
+				for (Double value : values)
+					coords[size++] = value.doubleValue();
+
+				return;
+			}
+		}
+
+		else if (ring.isSetPosOrPointPropertyOrPointRep() && !ring.isSetPosList() && !ring.isSetCoord() && !ring.isSetCoordinates()) {
+			List<PosOrPointPropertyOrPointRep> controlPoints = ring.getPosOrPointPropertyOrPointRep();
+			ensureCapacity(controlPoints.size() * 3);
+
+			for (PosOrPointPropertyOrPointRep controlPoint : controlPoints) {
+				DirectPosition pos = controlPoint.getPos();
+				if (pos == null || pos.getValue() == null || pos.getValue().size() != 3) {
+					size = 0;
+					break;
+				}
+
+				for (Double value : pos.getValue())
+					coords[size++] = value.doubleValue();
+			}
+
+			if (size > 0)
+				return;
+		}
+
+		List<Double> values = ring.toList3d();
+		if (values != null) {
+			ensureCapacity(values.size());
+			for (Double value : values)
+				coords[size++] = value.doubleValue();
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getNumberOfPoints() {
+		return size / 3;
+	}
+
+	public double[] getCoordinates() {
+		return coords;
+	}
+
+	public boolean isClosed() {
+		return size >= 3 && Double.compare(coords[0], coords[size - 3]) == 0 
+				&& Double.compare(coords[1], coords[size - 2]) == 0
+				&& Double.compare(coords[2], coords[size - 1]) == 0;
+	}
+
+	public void close() {
+		if (size < 3)
+			return;
+
+		ensureCapacity(size + 3);
+		coords[size] = coords[0];
+		coords[size + 1] = coords[1];
+		coords[size + 2] = coords[2];
+		size += 3;
+	}
+
+	public void transform(AffineTransformer transformer) {
+		transformer.transformCoordinates(coords, size);
+	}
+
+	public double[] toArray(boolean reverse) {
+		double[] result = new double[size];
+
+		if (!reverse)
+			System.arraycopy(coords, 0, result, 0, size);
+		else {
+			for (int i = size - 3, j = 0; i >= 0; i -= 3) {
+				result[j++] = coords[i];
+				result[j++] = coords[i + 1];
+				result[j++] = coords[i + 2];
+			}
+		}
+
+		return result;
+	}
+
+	public List<Double> toList() {
+		List<Double> values = new ArrayList<Double>(size);
+		for (int i = 0; i < size; i++)
+			values.add(coords[i]);
+
+		return values;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > coords.length) {
+			double[] tmp = new double[Math.max(capacity, coords.length * 2)];
+			System.arraycopy(coords, 0, tmp, 0, size);
+			coords = tmp;
+		}
+	}
+
+}
@@ -0,0 +1,414 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.importer.util;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.citydb.config.Config;
+import org.citydb.config.project.database.Workspace;
+import org.citydb.database.DatabaseConnectionPool;
+import org.citydb.database.adapter.AbstractSQLAdapter;
+import org.citydb.modules.citygml.deleter.database.DBBulkDeleter;
+import org.citydb.util.Util;
+
+// keeps the content hashes of the top-level features imported in delta mode.
+// the hashes are stored in a side table keyed by gml:id. only hashes of 
+// features that still exist in the database are loaded, so that features 
+// deleted in the meantime are imported again
+public class DeltaImportManager {
+	public static final String TABLE_NAME = "CITYOBJECT_HASH";
+	public static final String HASH_PROPERTY = "deltaHash";
+
+	private final DatabaseConnectionPool dbPool;
+	private final AbstractSQLAdapter sqlAdapter;
+	private final Config config;
+	private final HashMap<String, String> storedHashes = new HashMap<String, String>();
+	private final ConcurrentHashMap<String, String> importedHashes = new ConcurrentHashMap<String, String>();
+	private final AtomicLong replaced = new AtomicLong();
+	private final AtomicLong skipped = new AtomicLong();
+	private final AtomicLong withoutGmlId = new AtomicLong();
+
+	private enum LinkType {
+		GROUP_MEMBER,
+		GROUP_PARENT,
+		GENERALIZATION
+	}
+
+	// link of a remaining feature to a replaced city object. the city object is 
+	// identified by its gml:id, since its new version receives a new database id
+	public static final class ExternalLink {
+		private final LinkType type;
+		private final long fromId;
+		private final String gmlId;
+		private final String role;
+
+		private ExternalLink(LinkType type, long fromId, String gmlId, String role) {
+			this.type = type;
+			this.fromId = fromId;
+			this.gmlId = gmlId;
+			this.role = role;
+		}
+	}
+
+	public DeltaImportManager(DatabaseConnectionPool dbPool, Config config) {
+		this.dbPool = dbPool;
+		this.config = config;
+		sqlAdapter = dbPool.getActiveDatabaseAdapter().getSQLAdapter();
+	}
+
+	public int init() throws SQLException {
+		Connection conn = null;
+		Statement stmt = null;
+		ResultSet rs = null;
+
+		try {
+			conn = dbPool.getConnection();
+
+			if (!existsTable(conn.getMetaData())) {
+				stmt = conn.createStatement();
+				stmt.executeUpdate("create table " + TABLE_NAME + " (" +
+						"GMLID " + sqlAdapter.getCharacterVarying(256) + " not null primary key, " +
+						"HASH " + sqlAdapter.getCharacterVarying(40) + " not null)");
+				return 0;
+			}
+
+			stmt = conn.createStatement();
+			stmt.setFetchSize(10000);
+			rs = stmt.executeQuery("select h.GMLID, h.HASH from " + TABLE_NAME + " h where exists (select 1 from CITYOBJECT c where c.GMLID=h.GMLID)");
+
+			while (rs.next())
+				storedHashes.put(rs.getString(1), rs.getString(2));
+
+			return storedHashes.size();
+		} finally {
+			if (rs != null)
+				rs.close();
+
+			if (stmt != null)
+				stmt.close();
+
+			if (conn != null)
+				conn.close();
+		}
+	}
+
+	// stored hashes are only modified between files, so lookups need no locking
+	public boolean isUnchanged(String gmlId, String hash) {
+		if (gmlId == null) {
+			withoutGmlId.incrementAndGet();
+			return false;
+		}
+
+		String storedHash = storedHashes.get(gmlId);
+		if (storedHash != null && storedHash.equals(hash)) {
+			skipped.incrementAndGet();
+			return true;
+		}
+
+		return false;
+	}
+
+	// deletes the previous versions of the given features set-based within the transaction 
+	// of the caller. they are looked up by gml:id, so that features imported without delta 
+	// mode or by a previous file of the same import are replaced as well. links of other 
+	// features to the deleted city objects are returned so that they can be restored 
+	// after the new versions have been inserted
+	public List<ExternalLink> deletePreviousVersions(Connection conn, List<String> gmlIds, DBBulkDeleter bulkDeleter) throws SQLException {
+		List<Long> ids = new ArrayList<Long>(lookupIds(conn, gmlIds).values());
+		if (ids.isEmpty())
+			return new ArrayList<ExternalLink>();
+
+		Set<Long> cityObjects = bulkDeleter.collectCityObjects(conn, ids);
+		List<ExternalLink> links = getExternalLinks(conn, cityObjects);
+
+		bulkDeleter.deleteCollectedCityObjects(conn, cityObjects);
+		replaced.addAndGet(ids.size());
+		return links;
+	}
+
+	// restores the links returned by deletePreviousVersions within the transaction of the 
+	// caller. links to city objects without a new version are dropped
+	public void restoreLinks(Connection conn, List<ExternalLink> links) throws SQLException {
+		if (links.isEmpty())
+			return;
+
+		List<String> gmlIds = new ArrayList<String>(links.size());
+		for (ExternalLink link : links)
+			gmlIds.add(link.gmlId);
+
+		Map<String, Long> ids = lookupIds(conn, gmlIds);
+		PreparedStatement psMember = conn.prepareStatement("insert into GROUP_TO_CITYOBJECT (CITYOBJECT_ID, CITYOBJECTGROUP_ID, ROLE) " +
+				"select ?, ID, ? from CITYOBJECTGROUP where ID=?");
+		PreparedStatement psParent = conn.prepareStatement("update CITYOBJECTGROUP set PARENT_CITYOBJECT_ID=? where ID=?");
+		PreparedStatement psGeneralization = conn.prepareStatement("insert into GENERALIZATION (CITYOBJECT_ID, GENERALIZES_TO_ID) " +
+				"select ID, ? from CITYOBJECT where ID=?");
+
+		try {
+			for (ExternalLink link : links) {
+				Long id = ids.get(link.gmlId);
+				if (id == null)
+					continue;
+
+				// the linking feature might have been replaced concurrently, 
+				// so links are only inserted if it still exists
+				switch (link.type) {
+				case GROUP_MEMBER:
+					psMember.setLong(1, id);
+					psMember.setString(2, link.role);
+					psMember.setLong(3, link.fromId);
+					psMember.executeUpdate();
+					break;
+				case GROUP_PARENT:
+					psParent.setLong(1, id);
+					psParent.setLong(2, link.fromId);
+					psParent.executeUpdate();
+					break;
+				case GENERALIZATION:
+					psGeneralization.setLong(1, id);
+					psGeneralization.setLong(2, link.fromId);
+					psGeneralization.executeUpdate();
+					break;
+				}
+			}
+		} finally {
+			psMember.close();
+			psParent.close();
+			psGeneralization.close();
+		}
+	}
+
+	private Map<String, Long> lookupIds(Connection conn, List<String> gmlIds) throws SQLException {
+		int maxItems = Math.max(1, sqlAdapter.getMaximumNumberOfItemsForInOperator());
+		Map<String, Long> ids = new HashMap<String, Long>();
+
+		for (int i = 0; i < gmlIds.size(); i += maxItems) {
+			int size = Math.min(maxItems, gmlIds.size() - i);
+			StringBuilder query = new StringBuilder("select ID, GMLID from CITYOBJECT where GMLID in (");
+			for (int j = 0; j < size; j++)
+				query.append(j == 0 ? "?" : ", ?");
+
+			PreparedStatement psSelect = conn.prepareStatement(query.append(")").toString());
+			ResultSet rs = null;
+
+			try {
+				for (int j = 0; j < size; j++)
+					psSelect.setString(j + 1, gmlIds.get(i + j));
+
+				rs = psSelect.executeQuery();
+				while (rs.next())
+					ids.put(rs.getString(2), rs.getLong(1));
+			} finally {
+				if (rs != null)
+					rs.close();
+
+				psSelect.close();
+			}
+		}
+
+		return ids;
+	}
+
+	// group memberships, group parents and generalizations of features that are not deleted
+	// would otherwise be removed together with the city objects they point to
+	private List<ExternalLink> getExternalLinks(Connection conn, Set<Long> cityObjects) throws SQLException {
+		int maxItems = Math.max(1, sqlAdapter.getMaximumNumberOfItemsForInOperator());
+		List<Long> ids = new ArrayList<Long>(cityObjects);
+		List<ExternalLink> links = new ArrayList<ExternalLink>();
+		Statement stmt = null;
+		ResultSet rs = null;
+
+		try {
+			stmt = conn.createStatement();
+
+			for (int i = 0; i < ids.size(); i += maxItems) {
+				String idList = Util.collection2string(ids.subList(i, Math.min(i + maxItems, ids.size())), ", ");
+
+				rs = stmt.executeQuery("select g.CITYOBJECTGROUP_ID, c.GMLID, g.ROLE from GROUP_TO_CITYOBJECT g, CITYOBJECT c " +
+						"where c.ID=g.CITYOBJECT_ID and g.CITYOBJECT_ID in (" + idList + ")");
+				addExternalLinks(rs, LinkType.GROUP_MEMBER, cityObjects, links);
+
+				rs = stmt.executeQuery("select g.ID, c.GMLID from CITYOBJECTGROUP g, CITYOBJECT c " +
+						"where c.ID=g.PARENT_CITYOBJECT_ID and g.PARENT_CITYOBJECT_ID in (" + idList + ")");
+				addExternalLinks(rs, LinkType.GROUP_PARENT, cityObjects, links);
+
+				rs = stmt.executeQuery("select g.CITYOBJECT_ID, c.GMLID from GENERALIZATION g, CITYOBJECT c " +
+						"where c.ID=g.GENERALIZES_TO_ID and g.GENERALIZES_TO_ID in (" + idList + ")");
+				addExternalLinks(rs, LinkType.GENERALIZATION, cityObjects, links);
+				rs = null;
+			}
+		} finally {
+			if (rs != null)
+				rs.close();
+
+			if (stmt != null)
+				stmt.close();
+		}
+
+		return links;
+	}
+
+	private void addExternalLinks(ResultSet rs, LinkType type, Set<Long> cityObjects, List<ExternalLink> links) throws SQLException {
+		try {
+			while (rs.next()) {
+				long fromId = rs.getLong(1);
+				String gmlId = rs.getString(2);
+
+				// links without gml:id cannot be restored
+				if (gmlId != null && !cityObjects.contains(fromId))
+					links.add(new ExternalLink(type, fromId, gmlId, type == LinkType.GROUP_MEMBER ? rs.getString(3) : null));
+			}
+		} finally {
+			rs.close();
+		}
+	}
+
+	public DBBulkDeleter createBulkDeleter() {
+		return new DBBulkDeleter(dbPool, config);
+	}
+
+	// must only be called once the feature has been imported and committed
+	public void register(String gmlId, String hash) {
+		if (gmlId != null)
+			importedHashes.put(gmlId, hash);
+	}
+
+	public long getSkipped() {
+		return skipped.get();
+	}
+
+	public long getReplaced() {
+		return replaced.get();
+	}
+
+	public long getWithoutGmlId() {
+		return withoutGmlId.get();
+	}
+
+	// stores the hashes of the imported features set-based in batches and removes 
+	// appearance and address data left over by replaced features
+	public void commit() throws SQLException {
+		Connection conn = null;
+
+		try {
+			conn = dbPool.getConnection();
+			conn.setAutoCommit(false);
+			int maxItems = Math.max(1, sqlAdapter.getMaximumNumberOfItemsForInOperator());
+
+			if (dbPool.getActiveDatabaseAdapter().hasVersioningSupport()) {
+				Workspace workspace = config.getProject().getDatabase().getWorkspaces().getImportWorkspace();
+				dbPool.getActiveDatabaseAdapter().getWorkspaceManager().gotoWorkspace(conn, workspace);
+			}
+
+			if (replaced.get() > 0)
+				createBulkDeleter().deleteOrphans(conn);
+
+			List<String> gmlIds = new ArrayList<String>(importedHashes.keySet());
+			PreparedStatement psInsert = conn.prepareStatement("insert into " + TABLE_NAME + " (GMLID, HASH) values (?, ?)");
+
+			try {
+				for (int i = 0; i < gmlIds.size(); i += maxItems) {
+					int size = Math.min(maxItems, gmlIds.size() - i);
+					StringBuilder delete = new StringBuilder("delete from ").append(TABLE_NAME).append(" where GMLID in (");
+					for (int j = 0; j < size; j++)
+						delete.append(j == 0 ? "?" : ", ?");
+
+					PreparedStatement psDelete = conn.prepareStatement(delete.append(")").toString());
+					try {
+						for (int j = 0; j < size; j++)
+							psDelete.setString(j + 1, gmlIds.get(i + j));
+
+						psDelete.executeUpdate();
+					} finally {
+						psDelete.close();
+					}
+
+					for (int j = 0; j < size; j++) {
+						String gmlId = gmlIds.get(i + j);
+						psInsert.setString(1, gmlId);
+						psInsert.setString(2, importedHashes.get(gmlId));
+						psInsert.addBatch();
+					}
+
+					psInsert.executeBatch();
+				}
+			} finally {
+				psInsert.close();
+			}
+
+			conn.commit();
+		} catch (SQLException e) {
+			if (conn != null)
+				conn.rollback();
+
+			throw e;
+		} finally {
+			if (conn != null) {
+				conn.setAutoCommit(true);
+				conn.close();
+			}
+		}
+
+		// features of subsequent files are compared with the imported versions
+		storedHashes.putAll(importedHashes);
+		reset();
+	}
+
+	public void reset() {
+		importedHashes.clear();
+		replaced.set(0);
+		skipped.set(0);
+		withoutGmlId.set(0);
+	}
+
+	private boolean existsTable(DatabaseMetaData metaData) throws SQLException {
+		for (String tableName : new String[]{TABLE_NAME, TABLE_NAME.toLowerCase()}) {
+			ResultSet rs = metaData.getTables(null, null, tableName, new String[]{"TABLE"});
+			try {
+				if (rs.next())
+					return true;
+			} finally {
+				rs.close();
+			}
+		}
+
+		return false;
+	}
+
+}
@@ -0,0 +1,839 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.importer.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.citydb.modules.common.filter.ImportFilter;
+import org.citydb.modules.common.filter.feature.BoundingBoxFilter;
+import org.citydb.modules.common.filter.feature.GmlIdFilter;
+import org.citygml4j.model.citygml.CityGML;
+import org.citygml4j.model.citygml.CityGMLClass;
+import org.citygml4j.model.gml.geometry.primitives.DirectPosition;
+import org.citygml4j.model.gml.geometry.primitives.Envelope;
+import org.citygml4j.model.module.Modules;
+import org.citygml4j.model.module.citygml.CityGMLModule;
+
+public class FeatureIndex {
+	private static final int MAGIC = 0x46494458;
+	private static final int VERSION = 2;
+	private static final String GML = "http://www.opengis.net/gml";
+	private static final String CITYGML = "http://www.opengis.net/citygml/";
+
+	private final File file;
+	private final long fileLength;
+	private final long lastModified;
+
+	private long prologLength;
+	private long epilogOffset;
+	private int size;
+	private long[] offsets = new long[1024];
+	private int[] lengths = new int[1024];
+	private CityGMLClass[] types = new CityGMLClass[1024];
+	private String[] gmlIds = new String[1024];
+	private double[] envelopes = new double[4096];
+
+	private FeatureIndex(File file) {
+		this.file = file;
+		fileLength = file.length();
+		lastModified = file.lastModified();
+	}
+
+	public static File getIndexFile(File file) {
+		return new File(file.getPath() + ".idx");
+	}
+
+	// returns null if there is no index file or if it is outdated
+	public static FeatureIndex read(File file) throws IOException {
+		File indexFile = getIndexFile(file);
+		if (!indexFile.isFile())
+			return null;
+
+		FeatureIndex index = new FeatureIndex(file);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), 64 * 1024))) {
+			if (in.readInt() != MAGIC
+					|| in.readInt() != VERSION
+					|| in.readLong() != index.fileLength
+					|| in.readLong() != index.lastModified)
+				return null;
+
+			index.prologLength = in.readLong();
+			index.epilogOffset = in.readLong();
+
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				long offset = in.readLong();
+				int length = in.readInt();
+				String type = in.readUTF();
+				String gmlId = in.readUTF();
+
+				index.add(offset, length,
+						!type.isEmpty() ? CityGMLClass.valueOf(type) : null,
+						!gmlId.isEmpty() ? gmlId : null,
+						in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+			}
+		} catch (IllegalArgumentException e) {
+			// unknown feature type
+			return null;
+		}
+
+		return index;
+	}
+
+	// returns null if the top-level features of the file cannot be indexed
+	public static FeatureIndex build(File file) throws IOException {
+		FeatureIndex index = new FeatureIndex(file);
+		try (InputStream in = new FileInputStream(file)) {
+			return new Scanner(index, in).scan() ? index : null;
+		}
+	}
+
+	public void write() throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getIndexFile(file)), 64 * 1024))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(fileLength);
+			out.writeLong(lastModified);
+			out.writeLong(prologLength);
+			out.writeLong(epilogOffset);
+
+			out.writeInt(size);
+			for (int i = 0; i < size; i++) {
+				out.writeLong(offsets[i]);
+				out.writeInt(lengths[i]);
+				out.writeUTF(types[i] != null ? types[i].name() : "");
+				out.writeUTF(gmlIds[i] != null ? gmlIds[i] : "");
+				for (int j = i * 4; j < i * 4 + 4; j++)
+					out.writeDouble(envelopes[j]);
+			}
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getLength(int i) {
+		return lengths[i];
+	}
+
+	public CityGMLClass getType(int i) {
+		return types[i];
+	}
+
+	public String getGmlId(int i) {
+		return gmlIds[i];
+	}
+
+	public Envelope getEnvelope(int i) {
+		if (Double.isNaN(envelopes[i * 4]))
+			return null;
+
+		DirectPosition lowerCorner = new DirectPosition();
+		lowerCorner.setValue(Arrays.asList(envelopes[i * 4], envelopes[i * 4 + 1]));
+		DirectPosition upperCorner = new DirectPosition();
+		upperCorner.setValue(Arrays.asList(envelopes[i * 4 + 2], envelopes[i * 4 + 3]));
+
+		Envelope envelope = new Envelope();
+		envelope.setLowerCorner(lowerCorner);
+		envelope.setUpperCorner(upperCorner);
+		return envelope;
+	}
+
+	// same semantics as the filters applied to unmarshalled features. features
+	// that cannot be decided on the index are not filtered
+	public boolean filter(int i, ImportFilter importFilter) {
+		if (types[i] == null || types[i] == CityGMLClass.APPEARANCE)
+			return false;
+
+		GmlIdFilter gmlIdFilter = importFilter.getGmlIdFilter();
+		if (gmlIdFilter.isActive() && (gmlIds[i] == null || gmlIdFilter.filter(gmlIds[i])))
+			return true;
+
+		BoundingBoxFilter boundingBoxFilter = importFilter.getBoundingBoxFilter();
+		if (boundingBoxFilter.isActive()) {
+			Envelope envelope = getEnvelope(i);
+			if (envelope != null && boundingBoxFilter.filter(envelope))
+				return true;
+		}
+
+		return false;
+	}
+
+	// the stream is a well-formed document that consists of the prolog and root
+	// element of the file and the given features in between
+	public InputStream openStream(int[] entries, int from, int to) throws IOException {
+		List<long[]> segments = new ArrayList<long[]>();
+		segments.add(new long[]{0, prologLength});
+
+		for (int k = from; k < to; k++) {
+			int i = entries[k];
+			long[] last = segments.get(segments.size() - 1);
+
+			// consecutive features are read in one go
+			if (k > from && entries[k - 1] == i - 1)
+				last[1] = offsets[i] + lengths[i];
+			else
+				segments.add(new long[]{offsets[i], offsets[i] + lengths[i]});
+		}
+
+		segments.add(new long[]{epilogOffset, fileLength});
+		return new BufferedInputStream(new SegmentInputStream(new RandomAccessFile(file, "r"), segments), 64 * 1024);
+	}
+
+	private void add(long offset, int length, CityGMLClass type, String gmlId, double minX, double minY, double maxX, double maxY) {
+		if (size == offsets.length) {
+			int capacity = size * 2;
+			offsets = Arrays.copyOf(offsets, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+			types = Arrays.copyOf(types, capacity);
+			gmlIds = Arrays.copyOf(gmlIds, capacity);
+			envelopes = Arrays.copyOf(envelopes, capacity * 4);
+		}
+
+		offsets[size] = offset;
+		lengths[size] = length;
+		types[size] = type;
+		gmlIds[size] = gmlId;
+		envelopes[size * 4] = minX;
+		envelopes[size * 4 + 1] = minY;
+		envelopes[size * 4 + 2] = maxX;
+		envelopes[size * 4 + 3] = maxY;
+		size++;
+	}
+
+	private static final class SegmentInputStream extends InputStream {
+		private final RandomAccessFile file;
+		private final List<long[]> segments;
+		private int segment;
+		private long position;
+
+		private SegmentInputStream(RandomAccessFile file, List<long[]> segments) {
+			this.file = file;
+			this.segments = segments;
+			position = segments.get(0)[0];
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			while (segment < segments.size() && position >= segments.get(segment)[1]) {
+				if (++segment < segments.size())
+					position = segments.get(segment)[0];
+			}
+
+			if (segment == segments.size())
+				return -1;
+
+			file.seek(position);
+			int read = file.read(b, off, (int)Math.min(len, segments.get(segment)[1] - position));
+			if (read > 0)
+				position += read;
+
+			return read;
+		}
+
+		@Override
+		public void close() throws IOException {
+			file.close();
+		}
+	}
+
+	// scans the markup of the file on byte level. this is considerably faster than
+	// a StAX pass and provides the exact byte offsets of the top-level features
+	private static final class Scanner {
+		private static final int POSITIONS = 1;
+		private static final int COORDINATES = 2;
+		private static final int LOWER_CORNER = 3;
+		private static final int UPPER_CORNER = 4;
+
+		private final FeatureIndex index;
+		private final InputStream in;
+		private final byte[] buffer = new byte[64 * 1024];
+		private final Map<String, CityGMLClass> typeCache = new HashMap<String, CityGMLClass>();
+		private final List<Map<String, String>> namespaces = new ArrayList<Map<String, String>>();
+		private Charset charset = Charset.forName("UTF-8");
+		private long bufferOffset;
+		private int pos;
+		private int limit;
+
+		private byte[] tag = new byte[256];
+		private int tagLength;
+		private byte[] text = new byte[1024];
+		private int textLength;
+		private int[] srsDimension = new int[32];
+		private int depth;
+
+		private boolean isMember;
+		private long memberOffset;
+		private int features;
+		private CityGMLClass type;
+		private String gmlId;
+		private boolean inBoundedBy;
+		private int collect;
+		private double[] lowerCorner;
+		private double[] upperCorner;
+		private final double[] extent = new double[4];
+		private boolean hasExtent;
+		private boolean hasImplicitGeometry;
+
+		private Scanner(FeatureIndex index, InputStream in) {
+			this.index = index;
+			this.in = in;
+			for (int i = 0; i < 4; i++)
+				namespaces.add(new HashMap<String, String>());
+		}
+
+		private boolean scan() throws IOException {
+			int b = read();
+
+			// only ASCII compatible encodings are supported
+			if (b == 0 || b == 0xfe || b == 0xff)
+				return false;
+
+			// skip UTF-8 byte order mark
+			if (b == 0xef) {
+				read();
+				read();
+				b = read();
+			}
+
+			for (; b != -1; b = read()) {
+				if (b != '<') {
+					if (collect != 0)
+						appendText(b);
+
+					continue;
+				}
+
+				long start = position() - 1;
+				b = read();
+
+				if (b == '?') {
+					if (!readProcessingInstruction())
+						return false;
+				} else if (b == '!') {
+					if (!readDeclaration())
+						return false;
+				} else if (b == '/') {
+					tagLength = 0;
+					if (!readTag() || !endElement(start))
+						return false;
+				} else {
+					tagLength = 0;
+					appendTag(b);
+					if (!readTag())
+						return false;
+
+					boolean isEmpty = tag[tagLength - 1] == '/';
+					if (isEmpty)
+						tagLength--;
+
+					if (!startElement(start, isEmpty) || (isEmpty && !endElement(start)))
+						return false;
+				}
+			}
+
+			return index.epilogOffset > 0;
+		}
+
+		private boolean startElement(long start, boolean isEmpty) {
+			String name = tagName();
+			depth++;
+			if (depth == srsDimension.length)
+				srsDimension = Arrays.copyOf(srsDimension, depth * 2);
+
+			if (depth == 1) {
+				readNamespaces(1);
+				if (isEmpty || !localName(name).equals("CityModel"))
+					return false;
+
+				index.prologLength = position();
+				return true;
+			}
+
+			if (depth == 2) {
+				readNamespaces(2);
+				isMember = !isEmpty && localName(name).endsWith("Member");
+				if (isMember) {
+					memberOffset = start;
+					features = 0;
+					gmlId = null;
+					type = null;
+					lowerCorner = null;
+					upperCorner = null;
+					hasExtent = false;
+					hasImplicitGeometry = false;
+					extent[0] = extent[1] = Double.MAX_VALUE;
+					extent[2] = extent[3] = -Double.MAX_VALUE;
+				}
+
+				return true;
+			}
+
+			if (!isMember)
+				return true;
+
+			if (depth == 3) {
+				// feature collections such as gml:featureMembers cannot be indexed
+				if (++features > 1)
+					return false;
+
+				for (String[] attribute : readNamespaces(3)) {
+					int index = attribute[0].indexOf(':');
+					if (index > 0 && attribute[0].substring(index + 1).equals("id")
+							&& GML.equals(getNamespace(attribute[0].substring(0, index))))
+						gmlId = attribute[1];
+				}
+
+				type = getType(name);
+				srsDimension[depth] = 3;
+				return true;
+			}
+
+			// namespaces may also be declared on nested elements
+			if (hasAttribute("xmlns"))
+				readNamespaces(depth);
+
+			// srsDimension is inherited from enclosing geometries
+			srsDimension[depth] = srsDimension[depth - 1];
+			if (hasAttribute("srsDimension")) {
+				for (String[] attribute : readAttributes()) {
+					if (attribute[0].equals("srsDimension")) {
+						try {
+							srsDimension[depth] = Integer.parseInt(attribute[1].trim());
+						} catch (NumberFormatException e) {
+							//
+						}
+					}
+				}
+			}
+
+			String localName = localName(name);
+			if (depth == 4)
+				inBoundedBy = localName.equals("boundedBy") && isGML(name);
+
+			if (localName.equals("posList") || localName.equals("pos")) {
+				if (isGML(name))
+					collect = POSITIONS;
+			} else if (localName.equals("coordinates")) {
+				if (isGML(name))
+					collect = COORDINATES;
+			} else if (inBoundedBy && localName.equals("lowerCorner")) {
+				if (isGML(name))
+					collect = LOWER_CORNER;
+			} else if (inBoundedBy && localName.equals("upperCorner")) {
+				if (isGML(name))
+					collect = UPPER_CORNER;
+			} else if (localName.equals("ImplicitGeometry")) {
+				// implicit geometries use local coordinates relative to a reference
+				// point, so their positions do not contribute to the feature extent
+				String namespaceURI = getNamespace(prefix(name));
+				if (namespaceURI != null && namespaceURI.startsWith(CITYGML))
+					hasImplicitGeometry = true;
+			}
+
+			textLength = 0;
+			return true;
+		}
+
+		private boolean endElement(long start) {
+			if (collect != 0) {
+				if (collect == LOWER_CORNER)
+					lowerCorner = parseCorner();
+				else if (collect == UPPER_CORNER)
+					upperCorner = parseCorner();
+				else
+					scanCoordinates(collect == COORDINATES ? 2 : Math.max(srsDimension[depth], 2), collect == COORDINATES);
+
+				collect = 0;
+			}
+
+			if (depth == 4)
+				inBoundedBy = false;
+			else if (depth == 2 && isMember) {
+				long length = position() - memberOffset;
+				if (length > Integer.MAX_VALUE)
+					return false;
+
+				if (features == 1) {
+					if (lowerCorner != null && upperCorner != null)
+						index.add(memberOffset, (int)length, type, gmlId, lowerCorner[0], lowerCorner[1], upperCorner[0], upperCorner[1]);
+					else if (hasExtent && !hasImplicitGeometry)
+						index.add(memberOffset, (int)length, type, gmlId, extent[0], extent[1], extent[2], extent[3]);
+					else
+						index.add(memberOffset, (int)length, type, gmlId, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+				}
+
+				isMember = false;
+			} else if (depth == 1)
+				index.epilogOffset = start;
+
+			if (depth < namespaces.size())
+				namespaces.get(depth).clear();
+
+			depth--;
+			return true;
+		}
+
+		private CityGMLClass getType(String name) {
+			String namespaceURI = getNamespace(prefix(name));
+			String localName = localName(name);
+			String key = namespaceURI + '#' + localName;
+
+			if (typeCache.containsKey(key))
+				return typeCache.get(key);
+
+			CityGMLClass type = null;
+			CityGMLModule module = namespaceURI != null ? Modules.getCityGMLModule(namespaceURI) : null;
+			if (module != null) {
+				Class<? extends CityGML> featureClass = module.getFeatureElementClass(localName);
+				if (featureClass != null)
+					type = CityGMLClass.fromModelClass(featureClass);
+			}
+
+			typeCache.put(key, type);
+			return type;
+		}
+
+		private String getNamespace(String prefix) {
+			for (int i = Math.min(depth, namespaces.size() - 1); i > 0; i--) {
+				String namespaceURI = namespaces.get(i).get(prefix);
+				if (namespaceURI != null)
+					return namespaceURI;
+			}
+
+			return null;
+		}
+
+		private List<String[]> readNamespaces(int level) {
+			while (namespaces.size() <= level)
+				namespaces.add(new HashMap<String, String>());
+
+			List<String[]> attributes = readAttributes();
+			for (String[] attribute : attributes) {
+				if (attribute[0].equals("xmlns"))
+					namespaces.get(level).put("", attribute[1]);
+				else if (attribute[0].startsWith("xmlns:"))
+					namespaces.get(level).put(attribute[0].substring(6), attribute[1]);
+			}
+
+			return attributes;
+		}
+
+		private String tagName() {
+			int end = 0;
+			while (end < tagLength && !isWhitespace(tag[end]))
+				end++;
+
+			return new String(tag, 0, end, charset);
+		}
+
+		private String localName(String name) {
+			return name.substring(name.indexOf(':') + 1);
+		}
+
+		private String prefix(String name) {
+			int index = name.indexOf(':');
+			return index > 0 ? name.substring(0, index) : "";
+		}
+
+		private boolean isGML(String name) {
+			return GML.equals(getNamespace(prefix(name)));
+		}
+
+		private boolean hasAttribute(String name) {
+			outer:
+			for (int i = 0; i < tagLength - name.length(); i++) {
+				for (int j = 0; j < name.length(); j++) {
+					if (tag[i + j] != name.charAt(j))
+						continue outer;
+				}
+
+				return true;
+			}
+
+			return false;
+		}
+
+		private List<String[]> readAttributes() {
+			List<String[]> attributes = new ArrayList<String[]>();
+			int i = 0;
+			while (i < tagLength && !isWhitespace(tag[i]))
+				i++;
+
+			while (i < tagLength) {
+				while (i < tagLength && isWhitespace(tag[i]))
+					i++;
+
+				int nameStart = i;
+				while (i < tagLength && tag[i] != '=' && !isWhitespace(tag[i]))
+					i++;
+
+				int nameEnd = i;
+				while (i < tagLength && tag[i] != '"' && tag[i] != '\'')
+					i++;
+
+				if (i == tagLength)
+					break;
+
+				byte quote = tag[i++];
+				int valueStart = i;
+				while (i < tagLength && tag[i] != quote)
+					i++;
+
+				attributes.add(new String[]{
+						new String(tag, nameStart, nameEnd - nameStart, charset),
+						new String(tag, valueStart, i - valueStart, charset)});
+				i++;
+			}
+
+			return attributes;
+		}
+
+		private double[] parseCorner() {
+			double[] corner = new double[2];
+			int ordinate = 0;
+			int i = 0;
+
+			while (ordinate < 2) {
+				while (i < textLength && isWhitespace(text[i]))
+					i++;
+
+				int begin = i;
+				while (i < textLength && !isWhitespace(text[i]))
+					i++;
+
+				if (begin == i)
+					return null;
+
+				try {
+					corner[ordinate++] = Double.parseDouble(new String(text, begin, i - begin, charset));
+				} catch (NumberFormatException e) {
+					return null;
+				}
+			}
+
+			return corner;
+		}
+
+		private void scanCoordinates(int dimension, boolean isTuple) {
+			int index = 0;
+			double x = 0;
+
+			for (int i = 0; i < textLength; ) {
+				while (i < textLength && (isWhitespace(text[i]) || (isTuple && text[i] == ',')))
+					i++;
+
+				int begin = i;
+				while (i < textLength && !isWhitespace(text[i]) && !(isTuple && text[i] == ','))
+					i++;
+
+				if (begin == i)
+					break;
+
+				// gml:coordinates restarts the ordinates with every tuple
+				int ordinate = index++ % dimension;
+				if (isTuple && (i == textLength || isWhitespace(text[i])))
+					index = 0;
+
+				if (ordinate > 1)
+					continue;
+
+				double value;
+				try {
+					value = Double.parseDouble(new String(text, begin, i - begin, charset));
+				} catch (NumberFormatException e) {
+					return;
+				}
+
+				if (ordinate == 0)
+					x = value;
+				else {
+					extent[0] = Math.min(extent[0], x);
+					extent[1] = Math.min(extent[1], value);
+					extent[2] = Math.max(extent[2], x);
+					extent[3] = Math.max(extent[3], value);
+					hasExtent = true;
+				}
+			}
+		}
+
+		private boolean readTag() throws IOException {
+			byte quote = 0;
+			for (int b = read(); b != -1; b = read()) {
+				if (quote != 0) {
+					if (b == quote)
+						quote = 0;
+				} else if (b == '"' || b == '\'')
+					quote = (byte)b;
+				else if (b == '>')
+					return true;
+
+				appendTag(b);
+			}
+
+			return false;
+		}
+
+		private boolean readProcessingInstruction() throws IOException {
+			tagLength = 0;
+			int previous = 0;
+			for (int b = read(); b != -1; previous = b, b = read()) {
+				if (b == '>' && previous == '?') {
+					tagLength--;
+					if (tagLength > 3 && tag[0] == 'x' && tag[1] == 'm' && tag[2] == 'l' && isWhitespace(tag[3])) {
+						for (String[] attribute : readAttributes()) {
+							if (attribute[0].equals("encoding")) {
+								try {
+									charset = Charset.forName(attribute[1]);
+								} catch (IllegalArgumentException e) {
+									return false;
+								}
+
+								// only ASCII compatible encodings are supported
+								if (!charset.newEncoder().canEncode('<') || charset.encode("<").limit() != 1)
+									return false;
+							}
+						}
+					}
+
+					return true;
+				}
+
+				appendTag(b);
+			}
+
+			return false;
+		}
+
+		private boolean readDeclaration() throws IOException {
+			int b = read();
+			if (b == '-') {
+				// comment
+				read();
+				int previous = 0, beforePrevious = 0;
+				for (b = read(); b != -1; beforePrevious = previous, previous = b, b = read()) {
+					if (b == '>' && previous == '-' && beforePrevious == '-')
+						return true;
+				}
+			} else if (b == '[') {
+				// CDATA section
+				for (int i = 0; i < 6; i++)
+					read();
+
+				int previous = 0, beforePrevious = 0;
+				for (b = read(); b != -1; beforePrevious = previous, previous = b, b = read()) {
+					if (b == '>' && previous == ']' && beforePrevious == ']') {
+						if (collect != 0)
+							textLength = Math.max(0, textLength - 2);
+
+						return true;
+					}
+
+					if (collect != 0)
+						appendText(b);
+				}
+			} else {
+				// document type declaration
+				int brackets = 0;
+				for (; b != -1; b = read()) {
+					if (b == '[')
+						brackets++;
+					else if (b == ']')
+						brackets--;
+					else if (b == '>' && brackets == 0)
+						return true;
+				}
+			}
+
+			return false;
+		}
+
+		private int read() throws IOException {
+			if (pos == limit) {
+				bufferOffset += limit;
+				pos = 0;
+				limit = in.read(buffer, 0, buffer.length);
+				if (limit <= 0) {
+					limit = 0;
+					return -1;
+				}
+			}
+
+			return buffer[pos++] & 0xff;
+		}
+
+		private long position() {
+			return bufferOffset + pos;
+		}
+
+		private void appendTag(int b) {
+			if (tagLength == tag.length)
+				tag = Arrays.copyOf(tag, tagLength * 2);
+
+			tag[tagLength++] = (byte)b;
+		}
+
+		private void appendText(int b) {
+			if (textLength == text.length)
+				text = Arrays.copyOf(text, textLength * 2);
+
+			text[textLength++] = (byte)b;
+		}
+
+		private boolean isWhitespace(int b) {
+			return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+		}
+	}
+
+}
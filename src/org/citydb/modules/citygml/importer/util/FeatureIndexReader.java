@@ -0,0 +1,183 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.importer.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.citydb.api.concurrent.WorkBatcher;
+import org.citydb.api.concurrent.WorkerPool;
+import org.citygml4j.xml.io.CityGMLInputFactory;
+import org.citygml4j.xml.io.reader.CityGMLInputFilter;
+import org.citygml4j.xml.io.reader.CityGMLReadException;
+import org.citygml4j.xml.io.reader.CityGMLReader;
+import org.citygml4j.xml.io.reader.XMLChunk;
+
+public class FeatureIndexReader {
+	private final FeatureIndex featureIndex;
+	private final CityGMLInputFactory in;
+	private final CityGMLInputFilter inputFilter;
+	private final WorkerPool<XMLChunk> featureWorkerPool;
+	private final int batchSize;
+	private final List<CityGMLReader> readers = new ArrayList<CityGMLReader>();
+
+	private volatile boolean shouldRun = true;
+	private volatile CityGMLReadException exception;
+
+	public FeatureIndexReader(FeatureIndex featureIndex,
+			CityGMLInputFactory in,
+			CityGMLInputFilter inputFilter,
+			WorkerPool<XMLChunk> featureWorkerPool,
+			int batchSize) {
+		this.featureIndex = featureIndex;
+		this.in = in;
+		this.inputFilter = inputFilter;
+		this.featureWorkerPool = featureWorkerPool;
+		this.batchSize = batchSize;
+	}
+
+	public void read(int[] entries, int count, int threads) throws CityGMLReadException {
+		if (count == 0)
+			return;
+
+		// split the selected features into byte ranges of similar size
+		long total = 0;
+		for (int k = 0; k < count; k++)
+			total += featureIndex.getLength(entries[k]);
+
+		threads = Math.max(1, Math.min(threads, count));
+		List<int[]> ranges = new ArrayList<int[]>();
+		long length = 0;
+		int from = 0;
+
+		for (int k = 0; k < count && ranges.size() < threads - 1; k++) {
+			length += featureIndex.getLength(entries[k]);
+			if (length >= total * (ranges.size() + 1) / threads) {
+				ranges.add(new int[]{from, k + 1});
+				from = k + 1;
+			}
+		}
+
+		if (from < count)
+			ranges.add(new int[]{from, count});
+
+		String systemId = featureIndex.getFile().toURI().toString();
+		for (int[] range : ranges) {
+			InputStream stream = null;
+
+			try {
+				stream = featureIndex.openStream(entries, range[0], range[1]);
+				readers.add(in.createFilteredCityGMLReader(in.createCityGMLReader(systemId, stream), inputFilter));
+			} catch (IOException | CityGMLReadException e) {
+				// the caller does not close this reader after a failed read, so
+				// the stream of this range and all ranges opened so far are closed
+				if (stream != null) {
+					try {
+						stream.close();
+					} catch (IOException ioe) {
+						//
+					}
+				}
+
+				closeReaders();
+				throw e instanceof CityGMLReadException ? (CityGMLReadException)e : 
+					new CityGMLReadException("Failed to open feature range of " + featureIndex.getFile() + ".", e);
+			}
+		}
+
+		if (readers.size() == 1)
+			new RangeReader(readers.get(0)).run();
+		else {
+			List<Thread> workers = new ArrayList<Thread>();
+			for (int i = 0; i < readers.size(); i++) {
+				Thread worker = new Thread(new RangeReader(readers.get(i)), "citygml_range_reader_" + i);
+				workers.add(worker);
+				worker.start();
+			}
+
+			try {
+				for (Thread worker : workers)
+					worker.join();
+			} catch (InterruptedException e) {
+				shouldRun = false;
+			}
+		}
+
+		if (exception != null) {
+			closeReaders();
+			throw exception;
+		}
+	}
+
+	public void stopReading() {
+		shouldRun = false;
+	}
+
+	public void close() throws CityGMLReadException {
+		for (CityGMLReader reader : readers)
+			reader.close();
+	}
+
+	private void closeReaders() {
+		for (CityGMLReader reader : readers) {
+			try {
+				reader.close();
+			} catch (CityGMLReadException e) {
+				//
+			}
+		}
+
+		readers.clear();
+	}
+
+	private final class RangeReader implements Runnable {
+		private final CityGMLReader reader;
+
+		private RangeReader(CityGMLReader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public void run() {
+			WorkBatcher<XMLChunk> chunkBatcher = new WorkBatcher<XMLChunk>(featureWorkerPool, batchSize);
+
+			try {
+				while (shouldRun && reader.hasNext())
+					chunkBatcher.addWork(reader.nextChunk());
+			} catch (CityGMLReadException e) {
+				exception = e;
+				shouldRun = false;
+			} finally {
+				chunkBatcher.flush();
+			}
+		}
+	}
+
+}
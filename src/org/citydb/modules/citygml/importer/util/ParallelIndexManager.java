@@ -0,0 +1,163 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.importer.util;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.citydb.api.event.EventDispatcher;
+import org.citydb.database.IndexStatusInfo;
+import org.citydb.database.IndexStatusInfo.IndexInfoObject;
+import org.citydb.database.IndexStatusInfo.IndexStatus;
+import org.citydb.database.IndexStatusInfo.IndexType;
+import org.citydb.database.adapter.AbstractUtilAdapter;
+import org.citydb.log.Logger;
+import org.citydb.modules.common.event.ProgressBarEventType;
+import org.citydb.modules.common.event.StatusDialogProgressBar;
+import org.citydb.util.Util;
+
+public class ParallelIndexManager {
+	private final Logger LOG = Logger.getInstance();
+	private final AbstractUtilAdapter utilAdapter;
+	private final EventDispatcher eventDispatcher;
+	private final int parallelism;
+	private final int maintenanceWorkMem;
+
+	public ParallelIndexManager(AbstractUtilAdapter utilAdapter, int parallelism, int maintenanceWorkMem, EventDispatcher eventDispatcher) {
+		this.utilAdapter = utilAdapter;
+		this.parallelism = Math.max(1, parallelism);
+		this.maintenanceWorkMem = maintenanceWorkMem;
+		this.eventDispatcher = eventDispatcher;
+	}
+
+	public List<IndexInfoObject> createIndexes(IndexType type) throws SQLException {
+		return manageIndexes(type, true);
+	}
+
+	public List<IndexInfoObject> dropIndexes(IndexType type) throws SQLException {
+		return manageIndexes(type, false);
+	}
+
+	private List<IndexInfoObject> manageIndexes(final IndexType type, final boolean create) throws SQLException {
+		List<IndexInfoObject> result = new ArrayList<IndexInfoObject>();
+		IndexStatusInfo indexStatus = utilAdapter.getIndexStatus(type);
+		if (indexStatus == null)
+			return result;
+
+		// indexes on the same table are processed sequentially, different tables concurrently
+		IndexStatus expectedStatus = create ? IndexStatus.VALID : IndexStatus.DROPPED;
+		Map<String, List<IndexInfoObject>> tables = new LinkedHashMap<String, List<IndexInfoObject>>();
+		int count = 0;
+
+		for (IndexInfoObject indexObj : indexStatus.getIndexObjects()) {
+			if (indexObj.getStatus() == expectedStatus) {
+				result.add(indexObj);
+				continue;
+			}
+
+			List<IndexInfoObject> indexes = tables.get(indexObj.getTable());
+			if (indexes == null) {
+				indexes = new ArrayList<IndexInfoObject>();
+				tables.put(indexObj.getTable(), indexes);
+			}
+
+			indexes.add(indexObj);
+			count++;
+		}
+
+		if (count == 0)
+			return result;
+
+		eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.INIT, count, this));
+
+		ExecutorService service = Executors.newFixedThreadPool(Math.min(parallelism, tables.size()), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		List<Future<List<IndexInfoObject>>> futures = new ArrayList<Future<List<IndexInfoObject>>>(tables.size());
+		for (final List<IndexInfoObject> indexes : tables.values()) {
+			futures.add(service.submit(new Callable<List<IndexInfoObject>>() {
+				public List<IndexInfoObject> call() throws SQLException {
+					List<IndexInfoObject> processed = new ArrayList<IndexInfoObject>(indexes.size());
+
+					for (IndexInfoObject indexObj : indexes) {
+						long start = System.currentTimeMillis();
+						IndexStatusInfo info = create ? 
+								utilAdapter.createIndex(indexObj.getName(), type, maintenanceWorkMem) :
+									utilAdapter.dropIndex(indexObj.getName(), type);
+
+						if (info != null && info.getNumberOfIndexes() > 0) {
+							IndexInfoObject processedObj = info.getIndexObjects().get(0);
+							if (processedObj.getStatus() == IndexStatus.VALID || processedObj.getStatus() == IndexStatus.DROPPED)
+								LOG.info((create ? "Activated index " : "Deactivated index ") + processedObj + " (" + Util.formatElapsedTime(System.currentTimeMillis() - start) + ").");
+
+							processed.add(processedObj);
+						} else
+							processed.add(indexObj);
+
+						eventDispatcher.triggerEvent(new StatusDialogProgressBar(ProgressBarEventType.UPDATE, 1, this));
+					}
+
+					return processed;
+				}
+			}));
+		}
+
+		service.shutdown();
+
+		try {
+			for (Future<List<IndexInfoObject>> future : futures)
+				result.addAll(future.get());
+		} catch (InterruptedException e) {
+			service.shutdownNow();
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			service.shutdownNow();
+			if (e.getCause() instanceof SQLException)
+				throw (SQLException)e.getCause();
+			else
+				throw new SQLException("Failed to manage indexes.", e.getCause());
+		}
+
+		return result;
+	}
+
+}
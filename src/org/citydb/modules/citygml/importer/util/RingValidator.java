@@ -27,8 +27,6 @@
  */
 package org.citydb.modules.citygml.importer.util;
 
-import java.util.List;
-
 import org.citydb.config.internal.Internal;
 import org.citydb.log.Logger;
 import org.citydb.util.Util;
@@ -38,14 +36,19 @@ import org.citygml4j.model.gml.geometry.primitives.LinearRing;
 
 public class RingValidator {
 	private final Logger LOG = Logger.getInstance();
+	private final CoordinateBuffer buffer = new CoordinateBuffer();
 
 	public boolean validate(LinearRing ring, String parentGmlId) {
+		return validate(ring, buffer, parentGmlId);
+	}
+
+	public boolean validate(LinearRing ring, CoordinateBuffer coords, String parentGmlId) {
 		if (ring.hasLocalProperty(Internal.GEOMETRY_INVALID))
 			return false;
 
-		List<Double> coords = ring.toList3d();
+		coords.read(ring);
 
-		if (coords == null || coords.isEmpty()) {
+		if (coords.size() == 0) {
 			StringBuilder msg = new StringBuilder(Util.getGeometrySignature(
 					GMLClass.LINEAR_RING, 
 					parentGmlId));
@@ -57,52 +60,34 @@ public class RingValidator {
 		}
 		
 		// check closedness
-		if (!isClosed(coords, ring)) {
+		if (!coords.isClosed()) {
 			StringBuilder msg = new StringBuilder(Util.getGeometrySignature(
 					GMLClass.LINEAR_RING, 
 					parentGmlId));
 			msg.append(": Linear ring is not closed. Appending first coordinate to fix it.");
 			LOG.warn(msg.toString());
-		}
-		
-		// check for minimum number of coordinates
-		if (coords.size() / 3 < 4) {
-			StringBuilder msg = new StringBuilder(Util.getGeometrySignature(
-					GMLClass.LINEAR_RING, 
-					parentGmlId));
-			msg.append(": Linear ring contains less than 4 coordinates. Skipping invalid ring.");
-			LOG.error(msg.toString());
-			
-			ring.setLocalProperty(Internal.GEOMETRY_INVALID, "Too few coordinates");			
-			return false;
-		}
-		
-		return true;
-	}
-	
-	private boolean isClosed(List<Double> coords, LinearRing ring) {
-		Double x = coords.get(0);
-		Double y = coords.get(1);
-		Double z = coords.get(2);
 
-		int nrOfPoints = coords.size();
-
-		if (!x.equals(coords.get(nrOfPoints - 3)) ||
-				!y.equals(coords.get(nrOfPoints - 2)) ||
-				!z.equals(coords.get(nrOfPoints - 1))) {
 			// repair unclosed ring...
-			coords.add(x);
-			coords.add(y);
-			coords.add(z);
+			coords.close();
 
 			DirectPositionList posList = new DirectPositionList();
-			posList.setValue(coords);
+			posList.setValue(coords.toList());
 			ring.setPosList(posList);
 
 			ring.unsetCoord();
 			ring.unsetCoordinates();
 			ring.unsetPosOrPointPropertyOrPointRep();
+		}
+		
+		// check for minimum number of coordinates
+		if (coords.getNumberOfPoints() < 4) {
+			StringBuilder msg = new StringBuilder(Util.getGeometrySignature(
+					GMLClass.LINEAR_RING, 
+					parentGmlId));
+			msg.append(": Linear ring contains less than 4 coordinates. Skipping invalid ring.");
+			LOG.error(msg.toString());
 			
+			ring.setLocalProperty(Internal.GEOMETRY_INVALID, "Too few coordinates");			
 			return false;
 		}
 		
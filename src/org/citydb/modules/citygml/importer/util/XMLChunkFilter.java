@@ -0,0 +1,312 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.importer.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.citydb.modules.common.filter.ImportFilter;
+import org.citydb.modules.common.filter.feature.BoundingBoxFilter;
+import org.citydb.modules.common.filter.feature.GmlIdFilter;
+import org.citydb.modules.common.filter.feature.GmlNameFilter;
+import org.citygml4j.model.citygml.CityGMLClass;
+import org.citygml4j.model.gml.geometry.primitives.DirectPosition;
+import org.citygml4j.model.gml.geometry.primitives.Envelope;
+import org.citygml4j.xml.io.reader.XMLChunk;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class XMLChunkFilter extends DefaultHandler {
+	private static final String GML = "http://www.opengis.net/gml";
+	private static final String CITYGML = "http://www.opengis.net/citygml/";
+	private static final SAXException STOP = new SAXException("stop");
+
+	private final GmlIdFilter gmlIdFilter;
+	private final GmlNameFilter gmlNameFilter;
+	private final BoundingBoxFilter boundingBoxFilter;
+	private final boolean isActive;
+
+	private final StringBuilder text = new StringBuilder();
+	private final List<String> names = new ArrayList<String>();
+	private int[] srsDimension = new int[32];
+	private String gmlId;
+	private int depth;
+	private boolean inBoundedBy;
+	private boolean collect;
+	private double[] lowerCorner;
+	private double[] upperCorner;
+	private final double[] extent = new double[4];
+	private boolean hasExtent;
+	private boolean hasImplicitGeometry;
+
+	public XMLChunkFilter(ImportFilter importFilter) {
+		gmlIdFilter = importFilter.getGmlIdFilter();
+		gmlNameFilter = importFilter.getGmlNameFilter();
+		boundingBoxFilter = importFilter.getBoundingBoxFilter();
+		isActive = gmlIdFilter.isActive() || gmlNameFilter.isActive() || boundingBoxFilter.isActive();
+	}
+
+	public boolean isActive() {
+		return isActive;
+	}
+
+	// returns true if the chunk can be dropped without unmarshalling it. chunks
+	// that cannot be decided on their raw content are passed on, so the filters
+	// applied to the unmarshalled features remain authoritative
+	public boolean filter(XMLChunk chunk) {
+		if (!isActive || chunk.getCityGMLClass() == CityGMLClass.APPEARANCE)
+			return false;
+
+		reset();
+
+		try {
+			chunk.send(this, false);
+		} catch (SAXException e) {
+			if (e != STOP)
+				return false;
+		}
+
+		// gml:id filter
+		if (gmlIdFilter.isActive() && (gmlId == null || gmlIdFilter.filter(gmlId)))
+			return true;
+
+		// gml:name filter
+		if (gmlNameFilter.isActive()) {
+			boolean success = false;
+			for (String name : names) {
+				if (!gmlNameFilter.filter(name)) {
+					success = true;
+					break;
+				}
+			}
+
+			if (!success)
+				return true;
+		}
+
+		// bounding box filter
+		if (boundingBoxFilter.isActive()) {
+			Envelope envelope = null;
+			if (lowerCorner != null && upperCorner != null)
+				envelope = createEnvelope(lowerCorner[0], lowerCorner[1], upperCorner[0], upperCorner[1]);
+			else if (hasExtent && !hasImplicitGeometry)
+				envelope = createEnvelope(extent[0], extent[1], extent[2], extent[3]);
+
+			if (envelope != null && boundingBoxFilter.filter(envelope))
+				return true;
+		}
+
+		return false;
+	}
+
+	private void reset() {
+		text.setLength(0);
+		names.clear();
+		gmlId = null;
+		depth = 0;
+		inBoundedBy = false;
+		collect = false;
+		lowerCorner = null;
+		upperCorner = null;
+		hasExtent = false;
+		hasImplicitGeometry = false;
+		extent[0] = extent[1] = Double.MAX_VALUE;
+		extent[2] = extent[3] = -Double.MAX_VALUE;
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		depth++;
+		if (depth == srsDimension.length)
+			srsDimension = Arrays.copyOf(srsDimension, depth * 2);
+
+		if (depth == 1) {
+			gmlId = atts.getValue(GML, "id");
+			srsDimension[depth] = 3;
+			return;
+		}
+
+		// srsDimension is inherited from enclosing geometries
+		String dimension = atts.getValue("srsDimension");
+		srsDimension[depth] = srsDimension[depth - 1];
+		if (dimension != null) {
+			try {
+				srsDimension[depth] = Integer.parseInt(dimension.trim());
+			} catch (NumberFormatException e) {
+				//
+			}
+		}
+
+		if (!GML.equals(uri)) {
+			// implicit geometries use local coordinates relative to a reference point
+			// in a possibly different reference system. their extent cannot be derived 
+			// from the raw positions, so the bounding box filter is left to the feature
+			if (localName.equals("ImplicitGeometry") && uri.startsWith(CITYGML)) {
+				hasImplicitGeometry = true;
+				throw STOP;
+			}
+
+			// gml:id, gml:name and gml:boundedBy precede all other properties,
+			// so the remaining content is only of interest for the bounding box
+			if (depth == 2 && (!boundingBoxFilter.isActive() || (lowerCorner != null && upperCorner != null)))
+				throw STOP;
+
+			return;
+		}
+
+		if (depth == 2) {
+			inBoundedBy = localName.equals("boundedBy");
+			collect = localName.equals("name") && gmlNameFilter.isActive();
+		} else if (boundingBoxFilter.isActive()) {
+			collect = localName.equals("posList")
+					|| localName.equals("pos")
+					|| localName.equals("coordinates")
+					|| (inBoundedBy && (localName.equals("lowerCorner") || localName.equals("upperCorner")));
+		}
+
+		text.setLength(0);
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		if (collect) {
+			if (depth == 2)
+				names.add(text.toString());
+			else if (inBoundedBy && localName.equals("lowerCorner"))
+				lowerCorner = parseCorner();
+			else if (inBoundedBy && localName.equals("upperCorner"))
+				upperCorner = parseCorner();
+			else if (localName.equals("coordinates"))
+				scanCoordinates();
+			else
+				scanPositions(Math.max(srsDimension[depth], 2));
+
+			collect = false;
+		}
+
+		if (depth == 2)
+			inBoundedBy = false;
+
+		depth--;
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		if (collect)
+			text.append(ch, start, length);
+	}
+
+	private double[] parseCorner() {
+		double[] corner = new double[2];
+		int index = 0;
+		for (String token : text.toString().trim().split("\\s+")) {
+			if (index == 2)
+				break;
+
+			try {
+				corner[index++] = Double.parseDouble(token);
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		return index == 2 ? corner : null;
+	}
+
+	private void scanPositions(int dimension) {
+		int length = text.length();
+		int index = 0;
+		double x = 0;
+
+		for (int i = 0; i < length; ) {
+			while (i < length && Character.isWhitespace(text.charAt(i)))
+				i++;
+
+			int begin = i;
+			while (i < length && !Character.isWhitespace(text.charAt(i)))
+				i++;
+
+			if (begin == i)
+				break;
+
+			int ordinate = index++ % dimension;
+			if (ordinate > 1)
+				continue;
+
+			double value;
+			try {
+				value = Double.parseDouble(text.substring(begin, i));
+			} catch (NumberFormatException e) {
+				return;
+			}
+
+			if (ordinate == 0)
+				x = value;
+			else
+				updateExtent(x, value);
+		}
+	}
+
+	private void scanCoordinates() {
+		// gml:coordinates uses the default separators "," and " "
+		for (String tuple : text.toString().trim().split("\\s+")) {
+			String[] values = tuple.split(",");
+			if (values.length < 2)
+				continue;
+
+			try {
+				updateExtent(Double.parseDouble(values[0]), Double.parseDouble(values[1]));
+			} catch (NumberFormatException e) {
+				return;
+			}
+		}
+	}
+
+	private void updateExtent(double x, double y) {
+		extent[0] = Math.min(extent[0], x);
+		extent[1] = Math.min(extent[1], y);
+		extent[2] = Math.max(extent[2], x);
+		extent[3] = Math.max(extent[3], y);
+		hasExtent = true;
+	}
+
+	private Envelope createEnvelope(double minX, double minY, double maxX, double maxY) {
+		DirectPosition lowerCorner = new DirectPosition();
+		lowerCorner.setValue(Arrays.asList(minX, minY));
+		DirectPosition upperCorner = new DirectPosition();
+		upperCorner.setValue(Arrays.asList(maxX, maxY));
+
+		Envelope envelope = new Envelope();
+		envelope.setLowerCorner(lowerCorner);
+		envelope.setUpperCorner(upperCorner);
+		return envelope;
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.citygml.importer.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.citygml4j.xml.io.reader.XMLChunk;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class XMLChunkHasher extends DefaultHandler {
+	private static final String GML = "http://www.opengis.net/gml";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	// control characters are not allowed in XML content, so they
+	// cannot be confused with the content of the chunk
+	private static final char START = '\u0001';
+	private static final char NAME = '\u0002';
+	private static final char ATTRIBUTE = '\u0003';
+	private static final char VALUE = '\u0004';
+	private static final char END = '\u0005';
+	private static final char TEXT = '\u0006';
+
+	private final MessageDigest digest;
+	private final StringBuilder buffer = new StringBuilder();
+	private final StringBuilder text = new StringBuilder();
+	private final TreeMap<String, String> attributes = new TreeMap<String, String>();
+	private String gmlId;
+	private int depth;
+
+	public XMLChunkHasher() {
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-1 message digest is not supported.", e);
+		}
+	}
+
+	// returns a hash of the canonical content of the chunk, or null if the
+	// chunk cannot be read. namespace prefixes, the order of attributes and
+	// whitespace do not contribute to the hash
+	public String hash(XMLChunk chunk) {
+		digest.reset();
+		buffer.setLength(0);
+		text.setLength(0);
+		gmlId = null;
+		depth = 0;
+
+		try {
+			chunk.send(this, false);
+		} catch (SAXException e) {
+			return null;
+		}
+
+		update();
+		byte[] hash = digest.digest();
+		char[] hex = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+			hex[i * 2 + 1] = HEX[hash[i] & 0xF];
+		}
+
+		return new String(hex);
+	}
+
+	// the gml:id of the top-level feature of the last hashed chunk
+	public String getGmlId() {
+		return gmlId;
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		if (++depth == 1)
+			gmlId = atts.getValue(GML, "id");
+
+		appendText();
+		buffer.append(START).append(uri).append(NAME).append(localName);
+
+		if (atts.getLength() > 0) {
+			attributes.clear();
+			for (int i = 0; i < atts.getLength(); i++)
+				attributes.put(atts.getURI(i) + NAME + atts.getLocalName(i), atts.getValue(i));
+
+			for (Map.Entry<String, String> attribute : attributes.entrySet())
+				buffer.append(ATTRIBUTE).append(attribute.getKey()).append(VALUE).append(attribute.getValue());
+		}
+
+		if (buffer.length() > 8192)
+			update();
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		appendText();
+		buffer.append(END);
+		depth--;
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		text.append(ch, start, length);
+	}
+
+	private void appendText() {
+		// whitespace is collapsed, so reformatted documents yield the same hash
+		boolean whitespace = false;
+		boolean first = true;
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.isWhitespace(c))
+				whitespace = true;
+			else {
+				if (first) {
+					buffer.append(TEXT);
+					first = false;
+				} else if (whitespace)
+					buffer.append(' ');
+
+				buffer.append(c);
+				whitespace = false;
+			}
+		}
+
+		text.setLength(0);
+	}
+
+	private void update() {
+		digest.update(buffer.toString().getBytes(StandardCharsets.UTF_8));
+		buffer.setLength(0);
+	}
+
+}
@@ -30,7 +30,11 @@ package org.citydb.modules.common.concurrent;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.citydb.api.concurrent.Worker;
+import org.citydb.api.event.EventDispatcher;
+import org.citydb.api.log.LogLevel;
 import org.citydb.log.Logger;
+import org.citydb.modules.common.event.InterruptEvent;
+import org.citydb.modules.common.event.InterruptReason;
 import org.citygml4j.util.xml.SAXEventBuffer;
 import org.citygml4j.util.xml.SAXWriter;
 import org.xml.sax.SAXException;
@@ -41,9 +45,21 @@ public class IOWriterWorker extends Worker<SAXEventBuffer> {
 	private volatile boolean shouldRun = true;
 
 	private final SAXWriter saxWriter;
+	private final int flushInterval;
+	private final IOWriterRollover rollover;
+	private final EventDispatcher eventDispatcher;
+	private int counter;
+	private boolean failed;
 
-	public IOWriterWorker(SAXWriter saxWriter) {
+	public IOWriterWorker(SAXWriter saxWriter, int flushInterval, IOWriterRollover rollover, EventDispatcher eventDispatcher) {
 		this.saxWriter = saxWriter;
+		this.flushInterval = flushInterval;
+		this.rollover = rollover;
+		this.eventDispatcher = eventDispatcher;
+	}
+
+	public IOWriterWorker(SAXWriter saxWriter) {
+		this(saxWriter, 1, null, null);
 	}
 
 	@Override
@@ -88,8 +104,34 @@ public class IOWriterWorker extends Worker<SAXEventBuffer> {
         runLock.lock();
 
         try {
+        	// after a failed rollover there is no output to write to. the remaining
+        	// work is discarded so that producers do not block on a full queue
+        	if (failed)
+        		return;
+
+        	// the rollover runs on this thread, so producers only wait
+        	// if the work queue fills up while a new part is started
+        	if (rollover != null) {
+        		try {
+        			rollover.beforeFeature();
+        		} catch (SAXException e) {
+        			failed = true;
+        			if (eventDispatcher != null)
+        				eventDispatcher.triggerSyncEvent(new InterruptEvent(InterruptReason.FEATURE_PROCESS_ERROR, "Aborting export due to errors while starting a new output file.", LogLevel.WARN, e, eventChannel, this));
+        			else
+        				LOG.error("Failed to start a new output file: " + e.getMessage());
+
+        			return;
+        		}
+        	}
+
         	work.send(saxWriter, true);
-        	saxWriter.flush();
+
+        	// a flush interval of zero leaves flushing to the output buffers
+        	if (flushInterval > 0 && ++counter >= flushInterval) {
+        		saxWriter.flush();
+        		counter = 0;
+        	}
         } catch (SAXException e) {
         	LOG.error("XML error: " + e.getMessage());
         } finally {
@@ -29,18 +29,29 @@ package org.citydb.modules.common.concurrent;
 
 import org.citydb.api.concurrent.Worker;
 import org.citydb.api.concurrent.WorkerFactory;
+import org.citydb.api.event.EventDispatcher;
 import org.citygml4j.util.xml.SAXEventBuffer;
 import org.citygml4j.util.xml.SAXWriter;
 
 public class IOWriterWorkerFactory implements WorkerFactory<SAXEventBuffer> {
 	private final SAXWriter saxWriter;
+	private final int flushInterval;
+	private final IOWriterRollover rollover;
+	private final EventDispatcher eventDispatcher;
 
-	public IOWriterWorkerFactory(SAXWriter saxWriter) {
+	public IOWriterWorkerFactory(SAXWriter saxWriter, int flushInterval, IOWriterRollover rollover, EventDispatcher eventDispatcher) {
 		this.saxWriter = saxWriter;
+		this.flushInterval = flushInterval;
+		this.rollover = rollover;
+		this.eventDispatcher = eventDispatcher;
+	}
+
+	public IOWriterWorkerFactory(SAXWriter saxWriter) {
+		this(saxWriter, 1, null, null);
 	}
 
 	@Override
 	public Worker<SAXEventBuffer> createWorker() {
-		return new IOWriterWorker(saxWriter);
+		return new IOWriterWorker(saxWriter, flushInterval, rollover, eventDispatcher);
 	}
 }
@@ -251,9 +251,15 @@ public class BoundingBoxFilter implements Filter<Envelope> {
 	}
 
 	public void setActiveTile(int activeRow, int activeColumn) {
+		setActiveTile(activeRow, activeColumn, 1);
+	}
+
+	// activates a square tile spanning size x size cells of the tiling grid
+	public void setActiveTile(int activeRow, int activeColumn, int size) {
 		if (!useTiling || 
 				activeRow < 0 || activeRow > rows ||
-				activeColumn < 0 || activeColumn > columns)
+				activeColumn < 0 || activeColumn > columns ||
+				size < 1)
 			return;
 
 		this.activeRow = activeRow;
@@ -261,8 +267,8 @@ public class BoundingBoxFilter implements Filter<Envelope> {
 
 		double lowerLeftX = boundingBox.getLowerCorner().getX() + (activeColumn * columnWidth);
 		double lowerLeftY = boundingBox.getLowerCorner().getY() + (activeRow * rowHeight);
-		double upperRightX = lowerLeftX + columnWidth;
-		double upperRightY = lowerLeftY + rowHeight;
+		double upperRightX = lowerLeftX + size * columnWidth;
+		double upperRightY = lowerLeftY + size * rowHeight;
 
 		activeBoundingBox = new BoundingBox(
 				new Position(lowerLeftX, lowerLeftY),
@@ -379,7 +379,8 @@ public class BoundingBoxOperation extends DatabaseOperationView {
 			});
 
 			try {
-				BoundingBox bbox = dbConnectionPool.getActiveDatabaseAdapter().getUtil().createBoundingBoxes(workspace, featureClass, mode == BoundingBoxMode.PARTIAL ? true : false);
+				int threads = Math.max(1, Math.min(config.getProject().getDatabase().getOperation().getBoundingBoxThreads(), dbConnectionPool.getMaxActive() - 1));
+				BoundingBox bbox = dbConnectionPool.getActiveDatabaseAdapter().getUtil().createBoundingBoxes(workspace, featureClass, mode == BoundingBoxMode.PARTIAL ? true : false, threads);
 
 				if (bbox != null) {
 					if (bbox.getLowerCorner().getX() != Double.MAX_VALUE && 
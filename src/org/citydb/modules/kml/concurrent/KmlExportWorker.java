@@ -27,12 +27,17 @@
  */
 package org.citydb.modules.kml.concurrent;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
+import javax.imageio.ImageIO;
 import javax.xml.bind.JAXBContext;
 
 import org.citydb.api.concurrent.Worker;
@@ -51,6 +56,7 @@ import org.citydb.database.adapter.AbstractDatabaseAdapter;
 import org.citydb.database.adapter.BlobExportAdapter;
 import org.citydb.database.adapter.BlobType;
 import org.citydb.modules.common.event.FeatureCounterEvent;
+import org.citydb.modules.kml.database.B3dmExporterManager;
 import org.citydb.modules.kml.database.Bridge;
 import org.citydb.modules.kml.database.Building;
 import org.citydb.modules.kml.database.CityFurniture;
@@ -69,10 +75,15 @@ import org.citydb.modules.kml.database.Transportation;
 import org.citydb.modules.kml.database.Tunnel;
 import org.citydb.modules.kml.database.WaterBody;
 import org.citydb.modules.kml.util.ExportTracker;
+import org.citydb.modules.kml.util.GltfWriter;
+import org.citydb.modules.kml.util.MeshSimplifier;
+import org.citydb.modules.kml.util.TriangleMesh;
 import org.citygml4j.model.citygml.CityGMLClass;
 import org.citygml4j.util.xml.SAXEventBuffer;
 
+import net.opengis.kml._2.ModelType;
 import net.opengis.kml._2.ObjectFactory;
+import net.opengis.kml._2.PlacemarkType;
 
 public class KmlExportWorker extends Worker<KmlSplittingResult> {
 	private final ReentrantLock runLock = new ReentrantLock();
@@ -87,6 +98,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 	private Connection connection;
 	private ExportFilterConfig filterConfig;
 	private KmlExporterManager kmlExporterManager;
+	private B3dmExporterManager b3dmExporterManager;
 	private KmlGenericObject singleObject = null;
 
 	private EnumMap<CityGMLClass, Integer>objectGroupCounter = new EnumMap<CityGMLClass, Integer>(CityGMLClass.class);
@@ -102,9 +114,11 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 			WorkerPool<SAXEventBuffer> ioWriterPool,
 			ExportTracker tracker,
 			ObjectFactory kmlFactory,
+			B3dmExporterManager b3dmExporterManager,
 			Config config,
 			EventDispatcher eventDispatcher) throws SQLException {
 		this.kmlFactory = kmlFactory;
+		this.b3dmExporterManager = b3dmExporterManager;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 
@@ -488,6 +502,12 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 						featureClass == CityGMLClass.WATER_GROUND_SURFACE ||
 						featureClass == CityGMLClass.WATER_SURFACE) featureClass = CityGMLClass.WATER_BODY;
 
+				// every object becomes a batch of its own in the 3D Tiles output
+				if (b3dmExporterManager != null) {
+					sendObjectToTile(singleObject);
+					return;
+				}
+
 				if (featureClass == CityGMLClass.TRAFFIC_AREA ||
 						featureClass == CityGMLClass.AUXILIARY_TRAFFIC_AREA ||
 						featureClass == CityGMLClass.TRACK ||
@@ -518,32 +538,60 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 		}
 	}
 
+	private void prepareTextures(KmlGenericObject objectGroup) throws Exception {
+		double imageScaleFactor = 1;
+		ColladaOptions colladaOptions = objectGroup.getColladaOptions();
+
+		if (colladaOptions.isCropImages()) {
+			objectGroup.cropImages();
+		}
+
+		if (colladaOptions.isGenerateTextureAtlases()) {
+			if (colladaOptions.isScaleImages()) {
+				imageScaleFactor = colladaOptions.getImageScaleFactor();
+			}
+			objectGroup.createTextureAtlas(colladaOptions.getPackingAlgorithm(),
+					imageScaleFactor,
+					colladaOptions.isTextureAtlasPots());
+		}
+		else if (colladaOptions.isScaleImages()) {
+			imageScaleFactor = colladaOptions.getImageScaleFactor();
+			if (imageScaleFactor < 1) {
+				objectGroup.resizeAllImagesByFactor(imageScaleFactor);
+			}
+		}
+	}
+
 	private void sendGroupToFile(KmlGenericObject objectGroup) {
 		try {
-			double imageScaleFactor = 1;
+			prepareTextures(objectGroup);
+
+			ColladaBundle colladaBundle = new ColladaBundle();
 			ColladaOptions colladaOptions = objectGroup.getColladaOptions();
-			
-			if (colladaOptions.isCropImages()) {
-				objectGroup.cropImages();
-			}
-			
-			if (colladaOptions.isGenerateTextureAtlases()) {
-				if (colladaOptions.isScaleImages()) {
-					imageScaleFactor = colladaOptions.getImageScaleFactor();
-				}
-				objectGroup.createTextureAtlas(colladaOptions.getPackingAlgorithm(),
-						imageScaleFactor,
-						colladaOptions.isTextureAtlasPots());
+
+			// grouped objects are simplified by each worker on its own
+			TriangleMesh triangleMesh = null;
+			if (colladaOptions.isSimplifyGroupedObjects()) {
+				triangleMesh = new MeshSimplifier().simplify(objectGroup.generateTriangleMesh(), 
+						colladaOptions.getSimplificationTriangleBudget());
 			}
-			else if (colladaOptions.isScaleImages()) {
-				imageScaleFactor = colladaOptions.getImageScaleFactor();
-				if (imageScaleFactor < 1) {
-					objectGroup.resizeAllImagesByFactor(imageScaleFactor);
-				}
+
+			boolean createCollada = !colladaOptions.isCompactGeometry() || !config.getProject().getKmlExporter().isNotCreateColladaFiles();
+			if (colladaOptions.isCompactGeometry())
+				colladaBundle.setBinaryGltf(createBinaryGltf(objectGroup, null, colladaOptions));
+
+			if (createCollada)
+				colladaBundle.setCollada(objectGroup.generateColladaTree());
+
+			// the simplified model is an additional coarse output, the placemark keeps the full-detail model
+			if (triangleMesh != null) {
+				if (colladaOptions.isCompactGeometry())
+					colladaBundle.setSimplifiedBinaryGltf(createBinaryGltf(objectGroup, triangleMesh, colladaOptions));
+
+				if (createCollada)
+					colladaBundle.setSimplifiedCollada(objectGroup.generateColladaTree(triangleMesh));
 			}
 
-			ColladaBundle colladaBundle = new ColladaBundle();
-			colladaBundle.setCollada(objectGroup.generateColladaTree());
 			colladaBundle.setTexImages(objectGroup.getTexImages());
 			colladaBundle.setUnsupportedTexImageIds(objectGroup.getUnsupportedTexImageIds());
 			colladaBundle.setPlacemark(objectGroup.createPlacemarkForColladaModel());
@@ -559,6 +607,83 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 		}
 	}
 
+	private void sendObjectToTile(KmlGenericObject object) {
+		try {
+			prepareTextures(object);
+
+			// the placemark carries the geographic location, heading and balloon of the model
+			PlacemarkType placemark = object.createPlacemarkForColladaModel();
+			ModelType model = (ModelType)placemark.getAbstractGeometryGroup().getValue();
+
+			b3dmExporterManager.addFeature(object.getId(),
+					object.getGmlId(),
+					model.getLocation().getLongitude(),
+					model.getLocation().getLatitude(),
+					model.getLocation().getAltitude(),
+					model.getOrientation().getHeading(),
+					placemark.getDescription(),
+					object.getGenericAttributes(),
+					object.generateTriangleMesh(),
+					getGltfImages(object));
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	private byte[] createBinaryGltf(KmlGenericObject object, TriangleMesh triangleMesh, ColladaOptions colladaOptions) throws IOException, SQLException {
+		GltfWriter gltfWriter = new GltfWriter(colladaOptions.getPositionQuantizationBits(), colladaOptions.getTexCoordQuantizationBits());
+
+		// textures are either embedded or referenced as files next to the model 
+		HashMap<String, byte[]> images = null;
+		if (config.getProject().getKmlExporter().isEmbedTexturesInGltfFiles())
+			images = getGltfImages(object);
+
+		if (triangleMesh == null)
+			triangleMesh = object.generateTriangleMesh();
+
+		for (TriangleMesh.Primitive primitive : triangleMesh.getPrimitives()) {
+			if (!primitive.isTextured() || !isGltfImageType(primitive.getTexImageName()))
+				gltfWriter.addPrimitive(primitive, null, (byte[])null);
+			else if (images != null)
+				gltfWriter.addPrimitive(primitive, null, images.get(primitive.getTexImageName()));
+			else
+				gltfWriter.addPrimitive(primitive, null, primitive.getTexImageName());
+		}
+
+		return gltfWriter.toGlb();
+	}
+
+	private HashMap<String, byte[]> getGltfImages(KmlGenericObject object) throws IOException, SQLException {
+		HashMap<String, byte[]> images = new HashMap<String, byte[]>();
+		for (String imageFilename : object.getTexImages().keySet()) {
+			if (!isGltfImageType(imageFilename))
+				continue;
+
+			BufferedImage texImage = object.getTexImages().get(imageFilename).getBufferedImage();
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			if (ImageIO.write(texImage, imageFilename.toLowerCase().endsWith(".png") ? "png" : "jpg", out))
+				images.put(imageFilename, out.toByteArray());
+		}
+
+		for (String imageFilename : object.getUnsupportedTexImageIds().keySet()) {
+			if (!isGltfImageType(imageFilename))
+				continue;
+
+			byte[] imageBytes = textureExportAdapter.getInByteArray(object.getUnsupportedTexImageIds().get(imageFilename), imageFilename);
+			if (imageBytes != null)
+				images.put(imageFilename, imageBytes);
+		}
+
+		return images;
+	}
+
+	// glTF only supports png and jpeg images
+	private boolean isGltfImageType(String imageFilename) {
+		String imageType = imageFilename.substring(imageFilename.lastIndexOf('.') + 1).toLowerCase();
+		return imageType.equals("png") || imageType.equals("jpg") || imageType.equals("jpeg");
+	}
+
 	private BalloonTemplateHandler getBalloonTemplateHandler(CityGMLClass cityObjectType) {
 		BalloonTemplateHandler currentBalloonTemplateHandler = balloonTemplateHandler.get(cityObjectType);
 
@@ -40,6 +40,7 @@ import org.citydb.api.event.EventDispatcher;
 import org.citydb.config.Config;
 import org.citydb.database.DatabaseConnectionPool;
 import org.citydb.log.Logger;
+import org.citydb.modules.kml.database.B3dmExporterManager;
 import org.citydb.modules.kml.database.KmlSplittingResult;
 import org.citydb.modules.kml.util.ExportTracker;
 import org.citygml4j.util.xml.SAXEventBuffer;
@@ -53,6 +54,7 @@ public class KmlExportWorkerFactory implements WorkerFactory<KmlSplittingResult>
 	private final WorkerPool<SAXEventBuffer> ioWriterPool;
 	private final ExportTracker tracker;
 	private final ObjectFactory kmlFactory;
+	private final B3dmExporterManager b3dmExporterManager;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
@@ -63,6 +65,7 @@ public class KmlExportWorkerFactory implements WorkerFactory<KmlSplittingResult>
 			WorkerPool<SAXEventBuffer> ioWriterPool,
 			ExportTracker tracker,
 			ObjectFactory kmlFactory,
+			B3dmExporterManager b3dmExporterManager,
 			Config config,
 			EventDispatcher eventDispatcher) {
 		this.jaxbKmlContext = jaxbKmlContext;
@@ -71,6 +74,7 @@ public class KmlExportWorkerFactory implements WorkerFactory<KmlSplittingResult>
 		this.ioWriterPool = ioWriterPool;
 		this.tracker = tracker;
 		this.kmlFactory = kmlFactory;
+		this.b3dmExporterManager = b3dmExporterManager;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 	}
@@ -87,6 +91,7 @@ public class KmlExportWorkerFactory implements WorkerFactory<KmlSplittingResult>
 					ioWriterPool,
 					tracker,
 					kmlFactory,
+					b3dmExporterManager,
 					config,
 					eventDispatcher);
 		} catch (SQLException e) {
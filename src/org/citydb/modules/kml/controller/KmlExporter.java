@@ -88,6 +88,7 @@ import org.citydb.modules.kml.database.Building;
 import org.citydb.modules.kml.database.CityFurniture;
 import org.citydb.modules.kml.database.CityObjectGroup;
 import org.citydb.modules.kml.database.GenericCityObject;
+import org.citydb.modules.kml.database.B3dmExporterManager;
 import org.citydb.modules.kml.database.KmlSplitter;
 import org.citydb.modules.kml.database.KmlSplittingResult;
 import org.citydb.modules.kml.database.LandUse;
@@ -99,6 +100,8 @@ import org.citydb.modules.kml.database.WaterBody;
 import org.citydb.modules.kml.datatype.TypeAttributeValueEnum;
 import org.citydb.modules.kml.util.CityObject4JSON;
 import org.citydb.modules.kml.util.ExportTracker;
+import org.citydb.modules.kml.util.QuadTreeTiling;
+import org.citydb.modules.kml.util.TilesetWriter;
 import org.citydb.util.Util;
 import org.citygml4j.model.citygml.CityGMLClass;
 import org.citygml4j.util.xml.SAXEventBuffer;
@@ -156,6 +159,8 @@ public class KmlExporter implements EventHandler {
 	private BoundingBox globeWGS84Bbox; 
 	private int rows = 1;
 	private int columns = 1;
+	private QuadTreeTiling quadTree;
+	private HashMap<QuadTreeTiling.Node, FolderType> adaptiveTileFolders = new HashMap<QuadTreeTiling.Node, FolderType>();
 
 	private EnumMap<CityGMLClass, Long> featureCounterMap = new EnumMap<CityGMLClass, Long>(CityGMLClass.class);
 	private EnumMap<CityGMLClass, Long> totalFeatureCounterMap = new EnumMap<CityGMLClass, Long>(CityGMLClass.class);
@@ -258,7 +263,10 @@ public class KmlExporter implements EventHandler {
 				remainingTiles = calculateRowsColumns();
 				int displayFormats = config.getProject().getKmlExporter().getActiveDisplayFormsAmount(config.getProject().getKmlExporter().getBuildingDisplayForms());
 				remainingTiles *= displayFormats;
-				LOG.info(String.valueOf(rows * columns * displayFormats) + " (" + rows + "x" + columns + "x" + displayFormats + ") tiles will be generated."); 
+				if (quadTree != null)
+					LOG.info(String.valueOf(remainingTiles) + " (" + (remainingTiles / Math.max(1, displayFormats)) + "x" + displayFormats + ") adaptive tiles will be generated."); 
+				else
+					LOG.info(String.valueOf(rows * columns * displayFormats) + " (" + rows + "x" + columns + "x" + displayFormats + ") tiles will be generated."); 
 			} catch (SQLException e) {
 				throw new KmlExportException("Failed to calculate the number of tiles to be exported.", e);
 			}
@@ -328,19 +336,36 @@ public class KmlExporter implements EventHandler {
 			}			
 		}
 
+		// COLLADA models are additionally batched into 3D Tiles if required
+		TilesetWriter tilesetWriter = null;
+		if (config.getProject().getKmlExporter().isCreate3dTiles())
+			tilesetWriter = new TilesetWriter();
+
 		long start = System.currentTimeMillis();
 
 		// iterate over tiles
 		for (int i = 0; shouldRun && i < rows; i++) {
 			for (int j = 0; shouldRun && j < columns; j++) {
 
+				// adaptive tiling only exports the leaves of the quadtree,
+				// which are addressed by their lower left cell
+				QuadTreeTiling.Node adaptiveTile = null;
+				if (quadTree != null) {
+					adaptiveTile = quadTree.getTile(i, j);
+					if (adaptiveTile == null)
+						continue;
+				}
+
 				// track exported objects
 				ExportTracker tracker = new ExportTracker();
 
 				// set active tile and get tile extent in WGS84
 				GeometryObject wgs84Tile = null;
 				if (isBBoxActive && tiling.getMode() != TilingMode.NO_TILING) {
-					exportFilter.getBoundingBoxFilter().setActiveTile(i, j);
+					if (adaptiveTile != null)
+						exportFilter.getBoundingBoxFilter().setActiveTile(i, j, adaptiveTile.getSize());
+					else
+						exportFilter.getBoundingBoxFilter().setActiveTile(i, j);
 					BoundingBox wgs84Bbox = exportFilter.getBoundingBoxFilter().getFilterState();
 					wgs84Tile = GeometryObject.createPolygon(new double[]{
 							wgs84Bbox.getLowerCorner().getX(), wgs84Bbox.getLowerCorner().getY(),
@@ -362,6 +387,7 @@ public class KmlExporter implements EventHandler {
 					File file = null;
 					ZipOutputStream zipOut = null;
 					String currentWorkingDirectoryPath = null;
+					B3dmExporterManager b3dmExporterManager = null;
 					try {
 						if (isBBoxActive && tiling.getMode() != TilingMode.NO_TILING) {
 							File tilesRootDirectory = new File(path, "Tiles");
@@ -378,6 +404,13 @@ public class KmlExporter implements EventHandler {
 						}
 						tracker.setCurrentWorkingDirectoryPath(currentWorkingDirectoryPath);
 
+						if (tilesetWriter != null && displayForm.getForm() == DisplayForm.COLLADA) {
+							String tileName = isBBoxActive && tiling.getMode() != TilingMode.NO_TILING ? fileName + "_Tile_" + i + "_" + j : fileName;
+							String uri = isBBoxActive && tiling.getMode() != TilingMode.NO_TILING ? "Tiles/" + i + "/" + j + "/" + tileName + ".b3dm" : tileName + ".b3dm";
+							b3dmExporterManager = new B3dmExporterManager(new File(currentWorkingDirectoryPath, tileName + ".b3dm"), 
+									uri, i, j, adaptiveTile != null ? adaptiveTile.getSize() : 1, tilesetWriter);
+						}
+
 						eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("kmlExport.dialog.writingToFile"), this));
 						eventDispatcher.triggerEvent(new StatusDialogTitle(file.getName(), this));
 						eventDispatcher.triggerEvent(new CounterEvent(CounterType.REMAINING_TILES, --remainingTiles, this));
@@ -419,6 +452,7 @@ public class KmlExporter implements EventHandler {
 										ioWriterPool,
 										tracker,
 										kmlFactory,
+										b3dmExporterManager,
 										config,
 										eventDispatcher),
 								300,
@@ -492,6 +526,15 @@ public class KmlExporter implements EventHandler {
 							throw new KmlExportException("Failed to shutdown worker pools.", e);
 						}
 
+						// write batched 3D model of the tile
+						if (b3dmExporterManager != null) {
+							try {
+								b3dmExporterManager.write();
+							} catch (IOException e) {
+								throw new KmlExportException("Failed to write 3D Tiles content of tile " + i + "_" + j + ".", e);
+							}
+						}
+
 						try {
 							// add styles
 							if (!featureCounterMap.isEmpty() &&
@@ -589,7 +632,13 @@ public class KmlExporter implements EventHandler {
 				// create reference to tile file in master file
 				if (masterFileWriter != null && !featureCounterMap.isEmpty()) {
 					try {
-						writeMasterFileTileReference(fileName, i, j, wgs84Tile, masterFileWriter);
+						// adaptive tiles are written as region hierarchy when all tiles are done
+						if (adaptiveTile != null) {
+							FolderType folder = createMasterFileTileFolder(fileName, i, j, wgs84Tile);
+							if (folder != null)
+								adaptiveTileFolders.put(adaptiveTile, folder);
+						} else
+							writeMasterFileTileReference(fileName, i, j, wgs84Tile, masterFileWriter);
 					} catch (JAXBException e) {
 						if (jsonFileWriter != null) try { jsonFileWriter.close(); } catch (IOException ioe) { }
 						throw new KmlExportException("Failed to write tile reference to master file.", e);
@@ -625,6 +674,9 @@ public class KmlExporter implements EventHandler {
 		// complete KML master file
 		if (masterFileWriter != null) {
 			try {
+				if (quadTree != null)
+					writeMasterFileTileHierarchy(fileName, masterFileWriter);
+
 				writeMasterFileFooter(masterFileWriter);
 				masterFileWriter.close();
 			} catch (JAXBException | SAXException e) {
@@ -641,6 +693,17 @@ public class KmlExporter implements EventHandler {
 			}
 		}
 
+		// write 3D Tiles tileset
+		if (tilesetWriter != null && !tilesetWriter.isEmpty()) {
+			try {
+				File tilesetFile = new File(path, fileName + "_tileset.json");
+				tilesetWriter.write(tilesetFile);
+				LOG.info("3D Tiles tileset written to file: " + tilesetFile.getAbsolutePath());
+			} catch (IOException e) {
+				throw new KmlExportException("Failed to write 3D Tiles tileset.", e);
+			}
+		}
+
 		// close cityobject JSON file
 		if (jsonFileWriter != null) {
 			try {
@@ -692,6 +755,25 @@ public class KmlExporter implements EventHandler {
 			bbox.getTiling().setRows(rows);
 			bbox.getTiling().setColumns(columns);
 			break;
+		case ADAPTIVE:
+			// count objects per cell of a uniform grid and let the quadtree
+			// merge cells until every tile is below the object threshold
+			int level = Math.max(0, Math.min(10, config.getProject().getKmlExporter().getAdaptiveTileMaxLevel()));
+			int cells = 1 << level;
+
+			List<Integer> classIds = new ArrayList<Integer>();
+			for (CityGMLClass type : KmlSplitter.getAllowedCityObjectTypes(config))
+				classIds.add(Util.cityObject2classId(type));
+
+			long[] counts = dbPool.getActiveDatabaseAdapter().getUtil().countCityObjects(
+					config.getProject().getDatabase().getWorkspaces().getKmlExportWorkspace(), extent, cells, classIds);
+			quadTree = new QuadTreeTiling(counts, level, config.getProject().getKmlExporter().getAdaptiveTileMaxObjects());
+
+			// the bounding box filter addresses tiles by cells of the grid
+			rows = columns = cells;
+			bbox.getTiling().setRows(rows);
+			bbox.getTiling().setColumns(columns);
+			return quadTree.getTiles().size();
 		case NO_TILING:
 			// no_tiling is internally mapped to manual tiling with one tile
 			bbox.getTiling().setMode(TilingMode.MANUAL);
@@ -820,12 +902,20 @@ public class KmlExporter implements EventHandler {
 	}
 
 	private void writeMasterFileTileReference(String tileName, int row, int column, GeometryObject wgs84Tile, SAXWriter saxWriter) throws JAXBException {
-		if (wgs84Tile == null)
+		FolderType folderType = createMasterFileTileFolder(tileName, row, column, wgs84Tile);
+		if (folderType == null)
 			return;
 
-		TilingMode tilingMode = config.getProject().getKmlExporter().getFilter().getComplexFilter().getTiledBoundingBox().getTiling().getMode();
 		Marshaller marshaller = jaxbKmlContext.createMarshaller();
 		marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+		marshaller.marshal(kmlFactory.createFolder(folderType), saxWriter);
+	}
+
+	private FolderType createMasterFileTileFolder(String tileName, int row, int column, GeometryObject wgs84Tile) {
+		if (wgs84Tile == null)
+			return null;
+
+		TilingMode tilingMode = config.getProject().getKmlExporter().getFilter().getComplexFilter().getTiledBoundingBox().getTiling().getMode();
 
 		// tileName should not contain special characters,
 		// since it will be used as filename for all displayForm files
@@ -879,9 +969,77 @@ public class KmlExporter implements EventHandler {
 			folderType.getAbstractFeatureGroup().add(kmlFactory.createNetworkLink(networkLinkType));
 		}
 
+		return folderType;
+	}
+
+	private void writeMasterFileTileHierarchy(String tileName, SAXWriter saxWriter) throws JAXBException {
+		FolderType folderType = createMasterFileNodeFolder(tileName, quadTree.getRoot());
+		if (folderType == null)
+			return;
+
+		Marshaller marshaller = jaxbKmlContext.createMarshaller();
+		marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
 		marshaller.marshal(kmlFactory.createFolder(folderType), saxWriter);
 	}
 
+	private FolderType createMasterFileNodeFolder(String tileName, QuadTreeTiling.Node node) {
+		if (node.isLeaf())
+			return adaptiveTileFolders.get(node);
+
+		// skip subtrees without exported tiles
+		List<FolderType> children = new ArrayList<FolderType>();
+		for (QuadTreeTiling.Node child : node.getChildren()) {
+			FolderType childFolder = createMasterFileNodeFolder(tileName, child);
+			if (childFolder != null)
+				children.add(childFolder);
+		}
+
+		if (children.isEmpty())
+			return null;
+
+		FolderType folderType = kmlFactory.createFolderType();
+		folderType.setName(tileName + "_Level_" + node.getLevel() + "_" + node.getRow() + "_" + node.getColumn());
+
+		// the region of a node covers the regions of its tiles, so the smallest
+		// pixel threshold of the display forms never hides a visible tile
+		double minLodPixels = -1;
+		for (DisplayForm displayForm : config.getProject().getKmlExporter().getBuildingDisplayForms()) {
+			if (displayForm.isActive() && (minLodPixels == -1 || displayForm.getVisibleFrom() < minLodPixels))
+				minLodPixels = displayForm.getVisibleFrom();
+		}
+
+		double[] extent = getAdaptiveTileExtent(node);
+		LatLonAltBoxType latLonAltBoxType = kmlFactory.createLatLonAltBoxType();			
+		latLonAltBoxType.setWest(extent[0]);
+		latLonAltBoxType.setSouth(extent[1]);
+		latLonAltBoxType.setEast(extent[2]);
+		latLonAltBoxType.setNorth(extent[3]);
+
+		LodType lodType = kmlFactory.createLodType();
+		lodType.setMinLodPixels(Math.max(0, minLodPixels));
+		lodType.setMaxLodPixels(-1.0);
+
+		RegionType regionType = kmlFactory.createRegionType();
+		regionType.setLatLonAltBox(latLonAltBoxType);
+		regionType.setLod(lodType);
+		folderType.setRegion(regionType);
+
+		for (FolderType child : children)
+			folderType.getAbstractFeatureGroup().add(kmlFactory.createFolder(child));
+
+		return folderType;
+	}
+
+	// returns xmin, ymin, xmax and ymax of a quadtree node in WGS84
+	private double[] getAdaptiveTileExtent(QuadTreeTiling.Node node) {
+		double cellWidth = (globeWGS84Bbox.getUpperCorner().getX() - globeWGS84Bbox.getLowerCorner().getX()) / columns;
+		double cellHeight = (globeWGS84Bbox.getUpperCorner().getY() - globeWGS84Bbox.getLowerCorner().getY()) / rows;
+		double xmin = globeWGS84Bbox.getLowerCorner().getX() + node.getColumn() * cellWidth;
+		double ymin = globeWGS84Bbox.getLowerCorner().getY() + node.getRow() * cellHeight;
+
+		return new double[]{xmin, ymin, xmin + node.getSize() * cellWidth, ymin + node.getSize() * cellHeight};
+	}
+
 	private void writeMasterFileFooter(SAXWriter saxWriter) throws JAXBException, SAXException {
 		Marshaller marshaller = jaxbKmlContext.createMarshaller();
 
@@ -920,6 +1078,32 @@ public class KmlExporter implements EventHandler {
 				jsonFileWriterForMasterFile.write(("\n\t\t\"" + "ymin" + "\": " + globeWGS84Bbox.getLowerCorner().getY() + ",").getBytes(CHARSET));
 				jsonFileWriterForMasterFile.write(("\n\t\t\"" + "ymax" + "\": " + globeWGS84Bbox.getUpperCorner().getY()).getBytes(CHARSET));
 				jsonFileWriterForMasterFile.write(("\n\t}").getBytes(CHARSET));
+
+				// adaptive tiles differ in size, so they are listed explicitly
+				if (quadTree != null) {
+					jsonFileWriterForMasterFile.write((",\n\t\"" + "tiling" + "\": \"" + TilingMode.ADAPTIVE.value() + "\",").getBytes(CHARSET));
+					jsonFileWriterForMasterFile.write(("\n\t\"" + "tiles" + "\": [").getBytes(CHARSET));
+
+					Iterator<QuadTreeTiling.Node> iter = quadTree.getTiles().iterator();
+					boolean isFirst = true;
+					while (iter.hasNext()) {
+						QuadTreeTiling.Node tile = iter.next();
+						if (!adaptiveTileFolders.containsKey(tile))
+							continue;
+
+						double[] extent = getAdaptiveTileExtent(tile);
+						jsonFileWriterForMasterFile.write(((isFirst ? "" : ",") + "\n\t\t{\"row\": " + tile.getRow() + 
+								", \"column\": " + tile.getColumn() + 
+								", \"size\": " + tile.getSize() + 
+								", \"level\": " + tile.getLevel() + 
+								", \"bbox\": {\"xmin\": " + extent[0] + ", \"xmax\": " + extent[2] + 
+								", \"ymin\": " + extent[1] + ", \"ymax\": " + extent[3] + "}}").getBytes(CHARSET));
+						isFirst = false;
+					}
+
+					jsonFileWriterForMasterFile.write(("\n\t]").getBytes(CHARSET));
+				}
+
 				jsonFileWriterForMasterFile.write("\n}\n".getBytes(CHARSET));				
 				jsonFileWriterForMasterFile.close();
 			}							
@@ -0,0 +1,372 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.database;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.citydb.modules.kml.util.GltfWriter;
+import org.citydb.modules.kml.util.TilesetWriter;
+import org.citydb.modules.kml.util.TriangleMesh;
+
+// collects the COLLADA geometries of a tile from all export workers and writes
+// them as a single batched 3D model (b3dm) with one batch entry per city object
+public class B3dmExporterManager {
+	private final double WGS84_A = 6378137.0;
+	private final double WGS84_E2 = 6.69437999014e-3;
+	private final Charset CHARSET = Charset.forName("UTF-8");
+
+	private final File file;
+	private final String uri;
+	private final int row;
+	private final int column;
+	private final int size;
+	private final TilesetWriter tilesetWriter;
+	private final List<Feature> features = new ArrayList<Feature>();
+
+	public B3dmExporterManager(File file, String uri, int row, int column, int size, TilesetWriter tilesetWriter) {
+		this.file = file;
+		this.uri = uri;
+		this.row = row;
+		this.column = column;
+		this.size = size;
+		this.tilesetWriter = tilesetWriter;
+	}
+
+	public synchronized void addFeature(long id, 
+			String gmlId, 
+			double longitude, 
+			double latitude, 
+			double height, 
+			double heading,
+			String description,
+			Map<String, Object> attributes,
+			TriangleMesh mesh,
+			Map<String, byte[]> images) {
+		if (!mesh.isEmpty())
+			features.add(new Feature(id, gmlId, longitude, latitude, height, heading, description, attributes, mesh, images));
+	}
+
+	public synchronized boolean write() throws IOException {
+		if (features.isEmpty())
+			return false;
+
+		// the tile is modeled in a local east-north-up frame at the center of its features
+		double longitude = 0, latitude = 0, height = 0;
+		for (Feature feature : features) {
+			longitude += feature.longitude;
+			latitude += feature.latitude;
+			height += feature.height;
+		}
+
+		longitude /= features.size();
+		latitude /= features.size();
+		height /= features.size();
+
+		double[] center = toEcef(longitude, latitude, height);
+		double[][] axes = getEnuAxes(longitude, latitude);
+		double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+		double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+
+		// merge the primitives of all features sharing a material
+		LinkedHashMap<String, Group> groups = new LinkedHashMap<String, Group>();
+		TriangleMesh merged = new TriangleMesh();
+
+		for (int batchId = 0; batchId < features.size(); batchId++) {
+			Feature feature = features.get(batchId);
+			double[] origin = toEcef(feature.longitude, feature.latitude, feature.height);
+			double[][] featureAxes = getEnuAxes(feature.longitude, feature.latitude);
+
+			// the heading rotates the grid north of the object coordinates into true north 
+			double cos = Math.cos(Math.toRadians(feature.heading));
+			double sin = Math.sin(Math.toRadians(feature.heading));
+			double[][] objectAxes = new double[3][3];
+			for (int i = 0; i < 3; i++) {
+				objectAxes[0][i] = cos * featureAxes[0][i] - sin * featureAxes[1][i];
+				objectAxes[1][i] = sin * featureAxes[0][i] + cos * featureAxes[1][i];
+				objectAxes[2][i] = featureAxes[2][i];
+			}
+
+			double[][] rotation = new double[3][3];
+			double[] translation = new double[3];
+			for (int i = 0; i < 3; i++) {
+				for (int j = 0; j < 3; j++)
+					rotation[i][j] = dot(axes[i], objectAxes[j]);
+
+				translation[i] = dot(axes[i], new double[]{origin[0] - center[0], origin[1] - center[1], origin[2] - center[2]});
+			}
+
+			for (TriangleMesh.Primitive primitive : feature.mesh.getPrimitives()) {
+				byte[] image = primitive.isTextured() ? feature.images.get(primitive.getTexImageName()) : null;
+
+				String key;
+				if (image != null)
+					key = batchId + "/" + primitive.getTexImageName();
+				else if (primitive.getX3dMaterial() != null)
+					key = primitive.getMaterialName();
+				else
+					key = "default";
+
+				Group group = groups.get(key);
+				if (group == null) {
+					group = new Group(merged.getPrimitive(key, image != null ? primitive.getTexImageName() : null, primitive.getX3dMaterial()), image);
+					groups.put(key, group);
+				}
+
+				group.append(primitive, rotation, translation, batchId, min, max);
+			}
+		}
+
+		GltfWriter gltfWriter = new GltfWriter();
+		for (Group group : groups.values())
+			gltfWriter.addPrimitive(group.primitive, group.batchIds, group.image);
+
+		byte[] glb = gltfWriter.toGlb();
+		byte[] featureTable = pad(("{\"BATCH_LENGTH\":" + features.size() + "}").getBytes(CHARSET), 28, 8, (byte)' ');
+		byte[] batchTable = pad(createBatchTable().getBytes(CHARSET), 28 + featureTable.length, 8, (byte)' ');
+
+		ByteBuffer header = ByteBuffer.allocate(28).order(ByteOrder.LITTLE_ENDIAN);
+		header.put("b3dm".getBytes(CHARSET));
+		header.putInt(1);
+		header.putInt(28 + featureTable.length + batchTable.length + glb.length);
+		header.putInt(featureTable.length);
+		header.putInt(0);
+		header.putInt(batchTable.length);
+		header.putInt(0);
+
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(header.array());
+			out.write(featureTable);
+			out.write(batchTable);
+			out.write(glb);
+		} finally {
+			out.close();
+		}
+
+		// approximate the geographic region from the local extent, the 
+		// curvature of the earth lowers the corners of the tile
+		double metersPerRadianNorth = WGS84_A * (1 - WGS84_E2) / Math.pow(1 - WGS84_E2 * Math.pow(Math.sin(Math.toRadians(latitude)), 2), 1.5);
+		double metersPerRadianEast = WGS84_A / Math.sqrt(1 - WGS84_E2 * Math.pow(Math.sin(Math.toRadians(latitude)), 2)) * Math.cos(Math.toRadians(latitude));
+		double extent = Math.max(Math.max(Math.abs(min[0]), Math.abs(max[0])), Math.max(Math.abs(min[1]), Math.abs(max[1])));
+		double[] region = new double[]{
+				Math.toRadians(longitude) + min[0] / metersPerRadianEast,
+				Math.toRadians(latitude) + min[1] / metersPerRadianNorth,
+				Math.toRadians(longitude) + max[0] / metersPerRadianEast,
+				Math.toRadians(latitude) + max[1] / metersPerRadianNorth,
+				height + min[2] - extent * extent / WGS84_A,
+				height + max[2]
+		};
+
+		double[] transform = new double[]{
+				axes[0][0], axes[0][1], axes[0][2], 0,
+				axes[1][0], axes[1][1], axes[1][2], 0,
+				axes[2][0], axes[2][1], axes[2][2], 0,
+				center[0], center[1], center[2], 1
+		};
+
+		tilesetWriter.addTile(row, column, size, uri, region, transform);
+		features.clear();
+
+		return true;
+	}
+
+	private String createBatchTable() {
+		Set<String> names = new LinkedHashSet<String>();
+		boolean hasDescription = false;
+		for (Feature feature : features) {
+			names.addAll(feature.attributes.keySet());
+			hasDescription |= feature.description != null;
+		}
+
+		StringBuilder gmlIds = new StringBuilder();
+		StringBuilder ids = new StringBuilder();
+		StringBuilder descriptions = new StringBuilder();
+		for (Feature feature : features) {
+			append(gmlIds, toJson(feature.gmlId));
+			append(ids, toJson(feature.id));
+			append(descriptions, toJson(feature.description));
+		}
+
+		StringBuilder json = new StringBuilder("{\"gmlId\":[").append(gmlIds).append("],\"id\":[").append(ids).append("]");
+		if (hasDescription)
+			json.append(",\"description\":[").append(descriptions).append("]");
+
+		for (String name : names) {
+			if (name.equals("gmlId") || name.equals("id") || name.equals("description"))
+				continue;
+
+			StringBuilder values = new StringBuilder();
+			for (Feature feature : features)
+				append(values, toJson(feature.attributes.get(name)));
+
+			json.append(",\"").append(GltfWriter.escapeJson(name)).append("\":[").append(values).append("]");
+		}
+
+		return json.append("}").toString();
+	}
+
+	private void append(StringBuilder builder, String value) {
+		if (builder.length() > 0)
+			builder.append(',');
+
+		builder.append(value);
+	}
+
+	private byte[] pad(byte[] data, int offset, int alignment, byte value) {
+		int padding = (alignment - (offset + data.length) % alignment) % alignment;
+		if (padding == 0)
+			return data;
+
+		byte[] padded = Arrays.copyOf(data, data.length + padding);
+		Arrays.fill(padded, data.length, padded.length, value);
+		return padded;
+	}
+
+	private String toJson(Object value) {
+		if (value == null)
+			return "null";
+		else if (value instanceof Double)
+			return ((Double)value).isNaN() || ((Double)value).isInfinite() ? "null" : value.toString();
+		else if (value instanceof Number)
+			return value.toString();
+		else
+			return "\"" + GltfWriter.escapeJson(value.toString()) + "\"";
+	}
+
+	private double[] toEcef(double longitude, double latitude, double height) {
+		double lon = Math.toRadians(longitude);
+		double lat = Math.toRadians(latitude);
+		double n = WGS84_A / Math.sqrt(1 - WGS84_E2 * Math.sin(lat) * Math.sin(lat));
+
+		return new double[]{
+				(n + height) * Math.cos(lat) * Math.cos(lon),
+				(n + height) * Math.cos(lat) * Math.sin(lon),
+				(n * (1 - WGS84_E2) + height) * Math.sin(lat)
+		};
+	}
+
+	private double[][] getEnuAxes(double longitude, double latitude) {
+		double lon = Math.toRadians(longitude);
+		double lat = Math.toRadians(latitude);
+
+		return new double[][]{
+				{-Math.sin(lon), Math.cos(lon), 0},
+				{-Math.sin(lat) * Math.cos(lon), -Math.sin(lat) * Math.sin(lon), Math.cos(lat)},
+				{Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)}
+		};
+	}
+
+	private double dot(double[] a, double[] b) {
+		return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+	}
+
+	private final class Group {
+		private final TriangleMesh.Primitive primitive;
+		private final byte[] image;
+		private float[] batchIds = new float[64];
+
+		private Group(TriangleMesh.Primitive primitive, byte[] image) {
+			this.primitive = primitive;
+			this.image = image;
+		}
+
+		private void append(TriangleMesh.Primitive source, double[][] rotation, double[] translation, int batchId, double[] min, double[] max) {
+			float[] positions = source.getPositions();
+			float[] normals = source.getNormals();
+			float[] texCoords = source.getTexCoords();
+			int offset = primitive.getVertexCount();
+
+			for (int i = 0; i < source.getVertexCount(); i++) {
+				double[] p = new double[3];
+				double[] n = new double[3];
+				for (int j = 0; j < 3; j++) {
+					p[j] = translation[j];
+					for (int k = 0; k < 3; k++) {
+						p[j] += rotation[j][k] * positions[i * 3 + k];
+						n[j] += rotation[j][k] * normals[i * 3 + k];
+					}
+
+					min[j] = Math.min(min[j], p[j]);
+					max[j] = Math.max(max[j], p[j]);
+				}
+
+				primitive.addVertex(p[0], p[1], p[2], (float)n[0], (float)n[1], (float)n[2], texCoords[i * 2], texCoords[i * 2 + 1]);
+
+				if (primitive.getVertexCount() > batchIds.length)
+					batchIds = Arrays.copyOf(batchIds, batchIds.length * 2);
+
+				batchIds[primitive.getVertexCount() - 1] = batchId;
+			}
+
+			int[] indices = source.getIndices();
+			for (int i = 0; i < source.getIndexCount(); i += 3)
+				primitive.addTriangle(indices[i] + offset, indices[i + 1] + offset, indices[i + 2] + offset);
+		}
+	}
+
+	private final class Feature {
+		private final long id;
+		private final String gmlId;
+		private final double longitude;
+		private final double latitude;
+		private final double height;
+		private final double heading;
+		private final String description;
+		private final Map<String, Object> attributes;
+		private final TriangleMesh mesh;
+		private final Map<String, byte[]> images;
+
+		private Feature(long id, String gmlId, double longitude, double latitude, double height, double heading, 
+				String description, Map<String, Object> attributes, TriangleMesh mesh, Map<String, byte[]> images) {
+			this.id = id;
+			this.gmlId = gmlId;
+			this.longitude = longitude;
+			this.latitude = latitude;
+			this.height = height;
+			this.heading = heading;
+			this.description = description;
+			this.attributes = attributes;
+			this.mesh = mesh;
+			this.images = images;
+		}
+	}
+
+}
@@ -441,11 +441,11 @@ public class CityFurniture extends KmlGenericObject{
 				!config.getProject().getKmlExporter().isExportAsKmz() &&
 				config.getProject().getKmlExporter().getFilter().getComplexFilter().getTiledBoundingBox().getActive().booleanValue())
 		{
-			link.setHref(getGmlId() + ".dae");
+			link.setHref(getModelFileName());
 		}
 		else {
 			// File.separator would be wrong here, it MUST be "/"
-			link.setHref(getId() + "/" + getGmlId() + ".dae");
+			link.setHref(getId() + "/" + getModelFileName());
 		}
 		model.setLink(link);
 
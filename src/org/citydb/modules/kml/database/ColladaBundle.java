@@ -45,6 +45,11 @@ public class ColladaBundle {
 
 	private COLLADA collada;
 	private String colladaAsString;
+	// compact model as binary glTF
+	private byte[] binaryGltf;
+	// coarse model of a simplified group, written next to the full-detail model
+	private COLLADA simplifiedCollada;
+	private byte[] simplifiedBinaryGltf;
 	private PlacemarkType placemark;
 	private String gmlId;
 	private long id;
@@ -113,4 +118,28 @@ public class ColladaBundle {
 	public String getExternalBalloonFileContent() {
 		return externalBalloonFileContent;
 	}
+
+	public void setBinaryGltf(byte[] binaryGltf) {
+		this.binaryGltf = binaryGltf;
+	}
+
+	public byte[] getBinaryGltf() {
+		return binaryGltf;
+	}
+
+	public void setSimplifiedCollada(COLLADA simplifiedCollada) {
+		this.simplifiedCollada = simplifiedCollada;
+	}
+
+	public COLLADA getSimplifiedCollada() {
+		return simplifiedCollada;
+	}
+
+	public void setSimplifiedBinaryGltf(byte[] simplifiedBinaryGltf) {
+		this.simplifiedBinaryGltf = simplifiedBinaryGltf;
+	}
+
+	public byte[] getSimplifiedBinaryGltf() {
+		return simplifiedBinaryGltf;
+	}
 }
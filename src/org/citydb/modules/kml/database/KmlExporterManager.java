@@ -90,6 +90,7 @@ public class KmlExporterManager {
 	private final String ENCODING = "UTF-8";
 	private final Charset CHARSET = Charset.forName(ENCODING);
 	private final String TEMP_FOLDER = "__temp";
+	private final String SIMPLIFIED_SUFFIX = "_simplified";
 
 	public KmlExporterManager(JAXBContext jaxbKmlContext,
 							  JAXBContext jaxbColladaContext,
@@ -488,17 +489,46 @@ public class KmlExporterManager {
 		if (config.getProject().getKmlExporter().isExportAsKmz() &&	isBBoxActive
 				&& config.getProject().getKmlExporter().isOneFilePerObject()) {
 			
-			// marshalling in parallel threads should save some time
-	        StringWriter sw = new StringWriter();
-	        colladaMarshaller.marshal(colladaBundle.getCollada(), sw);
-	        colladaBundle.setColladaAsString(sw.toString());
-	        colladaBundle.setCollada(null); // free heap space
-
-	        // ----------------- model saving -----------------
-	        ZipEntry zipEntry = new ZipEntry(colladaBundle.getId() + "/" + colladaBundle.getGmlId() + ".dae");
-	        zipOut.putNextEntry(zipEntry);
-	        zipOut.write(colladaBundle.getColladaAsString().getBytes(CHARSET));
-	        zipOut.closeEntry();
+			ZipEntry zipEntry = null;
+			if (colladaBundle.getCollada() != null) {
+				// marshalling in parallel threads should save some time
+				StringWriter sw = new StringWriter();
+				colladaMarshaller.marshal(colladaBundle.getCollada(), sw);
+				colladaBundle.setColladaAsString(sw.toString());
+				colladaBundle.setCollada(null); // free heap space
+
+				// ----------------- model saving -----------------
+				zipEntry = new ZipEntry(colladaBundle.getId() + "/" + colladaBundle.getGmlId() + ".dae");
+				zipOut.putNextEntry(zipEntry);
+				zipOut.write(colladaBundle.getColladaAsString().getBytes(CHARSET));
+				zipOut.closeEntry();
+			}
+
+			if (colladaBundle.getBinaryGltf() != null) {
+				zipEntry = new ZipEntry(colladaBundle.getId() + "/" + colladaBundle.getGmlId() + ".glb");
+				zipOut.putNextEntry(zipEntry);
+				zipOut.write(colladaBundle.getBinaryGltf());
+				zipOut.closeEntry();
+			}
+
+			// ----------------- simplified model saving -----------------
+			if (colladaBundle.getSimplifiedCollada() != null) {
+				StringWriter sw = new StringWriter();
+				colladaMarshaller.marshal(colladaBundle.getSimplifiedCollada(), sw);
+				colladaBundle.setSimplifiedCollada(null); // free heap space
+
+				zipEntry = new ZipEntry(colladaBundle.getId() + "/" + colladaBundle.getGmlId() + SIMPLIFIED_SUFFIX + ".dae");
+				zipOut.putNextEntry(zipEntry);
+				zipOut.write(sw.toString().getBytes(CHARSET));
+				zipOut.closeEntry();
+			}
+
+			if (colladaBundle.getSimplifiedBinaryGltf() != null) {
+				zipEntry = new ZipEntry(colladaBundle.getId() + "/" + colladaBundle.getGmlId() + SIMPLIFIED_SUFFIX + ".glb");
+				zipOut.putNextEntry(zipEntry);
+				zipOut.write(colladaBundle.getSimplifiedBinaryGltf());
+				zipOut.closeEntry();
+			}
 
 	        // ----------------- image saving -----------------
 	        if (colladaBundle.getUnsupportedTexImageIds() != null) {
@@ -564,12 +594,35 @@ public class KmlExporterManager {
 			// ----------------- model saving -----------------
 			File colladaModelFile = new File(buildingDirectory, colladaBundle.getGmlId() + ".dae");
 			File gltfModelFile = new File(buildingDirectory, colladaBundle.getGmlId() + ".gltf");
-			FileOutputStream fos = new FileOutputStream(colladaModelFile);
-	        colladaMarshaller.marshal(colladaBundle.getCollada(), fos);
-	        fos.close();
+			if (colladaBundle.getCollada() != null) {
+				FileOutputStream fos = new FileOutputStream(colladaModelFile);
+				colladaMarshaller.marshal(colladaBundle.getCollada(), fos);
+				fos.close();
+			}
+
+			// the compact model replaces the conversion of the COLLADA file
+			boolean convertCollada = colladaBundle.getBinaryGltf() == null && config.getProject().getKmlExporter().isCreateGltfModel();
+			if (colladaBundle.getBinaryGltf() != null) {
+				FileOutputStream fos = new FileOutputStream(new File(buildingDirectory, colladaBundle.getGmlId() + ".glb"));
+				fos.write(colladaBundle.getBinaryGltf());
+				fos.close();
+			}
+
+			// ----------------- simplified model saving -----------------
+			if (colladaBundle.getSimplifiedCollada() != null) {
+				FileOutputStream fos = new FileOutputStream(new File(buildingDirectory, colladaBundle.getGmlId() + SIMPLIFIED_SUFFIX + ".dae"));
+				colladaMarshaller.marshal(colladaBundle.getSimplifiedCollada(), fos);
+				fos.close();
+			}
+
+			if (colladaBundle.getSimplifiedBinaryGltf() != null) {
+				FileOutputStream fos = new FileOutputStream(new File(buildingDirectory, colladaBundle.getGmlId() + SIMPLIFIED_SUFFIX + ".glb"));
+				fos.write(colladaBundle.getSimplifiedBinaryGltf());
+				fos.close();
+			}
 	        
 	        // ----------------- create glTF without embedded textures-----------------
-			if (config.getProject().getKmlExporter().isCreateGltfModel() && !config.getProject().getKmlExporter().isEmbedTexturesInGltfFiles()) {
+			if (convertCollada && !config.getProject().getKmlExporter().isEmbedTexturesInGltfFiles()) {
 				convertColladaToglTF(colladaBundle, buildingDirectory, colladaModelFile, gltfModelFile);
 			}	        
 	        
@@ -599,7 +652,7 @@ public class KmlExporterManager {
 			}
 	
 			// ----------------- create glTF with embedded textures-----------------
-			if (config.getProject().getKmlExporter().isCreateGltfModel() && config.getProject().getKmlExporter().isEmbedTexturesInGltfFiles()) {
+			if (convertCollada && config.getProject().getKmlExporter().isEmbedTexturesInGltfFiles()) {
 				convertColladaToglTF(colladaBundle, buildingDirectory, colladaModelFile, gltfModelFile);
 				if (config.getProject().getKmlExporter().isNotCreateColladaFiles() && gltfModelFile.exists()) {
 					Set<String> keySet = colladaBundle.getTexImages().keySet();
@@ -40,6 +40,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
@@ -80,6 +81,7 @@ import org.citydb.modules.common.event.CounterEvent;
 import org.citydb.modules.common.event.CounterType;
 import org.citydb.modules.common.event.GeometryCounterEvent;
 import org.citydb.modules.kml.datatype.TypeAttributeValueEnum;
+import org.citydb.modules.kml.util.TriangleMesh;
 import org.citydb.textureAtlas.TextureAtlasCreator;
 import org.citydb.textureAtlas.image.ImageReader;
 import org.citydb.textureAtlas.model.TextureImage;
@@ -255,6 +257,11 @@ public abstract class KmlGenericObject {
 		return gmlId;
 	}
 
+	// in compact mode the model is written as binary glTF instead of COLLADA
+	protected String getModelFileName() {
+		return getGmlId() + (getColladaOptions().isCompactGeometry() ? ".glb" : ".dae");
+	}
+
 	protected void updateOrigins(double x, double y, double z) {
 		// update origin and list of lowest points
 		if (z < origin.z) {
@@ -306,6 +313,12 @@ public abstract class KmlGenericObject {
 	}
 
 	public COLLADA generateColladaTree() throws DatatypeConfigurationException{
+		return generateColladaTree(null);
+	}
+
+	// if a triangle mesh is provided, e.g. after simplification, it is 
+	// written instead of the surfaces of the object
+	public COLLADA generateColladaTree(TriangleMesh triangleMesh) throws DatatypeConfigurationException{
 
 		ObjectFactory colladaFactory = new ObjectFactory();
 
@@ -450,7 +463,7 @@ public abstract class KmlGenericObject {
 		HashMap<String, Triangles> trianglesByTexImageName = new HashMap<String, Triangles>();
 
 		// geometryInfos contains all surfaces, textured or not
-		Set<Long> keySet = surfaceInfos.keySet();
+		Set<Long> keySet = triangleMesh == null ? surfaceInfos.keySet() : Collections.<Long>emptySet();
 		Iterator<Long> iterator = keySet.iterator();
 		int normalIndexOffset = 0;
 		
@@ -468,263 +481,19 @@ public abstract class KmlGenericObject {
 
 			triangles = trianglesByTexImageName.get(texImageName);
 			if (triangles == null) { // never worked on this image or material before
-
-				// --------------------------- materials ---------------------------
-				Material material = colladaFactory.createMaterial();
-				material.setId(replaceExtensionWithSuffix(texImageName, "_mat"));
-				InstanceEffect instanceEffect = colladaFactory.createInstanceEffect();
-				instanceEffect.setUrl("#" + replaceExtensionWithSuffix(texImageName, "_eff"));
-				material.setInstanceEffect(instanceEffect);
-				libraryMaterials.getMaterial().add(material);
-
-				// --------------------- effects common part 1 ---------------------
-				Effect effect = colladaFactory.createEffect();
-				effect.setId(replaceExtensionWithSuffix(texImageName, "_eff"));
-				ProfileCOMMON profileCommon = colladaFactory.createProfileCOMMON();
-
-				if (surfaceTextured) {
-					// --------------------------- images ---------------------------
-					Image image = colladaFactory.createImage();
-					image.setId(replaceExtensionWithSuffix(texImageName, "_img"));
-					image.setInitFrom(texImageName);
-					libraryImages.getImage().add(image);
-
-					// --------------------------- effects ---------------------------
-					FxSurfaceInitFromCommon initFrom = colladaFactory.createFxSurfaceInitFromCommon();
-					initFrom.setValue(image); // evtl. image.getId();
-					FxSurfaceCommon surface = colladaFactory.createFxSurfaceCommon();
-					surface.setType("2D"); // ColladaConstants.SURFACE_TYPE_2D
-					surface.getInitFrom().add(initFrom);
-
-					CommonNewparamType newParam1 = colladaFactory.createCommonNewparamType();
-					newParam1.setSurface(surface);
-					newParam1.setSid(replaceExtensionWithSuffix(texImageName, "_surface"));
-					profileCommon.getImageOrNewparam().add(newParam1);
-
-					FxSampler2DCommon sampler2D = colladaFactory.createFxSampler2DCommon();
-					sampler2D.setSource(newParam1.getSid());
-					CommonNewparamType newParam2 = colladaFactory.createCommonNewparamType();
-					newParam2.setSampler2D(sampler2D);
-					newParam2.setSid(replaceExtensionWithSuffix(texImageName, "_sampler"));
-					profileCommon.getImageOrNewparam().add(newParam2);
-
-					ProfileCOMMON.Technique profileCommonTechnique = colladaFactory.createProfileCOMMONTechnique();
-					profileCommonTechnique.setSid("COMMON");
-					ProfileCOMMON.Technique.Lambert lambert = colladaFactory.createProfileCOMMONTechniqueLambert();
-					CommonColorOrTextureType.Texture texture = colladaFactory.createCommonColorOrTextureTypeTexture();
-					texture.setTexture(newParam2.getSid());
-					texture.setTexcoord("TEXCOORD"); // ColladaConstants.INPUT_SEMANTIC_TEXCOORD
-					CommonColorOrTextureType ccott = colladaFactory.createCommonColorOrTextureType();
-					ccott.setTexture(texture);
-					
-					// added for Highlighting in Cesium
-					CommonColorOrTextureType.Color color = colladaFactory.createCommonColorOrTextureTypeColor();
-					color.getValue().add(0d);
-					color.getValue().add(0d);
-					color.getValue().add(0d);
-					color.getValue().add(1d); // alpha
-					CommonColorOrTextureType ccott2 = colladaFactory.createCommonColorOrTextureType();
-					ccott2.setColor(color);
-					lambert.setEmission(ccott2);					
-					
-					lambert.setDiffuse(ccott);
-					profileCommonTechnique.setLambert(lambert);
-					profileCommon.setTechnique(profileCommonTechnique);
-				}
-				else {
-					// --------------------------- effects ---------------------------
-					ProfileCOMMON.Technique profileCommonTechnique = colladaFactory.createProfileCOMMONTechnique();
-					profileCommonTechnique.setSid("COMMON");
-					ProfileCOMMON.Technique.Lambert lambert = colladaFactory.createProfileCOMMONTechniqueLambert();
-
-					CommonFloatOrParamType cfopt = colladaFactory.createCommonFloatOrParamType();
-					CommonFloatOrParamType.Float cfoptf = colladaFactory.createCommonFloatOrParamTypeFloat();
-					if (x3dMaterial.isSetShininess()) {
-						cfoptf.setValue(x3dMaterial.getShininess());
-						cfopt.setFloat(cfoptf);
-						lambert.setReflectivity(cfopt);
-					}
-
-					if (x3dMaterial.isSetTransparency()) {
-						cfopt = colladaFactory.createCommonFloatOrParamType();
-						cfoptf = colladaFactory.createCommonFloatOrParamTypeFloat();
-						cfoptf.setValue(1.0-x3dMaterial.getTransparency());
-						cfopt.setFloat(cfoptf);
-						lambert.setTransparency(cfopt);						
-						CommonTransparentType transparent = colladaFactory.createCommonTransparentType();
-						transparent.setOpaque(FxOpaqueEnum.A_ONE);
-						CommonColorOrTextureType.Color color = colladaFactory.createCommonColorOrTextureTypeColor();
-						color.getValue().add(1.0);
-						color.getValue().add(1.0);
-						color.getValue().add(1.0);
-						color.getValue().add(1.0);						
-						transparent.setColor(color);						
-						lambert.setTransparent(transparent);
-					}
-
-					if (x3dMaterial.isSetDiffuseColor()) {
-						CommonColorOrTextureType.Color color = colladaFactory.createCommonColorOrTextureTypeColor();
-						color.getValue().add(x3dMaterial.getDiffuseColor().getRed());
-						color.getValue().add(x3dMaterial.getDiffuseColor().getGreen());
-						color.getValue().add(x3dMaterial.getDiffuseColor().getBlue());
-						color.getValue().add(1d); // alpha
-						CommonColorOrTextureType ccott = colladaFactory.createCommonColorOrTextureType();
-						ccott.setColor(color);
-						lambert.setDiffuse(ccott);
-					}
-
-					if (x3dMaterial.isSetSpecularColor()) {
-						CommonColorOrTextureType.Color color = colladaFactory.createCommonColorOrTextureTypeColor();
-						color.getValue().add(x3dMaterial.getSpecularColor().getRed());
-						color.getValue().add(x3dMaterial.getSpecularColor().getGreen());
-						color.getValue().add(x3dMaterial.getSpecularColor().getBlue());
-						color.getValue().add(1d); // alpha
-						CommonColorOrTextureType ccott = colladaFactory.createCommonColorOrTextureType();
-						ccott.setColor(color);
-						lambert.setReflective(ccott);
-					}
-
-					if (x3dMaterial.isSetEmissiveColor()) {
-						CommonColorOrTextureType.Color color = colladaFactory.createCommonColorOrTextureTypeColor();
-						color.getValue().add(x3dMaterial.getEmissiveColor().getRed());
-						color.getValue().add(x3dMaterial.getEmissiveColor().getGreen());
-						color.getValue().add(x3dMaterial.getEmissiveColor().getBlue());
-						color.getValue().add(1d); // alpha
-						CommonColorOrTextureType ccott = colladaFactory.createCommonColorOrTextureType();
-						ccott.setColor(color);
-						lambert.setEmission(ccott);
-					}
-					else {
-						// added for Highlighting in Cesium
-						CommonColorOrTextureType.Color color = colladaFactory.createCommonColorOrTextureTypeColor();
-						color.getValue().add(0d);
-						color.getValue().add(0d);
-						color.getValue().add(0d);
-						color.getValue().add(1d); // alpha
-						CommonColorOrTextureType ccott2 = colladaFactory.createCommonColorOrTextureType();
-						ccott2.setColor(color);
-						lambert.setEmission(ccott2);
-					}
-
-					profileCommonTechnique.setLambert(lambert);
-					profileCommon.setTechnique(profileCommonTechnique);
-				}
-
-				// --------------------- effects common part 2 ---------------------
-				Technique geTechnique = colladaFactory.createTechnique();
-				geTechnique.setProfile("GOOGLEEARTH");
-
-				try {
-					DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-					DocumentBuilder docBuilder = factory.newDocumentBuilder();
-					Document document = docBuilder.newDocument();
-					factory.setNamespaceAware(true);
-					Element doubleSided = document.createElementNS("http://www.collada.org/2005/11/COLLADASchema", "double_sided");
-					doubleSided.setTextContent(ignoreSurfaceOrientation ? "1": "0");
-					geTechnique.getAny().add(doubleSided);
-				} catch (ParserConfigurationException e) {
-					e.printStackTrace();
-				}
-
-				Extra extra = colladaFactory.createExtra();
-				extra.getTechnique().add(geTechnique);
-				profileCommon.getExtra().add(extra);
-
-				effect.getFxProfileAbstract().add(colladaFactory.createProfileCOMMON(profileCommon));
-
-				libraryEffects.getEffect().add(effect);
-
-				// --------------------------- triangles ---------------------------
-				int offset = 0;
-
-				triangles = colladaFactory.createTriangles();
-				triangles.setMaterial(replaceExtensionWithSuffix(texImageName, "_tri"));
-				InputLocalOffset inputV = colladaFactory.createInputLocalOffset();
-				inputV.setSemantic("VERTEX"); // ColladaConstants.INPUT_SEMANTIC_VERTEX
-				inputV.setSource("#" + vertices.getId());
-				inputV.setOffset(BigInteger.valueOf(offset++));
-				triangles.getInput().add(inputV);
-
-				if (getColladaOptions().isGenerateSurfaceNormals()) {
-					InputLocalOffset inputN = colladaFactory.createInputLocalOffset();
-					inputN.setSemantic("NORMAL"); // ColladaConstants.INPUT_NORMAL_VERTEX
-					inputN.setSource("#" + normalSource.getId());
-					inputN.setOffset(BigInteger.valueOf(offset++));
-					triangles.getInput().add(inputN);
-				}				
-
-				if (surfaceTextured) {
-					InputLocalOffset inputT = colladaFactory.createInputLocalOffset();
-					inputT.setSemantic("TEXCOORD"); // ColladaConstants.INPUT_SEMANTIC_TEXCOORD
-					inputT.setSource("#" + texCoordsSource.getId());
-					inputT.setOffset(BigInteger.valueOf(offset++));
-					triangles.getInput().add(inputT);
-				}
-
+				triangles = createTriangles(colladaFactory, texImageName, surfaceTextured, x3dMaterial, 
+						libraryImages, libraryMaterials, libraryEffects, vertices, normalSource, texCoordsSource);
 				trianglesByTexImageName.put(texImageName, triangles);
 			}
 
 			// --------------------------- geometry (variable part) ---------------------------
 			SurfaceInfo surfaceInfo = surfaceInfos.get(surfaceId);						
 			List<VertexInfo> vertexInfos = surfaceInfo.getVertexInfos();
-			double[] ordinatesArray = new double[vertexInfos.size() * 3];
-
-			int count = 0;
-			for (VertexInfo vertexInfo : vertexInfos) {
-				ordinatesArray[count++] = vertexInfo.getX() - origin.x;
-				ordinatesArray[count++] = vertexInfo.getY() - origin.y;
-				ordinatesArray[count++] = vertexInfo.getZ() - origin.z;
-			}
-
-			GeometryInfo ginfo = new GeometryInfo(GeometryInfo.POLYGON_ARRAY);
-			ginfo.setCoordinates(ordinatesArray);
-			ginfo.setContourCounts(surfaceInfo.getRingCountAsArray());
-			ginfo.setStripCounts(surfaceInfo.getVertexCount());
-			int outerRingCount = ginfo.getStripCounts()[0];
-
-			// triangulate the surface geometry
-			ginfo.convertToIndexedTriangles();
+			GeometryInfo ginfo = triangulate(surfaceInfo);
 
-			// generate normals
-			NormalGenerator ng = new NormalGenerator();
-			ng.generateNormals(ginfo);
-			
 			int[] indexes = ginfo.getCoordinateIndices();
 			int[] normalIndexes = ginfo.getNormalIndices();			
 			Vector3f[] normals = ginfo.getNormals();
-			
-			// fix a reversed orientation of the triangulated surface 
-			byte[] edges = {0, 1, 1, 2, 2, 0};			
-			boolean hasFound = false;
-			boolean reverse = false;
-
-			for (int i = 0; !hasFound && i < indexes.length; i += 3) {				
-				// skip degenerated triangles
-				if (indexes[i] == indexes[i + 1] || indexes[i + 1] == indexes[i + 2] || indexes[i] == indexes[i + 2])
-					continue;
-
-				// find the first edge on the exterior ring
-				for (int j = 0; j < edges.length; j += 2) {
-					int first = i + edges[j];
-					int second = i + edges[j + 1]; 
-
-					if (indexes[first] < outerRingCount && indexes[second] < outerRingCount && Math.abs(indexes[first] - indexes[second]) == 1) {
-						// ok, we found it. now check the order of the vertex indices
-						hasFound = true;						
-						if (indexes[first] > indexes[second])
-							reverse = true;
-
-						break;
-					}
-				}
-			}
-
-			// reverse indexes and normals
-			if (reverse) {
-				ginfo.reverse();
-				for (int i = 0; i < normals.length; i++)
-					normals[i].negate();
-			}
 
 			// use vertex indices of the triangulation to populate
 			// the vertex arrays in the collada file
@@ -768,7 +537,56 @@ public abstract class KmlGenericObject {
 			}
 		}
 
-		VertexInfo vertexInfoIterator = firstVertexInfo;
+		if (triangleMesh != null) {
+			for (TriangleMesh.Primitive primitive : triangleMesh.getPrimitives()) {
+				String texImageName = primitive.getMaterialName();
+				boolean surfaceTextured = primitive.isTextured();
+
+				triangles = trianglesByTexImageName.get(texImageName);
+				if (triangles == null) {
+					triangles = createTriangles(colladaFactory, texImageName, surfaceTextured, primitive.getX3dMaterial(), 
+							libraryImages, libraryMaterials, libraryEffects, vertices, normalSource, texCoordsSource);
+					trianglesByTexImageName.put(texImageName, triangles);
+				}
+
+				int vertexOffset = positionValues.size() / 3;
+				int normalOffset = normalValues.size() / 3;
+				int texCoordsOffset = texCoordsValues.size() / 2;
+				float[] positions = primitive.getPositions();
+				float[] normals = primitive.getNormals();
+				float[] texCoords = primitive.getTexCoords();
+
+				for (int i = 0; i < primitive.getVertexCount(); i++) {
+					positionValues.add(reducePrecisionForXorY(positions[i * 3]));
+					positionValues.add(reducePrecisionForXorY(positions[i * 3 + 1]));
+					positionValues.add(reducePrecisionForZ(positions[i * 3 + 2]));
+
+					if (getColladaOptions().isGenerateSurfaceNormals()) {
+						normalValues.add(reducePrecisionForXorY(normals[i * 3]));
+						normalValues.add(reducePrecisionForXorY(normals[i * 3 + 1]));
+						normalValues.add(reducePrecisionForXorY(normals[i * 3 + 2]));
+					}
+
+					if (surfaceTextured) {
+						texCoordsValues.add((double)texCoords[i * 2]);
+						texCoordsValues.add((double)texCoords[i * 2 + 1]);
+					}
+				}
+
+				int[] indices = primitive.getIndices();
+				for (int i = 0; i < primitive.getIndexCount(); i++) {
+					triangles.getP().add(BigInteger.valueOf(vertexOffset + indices[i]));
+
+					if (getColladaOptions().isGenerateSurfaceNormals())
+						triangles.getP().add(BigInteger.valueOf(normalOffset + indices[i]));
+
+					if (surfaceTextured)
+						triangles.getP().add(BigInteger.valueOf(texCoordsOffset + indices[i]));
+				}
+			}
+		}
+
+		VertexInfo vertexInfoIterator = triangleMesh == null ? firstVertexInfo : null;
 		while (vertexInfoIterator != null) {
 			positionValues.add(reducePrecisionForXorY((vertexInfoIterator.getX() - origin.x)));
 			positionValues.add(reducePrecisionForXorY((vertexInfoIterator.getY() - origin.y)));
@@ -823,6 +641,383 @@ public abstract class KmlGenericObject {
 		return collada;
 	}
 
+	// creates the material and effect of an image or X3D material and 
+	// the triangles referencing them
+	private Triangles createTriangles(ObjectFactory colladaFactory, 
+			String texImageName, 
+			boolean surfaceTextured, 
+			X3DMaterial x3dMaterial, 
+			LibraryImages libraryImages, 
+			LibraryMaterials libraryMaterials, 
+			LibraryEffects libraryEffects, 
+			Vertices vertices, 
+			Source normalSource, 
+			Source texCoordsSource) {
+		// --------------------------- materials ---------------------------
+		Material material = colladaFactory.createMaterial();
+		material.setId(replaceExtensionWithSuffix(texImageName, "_mat"));
+		InstanceEffect instanceEffect = colladaFactory.createInstanceEffect();
+		instanceEffect.setUrl("#" + replaceExtensionWithSuffix(texImageName, "_eff"));
+		material.setInstanceEffect(instanceEffect);
+		libraryMaterials.getMaterial().add(material);
+
+		// --------------------- effects common part 1 ---------------------
+		Effect effect = colladaFactory.createEffect();
+		effect.setId(replaceExtensionWithSuffix(texImageName, "_eff"));
+		ProfileCOMMON profileCommon = colladaFactory.createProfileCOMMON();
+
+		if (surfaceTextured) {
+			// --------------------------- images ---------------------------
+			Image image = colladaFactory.createImage();
+			image.setId(replaceExtensionWithSuffix(texImageName, "_img"));
+			image.setInitFrom(texImageName);
+			libraryImages.getImage().add(image);
+
+			// --------------------------- effects ---------------------------
+			FxSurfaceInitFromCommon initFrom = colladaFactory.createFxSurfaceInitFromCommon();
+			initFrom.setValue(image); // evtl. image.getId();
+			FxSurfaceCommon surface = colladaFactory.createFxSurfaceCommon();
+			surface.setType("2D"); // ColladaConstants.SURFACE_TYPE_2D
+			surface.getInitFrom().add(initFrom);
+
+			CommonNewparamType newParam1 = colladaFactory.createCommonNewparamType();
+			newParam1.setSurface(surface);
+			newParam1.setSid(replaceExtensionWithSuffix(texImageName, "_surface"));
+			profileCommon.getImageOrNewparam().add(newParam1);
+
+			FxSampler2DCommon sampler2D = colladaFactory.createFxSampler2DCommon();
+			sampler2D.setSource(newParam1.getSid());
+			CommonNewparamType newParam2 = colladaFactory.createCommonNewparamType();
+			newParam2.setSampler2D(sampler2D);
+			newParam2.setSid(replaceExtensionWithSuffix(texImageName, "_sampler"));
+			profileCommon.getImageOrNewparam().add(newParam2);
+
+			ProfileCOMMON.Technique profileCommonTechnique = colladaFactory.createProfileCOMMONTechnique();
+			profileCommonTechnique.setSid("COMMON");
+			ProfileCOMMON.Technique.Lambert lambert = colladaFactory.createProfileCOMMONTechniqueLambert();
+			CommonColorOrTextureType.Texture texture = colladaFactory.createCommonColorOrTextureTypeTexture();
+			texture.setTexture(newParam2.getSid());
+			texture.setTexcoord("TEXCOORD"); // ColladaConstants.INPUT_SEMANTIC_TEXCOORD
+			CommonColorOrTextureType ccott = colladaFactory.createCommonColorOrTextureType();
+			ccott.setTexture(texture);
+			
+			// added for Highlighting in Cesium
+			CommonColorOrTextureType.Color color = colladaFactory.createCommonColorOrTextureTypeColor();
+			color.getValue().add(0d);
+			color.getValue().add(0d);
+			color.getValue().add(0d);
+			color.getValue().add(1d); // alpha
+			CommonColorOrTextureType ccott2 = colladaFactory.createCommonColorOrTextureType();
+			ccott2.setColor(color);
+			lambert.setEmission(ccott2);					
+			
+			lambert.setDiffuse(ccott);
+			profileCommonTechnique.setLambert(lambert);
+			profileCommon.setTechnique(profileCommonTechnique);
+		}
+		else {
+			// --------------------------- effects ---------------------------
+			ProfileCOMMON.Technique profileCommonTechnique = colladaFactory.createProfileCOMMONTechnique();
+			profileCommonTechnique.setSid("COMMON");
+			ProfileCOMMON.Technique.Lambert lambert = colladaFactory.createProfileCOMMONTechniqueLambert();
+
+			CommonFloatOrParamType cfopt = colladaFactory.createCommonFloatOrParamType();
+			CommonFloatOrParamType.Float cfoptf = colladaFactory.createCommonFloatOrParamTypeFloat();
+			if (x3dMaterial.isSetShininess()) {
+				cfoptf.setValue(x3dMaterial.getShininess());
+				cfopt.setFloat(cfoptf);
+				lambert.setReflectivity(cfopt);
+			}
+
+			if (x3dMaterial.isSetTransparency()) {
+				cfopt = colladaFactory.createCommonFloatOrParamType();
+				cfoptf = colladaFactory.createCommonFloatOrParamTypeFloat();
+				cfoptf.setValue(1.0-x3dMaterial.getTransparency());
+				cfopt.setFloat(cfoptf);
+				lambert.setTransparency(cfopt);						
+				CommonTransparentType transparent = colladaFactory.createCommonTransparentType();
+				transparent.setOpaque(FxOpaqueEnum.A_ONE);
+				CommonColorOrTextureType.Color color = colladaFactory.createCommonColorOrTextureTypeColor();
+				color.getValue().add(1.0);
+				color.getValue().add(1.0);
+				color.getValue().add(1.0);
+				color.getValue().add(1.0);						
+				transparent.setColor(color);						
+				lambert.setTransparent(transparent);
+			}
+
+			if (x3dMaterial.isSetDiffuseColor()) {
+				CommonColorOrTextureType.Color color = colladaFactory.createCommonColorOrTextureTypeColor();
+				color.getValue().add(x3dMaterial.getDiffuseColor().getRed());
+				color.getValue().add(x3dMaterial.getDiffuseColor().getGreen());
+				color.getValue().add(x3dMaterial.getDiffuseColor().getBlue());
+				color.getValue().add(1d); // alpha
+				CommonColorOrTextureType ccott = colladaFactory.createCommonColorOrTextureType();
+				ccott.setColor(color);
+				lambert.setDiffuse(ccott);
+			}
+
+			if (x3dMaterial.isSetSpecularColor()) {
+				CommonColorOrTextureType.Color color = colladaFactory.createCommonColorOrTextureTypeColor();
+				color.getValue().add(x3dMaterial.getSpecularColor().getRed());
+				color.getValue().add(x3dMaterial.getSpecularColor().getGreen());
+				color.getValue().add(x3dMaterial.getSpecularColor().getBlue());
+				color.getValue().add(1d); // alpha
+				CommonColorOrTextureType ccott = colladaFactory.createCommonColorOrTextureType();
+				ccott.setColor(color);
+				lambert.setReflective(ccott);
+			}
+
+			if (x3dMaterial.isSetEmissiveColor()) {
+				CommonColorOrTextureType.Color color = colladaFactory.createCommonColorOrTextureTypeColor();
+				color.getValue().add(x3dMaterial.getEmissiveColor().getRed());
+				color.getValue().add(x3dMaterial.getEmissiveColor().getGreen());
+				color.getValue().add(x3dMaterial.getEmissiveColor().getBlue());
+				color.getValue().add(1d); // alpha
+				CommonColorOrTextureType ccott = colladaFactory.createCommonColorOrTextureType();
+				ccott.setColor(color);
+				lambert.setEmission(ccott);
+			}
+			else {
+				// added for Highlighting in Cesium
+				CommonColorOrTextureType.Color color = colladaFactory.createCommonColorOrTextureTypeColor();
+				color.getValue().add(0d);
+				color.getValue().add(0d);
+				color.getValue().add(0d);
+				color.getValue().add(1d); // alpha
+				CommonColorOrTextureType ccott2 = colladaFactory.createCommonColorOrTextureType();
+				ccott2.setColor(color);
+				lambert.setEmission(ccott2);
+			}
+
+			profileCommonTechnique.setLambert(lambert);
+			profileCommon.setTechnique(profileCommonTechnique);
+		}
+
+		// --------------------- effects common part 2 ---------------------
+		Technique geTechnique = colladaFactory.createTechnique();
+		geTechnique.setProfile("GOOGLEEARTH");
+
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			DocumentBuilder docBuilder = factory.newDocumentBuilder();
+			Document document = docBuilder.newDocument();
+			factory.setNamespaceAware(true);
+			Element doubleSided = document.createElementNS("http://www.collada.org/2005/11/COLLADASchema", "double_sided");
+			doubleSided.setTextContent(ignoreSurfaceOrientation ? "1": "0");
+			geTechnique.getAny().add(doubleSided);
+		} catch (ParserConfigurationException e) {
+			e.printStackTrace();
+		}
+
+		Extra extra = colladaFactory.createExtra();
+		extra.getTechnique().add(geTechnique);
+		profileCommon.getExtra().add(extra);
+
+		effect.getFxProfileAbstract().add(colladaFactory.createProfileCOMMON(profileCommon));
+
+		libraryEffects.getEffect().add(effect);
+
+		// --------------------------- triangles ---------------------------
+		int offset = 0;
+
+		Triangles triangles = colladaFactory.createTriangles();
+		triangles.setMaterial(replaceExtensionWithSuffix(texImageName, "_tri"));
+		InputLocalOffset inputV = colladaFactory.createInputLocalOffset();
+		inputV.setSemantic("VERTEX"); // ColladaConstants.INPUT_SEMANTIC_VERTEX
+		inputV.setSource("#" + vertices.getId());
+		inputV.setOffset(BigInteger.valueOf(offset++));
+		triangles.getInput().add(inputV);
+
+		if (getColladaOptions().isGenerateSurfaceNormals()) {
+			InputLocalOffset inputN = colladaFactory.createInputLocalOffset();
+			inputN.setSemantic("NORMAL"); // ColladaConstants.INPUT_NORMAL_VERTEX
+			inputN.setSource("#" + normalSource.getId());
+			inputN.setOffset(BigInteger.valueOf(offset++));
+			triangles.getInput().add(inputN);
+		}				
+
+		if (surfaceTextured) {
+			InputLocalOffset inputT = colladaFactory.createInputLocalOffset();
+			inputT.setSemantic("TEXCOORD"); // ColladaConstants.INPUT_SEMANTIC_TEXCOORD
+			inputT.setSource("#" + texCoordsSource.getId());
+			inputT.setOffset(BigInteger.valueOf(offset++));
+			triangles.getInput().add(inputT);
+		}
+
+		return triangles;
+	}
+
+	// triangulates a surface and generates its normals. the orientation of the
+	// triangles is fixed to follow the exterior ring of the surface
+	private GeometryInfo triangulate(SurfaceInfo surfaceInfo) {
+		List<VertexInfo> vertexInfos = surfaceInfo.getVertexInfos();
+		double[] ordinatesArray = new double[vertexInfos.size() * 3];
+
+		int count = 0;
+		for (VertexInfo vertexInfo : vertexInfos) {
+			ordinatesArray[count++] = vertexInfo.getX() - origin.x;
+			ordinatesArray[count++] = vertexInfo.getY() - origin.y;
+			ordinatesArray[count++] = vertexInfo.getZ() - origin.z;
+		}
+
+		GeometryInfo ginfo = new GeometryInfo(GeometryInfo.POLYGON_ARRAY);
+		ginfo.setCoordinates(ordinatesArray);
+		ginfo.setContourCounts(surfaceInfo.getRingCountAsArray());
+		ginfo.setStripCounts(surfaceInfo.getVertexCount());
+		int outerRingCount = ginfo.getStripCounts()[0];
+
+		// triangulate the surface geometry
+		ginfo.convertToIndexedTriangles();
+
+		// generate normals
+		NormalGenerator ng = new NormalGenerator();
+		ng.generateNormals(ginfo);
+
+		int[] indexes = ginfo.getCoordinateIndices();
+		Vector3f[] normals = ginfo.getNormals();
+
+		// fix a reversed orientation of the triangulated surface 
+		byte[] edges = {0, 1, 1, 2, 2, 0};			
+		boolean hasFound = false;
+		boolean reverse = false;
+
+		for (int i = 0; !hasFound && i < indexes.length; i += 3) {				
+			// skip degenerated triangles
+			if (indexes[i] == indexes[i + 1] || indexes[i + 1] == indexes[i + 2] || indexes[i] == indexes[i + 2])
+				continue;
+
+			// find the first edge on the exterior ring
+			for (int j = 0; j < edges.length; j += 2) {
+				int first = i + edges[j];
+				int second = i + edges[j + 1]; 
+
+				if (indexes[first] < outerRingCount && indexes[second] < outerRingCount && Math.abs(indexes[first] - indexes[second]) == 1) {
+					// ok, we found it. now check the order of the vertex indices
+					hasFound = true;						
+					if (indexes[first] > indexes[second])
+						reverse = true;
+
+					break;
+				}
+			}
+		}
+
+		// reverse indexes and normals
+		if (reverse) {
+			ginfo.reverse();
+			for (int i = 0; i < normals.length; i++)
+				normals[i].negate();
+		}
+
+		return ginfo;
+	}
+
+	public TriangleMesh generateTriangleMesh() {
+		TriangleMesh mesh = new TriangleMesh();
+		boolean hasTextures = !config.getProject().getKmlExporter().getAppearanceTheme().equals(KmlExporter.THEME_NONE);
+
+		for (Long surfaceId : surfaceInfos.keySet()) {
+			String texImageName = hasTextures ? texImageUris.get(surfaceId) : null;
+			X3DMaterial x3dMaterial = getX3dMaterial(surfaceId);
+			String materialName = texImageName;
+			if (materialName == null) {
+				materialName = (x3dMaterial != null) ?
+						buildNameFromX3dMaterial(x3dMaterial):
+							NO_TEXIMAGE;
+			}
+
+			TriangleMesh.Primitive primitive = mesh.getPrimitive(materialName, texImageName, x3dMaterial);
+
+			SurfaceInfo surfaceInfo = surfaceInfos.get(surfaceId);
+			List<VertexInfo> vertexInfos = surfaceInfo.getVertexInfos();
+			GeometryInfo ginfo = triangulate(surfaceInfo);
+
+			int[] indexes = ginfo.getCoordinateIndices();
+			int[] normalIndexes = ginfo.getNormalIndices();
+			Vector3f[] normals = ginfo.getNormals();
+
+			// share vertices having the same position and normal within a surface
+			HashMap<Long, Integer> vertices = new HashMap<Long, Integer>();
+			int[] triangle = new int[3];
+
+			for (int i = 0; i < indexes.length; i++) {
+				long key = ((long)indexes[i] << 32) | normalIndexes[i];
+				Integer index = vertices.get(key);
+
+				if (index == null) {
+					VertexInfo vertexInfo = vertexInfos.get(indexes[i]);
+					Vector3f normal = normals[normalIndexes[i]];
+
+					double s = 0, t = 0;
+					if (texImageName != null) {
+						TexCoords texCoords = vertexInfo.getTexCoords(surfaceId);
+						if (texCoords != null) {
+							s = texCoords.getS();
+							t = texCoords.getT();
+						}
+					}
+
+					index = primitive.addVertex(vertexInfo.getX() - origin.x,
+							vertexInfo.getY() - origin.y,
+							vertexInfo.getZ() - origin.z,
+							normal.x, normal.y, normal.z, s, t);
+					vertices.put(key, index);
+				}
+
+				triangle[i % 3] = index;
+				if (i % 3 == 2)
+					primitive.addTriangle(triangle[0], triangle[1], triangle[2]);
+			}
+		}
+
+		return mesh;
+	}
+
+	public HashMap<String, Object> getGenericAttributes() {
+		HashMap<String, Object> attributes = new HashMap<String, Object>();
+		PreparedStatement selectQuery = null;
+		ResultSet rs = null;
+
+		try {
+			selectQuery = connection.prepareStatement(Queries.GET_GENERICATTRIBS_FROM_ID);
+			selectQuery.setLong(1, id);
+			rs = selectQuery.executeQuery();
+
+			while (rs.next()) {
+				String name = rs.getString(1);
+				Object value = null;
+
+				switch (rs.getInt(2)) {
+				case 1:
+					value = rs.getString(3);
+					break;
+				case 2:
+					value = rs.getLong(4);
+					break;
+				case 3:
+					value = rs.getDouble(5);
+					break;
+				}
+
+				if (name != null && value != null && !rs.wasNull())
+					attributes.put(name, value);
+			}
+		}
+		catch (SQLException e) {
+			Logger.getInstance().debug("Failed to query generic attributes of city object " + gmlId + ": " + e.getMessage());
+		}
+		finally {
+			try {
+				if (rs != null) rs.close();
+				if (selectQuery != null) selectQuery.close();
+			}
+			catch (SQLException e) {}
+		}
+
+		return attributes;
+	}
+
 	private String replaceExtensionWithSuffix (String imageName, String suffix) {
 		int indexOfExtension = imageName.lastIndexOf('.');
 		if (indexOfExtension != -1) {
@@ -1973,11 +2168,11 @@ public abstract class KmlGenericObject {
 				!config.getProject().getKmlExporter().isExportAsKmz() &&
 				config.getProject().getKmlExporter().getFilter().getComplexFilter().getTiledBoundingBox().getActive().booleanValue())
 		{
-			link.setHref(getGmlId() + ".dae");
+			link.setHref(getModelFileName());
 		}
 		else {
 			// File.separator would be wrong here, it MUST be "/"
-			link.setHref(getId() + "/" + getGmlId() + ".dae");
+			link.setHref(getId() + "/" + getModelFileName());
 		}
 		model.setLink(link);
 
@@ -32,6 +32,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashSet;
+import java.util.Set;
 
 import org.citydb.api.concurrent.WorkerPool;
 import org.citydb.api.database.DatabaseSrs;
@@ -77,72 +78,80 @@ public class KmlSplitter {
 		this.filterConfig = config.getProject().getKmlExporter().getFilter();
 		
 		CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.clear();
+		CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.addAll(getAllowedCityObjectTypes(config));
+
+		databaseAdapter = dbConnectionPool.getActiveDatabaseAdapter();
+		connection = dbConnectionPool.getConnection();
+		dbSrs = databaseAdapter.getConnectionMetaData().getReferenceSystem();
+
+		// try and change workspace for connection if needed
+		if (dbConnectionPool.getActiveDatabaseAdapter().hasVersioningSupport()) {
+			Database database = config.getProject().getDatabase();
+			dbConnectionPool.getActiveDatabaseAdapter().getWorkspaceManager().gotoWorkspace(connection, 
+					database.getWorkspaces().getKmlExportWorkspace());
+		}
+
+	}
+
+	public static Set<CityGMLClass> getAllowedCityObjectTypes(Config config) {
+		HashSet<CityGMLClass> types = new HashSet<CityGMLClass>();
+		ExportFilterConfig filterConfig = config.getProject().getKmlExporter().getFilter();
 		boolean allowAllTypes = !filterConfig.isSetComplexFilter();
 		
 		if (allowAllTypes || filterConfig.getComplexFilter().getFeatureClass().isSetBuilding()) {
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.BUILDING);
+			types.add(CityGMLClass.BUILDING);
 		}
 		
 		if (allowAllTypes || filterConfig.getComplexFilter().getFeatureClass().isSetWaterBody()) {
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.WATER_BODY);
+			types.add(CityGMLClass.WATER_BODY);
 		}
 		
 		if (allowAllTypes || filterConfig.getComplexFilter().getFeatureClass().isSetLandUse()) {
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.LAND_USE);
+			types.add(CityGMLClass.LAND_USE);
 		}
 		
 		if (allowAllTypes || filterConfig.getComplexFilter().getFeatureClass().isSetVegetation()
 				&& config.getProject().getKmlExporter().getLodToExportFrom() > 0) {
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.SOLITARY_VEGETATION_OBJECT);
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.PLANT_COVER);
+			types.add(CityGMLClass.SOLITARY_VEGETATION_OBJECT);
+			types.add(CityGMLClass.PLANT_COVER);
 		}
 		
 		if (allowAllTypes || filterConfig.getComplexFilter().getFeatureClass().isSetTransportation()) {
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.TRANSPORTATION_COMPLEX);
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.TRACK);
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.RAILWAY);
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.ROAD);
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.SQUARE);
+			types.add(CityGMLClass.TRANSPORTATION_COMPLEX);
+			types.add(CityGMLClass.TRACK);
+			types.add(CityGMLClass.RAILWAY);
+			types.add(CityGMLClass.ROAD);
+			types.add(CityGMLClass.SQUARE);
 		}
 		
 		if (allowAllTypes || filterConfig.getComplexFilter().getFeatureClass().isSetReliefFeature()
 				&& config.getProject().getKmlExporter().getLodToExportFrom() > 0) {
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.RELIEF_FEATURE);
+			types.add(CityGMLClass.RELIEF_FEATURE);
 		}
 		
 		if (allowAllTypes || filterConfig.getComplexFilter().getFeatureClass().isSetGenericCityObject()) {
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.GENERIC_CITY_OBJECT);
+			types.add(CityGMLClass.GENERIC_CITY_OBJECT);
 		}
 		
 		if (allowAllTypes || filterConfig.getComplexFilter().getFeatureClass().isSetCityFurniture()
 				&& config.getProject().getKmlExporter().getLodToExportFrom() > 0) {
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.CITY_FURNITURE);
+			types.add(CityGMLClass.CITY_FURNITURE);
 		}
 		
 		if (allowAllTypes || filterConfig.getComplexFilter().getFeatureClass().isSetCityObjectGroup()
 				&& config.getProject().getKmlExporter().getLodToExportFrom() > 0) {
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.CITY_OBJECT_GROUP);
+			types.add(CityGMLClass.CITY_OBJECT_GROUP);
 		}
 		if (allowAllTypes || filterConfig.getComplexFilter().getFeatureClass().isSetBridge()
 				&& config.getProject().getKmlExporter().getLodToExportFrom() > 0) {
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.BRIDGE);
+			types.add(CityGMLClass.BRIDGE);
 		}
 		if (allowAllTypes || filterConfig.getComplexFilter().getFeatureClass().isSetTunnel()
 				&& config.getProject().getKmlExporter().getLodToExportFrom() > 0) {
-			CURRENTLY_ALLOWED_CITY_OBJECT_TYPES.add(CityGMLClass.TUNNEL);
-		}
-		
-		databaseAdapter = dbConnectionPool.getActiveDatabaseAdapter();
-		connection = dbConnectionPool.getConnection();
-		dbSrs = databaseAdapter.getConnectionMetaData().getReferenceSystem();
-
-		// try and change workspace for connection if needed
-		if (dbConnectionPool.getActiveDatabaseAdapter().hasVersioningSupport()) {
-			Database database = config.getProject().getDatabase();
-			dbConnectionPool.getActiveDatabaseAdapter().getWorkspaceManager().gotoWorkspace(connection, 
-					database.getWorkspaces().getKmlExportWorkspace());
+			types.add(CityGMLClass.TUNNEL);
 		}
 
+		return types;
 	}
 
 	private void queryObjects() throws SQLException {
@@ -81,6 +81,11 @@ public class Queries {
 					"FROM CITYOBJECT_GENERICATTRIB coga " + 
 					"WHERE coga.cityobject_id = ? AND coga.attrname = ? ";
 
+	public static final String GET_GENERICATTRIBS_FROM_ID =
+			"SELECT coga.attrname, coga.datatype, coga.strval, coga.intval, coga.realval " +
+					"FROM CITYOBJECT_GENERICATTRIB coga " + 
+					"WHERE coga.cityobject_id = ? AND coga.datatype IN (1, 2, 3) ";
+
 	public static final String GET_ID_FROM_GMLID =
 			"SELECT id FROM CITYOBJECT WHERE gmlid = ?";
 
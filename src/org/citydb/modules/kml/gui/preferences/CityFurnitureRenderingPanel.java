@@ -120,6 +120,12 @@ public class CityFurnitureRenderingPanel extends AbstractPreferencesComponent {
 	private JButton colladaWallFillColorButton = new JButton(" ");	
 	private JRadioButton groupObjectsRButton = new JRadioButton();
 	private JTextField groupSizeText = new JTextField("", 3);
+	private JCheckBox compactGeometryCheckbox = new JCheckBox();
+	private JTextField positionBitsText = new JTextField("", 3);
+	private JLabel texCoordBitsLabel = new JLabel();
+	private JTextField texCoordBitsText = new JTextField("", 3);
+	private JCheckBox simplifyCheckbox = new JCheckBox();
+	private JTextField triangleBudgetText = new JTextField("", 6);
 	private JRadioButton colladaHighlightingRButton = new JRadioButton();
 	private JLabel colladaHLSurfaceDistanceLabel = new JLabel();
 	private JTextField colladaHLSurfaceDistanceText = new JTextField("", 3);
@@ -205,6 +211,24 @@ public class CityFurnitureRenderingPanel extends AbstractPreferencesComponent {
 		if (scaleTexImagesCheckbox.isSelected() != colladaOptions.isScaleImages() ||
 				imageScaleFactor != colladaOptions.getImageScaleFactor()) return true;
 
+		int positionBits = 0, texCoordBits = 0;
+		try {
+			positionBits = Integer.parseInt(positionBitsText.getText().trim());
+			texCoordBits = Integer.parseInt(texCoordBitsText.getText().trim());
+		}
+		catch (NumberFormatException nfe) {return true;}
+		if (compactGeometryCheckbox.isSelected() != colladaOptions.isCompactGeometry() ||
+				positionBits != colladaOptions.getPositionQuantizationBits() ||
+				texCoordBits != colladaOptions.getTexCoordQuantizationBits()) return true;
+
+		int triangleBudget = 0;
+		try {
+			triangleBudget = Integer.parseInt(triangleBudgetText.getText().trim());
+		}
+		catch (NumberFormatException nfe) {return true;}
+		if (simplifyCheckbox.isSelected() != colladaOptions.isSimplifyGroupedObjects() ||
+				triangleBudget != colladaOptions.getSimplificationTriangleBudget()) return true;
+
 		return false;
 	}
 
@@ -444,6 +468,21 @@ public class CityFurnitureRenderingPanel extends AbstractPreferencesComponent {
 		GridBagConstraints chlsp = GuiUtil.setConstraints(0,9,0.0,1.0,GridBagConstraints.BOTH,0,0,0,0);
 		chlsp.gridwidth = 2;
 		colladaPanel.add(colladaHLSubPanel, chlsp);
+
+		// compact binary glTF geometry
+		compactGeometryCheckbox.setIconTextGap(10);
+		colladaPanel.add(compactGeometryCheckbox, GuiUtil.setConstraints(0,10,0.0,1.0,GridBagConstraints.BOTH,BORDER_THICKNESS,BORDER_THICKNESS,2,0));
+		colladaPanel.add(positionBitsText, GuiUtil.setConstraints(1,10,1.0,1.0,GridBagConstraints.BOTH,BORDER_THICKNESS,BORDER_THICKNESS,2,BORDER_THICKNESS));
+
+		GridBagConstraints tcbl = GuiUtil.setConstraints(0,11,0.0,1.0,GridBagConstraints.NONE,0,BORDER_THICKNESS,2*BORDER_THICKNESS,BORDER_THICKNESS);
+		tcbl.anchor = GridBagConstraints.EAST;
+		colladaPanel.add(texCoordBitsLabel, tcbl);
+		colladaPanel.add(texCoordBitsText, GuiUtil.setConstraints(1,11,1.0,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS,2*BORDER_THICKNESS,BORDER_THICKNESS));
+
+		// simplification of grouped objects
+		simplifyCheckbox.setIconTextGap(10);
+		colladaPanel.add(simplifyCheckbox, GuiUtil.setConstraints(0,12,0.0,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS,2*BORDER_THICKNESS,0));
+		colladaPanel.add(triangleBudgetText, GuiUtil.setConstraints(1,12,1.0,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS,2*BORDER_THICKNESS,BORDER_THICKNESS));
 		
 		GridBagConstraints chlfcl = GuiUtil.setConstraints(0,0,0.25,1.0,GridBagConstraints.NONE,0,BORDER_THICKNESS,2*BORDER_THICKNESS,BORDER_THICKNESS);
 		chlfcl.anchor = GridBagConstraints.EAST;
@@ -473,7 +512,7 @@ public class CityFurnitureRenderingPanel extends AbstractPreferencesComponent {
 		colladaHLSubPanel.add(colladaHLSurfaceDistanceText, chldt);
 	
 		PopupMenuDecorator.getInstance().decorate(geometryHLSurfaceDistanceText, scaleFactorText, 
-				groupSizeText, colladaHLSurfaceDistanceText);
+				groupSizeText, colladaHLSurfaceDistanceText, positionBitsText, texCoordBitsText, triangleBudgetText);
 		
 		scaleTexImagesCheckbox.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
@@ -481,6 +520,18 @@ public class CityFurnitureRenderingPanel extends AbstractPreferencesComponent {
 			}
 		});
 
+		compactGeometryCheckbox.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				setEnabledHighlighting();
+			}
+		});
+
+		simplifyCheckbox.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				setEnabledHighlighting();
+			}
+		});
+
 		groupObjectsRButton.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
 				setEnabledHighlighting();
@@ -681,6 +732,9 @@ public class CityFurnitureRenderingPanel extends AbstractPreferencesComponent {
 		colladaAlphaLabel.setText(Language.I18N.getString("pref.kmlexport.label.alpha"));
 		colladaWallFillColorLabel.setText(Language.I18N.getString("pref.kmlexport.label.fillColor"));		
 		groupObjectsRButton.setText(Language.I18N.getString("pref.kmlexport.label.groupObjects"));
+		compactGeometryCheckbox.setText(Language.I18N.getString("pref.kmlexport.label.compactGeometry"));
+		texCoordBitsLabel.setText(Language.I18N.getString("pref.kmlexport.label.texCoordQuantizationBits"));
+		simplifyCheckbox.setText(Language.I18N.getString("pref.kmlexport.label.simplifyGroupedObjects"));
 		colladaHighlightingRButton.setText(Language.I18N.getString("pref.kmlexport.colladaDisplay.label.highlighting"));
 		colladaHLSurfaceDistanceLabel.setText(Language.I18N.getString("pref.kmlexport.label.highlightingDistance"));
 		colladaHLFillColorLabel.setText(Language.I18N.getString("pref.kmlexport.label.highlightedFillColor"));
@@ -801,6 +855,12 @@ public class CityFurnitureRenderingPanel extends AbstractPreferencesComponent {
 			groupSizeText.setEnabled(true);
 		}
 
+		compactGeometryCheckbox.setSelected(colladaOptions.isCompactGeometry());
+		positionBitsText.setText(String.valueOf(colladaOptions.getPositionQuantizationBits()));
+		texCoordBitsText.setText(String.valueOf(colladaOptions.getTexCoordQuantizationBits()));
+		simplifyCheckbox.setSelected(colladaOptions.isSimplifyGroupedObjects());
+		triangleBudgetText.setText(String.valueOf(colladaOptions.getSimplificationTriangleBudget()));
+
 		setEnabledHighlighting();
 	}
 
@@ -848,6 +908,23 @@ public class CityFurnitureRenderingPanel extends AbstractPreferencesComponent {
 			}
 		}
 		catch (NumberFormatException nfe) {}
+
+		colladaOptions.setCompactGeometry(compactGeometryCheckbox.isSelected());
+		try {
+			colladaOptions.setPositionQuantizationBits(Math.max(8, Math.min(16, Integer.parseInt(positionBitsText.getText().trim()))));
+		}
+		catch (NumberFormatException nfe) {}
+
+		try {
+			colladaOptions.setTexCoordQuantizationBits(Math.max(8, Math.min(16, Integer.parseInt(texCoordBitsText.getText().trim()))));
+		}
+		catch (NumberFormatException nfe) {}
+
+		colladaOptions.setSimplifyGroupedObjects(simplifyCheckbox.isSelected());
+		try {
+			colladaOptions.setSimplificationTriangleBudget(Math.max(1, Integer.parseInt(triangleBudgetText.getText().trim())));
+		}
+		catch (NumberFormatException nfe) {}
 	}
 
 
@@ -1040,6 +1117,11 @@ public class CityFurnitureRenderingPanel extends AbstractPreferencesComponent {
 		packingAlgorithmsComboBox.setEnabled(textureAtlasCheckbox.isSelected());
 		textureAtlasPotsCheckbox.setEnabled(textureAtlasCheckbox.isSelected());
 		groupSizeText.setEnabled(groupObjectsRButton.isSelected());
+		positionBitsText.setEnabled(compactGeometryCheckbox.isSelected());
+		texCoordBitsLabel.setEnabled(compactGeometryCheckbox.isSelected());
+		texCoordBitsText.setEnabled(compactGeometryCheckbox.isSelected());
+		simplifyCheckbox.setEnabled(groupObjectsRButton.isSelected());
+		triangleBudgetText.setEnabled(groupObjectsRButton.isSelected() && simplifyCheckbox.isSelected());
 
 		colladaHLFillColorLabel.setEnabled(colladaHighlightingRButton.isSelected());
 		colladaHLFillColorButton.setEnabled(colladaHighlightingRButton.isSelected());
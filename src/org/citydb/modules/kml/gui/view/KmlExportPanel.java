@@ -137,6 +137,7 @@ public class KmlExportPanel extends JPanel implements EventHandler {
 	private ButtonGroup tilingButtonGroup = new ButtonGroup();
 	private JRadioButton noTilingRadioButton = new JRadioButton("");
 	private JRadioButton automaticTilingRadioButton = new JRadioButton("");
+	private JRadioButton adaptiveTilingRadioButton = new JRadioButton("");
 	private JRadioButton manualTilingRadioButton = new JRadioButton("");
 
 	private JLabel rowsLabel = new JLabel();
@@ -251,6 +252,8 @@ public class KmlExportPanel extends JPanel implements EventHandler {
 		noTilingRadioButton.setIconTextGap(10);
 		tilingButtonGroup.add(automaticTilingRadioButton);
 		automaticTilingRadioButton.setIconTextGap(10);
+		tilingButtonGroup.add(adaptiveTilingRadioButton);
+		adaptiveTilingRadioButton.setIconTextGap(10);
 		tilingButtonGroup.add(manualTilingRadioButton);
 		manualTilingRadioButton.setIconTextGap(10);
 		automaticTilingRadioButton.setSelected(true);
@@ -261,11 +264,12 @@ public class KmlExportPanel extends JPanel implements EventHandler {
 
 		tilingPanel.add(noTilingRadioButton, GuiUtil.setConstraints(0,0,0.0,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS * 2,BORDER_THICKNESS,0));
 		tilingPanel.add(automaticTilingRadioButton, GuiUtil.setConstraints(1,0,0.0,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS * 2,BORDER_THICKNESS,0));
-		tilingPanel.add(manualTilingRadioButton, GuiUtil.setConstraints(2,0,0.0,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS * 2,BORDER_THICKNESS,0));
-		tilingPanel.add(rowsLabel, GuiUtil.setConstraints(3,0,0.0,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS * 6,BORDER_THICKNESS,0));
-		tilingPanel.add(rowsText, GuiUtil.setConstraints(4,0,0.5,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS,BORDER_THICKNESS,0));
-		tilingPanel.add(columnsLabel, GuiUtil.setConstraints(5,0,0.0,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS * 3,BORDER_THICKNESS,0));
-		tilingPanel.add(columnsText, GuiUtil.setConstraints(6,0,0.5,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS,BORDER_THICKNESS,BORDER_THICKNESS * 2));
+		tilingPanel.add(adaptiveTilingRadioButton, GuiUtil.setConstraints(2,0,0.0,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS * 2,BORDER_THICKNESS,0));
+		tilingPanel.add(manualTilingRadioButton, GuiUtil.setConstraints(3,0,0.0,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS * 2,BORDER_THICKNESS,0));
+		tilingPanel.add(rowsLabel, GuiUtil.setConstraints(4,0,0.0,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS * 6,BORDER_THICKNESS,0));
+		tilingPanel.add(rowsText, GuiUtil.setConstraints(5,0,0.5,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS,BORDER_THICKNESS,0));
+		tilingPanel.add(columnsLabel, GuiUtil.setConstraints(6,0,0.0,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS * 3,BORDER_THICKNESS,0));
+		tilingPanel.add(columnsText, GuiUtil.setConstraints(7,0,0.5,1.0,GridBagConstraints.BOTH,0,BORDER_THICKNESS,BORDER_THICKNESS,BORDER_THICKNESS * 2));
 
 		Box tilingParentPanel = Box.createHorizontalBox();
 		tilingParentPanel.add(Box.createRigidArea(new Dimension(BORDER_THICKNESS, 0)));
@@ -447,6 +451,7 @@ public class KmlExportPanel extends JPanel implements EventHandler {
 		rowsLabel.setText(Language.I18N.getString("pref.export.boundingBox.label.rows"));
 		columnsLabel.setText(Language.I18N.getString("pref.export.boundingBox.label.columns"));
 		automaticTilingRadioButton.setText(Language.I18N.getString("kmlExport.label.automatic"));
+		adaptiveTilingRadioButton.setText(Language.I18N.getString("kmlExport.label.adaptive"));
 
 		((TitledBorder)exportFromLODPanel.getBorder()).setTitle(Language.I18N.getString("kmlExport.label.fromLOD"));
 		/**/
@@ -615,6 +620,9 @@ public class KmlExportPanel extends JPanel implements EventHandler {
 		else if (tilingMode.equals(TilingMode.AUTOMATIC.value())) {
 			automaticTilingRadioButton.setSelected(true);
 		}
+		else if (tilingMode.equals(TilingMode.ADAPTIVE.value())) {
+			adaptiveTilingRadioButton.setSelected(true);
+		}
 		else {
 			manualTilingRadioButton.setSelected(true);
 		}
@@ -704,6 +712,9 @@ public class KmlExportPanel extends JPanel implements EventHandler {
 			else if (automaticTilingRadioButton.isSelected()) {
 				kmlExportFilter.getComplexFilter().getTiledBoundingBox().getTiling().setMode(TilingMode.AUTOMATIC);
 			}
+			else if (adaptiveTilingRadioButton.isSelected()) {
+				kmlExportFilter.getComplexFilter().getTiledBoundingBox().getTiling().setMode(TilingMode.ADAPTIVE);
+			}
 			else {
 				kmlExportFilter.getComplexFilter().getTiledBoundingBox().getTiling().setMode(TilingMode.MANUAL);
 			}
@@ -897,6 +908,7 @@ public class KmlExportPanel extends JPanel implements EventHandler {
 		noTilingRadioButton.addActionListener(filterListener);
 		manualTilingRadioButton.addActionListener(filterListener);
 		automaticTilingRadioButton.addActionListener(filterListener);
+		adaptiveTilingRadioButton.addActionListener(filterListener);
 
 		lodComboBox.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
@@ -1135,6 +1147,7 @@ public class KmlExportPanel extends JPanel implements EventHandler {
 
 		noTilingRadioButton.setEnabled(boundingBoxRadioButton.isSelected());
 		automaticTilingRadioButton.setEnabled(boundingBoxRadioButton.isSelected());
+		adaptiveTilingRadioButton.setEnabled(boundingBoxRadioButton.isSelected());
 		manualTilingRadioButton.setEnabled(boundingBoxRadioButton.isSelected());
 		((TitledBorder) tilingPanel.getBorder()).setTitleColor(boundingBoxRadioButton.isSelected() ? 
 				UIManager.getColor("Label.foreground"):
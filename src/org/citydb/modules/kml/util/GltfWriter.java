@@ -0,0 +1,512 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.citygml4j.model.citygml.appearance.X3DMaterial;
+
+// encodes triangle meshes as binary glTF 2.0. input coordinates are z-up and 
+// texture coordinates follow the COLLADA convention, both are converted to glTF.
+// if quantization is enabled, vertices are welded on the quantization grid and 
+// stored as integers according to the KHR_mesh_quantization extension
+public class GltfWriter {
+	private final Charset CHARSET = Charset.forName("UTF-8");
+
+	private final int positionBits;
+	private final int texCoordBits;
+	private final List<Entry> entries = new ArrayList<Entry>();
+
+	public GltfWriter() {
+		this(0, 0);
+	}
+
+	public GltfWriter(int positionBits, int texCoordBits) {
+		this.positionBits = Math.max(0, Math.min(16, positionBits));
+		this.texCoordBits = Math.max(0, Math.min(16, texCoordBits));
+	}
+
+	public boolean isQuantized() {
+		return positionBits > 0;
+	}
+
+	public void addPrimitive(TriangleMesh.Primitive primitive, float[] batchIds, byte[] image) {
+		if (primitive.getIndexCount() > 0)
+			entries.add(new Entry(primitive, batchIds, image, null));
+	}
+
+	public void addPrimitive(TriangleMesh.Primitive primitive, float[] batchIds, String imageUri) {
+		if (primitive.getIndexCount() > 0)
+			entries.add(new Entry(primitive, batchIds, null, imageUri));
+	}
+
+	public boolean isEmpty() {
+		return entries.isEmpty();
+	}
+
+	public byte[] toGlb() {
+		Buffers buffers = new Buffers();
+
+		// all primitives share the quantization grid of the node
+		double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+		double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+		for (Entry entry : entries) {
+			float[] positions = entry.primitive.getPositions();
+			for (int i = 0; i < entry.primitive.getVertexCount(); i++) {
+				double[] position = toYUp(positions, i);
+				for (int j = 0; j < 3; j++) {
+					min[j] = Math.min(min[j], position[j]);
+					max[j] = Math.max(max[j], position[j]);
+				}
+			}
+		}
+
+		double step = 1;
+		if (isQuantized()) {
+			double extent = Math.max(max[0] - min[0], Math.max(max[1] - min[1], max[2] - min[2]));
+			step = extent > 0 ? extent / ((1 << positionBits) - 1) : 1;
+		}
+
+		for (Entry entry : entries) {
+			if (isQuantized())
+				addQuantizedPrimitive(entry, min, step, buffers);
+			else
+				addPrimitive(entry, buffers);
+		}
+
+		int binLength = buffers.bin.size();
+		byte[] bin = pad(buffers.bin.toByteArray(), 0, 4, (byte)0);
+
+		StringBuilder json = new StringBuilder("{\"asset\":{\"version\":\"2.0\"");
+		if (getClass().getPackage().getImplementationTitle() != null)
+			json.append(",\"generator\":\"").append(escapeJson(getClass().getPackage().getImplementationTitle() + ", version " + getClass().getPackage().getImplementationVersion())).append('"');
+
+		json.append("}");
+		if (isQuantized())
+			json.append(",\"extensionsUsed\":[\"KHR_mesh_quantization\"],\"extensionsRequired\":[\"KHR_mesh_quantization\"]");
+
+		json.append(",\"scene\":0,\"scenes\":[{\"nodes\":[0]}],\"nodes\":[{\"mesh\":0");
+		if (isQuantized())
+			json.append(",\"translation\":[").append(min[0]).append(',').append(min[1]).append(',').append(min[2])
+			.append("],\"scale\":[").append(step).append(',').append(step).append(',').append(step).append(']');
+
+		json.append("}],\"meshes\":[{\"primitives\":[").append(buffers.primitives).append("]}]")
+		.append(",\"materials\":[").append(buffers.materials).append("]");
+
+		if (buffers.images.length() > 0) {
+			json.append(",\"textures\":[").append(buffers.textures).append("]");
+			json.append(",\"images\":[").append(buffers.images).append("]");
+		}
+
+		json.append(",\"accessors\":[").append(buffers.accessors).append("]")
+		.append(",\"bufferViews\":[").append(buffers.bufferViews).append("]")
+		.append(",\"buffers\":[{\"byteLength\":").append(binLength).append("}]}");
+
+		// let the glb end on an 8-byte boundary so that it can be embedded in b3dm
+		byte[] jsonChunk = pad(json.toString().getBytes(CHARSET), 0, 4, (byte)' ');
+		if ((12 + 8 + jsonChunk.length + 8 + bin.length) % 8 != 0)
+			jsonChunk = pad(jsonChunk, 4, 8, (byte)' ');
+
+		ByteBuffer glb = ByteBuffer.allocate(12 + 8 + jsonChunk.length + 8 + bin.length).order(ByteOrder.LITTLE_ENDIAN);
+		glb.put("glTF".getBytes(CHARSET));
+		glb.putInt(2);
+		glb.putInt(glb.capacity());
+		glb.putInt(jsonChunk.length);
+		glb.putInt(0x4E4F534A);
+		glb.put(jsonChunk);
+		glb.putInt(bin.length);
+		glb.putInt(0x004E4942);
+		glb.put(bin);
+
+		return glb.array();
+	}
+
+	private void addPrimitive(Entry entry, Buffers buffers) {
+		TriangleMesh.Primitive primitive = entry.primitive;
+		int vertexCount = primitive.getVertexCount();
+		float[] positions = primitive.getPositions();
+		float[] normals = primitive.getNormals();
+		float[] texCoords = primitive.getTexCoords();
+
+		ByteBuffer position = allocate(vertexCount * 12);
+		ByteBuffer normal = allocate(vertexCount * 12);
+		ByteBuffer texCoord = allocate(vertexCount * 8);
+		float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+		float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+
+		for (int i = 0; i < vertexCount; i++) {
+			double[] p = toYUp(positions, i);
+			double[] n = toYUp(normals, i);
+			for (int j = 0; j < 3; j++) {
+				position.putFloat((float)p[j]);
+				normal.putFloat((float)n[j]);
+				min[j] = Math.min(min[j], (float)p[j]);
+				max[j] = Math.max(max[j], (float)p[j]);
+			}
+
+			texCoord.putFloat(texCoords[i * 2]);
+			texCoord.putFloat(1 - texCoords[i * 2 + 1]);
+		}
+
+		StringBuilder attributes = new StringBuilder()
+		.append("\"POSITION\":").append(buffers.addAccessor(position, 0, 5126, false, vertexCount, "VEC3", 
+				"[" + min[0] + "," + min[1] + "," + min[2] + "]", "[" + max[0] + "," + max[1] + "," + max[2] + "]"))
+		.append(",\"NORMAL\":").append(buffers.addAccessor(normal, 0, 5126, false, vertexCount, "VEC3", null, null));
+
+		if (entry.isTextured())
+			attributes.append(",\"TEXCOORD_0\":").append(buffers.addAccessor(texCoord, 0, 5126, false, vertexCount, "VEC2", null, null));
+
+		if (entry.batchIds != null) {
+			ByteBuffer batchId = allocate(vertexCount * 4);
+			batchId.asFloatBuffer().put(entry.batchIds, 0, vertexCount);
+			attributes.append(",\"_BATCHID\":").append(buffers.addAccessor(batchId, 0, 5126, false, vertexCount, "SCALAR", null, null));
+		}
+
+		ByteBuffer indices = allocate(primitive.getIndexCount() * 4);
+		indices.asIntBuffer().put(primitive.getIndices(), 0, primitive.getIndexCount());
+		int index = buffers.addIndices(indices, 5125, primitive.getIndexCount());
+
+		buffers.addPrimitive(entry, attributes, index);
+	}
+
+	private void addQuantizedPrimitive(Entry entry, double[] origin, double step, Buffers buffers) {
+		TriangleMesh.Primitive primitive = entry.primitive;
+		float[] positions = primitive.getPositions();
+		float[] normals = primitive.getNormals();
+		float[] texCoords = primitive.getTexCoords();
+
+		// texture coordinates can only be normalized if they do not repeat the image
+		boolean quantizeTexCoords = entry.isTextured() && texCoordBits > 0;
+		for (int i = 0; quantizeTexCoords && i < primitive.getVertexCount() * 2; i++)
+			quantizeTexCoords = texCoords[i] >= 0 && texCoords[i] <= 1;
+
+		boolean shortBatchIds = true;
+		for (int i = 0; entry.batchIds != null && shortBatchIds && i < primitive.getVertexCount(); i++)
+			shortBatchIds = entry.batchIds[i] < 65536;
+
+		// weld vertices which become identical on the quantization grid
+		HashMap<Vertex, Integer> vertices = new HashMap<Vertex, Integer>();
+		int[] remap = new int[primitive.getVertexCount()];
+		List<int[]> welded = new ArrayList<int[]>();
+		int texCoordMax = (1 << texCoordBits) - 1;
+
+		for (int i = 0; i < primitive.getVertexCount(); i++) {
+			double[] p = toYUp(positions, i);
+			double[] n = toYUp(normals, i);
+			int[] values = new int[9];
+
+			for (int j = 0; j < 3; j++) {
+				values[j] = (int)Math.round((p[j] - origin[j]) / step);
+				values[j + 3] = (int)Math.round(Math.max(-1, Math.min(1, n[j])) * 127);
+			}
+
+			if (entry.isTextured()) {
+				if (quantizeTexCoords) {
+					values[6] = (int)Math.round(Math.round(texCoords[i * 2] * texCoordMax) * 65535.0 / texCoordMax);
+					values[7] = (int)Math.round(Math.round((1 - texCoords[i * 2 + 1]) * texCoordMax) * 65535.0 / texCoordMax);
+				} else {
+					values[6] = Float.floatToIntBits(texCoords[i * 2]);
+					values[7] = Float.floatToIntBits(1 - texCoords[i * 2 + 1]);
+				}
+			}
+
+			if (entry.batchIds != null)
+				values[8] = shortBatchIds ? (int)entry.batchIds[i] : Float.floatToIntBits(entry.batchIds[i]);
+
+			Vertex vertex = new Vertex(values);
+			Integer index = vertices.get(vertex);
+			if (index == null) {
+				index = welded.size();
+				vertices.put(vertex, index);
+				welded.add(values);
+			}
+
+			remap[i] = index;
+		}
+
+		// vertex attributes have to be aligned to four bytes
+		int vertexCount = welded.size();
+		ByteBuffer position = allocate(vertexCount * 8);
+		ByteBuffer normal = allocate(vertexCount * 4);
+		ByteBuffer texCoord = allocate(vertexCount * (quantizeTexCoords ? 4 : 8));
+		ByteBuffer batchId = allocate(vertexCount * 4);
+		int[] min = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE};
+		int[] max = {Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+
+		for (int[] values : welded) {
+			for (int j = 0; j < 3; j++) {
+				position.putShort((short)values[j]);
+				normal.put((byte)values[j + 3]);
+				min[j] = Math.min(min[j], values[j]);
+				max[j] = Math.max(max[j], values[j]);
+			}
+
+			position.putShort((short)0);
+			normal.put((byte)0);
+
+			if (quantizeTexCoords) {
+				texCoord.putShort((short)values[6]);
+				texCoord.putShort((short)values[7]);
+			} else {
+				texCoord.putInt(values[6]);
+				texCoord.putInt(values[7]);
+			}
+
+			if (shortBatchIds) {
+				batchId.putShort((short)values[8]);
+				batchId.putShort((short)0);
+			} else
+				batchId.putInt(values[8]);
+		}
+
+		StringBuilder attributes = new StringBuilder()
+		.append("\"POSITION\":").append(buffers.addAccessor(position, 8, 5123, false, vertexCount, "VEC3", 
+				"[" + min[0] + "," + min[1] + "," + min[2] + "]", "[" + max[0] + "," + max[1] + "," + max[2] + "]"))
+		.append(",\"NORMAL\":").append(buffers.addAccessor(normal, 4, 5120, true, vertexCount, "VEC3", null, null));
+
+		if (entry.isTextured()) {
+			attributes.append(",\"TEXCOORD_0\":").append(quantizeTexCoords ?
+					buffers.addAccessor(texCoord, 0, 5123, true, vertexCount, "VEC2", null, null) :
+						buffers.addAccessor(texCoord, 0, 5126, false, vertexCount, "VEC2", null, null));
+		}
+
+		if (entry.batchIds != null) {
+			attributes.append(",\"_BATCHID\":").append(shortBatchIds ? 
+					buffers.addAccessor(batchId, 4, 5123, false, vertexCount, "SCALAR", null, null) :
+						buffers.addAccessor(batchId, 0, 5126, false, vertexCount, "SCALAR", null, null));
+		}
+
+		int[] indices = primitive.getIndices();
+		int index;
+		if (vertexCount <= 65535) {
+			ByteBuffer buffer = allocate(primitive.getIndexCount() * 2);
+			for (int i = 0; i < primitive.getIndexCount(); i++)
+				buffer.putShort((short)remap[indices[i]]);
+
+			index = buffers.addIndices(buffer, 5123, primitive.getIndexCount());
+		} else {
+			ByteBuffer buffer = allocate(primitive.getIndexCount() * 4);
+			for (int i = 0; i < primitive.getIndexCount(); i++)
+				buffer.putInt(remap[indices[i]]);
+
+			index = buffers.addIndices(buffer, 5125, primitive.getIndexCount());
+		}
+
+		buffers.addPrimitive(entry, attributes, index);
+	}
+
+	private double[] toYUp(float[] values, int index) {
+		return new double[]{values[index * 3], values[index * 3 + 2], -values[index * 3 + 1]};
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private byte[] pad(byte[] data, int offset, int alignment, byte value) {
+		int padding = (alignment - (offset + data.length) % alignment) % alignment;
+		if (padding == 0)
+			return data;
+
+		byte[] padded = Arrays.copyOf(data, data.length + padding);
+		Arrays.fill(padded, data.length, padded.length, value);
+		return padded;
+	}
+
+	public static String escapeJson(String value) {
+		StringBuilder builder = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				builder.append("\\\"");
+				break;
+			case '\\':
+				builder.append("\\\\");
+				break;
+			case '\n':
+				builder.append("\\n");
+				break;
+			case '\r':
+				builder.append("\\r");
+				break;
+			case '\t':
+				builder.append("\\t");
+				break;
+			default:
+				if (c < 0x20)
+					builder.append(String.format("\\u%04x", (int)c));
+				else
+					builder.append(c);
+			}
+		}
+
+		return builder.toString();
+	}
+
+	private final class Buffers {
+		private final ByteArrayOutputStream bin = new ByteArrayOutputStream();
+		private final StringBuilder bufferViews = new StringBuilder();
+		private final StringBuilder accessors = new StringBuilder();
+		private final StringBuilder primitives = new StringBuilder();
+		private final StringBuilder materials = new StringBuilder();
+		private final StringBuilder textures = new StringBuilder();
+		private final StringBuilder images = new StringBuilder();
+		private int bufferViewCount;
+		private int accessorCount;
+		private int textureCount;
+		private int materialCount;
+
+		private int addAccessor(ByteBuffer data, int byteStride, int componentType, boolean normalized, int count, String type, String min, String max) {
+			int bufferView = addBufferView(data.array(), byteStride, 34962);
+			append(accessors, "{\"bufferView\":" + bufferView + ",\"componentType\":" + componentType 
+					+ (normalized ? ",\"normalized\":true" : "") + ",\"count\":" + count + ",\"type\":\"" + type + "\"" 
+					+ (min != null ? ",\"min\":" + min + ",\"max\":" + max : "") + "}");
+
+			return accessorCount++;
+		}
+
+		private int addIndices(ByteBuffer data, int componentType, int count) {
+			int bufferView = addBufferView(data.array(), 0, 34963);
+			append(accessors, "{\"bufferView\":" + bufferView + ",\"componentType\":" + componentType + ",\"count\":" + count + ",\"type\":\"SCALAR\"}");
+			return accessorCount++;
+		}
+
+		private int addBufferView(byte[] data, int byteStride, int target) {
+			while (bin.size() % 4 != 0)
+				bin.write(0);
+
+			append(bufferViews, "{\"buffer\":0,\"byteOffset\":" + bin.size() + ",\"byteLength\":" + data.length 
+					+ (byteStride > 0 ? ",\"byteStride\":" + byteStride : "") + (target != -1 ? ",\"target\":" + target : "") + "}");
+			bin.write(data, 0, data.length);
+
+			return bufferViewCount++;
+		}
+
+		private void addPrimitive(Entry entry, StringBuilder attributes, int indices) {
+			int texture = -1;
+			if (entry.image != null) {
+				int bufferView = addBufferView(entry.image, 0, -1);
+				String name = entry.primitive.getTexImageName().toLowerCase();
+				String mimeType = name.endsWith(".jpg") || name.endsWith(".jpeg") ? "image/jpeg" : "image/png";
+				append(images, "{\"bufferView\":" + bufferView + ",\"mimeType\":\"" + mimeType + "\"}");
+				append(textures, "{\"source\":" + textureCount + "}");
+				texture = textureCount++;
+			} else if (entry.imageUri != null) {
+				append(images, "{\"uri\":\"" + escapeJson(entry.imageUri) + "\"}");
+				append(textures, "{\"source\":" + textureCount + "}");
+				texture = textureCount++;
+			}
+
+			append(materials, createMaterial(entry.primitive.getX3dMaterial(), texture));
+			append(primitives, "{\"attributes\":{" + attributes + "},\"indices\":" + indices + ",\"material\":" + materialCount++ + ",\"mode\":4}");
+		}
+
+		private String createMaterial(X3DMaterial x3dMaterial, int texture) {
+			StringBuilder material = new StringBuilder("{\"pbrMetallicRoughness\":{");
+			double alpha = 1;
+
+			if (texture != -1)
+				material.append("\"baseColorTexture\":{\"index\":").append(texture).append("},");
+			else {
+				double red = 0.8, green = 0.8, blue = 0.8;
+				if (x3dMaterial != null) {
+					if (x3dMaterial.isSetDiffuseColor()) {
+						red = x3dMaterial.getDiffuseColor().getRed();
+						green = x3dMaterial.getDiffuseColor().getGreen();
+						blue = x3dMaterial.getDiffuseColor().getBlue();
+					}
+
+					if (x3dMaterial.isSetTransparency())
+						alpha = 1 - x3dMaterial.getTransparency();
+				}
+
+				material.append("\"baseColorFactor\":[").append(red).append(',').append(green).append(',').append(blue).append(',').append(alpha).append("],");
+			}
+
+			material.append("\"metallicFactor\":0,\"roughnessFactor\":1},\"doubleSided\":true");
+			if (alpha < 1)
+				material.append(",\"alphaMode\":\"BLEND\"");
+
+			return material.append('}').toString();
+		}
+
+		private void append(StringBuilder builder, String value) {
+			if (builder.length() > 0)
+				builder.append(',');
+
+			builder.append(value);
+		}
+	}
+
+	private final class Entry {
+		private final TriangleMesh.Primitive primitive;
+		private final float[] batchIds;
+		private final byte[] image;
+		private final String imageUri;
+
+		private Entry(TriangleMesh.Primitive primitive, float[] batchIds, byte[] image, String imageUri) {
+			this.primitive = primitive;
+			this.batchIds = batchIds;
+			this.image = image;
+			this.imageUri = imageUri;
+		}
+
+		private boolean isTextured() {
+			return image != null || imageUri != null;
+		}
+	}
+
+	private final class Vertex {
+		private final int[] values;
+		private final int hashCode;
+
+		private Vertex(int[] values) {
+			this.values = values;
+			hashCode = Arrays.hashCode(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Vertex && Arrays.equals(values, ((Vertex)obj).values);
+		}
+	}
+
+}
@@ -0,0 +1,440 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// reduces the number of triangles of a mesh by collapsing edges in the order 
+// of their quadric error. vertices on open boundaries, on texture seams and 
+// between materials are never moved, so that the outline of the mesh and the
+// texture mapping are preserved
+public class MeshSimplifier {
+
+	public TriangleMesh simplify(TriangleMesh mesh, int maxTriangles) {
+		int triangleCount = 0;
+		for (TriangleMesh.Primitive primitive : mesh.getPrimitives())
+			triangleCount += primitive.getIndexCount() / 3;
+
+		if (triangleCount <= maxTriangles)
+			return mesh;
+
+		// the triangle budget is shared by the materials according to their size
+		TriangleMesh simplified = new TriangleMesh();
+		for (TriangleMesh.Primitive primitive : mesh.getPrimitives()) {
+			int target = (int)Math.max(1, (long)maxTriangles * (primitive.getIndexCount() / 3) / triangleCount);
+			simplify(primitive, target, simplified.getPrimitive(primitive.getMaterialName(), primitive.getTexImageName(), primitive.getX3dMaterial()));
+		}
+
+		return simplified;
+	}
+
+	private void simplify(TriangleMesh.Primitive source, int target, TriangleMesh.Primitive result) {
+		float[] positions = source.getPositions();
+		float[] texCoords = source.getTexCoords();
+		int[] indices = source.getIndices();
+		int triangleCount = source.getIndexCount() / 3;
+
+		// weld vertices sharing a position, the welded vertices are the 
+		// nodes of the mesh topology
+		HashMap<Position, Integer> nodes = new HashMap<Position, Integer>();
+		List<double[]> points = new ArrayList<double[]>();
+		int[] nodeOfVertex = new int[source.getVertexCount()];
+
+		for (int i = 0; i < source.getVertexCount(); i++) {
+			Position position = new Position(positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2]);
+			Integer node = nodes.get(position);
+			if (node == null) {
+				node = points.size();
+				nodes.put(position, node);
+				points.add(new double[]{positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2]});
+			}
+
+			nodeOfVertex[i] = node;
+		}
+
+		int nodeCount = points.size();
+		int[] corners = new int[triangleCount * 3];
+		float[] cornerTexCoords = new float[triangleCount * 6];
+		boolean[] removed = new boolean[triangleCount];
+		boolean[] locked = new boolean[nodeCount];
+		float[] nodeTexCoords = new float[nodeCount * 2];
+		boolean[] hasTexCoords = new boolean[nodeCount];
+
+		List<List<Integer>> incident = new ArrayList<List<Integer>>(nodeCount);
+		for (int i = 0; i < nodeCount; i++)
+			incident.add(new ArrayList<Integer>());
+
+		int alive = 0;
+		for (int t = 0; t < triangleCount; t++) {
+			for (int k = 0; k < 3; k++) {
+				int vertex = indices[t * 3 + k];
+				int node = nodeOfVertex[vertex];
+				corners[t * 3 + k] = node;
+				cornerTexCoords[t * 6 + k * 2] = texCoords[vertex * 2];
+				cornerTexCoords[t * 6 + k * 2 + 1] = texCoords[vertex * 2 + 1];
+
+				// a node with different texture coordinates lies on a seam
+				if (source.isTextured()) {
+					if (!hasTexCoords[node]) {
+						hasTexCoords[node] = true;
+						nodeTexCoords[node * 2] = texCoords[vertex * 2];
+						nodeTexCoords[node * 2 + 1] = texCoords[vertex * 2 + 1];
+					} else if (nodeTexCoords[node * 2] != texCoords[vertex * 2] || nodeTexCoords[node * 2 + 1] != texCoords[vertex * 2 + 1])
+						locked[node] = true;
+				}
+			}
+
+			if (corners[t * 3] == corners[t * 3 + 1] || corners[t * 3 + 1] == corners[t * 3 + 2] || corners[t * 3] == corners[t * 3 + 2])
+				removed[t] = true;
+			else {
+				for (int k = 0; k < 3; k++)
+					incident.get(corners[t * 3 + k]).add(t);
+
+				alive++;
+			}
+		}
+
+		// edges not shared by exactly two triangles are boundaries
+		HashMap<Long, Integer> edges = new HashMap<Long, Integer>();
+		for (int t = 0; t < triangleCount; t++) {
+			if (removed[t])
+				continue;
+
+			for (int k = 0; k < 3; k++) {
+				Long edge = getEdgeKey(corners[t * 3 + k], corners[t * 3 + (k + 1) % 3]);
+				Integer count = edges.get(edge);
+				edges.put(edge, count == null ? 1 : count + 1);
+			}
+		}
+
+		for (Long edge : edges.keySet()) {
+			if (edges.get(edge) != 2) {
+				locked[(int)(edge >>> 32)] = true;
+				locked[(int)(edge & 0xFFFFFFFFL)] = true;
+			}
+		}
+
+		// error quadrics of the planes around each node
+		double[][] quadrics = new double[nodeCount][10];
+		for (int t = 0; t < triangleCount; t++) {
+			if (removed[t])
+				continue;
+
+			double[] normal = getNormal(points.get(corners[t * 3]), points.get(corners[t * 3 + 1]), points.get(corners[t * 3 + 2]));
+			double area = Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]);
+			if (area == 0)
+				continue;
+
+			double a = normal[0] / area, b = normal[1] / area, c = normal[2] / area;
+			double[] point = points.get(corners[t * 3]);
+			double d = -(a * point[0] + b * point[1] + c * point[2]);
+			double[] plane = {a * a, a * b, a * c, a * d, b * b, b * c, b * d, c * c, c * d, d * d};
+
+			for (int k = 0; k < 3; k++) {
+				double[] quadric = quadrics[corners[t * 3 + k]];
+				for (int i = 0; i < 10; i++)
+					quadric[i] += plane[i] * area;
+			}
+		}
+
+		int[] versions = new int[nodeCount];
+		PriorityQueue<Collapse> queue = new PriorityQueue<Collapse>();
+		for (int node = 0; node < nodeCount; node++)
+			addCollapses(node, incident, corners, locked, quadrics, points, versions, queue);
+
+		while (alive > target && !queue.isEmpty()) {
+			Collapse collapse = queue.poll();
+			int from = collapse.from;
+			int to = collapse.to;
+
+			if (collapse.fromVersion != versions[from] || collapse.toVersion != versions[to] || incident.get(from).isEmpty())
+				continue;
+
+			if (!isValidCollapse(from, to, incident, corners, points))
+				continue;
+
+			// texture coordinates of the target within the chart of the collapsed node
+			float s = 0, t = 0;
+			for (int triangle : incident.get(from)) {
+				int k = getCorner(triangle, to, corners);
+				if (k != -1) {
+					s = cornerTexCoords[triangle * 6 + k * 2];
+					t = cornerTexCoords[triangle * 6 + k * 2 + 1];
+					break;
+				}
+			}
+
+			for (int triangle : incident.get(from)) {
+				if (getCorner(triangle, to, corners) != -1) {
+					removed[triangle] = true;
+					for (int k = 0; k < 3; k++) {
+						int node = corners[triangle * 3 + k];
+						if (node != from)
+							incident.get(node).remove(Integer.valueOf(triangle));
+					}
+
+					alive--;
+				} else {
+					int k = getCorner(triangle, from, corners);
+					corners[triangle * 3 + k] = to;
+					cornerTexCoords[triangle * 6 + k * 2] = s;
+					cornerTexCoords[triangle * 6 + k * 2 + 1] = t;
+					incident.get(to).add(triangle);
+				}
+			}
+
+			incident.get(from).clear();
+			for (int i = 0; i < 10; i++)
+				quadrics[to][i] += quadrics[from][i];
+
+			versions[from]++;
+			versions[to]++;
+			addCollapses(to, incident, corners, locked, quadrics, points, versions, queue);
+		}
+
+		// write the remaining triangles with flat normals
+		HashMap<Corner, Integer> vertices = new HashMap<Corner, Integer>();
+		int[] triangle = new int[3];
+		for (int t = 0; t < triangleCount; t++) {
+			if (removed[t])
+				continue;
+
+			double[] normal = getNormal(points.get(corners[t * 3]), points.get(corners[t * 3 + 1]), points.get(corners[t * 3 + 2]));
+			double length = Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]);
+			if (length == 0)
+				continue;
+
+			float nx = (float)(normal[0] / length), ny = (float)(normal[1] / length), nz = (float)(normal[2] / length);
+			for (int k = 0; k < 3; k++) {
+				int node = corners[t * 3 + k];
+				float s = cornerTexCoords[t * 6 + k * 2];
+				float tc = cornerTexCoords[t * 6 + k * 2 + 1];
+
+				Corner corner = new Corner(node, s, tc, nx, ny, nz);
+				Integer index = vertices.get(corner);
+				if (index == null) {
+					double[] point = points.get(node);
+					index = result.addVertex(point[0], point[1], point[2], nx, ny, nz, s, tc);
+					vertices.put(corner, index);
+				}
+
+				triangle[k] = index;
+			}
+
+			result.addTriangle(triangle[0], triangle[1], triangle[2]);
+		}
+	}
+
+	private void addCollapses(int node, List<List<Integer>> incident, int[] corners, boolean[] locked, 
+			double[][] quadrics, List<double[]> points, int[] versions, PriorityQueue<Collapse> queue) {
+		for (int neighbor : getNeighbors(node, incident, corners)) {
+			if (!locked[node])
+				queue.add(new Collapse(node, neighbor, getError(quadrics[node], quadrics[neighbor], points.get(neighbor)), versions));
+
+			if (!locked[neighbor])
+				queue.add(new Collapse(neighbor, node, getError(quadrics[node], quadrics[neighbor], points.get(node)), versions));
+		}
+	}
+
+	private boolean isValidCollapse(int from, int to, List<List<Integer>> incident, int[] corners, List<double[]> points) {
+		// the common neighbors must be the opposite nodes of the collapsed edge, 
+		// otherwise the collapse would produce a non-manifold mesh
+		Set<Integer> opposite = new HashSet<Integer>();
+		for (int triangle : incident.get(from)) {
+			if (getCorner(triangle, to, corners) != -1) {
+				for (int k = 0; k < 3; k++) {
+					int node = corners[triangle * 3 + k];
+					if (node != from && node != to)
+						opposite.add(node);
+				}
+			}
+		}
+
+		if (opposite.isEmpty())
+			return false;
+
+		Set<Integer> neighbors = getNeighbors(to, incident, corners);
+		neighbors.retainAll(getNeighbors(from, incident, corners));
+		if (!neighbors.equals(opposite))
+			return false;
+
+		// the remaining triangles must not flip or degenerate
+		double[] target = points.get(to);
+		for (int triangle : incident.get(from)) {
+			if (getCorner(triangle, to, corners) != -1)
+				continue;
+
+			double[][] before = new double[3][];
+			double[][] after = new double[3][];
+			for (int k = 0; k < 3; k++) {
+				int node = corners[triangle * 3 + k];
+				before[k] = points.get(node);
+				after[k] = node == from ? target : before[k];
+			}
+
+			double[] oldNormal = getNormal(before[0], before[1], before[2]);
+			double[] newNormal = getNormal(after[0], after[1], after[2]);
+			double dot = oldNormal[0] * newNormal[0] + oldNormal[1] * newNormal[1] + oldNormal[2] * newNormal[2];
+			double oldLength = Math.sqrt(oldNormal[0] * oldNormal[0] + oldNormal[1] * oldNormal[1] + oldNormal[2] * oldNormal[2]);
+			double newLength = Math.sqrt(newNormal[0] * newNormal[0] + newNormal[1] * newNormal[1] + newNormal[2] * newNormal[2]);
+
+			if (newLength < 1e-12 || dot < 0.2 * oldLength * newLength)
+				return false;
+		}
+
+		return true;
+	}
+
+	private Set<Integer> getNeighbors(int node, List<List<Integer>> incident, int[] corners) {
+		Set<Integer> neighbors = new HashSet<Integer>();
+		for (int triangle : incident.get(node)) {
+			for (int k = 0; k < 3; k++) {
+				int other = corners[triangle * 3 + k];
+				if (other != node)
+					neighbors.add(other);
+			}
+		}
+
+		return neighbors;
+	}
+
+	private int getCorner(int triangle, int node, int[] corners) {
+		for (int k = 0; k < 3; k++) {
+			if (corners[triangle * 3 + k] == node)
+				return k;
+		}
+
+		return -1;
+	}
+
+	private double[] getNormal(double[] a, double[] b, double[] c) {
+		double ux = b[0] - a[0], uy = b[1] - a[1], uz = b[2] - a[2];
+		double vx = c[0] - a[0], vy = c[1] - a[1], vz = c[2] - a[2];
+		return new double[]{uy * vz - uz * vy, uz * vx - ux * vz, ux * vy - uy * vx};
+	}
+
+	private double getError(double[] first, double[] second, double[] point) {
+		double x = point[0], y = point[1], z = point[2];
+		double[] q = new double[10];
+		for (int i = 0; i < 10; i++)
+			q[i] = first[i] + second[i];
+
+		return q[0] * x * x + 2 * q[1] * x * y + 2 * q[2] * x * z + 2 * q[3] * x 
+				+ q[4] * y * y + 2 * q[5] * y * z + 2 * q[6] * y 
+				+ q[7] * z * z + 2 * q[8] * z 
+				+ q[9];
+	}
+
+	private Long getEdgeKey(int first, int second) {
+		return first < second ? ((long)first << 32) | second : ((long)second << 32) | first;
+	}
+
+	private final class Collapse implements Comparable<Collapse> {
+		private final int from;
+		private final int to;
+		private final double error;
+		private final int fromVersion;
+		private final int toVersion;
+
+		private Collapse(int from, int to, double error, int[] versions) {
+			this.from = from;
+			this.to = to;
+			this.error = error;
+			fromVersion = versions[from];
+			toVersion = versions[to];
+		}
+
+		@Override
+		public int compareTo(Collapse other) {
+			return Double.compare(error, other.error);
+		}
+	}
+
+	private final class Position {
+		private final float x, y, z;
+
+		private Position(float x, float y, float z) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * Float.floatToIntBits(x) + Float.floatToIntBits(y)) + Float.floatToIntBits(z);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Position))
+				return false;
+
+			Position other = (Position)obj;
+			return x == other.x && y == other.y && z == other.z;
+		}
+	}
+
+	private final class Corner {
+		private final int node;
+		private final float s, t, nx, ny, nz;
+
+		private Corner(int node, float s, float t, float nx, float ny, float nz) {
+			this.node = node;
+			this.s = s;
+			this.t = t;
+			this.nx = nx;
+			this.ny = ny;
+			this.nz = nz;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = node;
+			hash = 31 * hash + Float.floatToIntBits(s);
+			hash = 31 * hash + Float.floatToIntBits(t);
+			hash = 31 * hash + Float.floatToIntBits(nx);
+			hash = 31 * hash + Float.floatToIntBits(ny);
+			return 31 * hash + Float.floatToIntBits(nz);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Corner))
+				return false;
+
+			Corner other = (Corner)obj;
+			return node == other.node && s == other.s && t == other.t && nx == other.nx && ny == other.ny && nz == other.nz;
+		}
+	}
+
+}
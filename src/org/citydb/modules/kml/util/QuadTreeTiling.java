@@ -0,0 +1,162 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// subdivides a grid of cells x cells object counts into quadrants until
+// every quadrant holds no more than the given number of objects
+public class QuadTreeTiling {
+	private final int cells;
+	private final long maxObjects;
+	private final long[] sums;
+	private final Node[] tiles;
+	private final Node root;
+
+	public QuadTreeTiling(long[] counts, int level, long maxObjects) {
+		cells = 1 << level;
+		if (counts.length != cells * cells)
+			throw new IllegalArgumentException("Expected " + (cells * cells) + " cell counts but got " + counts.length + ".");
+
+		this.maxObjects = Math.max(1, maxObjects);
+		tiles = new Node[cells * cells];
+
+		// summed area table to get the count of any quadrant in constant time
+		sums = new long[(cells + 1) * (cells + 1)];
+		for (int row = 0; row < cells; row++) {
+			for (int column = 0; column < cells; column++)
+				sums[(row + 1) * (cells + 1) + column + 1] = counts[row * cells + column]
+						+ sums[row * (cells + 1) + column + 1]
+						+ sums[(row + 1) * (cells + 1) + column]
+						- sums[row * (cells + 1) + column];
+		}
+
+		root = subdivide(0, 0, cells, 0);
+	}
+
+	public int getCells() {
+		return cells;
+	}
+
+	public Node getRoot() {
+		return root;
+	}
+
+	// returns the tile whose lower left cell is at the given row and column
+	public Node getTile(int row, int column) {
+		return tiles[row * cells + column];
+	}
+
+	public List<Node> getTiles() {
+		List<Node> result = new ArrayList<Node>();
+		collect(root, result);
+		return result;
+	}
+
+	private Node subdivide(int row, int column, int size, int level) {
+		long count = count(row, column, size);
+		Node node = new Node(row, column, size, level, count);
+
+		if (count > maxObjects && size > 1) {
+			int half = size / 2;
+			node.children = new Node[]{
+					subdivide(row, column, half, level + 1),
+					subdivide(row, column + half, half, level + 1),
+					subdivide(row + half, column, half, level + 1),
+					subdivide(row + half, column + half, half, level + 1)
+			};
+		} else
+			tiles[row * cells + column] = node;
+
+		return node;
+	}
+
+	private long count(int row, int column, int size) {
+		int stride = cells + 1;
+		return sums[(row + size) * stride + column + size]
+				- sums[row * stride + column + size]
+				- sums[(row + size) * stride + column]
+				+ sums[row * stride + column];
+	}
+
+	private void collect(Node node, List<Node> result) {
+		if (node.isLeaf())
+			result.add(node);
+		else {
+			for (Node child : node.children)
+				collect(child, result);
+		}
+	}
+
+	public static class Node {
+		private final int row;
+		private final int column;
+		private final int size;
+		private final int level;
+		private final long count;
+		private Node[] children;
+
+		private Node(int row, int column, int size, int level, long count) {
+			this.row = row;
+			this.column = column;
+			this.size = size;
+			this.level = level;
+			this.count = count;
+		}
+
+		public int getRow() {
+			return row;
+		}
+
+		public int getColumn() {
+			return column;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public int getLevel() {
+			return level;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public boolean isLeaf() {
+			return children == null;
+		}
+
+		public Node[] getChildren() {
+			return children;
+		}
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+// collects the b3dm tiles of an export and writes them as tileset.json.
+// tiles are arranged in a quadtree over the tiling grid, where each inner
+// node covers the regions of its children
+public class TilesetWriter {
+	private final double EARTH_RADIUS = 6378137;
+	private final List<Tile> tiles = new ArrayList<Tile>();
+
+	public synchronized void addTile(int row, int column, int size, String uri, double[] region, double[] transform) {
+		tiles.add(new Tile(row, column, size, uri, region, transform));
+	}
+
+	public synchronized boolean isEmpty() {
+		return tiles.isEmpty();
+	}
+
+	public synchronized void write(File file) throws IOException {
+		int extent = 1;
+		for (Tile tile : tiles) {
+			while (extent < tile.row + tile.size || extent < tile.column + tile.size)
+				extent <<= 1;
+		}
+
+		Node root = build(0, 0, extent, tiles);
+		if (root == null)
+			return;
+
+		// viewers do not render a tileset with a geometric error of zero. so if the
+		// root is a single tile, the tileset and root get the error of its region
+		double geometricError = root.tile != null ? getDiagonal(root.region) : root.geometricError;
+
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"));
+		try {
+			writer.write("{\n\t\"asset\": {\"version\": \"1.0\"},");
+			writer.write("\n\t\"geometricError\": " + geometricError + ",");
+			writer.write("\n\t\"root\": ");
+			write(root, geometricError, writer, "\t");
+			writer.write("\n}\n");
+		} finally {
+			writer.close();
+		}
+	}
+
+	private Node build(int row, int column, int size, List<Tile> candidates) {
+		if (candidates.isEmpty())
+			return null;
+
+		if (candidates.size() == 1) {
+			Tile tile = candidates.get(0);
+			if (tile.row == row && tile.column == column && tile.size == size || size == 1)
+				return new Node(tile);
+		} else if (size == 1) {
+			List<Node> children = new ArrayList<Node>();
+			for (Tile tile : candidates)
+				children.add(new Node(tile));
+
+			return new Node(children);
+		}
+
+		int half = size / 2;
+		List<Node> children = new ArrayList<Node>();
+		for (int quadrant = 0; quadrant < 4; quadrant++) {
+			int childRow = row + (quadrant / 2) * half;
+			int childColumn = column + (quadrant % 2) * half;
+
+			List<Tile> contained = new ArrayList<Tile>();
+			for (Tile tile : candidates) {
+				if (tile.row >= childRow && tile.row < childRow + half 
+						&& tile.column >= childColumn && tile.column < childColumn + half)
+					contained.add(tile);
+			}
+
+			Node child = build(childRow, childColumn, half, contained);
+			if (child != null)
+				children.add(child);
+		}
+
+		// avoid chains of nodes with a single child
+		if (children.size() == 1)
+			return children.get(0);
+
+		return new Node(children);
+	}
+
+	private void write(Node node, double geometricError, Writer writer, String indent) throws IOException {
+		writer.write("{");
+		writer.write("\n" + indent + "\t\"boundingVolume\": {\"region\": " + toArray(node.region) + "},");
+		writer.write("\n" + indent + "\t\"geometricError\": " + geometricError + ",");
+		writer.write("\n" + indent + "\t\"refine\": \"ADD\"");
+
+		if (node.tile != null) {
+			writer.write(",\n" + indent + "\t\"transform\": " + toArray(node.tile.transform));
+			writer.write(",\n" + indent + "\t\"content\": {\"uri\": \"" + node.tile.uri + "\"}");
+		} else {
+			writer.write(",\n" + indent + "\t\"children\": [");
+			for (int i = 0; i < node.children.size(); i++) {
+				writer.write(i == 0 ? "\n" + indent + "\t\t" : ",\n" + indent + "\t\t");
+				Node child = node.children.get(i);
+				write(child, child.geometricError, writer, indent + "\t\t");
+			}
+			writer.write("\n" + indent + "\t]");
+		}
+
+		writer.write("\n" + indent + "}");
+	}
+
+	// the error of skipping the content of a region is taken as its diagonal in meters
+	private double getDiagonal(double[] region) {
+		double width = (region[2] - region[0]) * EARTH_RADIUS * Math.cos((region[1] + region[3]) / 2);
+		double height = (region[3] - region[1]) * EARTH_RADIUS;
+		return Math.sqrt(width * width + height * height + Math.pow(region[5] - region[4], 2));
+	}
+
+	private String toArray(double[] values) {
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0)
+				builder.append(", ");
+			builder.append(values[i]);
+		}
+
+		return builder.append(']').toString();
+	}
+
+	private final class Tile {
+		private final int row;
+		private final int column;
+		private final int size;
+		private final String uri;
+		private final double[] region;
+		private final double[] transform;
+
+		private Tile(int row, int column, int size, String uri, double[] region, double[] transform) {
+			this.row = row;
+			this.column = column;
+			this.size = size;
+			this.uri = uri;
+			this.region = region;
+			this.transform = transform;
+		}
+	}
+
+	private final class Node {
+		private final Tile tile;
+		private final List<Node> children;
+		private final double[] region;
+		private final double geometricError;
+
+		private Node(Tile tile) {
+			this.tile = tile;
+			children = null;
+			region = tile.region;
+
+			// leaves hold the geometry at full detail
+			geometricError = 0;
+		}
+
+		private Node(List<Node> children) {
+			tile = null;
+			this.children = children;
+
+			region = children.get(0).region.clone();
+			for (Node child : children) {
+				region[0] = Math.min(region[0], child.region[0]);
+				region[1] = Math.min(region[1], child.region[1]);
+				region[2] = Math.max(region[2], child.region[2]);
+				region[3] = Math.max(region[3], child.region[3]);
+				region[4] = Math.min(region[4], child.region[4]);
+				region[5] = Math.max(region[5], child.region[5]);
+			}
+
+			geometricError = getDiagonal(region);
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ * 
+ * Copyright 2013 - 2016
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ * 
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ * 
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.citygml4j.model.citygml.appearance.X3DMaterial;
+
+// triangulated geometry of a city object grouped by material. positions are
+// relative to the origin of the object, x pointing east, y north and z up
+public class TriangleMesh {
+	private LinkedHashMap<String, Primitive> primitives = new LinkedHashMap<String, Primitive>();
+
+	public Primitive getPrimitive(String materialName, String texImageName, X3DMaterial x3dMaterial) {
+		Primitive primitive = primitives.get(materialName);
+		if (primitive == null) {
+			primitive = new Primitive(materialName, texImageName, x3dMaterial);
+			primitives.put(materialName, primitive);
+		}
+
+		return primitive;
+	}
+
+	public List<Primitive> getPrimitives() {
+		return new ArrayList<Primitive>(primitives.values());
+	}
+
+	public boolean isEmpty() {
+		for (Primitive primitive : primitives.values()) {
+			if (primitive.getIndexCount() > 0)
+				return false;
+		}
+
+		return true;
+	}
+
+	public static class Primitive {
+		private final String materialName;
+		private final String texImageName;
+		private final X3DMaterial x3dMaterial;
+
+		private float[] positions = new float[96];
+		private float[] normals = new float[96];
+		private float[] texCoords = new float[64];
+		private int[] indices = new int[96];
+		private int vertexCount;
+		private int indexCount;
+
+		private Primitive(String materialName, String texImageName, X3DMaterial x3dMaterial) {
+			this.materialName = materialName;
+			this.texImageName = texImageName;
+			this.x3dMaterial = x3dMaterial;
+		}
+
+		public int addVertex(double x, double y, double z, float nx, float ny, float nz, double s, double t) {
+			if ((vertexCount + 1) * 3 > positions.length) {
+				positions = Arrays.copyOf(positions, positions.length * 2);
+				normals = Arrays.copyOf(normals, normals.length * 2);
+				texCoords = Arrays.copyOf(texCoords, texCoords.length * 2);
+			}
+
+			positions[vertexCount * 3] = (float)x;
+			positions[vertexCount * 3 + 1] = (float)y;
+			positions[vertexCount * 3 + 2] = (float)z;
+			normals[vertexCount * 3] = nx;
+			normals[vertexCount * 3 + 1] = ny;
+			normals[vertexCount * 3 + 2] = nz;
+			texCoords[vertexCount * 2] = (float)s;
+			texCoords[vertexCount * 2 + 1] = (float)t;
+
+			return vertexCount++;
+		}
+
+		public void addTriangle(int first, int second, int third) {
+			if (indexCount + 3 > indices.length)
+				indices = Arrays.copyOf(indices, indices.length * 2);
+
+			indices[indexCount++] = first;
+			indices[indexCount++] = second;
+			indices[indexCount++] = third;
+		}
+
+		public String getMaterialName() {
+			return materialName;
+		}
+
+		public String getTexImageName() {
+			return texImageName;
+		}
+
+		public boolean isTextured() {
+			return texImageName != null;
+		}
+
+		public X3DMaterial getX3dMaterial() {
+			return x3dMaterial;
+		}
+
+		public float[] getPositions() {
+			return positions;
+		}
+
+		public float[] getNormals() {
+			return normals;
+		}
+
+		public float[] getTexCoords() {
+			return texCoords;
+		}
+
+		public int[] getIndices() {
+			return indices;
+		}
+
+		public int getVertexCount() {
+			return vertexCount;
+		}
+
+		public int getIndexCount() {
+			return indexCount;
+		}
+	}
+
+}